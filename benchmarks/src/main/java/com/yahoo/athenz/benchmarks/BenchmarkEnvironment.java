@@ -0,0 +1,171 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.yahoo.athenz.auth.util.Crypto;
+import com.yahoo.rdl.JSON;
+
+/**
+ * Creates the configuration files required by the ZTS and ZPE
+ * components in a temporary directory: athenz.conf with the ZMS/ZTS
+ * public keys, the JWK configuration and JWK set files for access token
+ * validation and an empty policy directory. All keys are generated by BenchmarkKeys.
+ */
+public class BenchmarkEnvironment {
+
+    public static final String PROP_ATHENZ_CONF = "athenz.athenz_conf";
+    public static final String PROP_JWK_ATHENZ_CONF = "athenz.jwk_athenz_conf";
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    private final File rootDir;
+    private final File athenzConfFile;
+    private final File jwkConfFile;
+    private final File jwkSetFile;
+    private final File policyDir;
+
+    public BenchmarkEnvironment(final String keyType) throws IOException {
+
+        rootDir = Files.createTempDirectory("athenz-benchmarks").toFile();
+        rootDir.deleteOnExit();
+
+        athenzConfFile = new File(rootDir, "athenz.conf");
+        jwkConfFile = new File(rootDir, "athenz_jwks.json");
+        jwkSetFile = new File(rootDir, "jwks.json");
+        policyDir = new File(rootDir, "policy");
+        if (!policyDir.mkdirs()) {
+            throw new IOException("Unable to create policy directory: " + policyDir);
+        }
+
+        writeAthenzConf(keyType);
+        writeJwkConf(keyType);
+    }
+
+    void writeAthenzConf(final String keyType) throws IOException {
+
+        final String pemKey = Crypto.convertToPEMFormat(BenchmarkKeys.getPublicKey(keyType));
+        Map<String, String> publicKey = new LinkedHashMap<>();
+        publicKey.put("id", BenchmarkKeys.KEY_ID);
+        publicKey.put("key", Crypto.ybase64EncodeString(pemKey));
+
+        Map<String, Object> athenzConf = new LinkedHashMap<>();
+        athenzConf.put("zmsUrl", "https://localhost:4443/");
+        athenzConf.put("ztsUrl", "https://localhost:8443/");
+        athenzConf.put("ztsPublicKeys", Collections.singletonList(publicKey));
+        athenzConf.put("zmsPublicKeys", Collections.singletonList(publicKey));
+
+        JSON_MAPPER.writeValue(athenzConfFile, athenzConf);
+    }
+
+    void writeJwkConf(final String keyType) throws IOException {
+
+        Map<String, Object> jwk;
+        if (BenchmarkKeys.EC.equals(keyType)) {
+            jwk = new ECKey.Builder(Curve.P_256, (ECPublicKey) BenchmarkKeys.getPublicKey(keyType))
+                    .keyID(BenchmarkKeys.KEY_ID).algorithm(JWSAlgorithm.ES256).keyUse(KeyUse.SIGNATURE)
+                    .build().toJSONObject();
+        } else {
+            jwk = new RSAKey.Builder((RSAPublicKey) BenchmarkKeys.getPublicKey(keyType))
+                    .keyID(BenchmarkKeys.KEY_ID).algorithm(JWSAlgorithm.RS256).keyUse(KeyUse.SIGNATURE)
+                    .build().toJSONObject();
+        }
+
+        Map<String, Object> keys = new HashMap<>();
+        keys.put("keys", Collections.singletonList(jwk));
+        Map<String, Object> jwkConf = new HashMap<>();
+        jwkConf.put("zts", keys);
+        jwkConf.put("zms", keys);
+
+        JSON_MAPPER.writeValue(jwkConfFile, jwkConf);
+        JSON_MAPPER.writeValue(jwkSetFile, keys);
+    }
+
+    /**
+     * Write the given object as a json file in the policy directory
+     * @param fileName name of the file
+     * @param object object to be serialized
+     * @throws IOException if unable to write the file
+     */
+    public void writePolicyFile(final String fileName, Object object) throws IOException {
+        Path path = new File(policyDir, fileName).toPath();
+        Files.write(path, JSON.bytes(object));
+    }
+
+    /**
+     * Set the system properties shared by the ZTS and ZPE
+     * components to point to our generated configuration files
+     */
+    public void setSystemProperties() {
+        System.setProperty(PROP_ATHENZ_CONF, athenzConfFile.getAbsolutePath());
+        System.setProperty(PROP_JWK_ATHENZ_CONF, jwkConfFile.getAbsolutePath());
+    }
+
+    /**
+     * Return the uri for the json web key set file that can be used
+     * to configure access token signing key resolvers
+     * @return file uri of the jwk set
+     */
+    public String getJwksUri() {
+        return jwkSetFile.toURI().toString();
+    }
+
+    /**
+     * Return the directory that can be used by ZTS change log stores
+     * to keep the local copies of the domain data
+     * @return store directory path
+     */
+    public String getStoreDir() {
+        return new File(rootDir, "store").getAbsolutePath();
+    }
+
+    public File getPolicyDir() {
+        return policyDir;
+    }
+
+    public void close() {
+        deleteDirectory(rootDir);
+    }
+
+    static void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    deleteDirectory(file);
+                } else {
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                }
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        dir.delete();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.benchmarks;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+
+import com.yahoo.athenz.auth.util.Crypto;
+
+/**
+ * RSA and EC key pairs used by the benchmarks. The keys are generated
+ * once per benchmark JVM so no key material needs to be shipped with
+ * the benchmarks module.
+ */
+public class BenchmarkKeys {
+
+    public static final String KEY_ID = "0";
+
+    public static final String RSA = "RSA";
+    public static final String EC = "EC";
+
+    private static final KeyPair RSA_KEY_PAIR = generateRSAKeyPair();
+    private static final KeyPair EC_KEY_PAIR = generateECKeyPair();
+
+    static KeyPair generateRSAKeyPair() {
+        PrivateKey privateKey = Crypto.generateRSAPrivateKey(2048);
+        return new KeyPair(Crypto.extractPublicKey(privateKey), privateKey);
+    }
+
+    static KeyPair generateECKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Unable to generate EC key pair", ex);
+        }
+    }
+
+    public static PrivateKey getPrivateKey(final String keyType) {
+        return EC.equals(keyType) ? EC_KEY_PAIR.getPrivate() : RSA_KEY_PAIR.getPrivate();
+    }
+
+    public static PublicKey getPublicKey(final String keyType) {
+        return EC.equals(keyType) ? EC_KEY_PAIR.getPublic() : RSA_KEY_PAIR.getPublic();
+    }
+
+    public static String getSignatureAlgorithm(final String keyType) {
+        return EC.equals(keyType) ? "ES256" : "RS256";
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.benchmarks;
+
+import java.security.PrivateKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.yahoo.athenz.auth.util.Crypto;
+import com.yahoo.athenz.common.utils.SignUtils;
+import com.yahoo.athenz.zms.DomainData;
+import com.yahoo.athenz.zms.DomainPolicies;
+import com.yahoo.athenz.zms.Group;
+import com.yahoo.athenz.zms.GroupMember;
+import com.yahoo.athenz.zms.Role;
+import com.yahoo.athenz.zms.RoleMember;
+import com.yahoo.athenz.zms.SignedPolicies;
+import com.yahoo.athenz.zts.DomainSignedPolicyData;
+import com.yahoo.athenz.zts.PolicyData;
+import com.yahoo.athenz.zts.SignedPolicyData;
+import com.yahoo.rdl.Timestamp;
+
+/**
+ * Generates synthetic but realistic domain data for the benchmarks.
+ * All values are derived from a seeded random generator so the same
+ * seed and sizes always produce the same domain, which keeps the
+ * benchmark results comparable across runs without any external data.
+ *
+ * A generated domain has the following shape:
+ *   - roles named role0..roleN each with the requested number of members
+ *     selected from a shared user pool so principals are members of
+ *     several roles (like real domains)
+ *   - every 10th role includes a group member and every 50th role
+ *     includes a wildcard (prefix) member
+ *   - groups named group0..groupN with members from the same user pool
+ *   - one policy per role with read/update assertions on resources
+ *     using exact, prefix and generic glob values plus a deny assertion
+ */
+public class DomainDataGenerator {
+
+    public static final long DEFAULT_SEED = 0x41544852L;
+
+    static final String[] ACTIONS = { "read", "update", "delete", "list" };
+
+    private final long seed;
+
+    public DomainDataGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    public DomainDataGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public static String roleName(final String domainName, int index) {
+        return domainName + ":role.role" + index;
+    }
+
+    public static String groupName(final String domainName, int index) {
+        return domainName + ":group.group" + index;
+    }
+
+    public static String userName(int index) {
+        return "user.user" + index;
+    }
+
+    public static String resourceName(final String domainName, int index) {
+        return domainName + ":resource" + index;
+    }
+
+    /**
+     * Return the number of users in the shared pool for the given domain size.
+     * We want each user to be a member of roughly 4 roles on average.
+     * @param roleCount number of roles
+     * @param membersPerRole number of members in each role
+     * @return number of users in the pool
+     */
+    public static int userPoolSize(int roleCount, int membersPerRole) {
+        return Math.max(1, roleCount * membersPerRole / 4);
+    }
+
+    /**
+     * Generate the ZMS domain data object with roles, groups and policies
+     * @param domainName name of the domain
+     * @param roleCount number of roles in the domain
+     * @param membersPerRole number of members in each role
+     * @return generated domain data object
+     */
+    public DomainData generateDomainData(final String domainName, int roleCount, int membersPerRole) {
+
+        Random random = new Random(seed);
+        final int userPool = userPoolSize(roleCount, membersPerRole);
+        final int groupCount = Math.max(1, roleCount / 10);
+
+        List<Group> groups = new ArrayList<>();
+        for (int i = 0; i < groupCount; i++) {
+            List<GroupMember> members = new ArrayList<>();
+            for (int j = 0; j < membersPerRole; j++) {
+                members.add(new GroupMember().setMemberName(userName(random.nextInt(userPool))));
+            }
+            groups.add(new Group().setName(groupName(domainName, i)).setGroupMembers(members)
+                    .setModified(Timestamp.fromCurrentTime()));
+        }
+
+        List<Role> roles = new ArrayList<>();
+        for (int i = 0; i < roleCount; i++) {
+            List<RoleMember> members = new ArrayList<>();
+            for (int j = 0; j < membersPerRole; j++) {
+                members.add(new RoleMember().setMemberName(userName(random.nextInt(userPool))));
+            }
+            if (i % 10 == 0) {
+                members.add(new RoleMember().setMemberName(groupName(domainName, random.nextInt(groupCount))));
+            }
+            if (i % 50 == 0) {
+                members.add(new RoleMember().setMemberName("user.user" + random.nextInt(10) + "*"));
+            }
+            roles.add(new Role().setName(roleName(domainName, i)).setRoleMembers(members)
+                    .setModified(Timestamp.fromCurrentTime()));
+        }
+
+        List<com.yahoo.athenz.zms.Policy> policies = new ArrayList<>();
+        for (int i = 0; i < roleCount; i++) {
+            policies.add(new com.yahoo.athenz.zms.Policy()
+                    .setName(domainName + ":policy.policy" + i)
+                    .setAssertions(generateZMSAssertions(random, domainName, i)));
+        }
+
+        DomainPolicies domainPolicies = new DomainPolicies().setDomain(domainName).setPolicies(policies);
+        return new DomainData().setName(domainName)
+                .setModified(Timestamp.fromCurrentTime())
+                .setRoles(roles)
+                .setGroups(groups)
+                .setPolicies(new SignedPolicies().setContents(domainPolicies));
+    }
+
+    List<com.yahoo.athenz.zms.Assertion> generateZMSAssertions(Random random, final String domainName, int roleIndex) {
+
+        List<com.yahoo.athenz.zms.Assertion> assertions = new ArrayList<>();
+        for (String[] value : generateAssertionValues(random, domainName, roleIndex)) {
+            com.yahoo.athenz.zms.Assertion assertion = new com.yahoo.athenz.zms.Assertion()
+                    .setRole(value[0]).setAction(value[1]).setResource(value[2]);
+            if (value[3] != null) {
+                assertion.setEffect(com.yahoo.athenz.zms.AssertionEffect.DENY);
+            }
+            assertions.add(assertion);
+        }
+        return assertions;
+    }
+
+    /**
+     * Generate the ZTS policy data object as it would be returned by ZTS
+     * to the ZPE clients for the given domain
+     * @param domainName name of the domain
+     * @param roleCount number of roles (and policies) in the domain
+     * @return generated policy data object
+     */
+    public PolicyData generatePolicyData(final String domainName, int roleCount) {
+
+        Random random = new Random(seed);
+        List<com.yahoo.athenz.zts.Policy> policies = new ArrayList<>();
+        for (int i = 0; i < roleCount; i++) {
+            List<com.yahoo.athenz.zts.Assertion> assertions = new ArrayList<>();
+            for (String[] value : generateAssertionValues(random, domainName, i)) {
+                com.yahoo.athenz.zts.Assertion assertion = new com.yahoo.athenz.zts.Assertion()
+                        .setRole(value[0]).setAction(value[1]).setResource(value[2]);
+                assertion.setEffect(value[3] != null ? com.yahoo.athenz.zts.AssertionEffect.DENY
+                        : com.yahoo.athenz.zts.AssertionEffect.ALLOW);
+                assertions.add(assertion);
+            }
+            policies.add(new com.yahoo.athenz.zts.Policy()
+                    .setName(domainName + ":policy.policy" + i)
+                    .setAssertions(assertions));
+        }
+        return new PolicyData().setDomain(domainName).setPolicies(policies);
+    }
+
+    /**
+     * Generate the signed policy data object for the given domain
+     * with the policy data signed by the given key
+     * @param domainName name of the domain
+     * @param roleCount number of roles (and policies) in the domain
+     * @param privateKey private key to generate the zms signature
+     * @return signed policy data object
+     */
+    public SignedPolicyData generateSignedPolicyData(final String domainName, int roleCount,
+            PrivateKey privateKey) {
+
+        final long now = System.currentTimeMillis();
+        PolicyData policyData = generatePolicyData(domainName, roleCount);
+        return new SignedPolicyData()
+                .setPolicyData(policyData)
+                .setZmsKeyId(BenchmarkKeys.KEY_ID)
+                .setZmsSignature(Crypto.sign(SignUtils.asCanonicalString(policyData), privateKey))
+                .setModified(Timestamp.fromMillis(now))
+                .setExpires(Timestamp.fromMillis(now + TimeUnit.DAYS.toMillis(7)));
+    }
+
+    /**
+     * Generate the domain signed policy data object signed with the given key.
+     * This is the format of the policy files loaded by the ZPE client
+     * @param domainName name of the domain
+     * @param roleCount number of roles (and policies) in the domain
+     * @param privateKey private key to sign the policy data
+     * @return signed policy data object
+     */
+    public DomainSignedPolicyData generateDomainSignedPolicyData(final String domainName, int roleCount,
+            PrivateKey privateKey) {
+
+        SignedPolicyData signedPolicyData = generateSignedPolicyData(domainName, roleCount, privateKey);
+        final String signature = Crypto.sign(SignUtils.asCanonicalString(signedPolicyData), privateKey);
+        return new DomainSignedPolicyData().setSignedPolicyData(signedPolicyData)
+                .setSignature(signature).setKeyId(BenchmarkKeys.KEY_ID);
+    }
+
+    /**
+     * Generate the assertion values for the given role. Each entry includes
+     * role, action, resource and a non-null 4th value for deny assertions.
+     */
+    List<String[]> generateAssertionValues(Random random, final String domainName, int roleIndex) {
+
+        final String roleName = roleName(domainName, roleIndex);
+        List<String[]> values = new ArrayList<>();
+
+        // exact resource match
+
+        values.add(new String[] { roleName, ACTIONS[random.nextInt(ACTIONS.length)],
+                resourceName(domainName, roleIndex), null });
+
+        // prefix resource match
+
+        values.add(new String[] { roleName, "read", resourceName(domainName, roleIndex) + ".*", null });
+
+        // generic glob match for every 5th role
+
+        if (roleIndex % 5 == 0) {
+            values.add(new String[] { roleName, "update",
+                    domainName + ":service*.resource?" + roleIndex, null });
+        }
+
+        // deny assertion for every 20th role
+
+        if (roleIndex % 20 == 0) {
+            values.add(new String[] { roleName, "*", resourceName(domainName, roleIndex) + ".secret", "deny" });
+        }
+        return values;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.benchmarks.auth;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.yahoo.athenz.auth.token.AccessToken;
+import com.yahoo.athenz.benchmarks.BenchmarkKeys;
+
+/**
+ * Generation, parsing and signature validation of access tokens
+ * signed with RSA and EC keys with a varying number of roles
+ * in the token scope.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessTokenBenchmark {
+
+    @Param({ BenchmarkKeys.RSA, BenchmarkKeys.EC })
+    public String keyType;
+
+    @Param({ "1", "20" })
+    public int scopeSize;
+
+    private PrivateKey privateKey;
+    private PublicKey publicKey;
+    private String sigAlgorithm;
+    private AccessToken accessToken;
+    private String signedToken;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        privateKey = BenchmarkKeys.getPrivateKey(keyType);
+        publicKey = BenchmarkKeys.getPublicKey(keyType);
+        sigAlgorithm = BenchmarkKeys.getSignatureAlgorithm(keyType);
+
+        List<String> roles = new ArrayList<>();
+        for (int i = 0; i < scopeSize; i++) {
+            roles.add("role" + i);
+        }
+
+        final long now = System.currentTimeMillis() / 1000;
+        accessToken = new AccessToken();
+        accessToken.setVersion(1);
+        accessToken.setAudience("benchmark");
+        accessToken.setIssuer("https://athenz.io");
+        accessToken.setSubject("user.user1");
+        accessToken.setClientId("user.user1");
+        accessToken.setUserId("user.user1");
+        accessToken.setJwtId("3b4e0bd6-38c4-4b9e-a3b5-2a0d6f7a0f41");
+        accessToken.setScope(roles);
+        accessToken.setIssueTime(now);
+        accessToken.setAuthTime(now);
+        accessToken.setExpiryTime(now + TimeUnit.DAYS.toSeconds(1));
+
+        signedToken = accessToken.getSignedToken(privateKey, BenchmarkKeys.KEY_ID, sigAlgorithm);
+    }
+
+    @Benchmark
+    public String generate() {
+        return accessToken.getSignedToken(privateKey, BenchmarkKeys.KEY_ID, sigAlgorithm);
+    }
+
+    @Benchmark
+    public AccessToken parseAndValidate() {
+        return new AccessToken(signedToken, publicKey);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.benchmarks.auth;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.yahoo.athenz.auth.util.Crypto;
+import com.yahoo.athenz.benchmarks.BenchmarkKeys;
+import com.yahoo.athenz.benchmarks.DomainDataGenerator;
+import com.yahoo.athenz.common.utils.SignUtils;
+
+/**
+ * Crypto.sign and Crypto.verify with RSA and EC keys. The signed message
+ * is the canonical string of a generated policy data object so the
+ * message size follows the number of roles in the domain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptoBenchmark {
+
+    @Param({ BenchmarkKeys.RSA, BenchmarkKeys.EC })
+    public String keyType;
+
+    @Param({ "10", "1000" })
+    public int roleCount;
+
+    private PrivateKey privateKey;
+    private PublicKey publicKey;
+    private String message;
+    private String signature;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        privateKey = BenchmarkKeys.getPrivateKey(keyType);
+        publicKey = BenchmarkKeys.getPublicKey(keyType);
+        message = SignUtils.asCanonicalString(new DomainDataGenerator()
+                .generateSignedPolicyData("benchmark", roleCount, privateKey));
+        signature = Crypto.sign(message, privateKey);
+    }
+
+    @Benchmark
+    public String sign() {
+        return Crypto.sign(message, privateKey);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return Crypto.verify(message, publicKey, signature);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.benchmarks.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.yahoo.athenz.common.server.util.IPBlock;
+import com.yahoo.athenz.common.server.util.IPPrefixTrie;
+
+/**
+ * Provider IP block checks with the IP prefix trie compared to the
+ * linear scan of IPBlock entries. The matching address is included in
+ * the last generated block, so the linear scan must check all blocks,
+ * while the unknown address is not included in any of the blocks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IPPrefixTrieBenchmark {
+
+    @Param({ "10", "1000", "10000" })
+    public int blockCount;
+
+    private IPPrefixTrie ipPrefixTrie;
+    private List<IPBlock> ipBlocks;
+    private String matchingAddress;
+    private String unknownAddress;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        Random random = new Random(1234);
+        ipPrefixTrie = new IPPrefixTrie();
+        ipBlocks = new ArrayList<>();
+
+        String block = null;
+        for (int i = 0; i < blockCount; i++) {
+            block = "10." + random.nextInt(256) + "." + random.nextInt(256) + ".0/24";
+            ipPrefixTrie.addPrefix(block);
+            ipBlocks.add(new IPBlock(block));
+        }
+
+        matchingAddress = block.substring(0, block.length() - 4) + "25";
+        unknownAddress = "11.1.1.25";
+
+        if (!ipPrefixTrie.contains(matchingAddress) || !linearCheck(matchingAddress)) {
+            throw new IllegalStateException("No block for matching address " + matchingAddress);
+        }
+    }
+
+    boolean linearCheck(final String ipAddress) {
+        long ipAddr = IPBlock.convertIPToLong(ipAddress);
+        for (IPBlock ipBlock : ipBlocks) {
+            if (ipBlock.ipCheck(ipAddr)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean trieMatchingAddress() {
+        return ipPrefixTrie.contains(matchingAddress);
+    }
+
+    @Benchmark
+    public boolean trieUnknownAddress() {
+        return ipPrefixTrie.contains(unknownAddress);
+    }
+
+    @Benchmark
+    public boolean linearMatchingAddress() {
+        return linearCheck(matchingAddress);
+    }
+
+    @Benchmark
+    public boolean linearUnknownAddress() {
+        return linearCheck(unknownAddress);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.benchmarks.common;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.yahoo.athenz.benchmarks.BenchmarkKeys;
+import com.yahoo.athenz.benchmarks.DomainDataGenerator;
+import com.yahoo.athenz.common.utils.SignUtils;
+import com.yahoo.athenz.zms.DomainData;
+import com.yahoo.athenz.zts.SignedPolicyData;
+
+/**
+ * SignUtils.asCanonicalString for generated domain and signed policy
+ * data objects compared with the original rdl Struct based implementation.
+ * The setup verifies that both implementations generate identical output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignUtilsBenchmark {
+
+    @Param({ "100", "1000" })
+    public int roleCount;
+
+    @Param({ "10", "100" })
+    public int membersPerRole;
+
+    private DomainData domainData;
+    private SignedPolicyData signedPolicyData;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        DomainDataGenerator generator = new DomainDataGenerator();
+        domainData = generator.generateDomainData("benchmark", roleCount, membersPerRole);
+        signedPolicyData = generator.generateSignedPolicyData("benchmark", roleCount,
+                BenchmarkKeys.getPrivateKey(BenchmarkKeys.EC));
+
+        if (!SignUtils.asCanonicalString(domainData).equals(StructSignUtils.asCanonicalString(domainData))
+                || !SignUtils.asCanonicalString(signedPolicyData).equals(StructSignUtils.asCanonicalString(signedPolicyData))) {
+            throw new IllegalStateException("Canonical string mismatch");
+        }
+    }
+
+    @Benchmark
+    public String domainDataStreaming() {
+        return SignUtils.asCanonicalString(domainData);
+    }
+
+    @Benchmark
+    public String domainDataStruct() {
+        return StructSignUtils.asCanonicalString(domainData);
+    }
+
+    @Benchmark
+    public String signedPolicyDataStreaming() {
+        return SignUtils.asCanonicalString(signedPolicyData);
+    }
+
+    @Benchmark
+    public String signedPolicyDataStruct() {
+        return StructSignUtils.asCanonicalString(signedPolicyData);
+    }
+}
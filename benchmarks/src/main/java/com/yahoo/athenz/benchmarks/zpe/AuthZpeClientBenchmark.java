@@ -0,0 +1,145 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.benchmarks.zpe;
+
+import java.security.PrivateKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.yahoo.athenz.auth.token.AccessToken;
+import com.yahoo.athenz.auth.token.RoleToken;
+import com.yahoo.athenz.benchmarks.BenchmarkEnvironment;
+import com.yahoo.athenz.benchmarks.BenchmarkKeys;
+import com.yahoo.athenz.benchmarks.DomainDataGenerator;
+import com.yahoo.athenz.zpe.AuthZpeClient;
+import com.yahoo.athenz.zpe.AuthZpeClient.AccessCheckStatus;
+import com.yahoo.athenz.zpe.ZpeConsts;
+
+/**
+ * AuthZpeClient.allowAccess with role and access tokens against a
+ * generated policy file. The tokens are validated on the first call and
+ * served from the token cache afterwards, so the results reflect the
+ * policy evaluation cost for the given domain size. The ZPE client
+ * reads its configuration in static initializers, so all system
+ * properties must be set before the class is loaded - each parameter
+ * combination runs in its own forked JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthZpeClientBenchmark {
+
+    static final String DOMAIN_NAME = "benchmark";
+
+    @Param({ "10", "100", "1000" })
+    public int roleCount;
+
+    @Param({ "5" })
+    public int tokenRoleCount;
+
+    private BenchmarkEnvironment environment;
+    private String roleToken;
+    private String accessToken;
+    private String allowResource;
+    private String noMatchResource;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+
+        environment = new BenchmarkEnvironment(BenchmarkKeys.RSA);
+
+        PrivateKey privateKey = BenchmarkKeys.getPrivateKey(BenchmarkKeys.RSA);
+        environment.writePolicyFile(DOMAIN_NAME + ".pol", new DomainDataGenerator()
+                .generateDomainSignedPolicyData(DOMAIN_NAME, roleCount, privateKey));
+
+        environment.setSystemProperties();
+        System.setProperty(ZpeConsts.ZPE_PROP_POLICY_DIR, environment.getPolicyDir().getAbsolutePath());
+        System.setProperty(ZpeConsts.ZPE_PROP_MON_TIMEOUT, "3600");
+
+        // the tokens include roles from the end of the role list so
+        // the last role in the token is the one that grants access
+
+        List<String> roles = new ArrayList<>();
+        for (int i = 0; i < tokenRoleCount; i++) {
+            roles.add("role" + Math.max(0, roleCount - tokenRoleCount + i));
+        }
+        final int roleIndex = roleCount - 1;
+        allowResource = DomainDataGenerator.resourceName(DOMAIN_NAME, roleIndex) + ".data";
+        noMatchResource = DOMAIN_NAME + ":unknown";
+
+        RoleToken token = new RoleToken.Builder("Z1", DOMAIN_NAME, roles)
+                .salt("aAkjbbDMhnLX").expirationWindow(TimeUnit.DAYS.toSeconds(1))
+                .keyId(BenchmarkKeys.KEY_ID).build();
+        token.sign(privateKey);
+        roleToken = token.getSignedToken();
+
+        final long now = System.currentTimeMillis() / 1000;
+        AccessToken acsToken = new AccessToken();
+        acsToken.setVersion(1);
+        acsToken.setAudience(DOMAIN_NAME);
+        acsToken.setIssuer("athenz");
+        acsToken.setSubject("user.user1");
+        acsToken.setScope(roles);
+        acsToken.setIssueTime(now);
+        acsToken.setExpiryTime(now + TimeUnit.DAYS.toSeconds(1));
+        accessToken = acsToken.getSignedToken(privateKey, BenchmarkKeys.KEY_ID, "RS256");
+
+        // now we can load our zpe client and configure the access
+        // token key resolver to use our generated jwk set
+
+        AuthZpeClient.setAccessTokenSignKeyResolver(environment.getJwksUri(), null);
+
+        AccessCheckStatus status = AuthZpeClient.allowAccess(roleToken, allowResource, "read");
+        if (status != AccessCheckStatus.ALLOW) {
+            throw new IllegalStateException("Unexpected role token access check status: " + status);
+        }
+        status = AuthZpeClient.allowAccess(accessToken, allowResource, "read");
+        if (status != AccessCheckStatus.ALLOW) {
+            throw new IllegalStateException("Unexpected access token access check status: " + status);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public AccessCheckStatus roleTokenAllow() {
+        return AuthZpeClient.allowAccess(roleToken, allowResource, "read");
+    }
+
+    @Benchmark
+    public AccessCheckStatus roleTokenNoMatch() {
+        return AuthZpeClient.allowAccess(roleToken, noMatchResource, "read");
+    }
+
+    @Benchmark
+    public AccessCheckStatus accessTokenAllow() {
+        return AuthZpeClient.allowAccess(accessToken, allowResource, "read");
+    }
+
+    @Benchmark
+    public AccessCheckStatus accessTokenNoMatch() {
+        return AuthZpeClient.allowAccess(accessToken, noMatchResource, "read");
+    }
+}
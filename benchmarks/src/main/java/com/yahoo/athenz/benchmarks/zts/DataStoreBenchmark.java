@@ -0,0 +1,110 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.benchmarks.zts;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.yahoo.athenz.benchmarks.BenchmarkEnvironment;
+import com.yahoo.athenz.benchmarks.BenchmarkKeys;
+import com.yahoo.athenz.benchmarks.DomainDataGenerator;
+import com.yahoo.athenz.common.metrics.impl.NoOpMetric;
+import com.yahoo.athenz.common.server.store.ChangeLogStore;
+import com.yahoo.athenz.common.server.store.impl.ZMSFileChangeLogStore;
+import com.yahoo.athenz.zts.cache.DataCache;
+import com.yahoo.athenz.zts.store.DataStore;
+
+/**
+ * DataStore.getAccessibleRoles against generated domains of varying
+ * size. The regular user is a member of several roles (directly and
+ * through groups), the prefix user only matches the wildcard members
+ * and the unknown user is not a member of any role in the domain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataStoreBenchmark {
+
+    static final String DOMAIN_NAME = "benchmark";
+
+    @Param({ "10", "100", "1000" })
+    public int roleCount;
+
+    @Param({ "10", "100" })
+    public int membersPerRole;
+
+    private BenchmarkEnvironment environment;
+    private DataStore dataStore;
+    private DataCache dataCache;
+    private String memberPrincipal;
+    private String prefixPrincipal;
+    private String unknownPrincipal;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+
+        environment = new BenchmarkEnvironment(BenchmarkKeys.RSA);
+        environment.setSystemProperties();
+
+        ChangeLogStore changeLogStore = new ZMSFileChangeLogStore(environment.getStoreDir(),
+                BenchmarkKeys.getPrivateKey(BenchmarkKeys.RSA), BenchmarkKeys.KEY_ID);
+        dataStore = new DataStore(changeLogStore, null, new NoOpMetric());
+        dataStore.processDomainData(new DomainDataGenerator()
+                .generateDomainData(DOMAIN_NAME, roleCount, membersPerRole));
+        dataCache = dataStore.getDataCache(DOMAIN_NAME);
+
+        final int userPool = DomainDataGenerator.userPoolSize(roleCount, membersPerRole);
+        memberPrincipal = DomainDataGenerator.userName(userPool / 2);
+        prefixPrincipal = "user.user" + (userPool + 1) * 10;
+        unknownPrincipal = "user.unknown";
+
+        if (getAccessibleRoles(memberPrincipal).isEmpty()) {
+            throw new IllegalStateException("No roles for member principal " + memberPrincipal);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    Set<String> getAccessibleRoles(final String principal) {
+        Set<String> roles = new HashSet<>();
+        dataStore.getAccessibleRoles(dataCache, DOMAIN_NAME, principal, null, false, roles, false);
+        return roles;
+    }
+
+    @Benchmark
+    public Set<String> memberPrincipal() {
+        return getAccessibleRoles(memberPrincipal);
+    }
+
+    @Benchmark
+    public Set<String> prefixPrincipal() {
+        return getAccessibleRoles(prefixPrincipal);
+    }
+
+    @Benchmark
+    public Set<String> unknownPrincipal() {
+        return getAccessibleRoles(unknownPrincipal);
+    }
+}
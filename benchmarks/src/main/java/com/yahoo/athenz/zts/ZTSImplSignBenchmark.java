@@ -0,0 +1,84 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts;
+
+import java.util.concurrent.TimeUnit;
+
+import org.objenesis.ObjenesisStd;
+import org.openjdk.jmh.annotations.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yahoo.athenz.auth.ServerPrivateKey;
+import com.yahoo.athenz.benchmarks.BenchmarkKeys;
+import com.yahoo.athenz.benchmarks.DomainDataGenerator;
+
+/**
+ * ZTSImpl.signJwsPolicyData for generated policy data objects with RSA
+ * and EC keys. The method is package private so the benchmark lives in
+ * the zts package. Creating a fully initialized ZTSImpl object requires
+ * a running store and configuration files, so we only allocate the object
+ * and set the fields that are used when signing the policy data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZTSImplSignBenchmark {
+
+    @Param({ BenchmarkKeys.RSA, BenchmarkKeys.EC })
+    public String keyType;
+
+    @Param({ "10", "100", "1000" })
+    public int roleCount;
+
+    private ZTSImpl ztsImpl;
+    private SignedPolicyData signedPolicyData;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        ztsImpl = new ObjenesisStd().newInstance(ZTSImpl.class);
+        ztsImpl.jsonMapper = new ObjectMapper();
+
+        ServerPrivateKey privateKey = new ServerPrivateKey(BenchmarkKeys.getPrivateKey(keyType),
+                BenchmarkKeys.KEY_ID);
+        if (BenchmarkKeys.EC.equals(keyType)) {
+            ztsImpl.privateECKey = privateKey;
+            ztsImpl.keyAlgoForJsonWebObjects = ZTSConsts.EC;
+        } else {
+            ztsImpl.privateRSAKey = privateKey;
+            ztsImpl.keyAlgoForJsonWebObjects = ZTSConsts.RSA;
+        }
+
+        signedPolicyData = new DomainDataGenerator().generateSignedPolicyData("benchmark", roleCount,
+                privateKey.getKey());
+        if (ztsImpl.signJwsPolicyData(signedPolicyData, false) == null) {
+            throw new IllegalStateException("Unable to sign policy data");
+        }
+    }
+
+    @Benchmark
+    public JWSPolicyData signJwsPolicyData() {
+        return ztsImpl.signJwsPolicyData(signedPolicyData, false);
+    }
+
+    @Benchmark
+    public JWSPolicyData signJwsPolicyDataP1363() {
+        return ztsImpl.signJwsPolicyData(signedPolicyData, true);
+    }
+}
@@ -39,6 +39,7 @@ import javax.security.auth.x500.X500Principal;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.util.*;
+import java.util.function.ToLongFunction;
 
 import static com.yahoo.athenz.zpe.ZpeConsts.ZPE_PROP_MILLIS_BETWEEN_ZTS_CALLS;
 
@@ -77,6 +78,14 @@ public class AuthZpeClient {
 
     private static int maxTokenCacheSize = 10240;
 
+    // when the token cache is full we evict tokens until the
+    // cache size is reduced to this percentage of the limit
+
+    private static final int TOKEN_CACHE_EVICT_PERCENT = 90;
+
+    private static final ZpeTokenCacheStats ROLE_TOKEN_CACHE_STATS = new ZpeTokenCacheStats();
+    private static final ZpeTokenCacheStats ACCESS_TOKEN_CACHE_STATS = new ZpeTokenCacheStats();
+
     public enum AccessCheckStatus {
         ALLOW {
             public String toString() {
@@ -247,9 +256,9 @@ public class AuthZpeClient {
      * expired. However, incorrectly configured client might generate
      * a new token for every request and eventually cause the server
      * to run out of memory. Once the limit is reached, the library
-     * will no longer cache any tokens until the expiry thread cleans
-     * up the expired tokens and the size of the cache is smaller than
-     * the configured number. The value of 0 indicates no limit. The
+     * evicts all expired tokens and, if necessary, the tokens with the
+     * earliest expiry time to make room for new tokens. The value of
+     * 0 indicates no limit. The
      * default value of cached tokens is 10K. The value can also be
      * configured by using the athenz.zpe.max_token_cache_entries
      * system property.
@@ -263,6 +272,22 @@ public class AuthZpeClient {
         }
     }
 
+    /**
+     * Return the statistics for the role token cache
+     * @return role token cache statistics
+     */
+    public static ZpeTokenCacheStats getRoleTokenCacheStats() {
+        return ROLE_TOKEN_CACHE_STATS;
+    }
+
+    /**
+     * Return the statistics for the access token cache
+     * @return access token cache statistics
+     */
+    public static ZpeTokenCacheStats getAccessTokenCacheStats() {
+        return ACCESS_TOKEN_CACHE_STATS;
+    }
+
     /**
      * Set the list of Athenz CA issuers with their full DNs that
      * ZPE should honor.
@@ -582,6 +607,8 @@ public class AuthZpeClient {
 
         if (rToken == null) {
 
+            ROLE_TOKEN_CACHE_STATS.recordMiss();
+            final long startTime = System.nanoTime();
             rToken = new RoleToken(roleToken);
 
             // validate the token. validation also verifies that
@@ -601,7 +628,10 @@ public class AuthZpeClient {
                 return AccessCheckStatus.DENY_ROLETOKEN_INVALID;
             }
 
-            addTokenToCache(tokenCache, roleToken, rToken);
+            ROLE_TOKEN_CACHE_STATS.recordValidation(System.nanoTime() - startTime);
+            addTokenToCache(tokenCache, roleToken, rToken, RoleToken::getExpiryTime, ROLE_TOKEN_CACHE_STATS);
+        } else {
+            ROLE_TOKEN_CACHE_STATS.recordHit();
         }
 
         return allowAccess(rToken, resource, action, matchRoleName);
@@ -631,6 +661,8 @@ public class AuthZpeClient {
 
         if (acsToken == null) {
 
+            ACCESS_TOKEN_CACHE_STATS.recordMiss();
+            final long startTime = System.nanoTime();
             try {
                 if (cert == null && certHash == null) {
                     acsToken = new AccessToken(accessToken, accessSignKeyResolver);
@@ -651,7 +683,10 @@ public class AuthZpeClient {
                 return AccessCheckStatus.DENY_ROLETOKEN_INVALID;
             }
 
-            addTokenToCache(tokenCache, accessToken, acsToken);
+            ACCESS_TOKEN_CACHE_STATS.recordValidation(System.nanoTime() - startTime);
+            addTokenToCache(tokenCache, accessToken, acsToken, AccessToken::getExpiryTime, ACCESS_TOKEN_CACHE_STATS);
+        } else {
+            ACCESS_TOKEN_CACHE_STATS.recordHit();
         }
 
         return allowAccess(acsToken, resource, action, matchRoleName);
@@ -840,6 +875,8 @@ public class AuthZpeClient {
 
         if (acsToken == null) {
 
+            ACCESS_TOKEN_CACHE_STATS.recordMiss();
+            final long startTime = System.nanoTime();
             try {
                 if (cert == null && certHash == null) {
                     acsToken = new AccessToken(accessToken, accessSignKeyResolver);
@@ -853,7 +890,10 @@ public class AuthZpeClient {
                 return null;
             }
 
-            addTokenToCache(tokenCache, accessToken, acsToken);
+            ACCESS_TOKEN_CACHE_STATS.recordValidation(System.nanoTime() - startTime);
+            addTokenToCache(tokenCache, accessToken, acsToken, AccessToken::getExpiryTime, ACCESS_TOKEN_CACHE_STATS);
+        } else {
+            ACCESS_TOKEN_CACHE_STATS.recordHit();
         }
 
         return acsToken;
@@ -884,6 +924,8 @@ public class AuthZpeClient {
         // validate the token now
         
         if (rToken == null) {
+            ROLE_TOKEN_CACHE_STATS.recordMiss();
+            final long startTime = System.nanoTime();
             rToken = new RoleToken(roleToken);
             
             // validate the token
@@ -891,7 +933,10 @@ public class AuthZpeClient {
             if (!rToken.validate(getZtsPublicKey(rToken.getKeyId()), allowedOffset, false, null)) {
                 return null;
             }
-            addTokenToCache(tokenCache, roleToken, rToken);
+            ROLE_TOKEN_CACHE_STATS.recordValidation(System.nanoTime() - startTime);
+            addTokenToCache(tokenCache, roleToken, rToken, RoleToken::getExpiryTime, ROLE_TOKEN_CACHE_STATS);
+        } else {
+            ROLE_TOKEN_CACHE_STATS.recordHit();
         }
         
         return rToken;
@@ -988,6 +1033,15 @@ public class AuthZpeClient {
             return AccessCheckStatus.DENY_DOMAIN_MISMATCH;
         }
 
+        // if our client has a compiled policy for the domain then we'll
+        // use that instead of processing the assertion lists
+
+        ZpeDomainPolicy domainPolicy = zpeClt.getDomainPolicy(tokenDomain);
+        if (domainPolicy != null) {
+            return allowActionByDomainPolicy(domainPolicy, action, tokenDomain, resource,
+                    roles, matchRoleName, msgPrefix);
+        }
+
         // first hunt by role for deny assertions since deny takes precedence
         // over allow assertions
 
@@ -1054,6 +1108,63 @@ public class AuthZpeClient {
         return status;
     }
 
+    static AccessCheckStatus allowActionByDomainPolicy(ZpeDomainPolicy domainPolicy, String action,
+            String tokenDomain, String resource, List<String> roles, StringBuilder matchRoleName,
+            final String msgPrefix) {
+
+        // we follow the same order as with the assertion maps - standard
+        // and wildcard deny roles first and then standard and wildcard
+        // allow roles. if all maps are empty, the domain has no assertions
+
+        AccessCheckStatus status = AccessCheckStatus.DENY_DOMAIN_EMPTY;
+        String roleName;
+
+        if (!domainPolicy.isStandardDenyEmpty()) {
+            roleName = domainPolicy.matchStandardDenyRole(roles, action, resource);
+            if (roleName != null) {
+                return setMatchRoleName(matchRoleName, roleName, AccessCheckStatus.DENY);
+            }
+            status = AccessCheckStatus.DENY_NO_MATCH;
+        }
+
+        if (!domainPolicy.isWildcardDenyEmpty()) {
+            roleName = domainPolicy.matchWildcardDenyRole(roles, action, resource);
+            if (roleName != null) {
+                return setMatchRoleName(matchRoleName, roleName, AccessCheckStatus.DENY);
+            }
+            status = AccessCheckStatus.DENY_NO_MATCH;
+        }
+
+        if (!domainPolicy.isStandardAllowEmpty()) {
+            roleName = domainPolicy.matchStandardAllowRole(roles, action, resource);
+            if (roleName != null) {
+                return setMatchRoleName(matchRoleName, roleName, AccessCheckStatus.ALLOW);
+            }
+            status = AccessCheckStatus.DENY_NO_MATCH;
+        }
+
+        if (!domainPolicy.isWildcardAllowEmpty()) {
+            roleName = domainPolicy.matchWildcardAllowRole(roles, action, resource);
+            if (roleName != null) {
+                return setMatchRoleName(matchRoleName, roleName, AccessCheckStatus.ALLOW);
+            }
+            status = AccessCheckStatus.DENY_NO_MATCH;
+        }
+
+        if (status == AccessCheckStatus.DENY_DOMAIN_EMPTY) {
+            LOG.error("{}: No policy assertions for domain={} so access denied", msgPrefix, tokenDomain);
+        }
+
+        return status;
+    }
+
+    static AccessCheckStatus setMatchRoleName(StringBuilder matchRoleName, final String roleName,
+            AccessCheckStatus status) {
+        matchRoleName.setLength(0);
+        matchRoleName.append(roleName);
+        return status;
+    }
+
     static boolean matchAssertions(List<Struct> asserts, String role, String action,
             String resource, StringBuilder matchRoleName, String msgPrefix) {
         
@@ -1267,9 +1378,60 @@ public class AuthZpeClient {
         return false;
     }
 
-    static <T> void addTokenToCache(Map<String, T> tokenCache, final String tokenKey, T tokenValue) {
-        if (maxTokenCacheSize == 0 || tokenCache.size() < maxTokenCacheSize) {
-            tokenCache.put(tokenKey, tokenValue);
+    static <T> void addTokenToCache(Map<String, T> tokenCache, final String tokenKey, T tokenValue,
+            ToLongFunction<T> expiryTime, ZpeTokenCacheStats cacheStats) {
+
+        // if the cache is full then we need to evict some tokens
+        // before we can add our new token
+
+        if (maxTokenCacheSize != 0 && tokenCache.size() >= maxTokenCacheSize) {
+            evictTokens(tokenCache, expiryTime, cacheStats);
+        }
+        tokenCache.put(tokenKey, tokenValue);
+    }
+
+    static <T> void evictTokens(Map<String, T> tokenCache, ToLongFunction<T> expiryTime,
+            ZpeTokenCacheStats cacheStats) {
+
+        // we only want a single thread to process the cache. we evict
+        // a batch of tokens at a time, so once the lock is released
+        // the other threads will find enough room in the cache
+
+        synchronized (tokenCache) {
+
+            if (tokenCache.size() < maxTokenCacheSize) {
+                return;
+            }
+
+            // first we're going to remove all expired tokens
+
+            int evicted = 0;
+            final long now = System.currentTimeMillis() / 1000;
+            Iterator<T> iterator = tokenCache.values().iterator();
+            while (iterator.hasNext()) {
+                if (expiryTime.applyAsLong(iterator.next()) < now) {
+                    iterator.remove();
+                    evicted += 1;
+                }
+            }
+
+            // if we still have more tokens than our eviction target then
+            // we'll remove the tokens that are going to expire the soonest
+            // since those tokens are the least valuable to keep around
+
+            final int evictTarget = (int) ((long) maxTokenCacheSize * TOKEN_CACHE_EVICT_PERCENT / 100);
+            final int evictCount = tokenCache.size() - evictTarget;
+            if (evictCount > 0) {
+                List<Map.Entry<String, T>> entries = new ArrayList<>(tokenCache.entrySet());
+                entries.sort(Comparator.comparingLong(entry -> expiryTime.applyAsLong(entry.getValue())));
+                for (int i = 0; i < evictCount && i < entries.size(); i++) {
+                    if (tokenCache.remove(entries.get(i).getKey()) != null) {
+                        evicted += 1;
+                    }
+                }
+            }
+
+            cacheStats.recordEvictions(evicted);
         }
     }
 
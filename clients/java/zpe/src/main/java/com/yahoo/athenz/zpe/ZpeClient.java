@@ -54,5 +54,12 @@ public interface ZpeClient {
 
     // return the number of domains available in assertion maps
     int getDomainCount();
+
+    // return the compiled policy for the specified domain. if the client
+    // does not support compiled policies, it returns null and the
+    // authorization checks are carried out using the assertion maps
+    default ZpeDomainPolicy getDomainPolicy(String domain) {
+        return null;
+    }
 }
 
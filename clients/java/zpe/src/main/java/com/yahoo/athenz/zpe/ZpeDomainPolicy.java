@@ -0,0 +1,201 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe;
+
+import java.util.*;
+
+import com.yahoo.athenz.zpe.match.ZpeMatch;
+import com.yahoo.athenz.zpe.match.impl.ZpeMatchEqual;
+import com.yahoo.athenz.zpe.match.impl.ZpeMatchSet;
+
+/**
+ * Compiled representation of the policy assertions for a single domain.
+ * For each role the assertions are indexed by their action: exact actions
+ * are looked up in a hash map while wildcard actions are checked in order.
+ * All resources for a given role and action are combined into a single
+ * ZpeMatchSet so the number of regex evaluations per check is at most one.
+ * The object is built once when the policy file is loaded and is read-only
+ * afterwards.
+ */
+public class ZpeDomainPolicy {
+
+    static class RoleAssertions {
+
+        final ZpeMatch roleMatch;
+        final Map<String, ZpeMatchSet> actionResources = new HashMap<>();
+        final Map<String, ZpeMatchSet> wildcardActionResources = new LinkedHashMap<>();
+        final List<ZpeMatch> wildcardActionMatches = new ArrayList<>();
+        final List<ZpeMatchSet> wildcardResourceMatches = new ArrayList<>();
+
+        RoleAssertions(ZpeMatch roleMatch) {
+            this.roleMatch = roleMatch;
+        }
+
+        void addAssertion(final String action, ZpeMatch actionMatch, final String resource) {
+            Map<String, ZpeMatchSet> resourceMap = (actionMatch instanceof ZpeMatchEqual) ?
+                    actionResources : wildcardActionResources;
+            ZpeMatchSet resourceSet = resourceMap.get(action);
+            if (resourceSet == null) {
+                resourceSet = new ZpeMatchSet();
+                resourceMap.put(action, resourceSet);
+                if (resourceMap == wildcardActionResources) {
+                    wildcardActionMatches.add(actionMatch);
+                    wildcardResourceMatches.add(resourceSet);
+                }
+            }
+            resourceSet.addValue(resource);
+        }
+
+        void compile() {
+            for (ZpeMatchSet resourceSet : actionResources.values()) {
+                resourceSet.compile();
+            }
+            for (ZpeMatchSet resourceSet : wildcardResourceMatches) {
+                resourceSet.compile();
+            }
+        }
+
+        boolean matches(final String action, final String resource) {
+
+            ZpeMatchSet resourceSet = actionResources.get(action);
+            if (resourceSet != null && resourceSet.matches(resource)) {
+                return true;
+            }
+
+            final int size = wildcardActionMatches.size();
+            for (int i = 0; i < size; i++) {
+                if (wildcardActionMatches.get(i).matches(action) && wildcardResourceMatches.get(i).matches(resource)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final Map<String, RoleAssertions> standardAllowRoles = new HashMap<>();
+    private final Map<String, RoleAssertions> wildcardAllowRoles = new TreeMap<>();
+    private final Map<String, RoleAssertions> standardDenyRoles = new HashMap<>();
+    private final Map<String, RoleAssertions> wildcardDenyRoles = new TreeMap<>();
+
+    /**
+     * Add the given assertion to the policy. The action, resource and role
+     * values must be already processed (lower-cased and domain prefix stripped)
+     * @param role role name without the domain and role. prefix
+     * @param roleMatch match object for the role name
+     * @param action assertion action
+     * @param actionMatch match object for the action
+     * @param resource assertion resource
+     * @param deny true if the assertion effect is deny
+     */
+    public void addAssertion(final String role, ZpeMatch roleMatch, final String action,
+            ZpeMatch actionMatch, final String resource, boolean deny) {
+
+        final boolean standardRole = (roleMatch instanceof ZpeMatchEqual);
+        Map<String, RoleAssertions> roleMap;
+        if (deny) {
+            roleMap = standardRole ? standardDenyRoles : wildcardDenyRoles;
+        } else {
+            roleMap = standardRole ? standardAllowRoles : wildcardAllowRoles;
+        }
+        roleMap.computeIfAbsent(role, k -> new RoleAssertions(roleMatch))
+                .addAssertion(action, actionMatch, resource);
+    }
+
+    /**
+     * Compile all the role assertions. Must be called once after
+     * all assertions have been added and before any lookups.
+     */
+    public void compile() {
+        standardAllowRoles.values().forEach(RoleAssertions::compile);
+        wildcardAllowRoles.values().forEach(RoleAssertions::compile);
+        standardDenyRoles.values().forEach(RoleAssertions::compile);
+        wildcardDenyRoles.values().forEach(RoleAssertions::compile);
+    }
+
+    public boolean isStandardAllowEmpty() {
+        return standardAllowRoles.isEmpty();
+    }
+
+    public boolean isWildcardAllowEmpty() {
+        return wildcardAllowRoles.isEmpty();
+    }
+
+    public boolean isStandardDenyEmpty() {
+        return standardDenyRoles.isEmpty();
+    }
+
+    public boolean isWildcardDenyEmpty() {
+        return wildcardDenyRoles.isEmpty();
+    }
+
+    /**
+     * Return the name of the first role from the given list that has
+     * an allow assertion matching the action and resource
+     * @param roles list of roles from the token
+     * @param action action value
+     * @param resource resource value
+     * @return the matched role name or null if there is no match
+     */
+    public String matchStandardAllowRole(List<String> roles, final String action, final String resource) {
+        return matchStandardRole(standardAllowRoles, roles, action, resource);
+    }
+
+    public String matchStandardDenyRole(List<String> roles, final String action, final String resource) {
+        return matchStandardRole(standardDenyRoles, roles, action, resource);
+    }
+
+    /**
+     * Return the name of the first wildcard role that matches any of the
+     * given roles and has an allow assertion matching the action and resource
+     * @param roles list of roles from the token
+     * @param action action value
+     * @param resource resource value
+     * @return the matched wildcard role name or null if there is no match
+     */
+    public String matchWildcardAllowRole(List<String> roles, final String action, final String resource) {
+        return matchWildcardRole(wildcardAllowRoles, roles, action, resource);
+    }
+
+    public String matchWildcardDenyRole(List<String> roles, final String action, final String resource) {
+        return matchWildcardRole(wildcardDenyRoles, roles, action, resource);
+    }
+
+    String matchStandardRole(Map<String, RoleAssertions> roleMap, List<String> roles,
+            final String action, final String resource) {
+
+        for (String role : roles) {
+            RoleAssertions roleAssertions = roleMap.get(role);
+            if (roleAssertions != null && roleAssertions.matches(action, resource)) {
+                return role;
+            }
+        }
+        return null;
+    }
+
+    String matchWildcardRole(Map<String, RoleAssertions> roleMap, List<String> roles,
+            final String action, final String resource) {
+
+        for (String role : roles) {
+            for (Map.Entry<String, RoleAssertions> entry : roleMap.entrySet()) {
+                RoleAssertions roleAssertions = entry.getValue();
+                if (roleAssertions.roleMatch.matches(role) && roleAssertions.matches(action, resource)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics for the role and access token caches maintained by
+ * AuthZpeClient. The validation time is only recorded for tokens
+ * that were successfully validated and added to the cache so we can
+ * estimate how much signature validation time the cache has saved.
+ */
+public class ZpeTokenCacheStats {
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder validationCount = new LongAdder();
+    private final LongAdder validationTimeNanos = new LongAdder();
+
+    void recordHit() {
+        hitCount.increment();
+    }
+
+    void recordMiss() {
+        missCount.increment();
+    }
+
+    void recordValidation(long timeNanos) {
+        validationCount.increment();
+        validationTimeNanos.add(timeNanos);
+    }
+
+    void recordEvictions(int count) {
+        evictionCount.add(count);
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public long getValidationCount() {
+        return validationCount.sum();
+    }
+
+    public long getValidationTimeNanos() {
+        return validationTimeNanos.sum();
+    }
+
+    /**
+     * Return the ratio of cache lookups that were served from the cache
+     * @return hit ratio between 0.0 and 1.0
+     */
+    public double getHitRatio() {
+        final long hits = hitCount.sum();
+        final long total = hits + missCount.sum();
+        return (total == 0) ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Return the estimated validation time saved by the cache based
+     * on the average time it takes to validate a token
+     * @return estimated time saved in nanoseconds
+     */
+    public long getValidationTimeSavedNanos() {
+        final long validations = validationCount.sum();
+        if (validations == 0) {
+            return 0;
+        }
+        return (long) ((double) validationTimeNanos.sum() / validations * hitCount.sum());
+    }
+
+    /**
+     * Reset all counters
+     */
+    public void reset() {
+        hitCount.reset();
+        missCount.reset();
+        evictionCount.reset();
+        validationCount.reset();
+        validationTimeNanos.reset();
+    }
+}
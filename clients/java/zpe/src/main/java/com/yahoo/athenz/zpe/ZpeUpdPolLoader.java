@@ -103,6 +103,9 @@ public class ZpeUpdPolLoader implements Closeable {
     // wild card role map, keys and values same as domRoleMap above
     ConcurrentHashMap<String, Map<String, List<Struct>>> domWildcardRoleDenyMap = new ConcurrentHashMap<>();
 
+    // key is the domain name, value is the compiled policy for the domain
+    ConcurrentHashMap<String, ZpeDomainPolicy> domPolicyMap = new ConcurrentHashMap<>();
+
     // cache of active Role Tokens
     static ConcurrentHashMap<String, RoleToken> roleTokenCacheMap = new ConcurrentHashMap<>();
 
@@ -169,6 +172,12 @@ public class ZpeUpdPolLoader implements Closeable {
         return domStandardRoleDenyMap.get(domainName);
     }
     
+    // return the compiled policy for the given domain
+    //
+    public ZpeDomainPolicy getDomainPolicy(String domainName) {
+        return domPolicyMap.get(domainName);
+    }
+
     static public Map<String, RoleToken> getRoleTokenCacheMap() {
         return roleTokenCacheMap;
     }
@@ -285,6 +294,7 @@ public class ZpeUpdPolLoader implements Closeable {
                     domWildcardRoleAllowMap.put(fstat.domain, new TreeMap<>());
                     domStandardRoleDenyMap.put(fstat.domain, new TreeMap<>());
                     domWildcardRoleDenyMap.put(fstat.domain, new TreeMap<>());
+                    domPolicyMap.put(fstat.domain, new ZpeDomainPolicy());
                     continue;
                 }
                 
@@ -519,6 +529,7 @@ public class ZpeUpdPolLoader implements Closeable {
         Map<String, List<Struct>> roleWildcardAllowMap = new TreeMap<>();
         Map<String, List<Struct>> roleStandardDenyMap  = new TreeMap<>();
         Map<String, List<Struct>> roleWildcardDenyMap  = new TreeMap<>();
+        ZpeDomainPolicy domainPolicy = new ZpeDomainPolicy();
         List<Policy> policies = policyData.getPolicies();
         for (Policy policy : policies) {
             String pname = policy.getName();
@@ -536,13 +547,13 @@ public class ZpeUpdPolLoader implements Closeable {
                 // It is possible for action and resource to retain case. Need to lower them both.
                 final String passertAction = assertion.getAction().toLowerCase();
 
-                ZpeMatch matchStruct = getMatchObject(passertAction);
-                strAssert.put(ZpeConsts.ZPE_ACTION_MATCH_STRUCT, matchStruct);
+                final ZpeMatch actionMatch = getMatchObject(passertAction);
+                strAssert.put(ZpeConsts.ZPE_ACTION_MATCH_STRUCT, actionMatch);
                 
                 final String passertResource = assertion.getResource().toLowerCase();
                 final String rsrc = AuthZpeClient.stripDomainPrefix(passertResource, domainName, passertResource);
                 strAssert.put(ZpeConsts.ZPE_FIELD_RESOURCE, rsrc);
-                matchStruct = getMatchObject(rsrc);
+                ZpeMatch matchStruct = getMatchObject(rsrc);
                 strAssert.put(ZpeConsts.ZPE_RESOURCE_MATCH_STRUCT, matchStruct);
 
                 final String passertRole = assertion.getRole();
@@ -559,7 +570,8 @@ public class ZpeUpdPolLoader implements Closeable {
                 matchStruct = getMatchObject(pRoleName);
                 strAssert.put(ZpeConsts.ZPE_ROLE_MATCH_STRUCT, matchStruct);
                 
-                if (passertEffect != null && passertEffect.toString().compareTo("DENY") == 0) {
+                final boolean denyEffect = passertEffect != null && passertEffect.toString().compareTo("DENY") == 0;
+                if (denyEffect) {
                     if (matchStruct instanceof ZpeMatchEqual) {
                         roleMap = roleStandardDenyMap;
                     } else {
@@ -575,8 +587,11 @@ public class ZpeUpdPolLoader implements Closeable {
 
                 List<Struct> assertList = roleMap.computeIfAbsent(pRoleName, k -> new ArrayList<>());
                 assertList.add(strAssert);
+
+                domainPolicy.addAssertion(pRoleName, matchStruct, passertAction, actionMatch, rsrc, denyEffect);
             }
         }
+        domainPolicy.compile();
  
         Map<String, ZpeFileStatus> fsmap = getFileStatusMap();
         ZpeFileStatus fstat = fsmap.get(polFile.getName());
@@ -589,6 +604,7 @@ public class ZpeUpdPolLoader implements Closeable {
         domWildcardRoleAllowMap.put(domainName, roleWildcardAllowMap);
         domStandardRoleDenyMap.put(domainName, roleStandardDenyMap);
         domWildcardRoleDenyMap.put(domainName, roleWildcardDenyMap);
+        domPolicyMap.put(domainName, domainPolicy);
     }
 }
 
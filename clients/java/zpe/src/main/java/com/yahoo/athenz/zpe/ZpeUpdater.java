@@ -109,6 +109,11 @@ public class ZpeUpdater implements ZpeClient {
         return POLICYLOADER.getStandardRoleDenyMap(domain);
     }
 
+    @Override
+    public ZpeDomainPolicy getDomainPolicy(String domain) {
+        return POLICYLOADER.getDomainPolicy(domain);
+    }
+
     @Override
     public int getDomainCount() {
         return POLICYLOADER.getDomainCount();
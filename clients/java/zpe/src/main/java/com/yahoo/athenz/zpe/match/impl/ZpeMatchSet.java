@@ -0,0 +1,162 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe.match.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.yahoo.athenz.auth.util.StringUtils;
+import com.yahoo.athenz.zpe.match.ZpeMatch;
+
+/**
+ * Matches a value against a set of glob values. The values are partitioned
+ * into exact values (hash set lookup), prefix values (single walk over a
+ * character trie) and generic glob values that are combined into a single
+ * regular expression. The set must be compiled after all values are added.
+ */
+public class ZpeMatchSet implements ZpeMatch {
+
+    private static final char[] EMPTY_KEYS = new char[0];
+    private static final PrefixNode[] EMPTY_NODES = new PrefixNode[0];
+
+    private static final class PrefixNode {
+
+        char[] keys = EMPTY_KEYS;
+        PrefixNode[] children = EMPTY_NODES;
+        boolean terminal;
+
+        PrefixNode getChild(char key) {
+            int idx = Arrays.binarySearch(keys, key);
+            return idx < 0 ? null : children[idx];
+        }
+
+        PrefixNode addChild(char key) {
+            int idx = Arrays.binarySearch(keys, key);
+            if (idx >= 0) {
+                return children[idx];
+            }
+            final int pos = -(idx + 1);
+            char[] newKeys = new char[keys.length + 1];
+            PrefixNode[] newChildren = new PrefixNode[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, pos);
+            System.arraycopy(children, 0, newChildren, 0, pos);
+            System.arraycopy(keys, pos, newKeys, pos + 1, keys.length - pos);
+            System.arraycopy(children, pos, newChildren, pos + 1, children.length - pos);
+            PrefixNode node = new PrefixNode();
+            newKeys[pos] = key;
+            newChildren[pos] = node;
+            keys = newKeys;
+            children = newChildren;
+            return node;
+        }
+    }
+
+    private boolean matchAll = false;
+    private final Set<String> values = new HashSet<>();
+    private final PrefixNode prefixRoot = new PrefixNode();
+    private boolean prefixValues = false;
+    private List<String> patterns = new ArrayList<>();
+    private Pattern pattern = null;
+
+    /**
+     * Add the given glob value to the set. The value is classified
+     * the same way as single ZpeMatch objects are created for assertions.
+     * @param value glob value
+     */
+    public void addValue(final String value) {
+
+        if ("*".equals(value)) {
+            matchAll = true;
+            return;
+        }
+
+        int anyCharMatch = value.indexOf('*');
+        int singleCharMatch = value.indexOf('?');
+
+        if (anyCharMatch == -1 && singleCharMatch == -1) {
+            values.add(value);
+        } else if (anyCharMatch == value.length() - 1 && singleCharMatch == -1) {
+            PrefixNode node = prefixRoot;
+            for (int i = 0; i < anyCharMatch; i++) {
+                node = node.addChild(value.charAt(i));
+            }
+            node.terminal = true;
+            prefixValues = true;
+        } else {
+            patterns.add(StringUtils.patternFromGlob(value));
+        }
+    }
+
+    /**
+     * Compile all generic glob values into a single regular expression.
+     * Must be called once all values have been added to the set.
+     */
+    public void compile() {
+
+        if (patterns.isEmpty()) {
+            pattern = null;
+        } else if (patterns.size() == 1) {
+            pattern = Pattern.compile(patterns.get(0));
+        } else {
+            StringBuilder regex = new StringBuilder();
+            for (String value : patterns) {
+                if (regex.length() != 0) {
+                    regex.append('|');
+                }
+                regex.append("(?:").append(value).append(')');
+            }
+            pattern = Pattern.compile(regex.toString());
+        }
+        patterns = null;
+    }
+
+    boolean matchesPrefix(final String value) {
+
+        PrefixNode node = prefixRoot;
+        if (node.terminal) {
+            return true;
+        }
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            node = node.getChild(value.charAt(i));
+            if (node == null) {
+                return false;
+            }
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean matches(final String value) {
+
+        if (matchAll || values.contains(value)) {
+            return true;
+        }
+
+        if (prefixValues && matchesPrefix(value)) {
+            return true;
+        }
+
+        return pattern != null && pattern.matcher(value).matches();
+    }
+}
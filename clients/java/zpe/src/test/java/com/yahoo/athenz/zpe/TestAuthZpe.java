@@ -308,6 +308,65 @@ public class TestAuthZpe {
         AuthZpeClient.setZPEClientClass("com.yahoo.athenz.zpe.ZpeUpdater");
     }
 
+    public static class ZpeAssertionUpdater extends ZpeUpdater {
+
+        @Override
+        public ZpeDomainPolicy getDomainPolicy(String domain) {
+            return null;
+        }
+    }
+
+    @Test
+    public void testAllowActionCompiledPolicyAssertionMaps() {
+
+        // verify that we get the same results with our compiled
+        // domain policies and with the assertion maps
+
+        final Object[][] checks = {
+                { "angler", "public", "read", "angler:stuff" },
+                { "angler", "public", "throw", "angler:stuff" },
+                { "angler", "admin", "update", "angler:stuff" },
+                { "angler", "managerkernco", "manage", "angler:pondsVenturaCounty" },
+                { "angler", "managerkernco", "manage", "angler:pondsKernCounty" },
+                { "angler", "managerventuraco", "manage", "angler:RiversKernCounty" },
+                { "angler", "managerventuraco", "manage", "angler:RiversVenturaCounty" },
+                { "angler", "matchall", "all", "angler:stuff" },
+                { "angler", "unknown", "read", "angler:stuff" },
+                { "sports", "admin", "update", "sports:table" },
+                { "empty", "public", "read", "empty:stuff" },
+                { "coretech", "public", "read", "coretech:stuff" }
+        };
+
+        List<AccessCheckStatus> compiledStatus = new ArrayList<>();
+        List<String> compiledRoleNames = new ArrayList<>();
+        for (Object[] check : checks) {
+            StringBuilder roleName = new StringBuilder();
+            compiledStatus.add(AuthZpeClient.allowActionZPE((String) check[2], (String) check[0],
+                    (String) check[3], Collections.singletonList((String) check[1]), roleName));
+            compiledRoleNames.add(roleName.toString());
+        }
+
+        AuthZpeClient.setZPEClientClass("com.yahoo.athenz.zpe.TestAuthZpe$ZpeAssertionUpdater");
+        try {
+            for (int i = 0; i < checks.length; i++) {
+                StringBuilder roleName = new StringBuilder();
+                AccessCheckStatus status = AuthZpeClient.allowActionZPE((String) checks[i][2],
+                        (String) checks[i][0], (String) checks[i][3],
+                        Collections.singletonList((String) checks[i][1]), roleName);
+                assertEquals(status, compiledStatus.get(i), "check: " + i);
+                assertEquals(roleName.toString(), compiledRoleNames.get(i), "check: " + i);
+            }
+        } finally {
+            AuthZpeClient.setZPEClientClass("com.yahoo.athenz.zpe.ZpeUpdater");
+        }
+
+        assertEquals(compiledStatus.get(0), AccessCheckStatus.ALLOW);
+        assertEquals(compiledStatus.get(3), AccessCheckStatus.DENY);
+        assertEquals(compiledRoleNames.get(4), "manager*");
+        assertEquals(compiledStatus.get(10), AccessCheckStatus.DENY_DOMAIN_EMPTY);
+        assertEquals(compiledStatus.get(11), AccessCheckStatus.DENY_DOMAIN_NOT_FOUND);
+    }
+
     @Test
     public void testKeyIds() {
         String action      = "read";
@@ -1492,15 +1551,18 @@ public class TestAuthZpe {
         Assert.assertEquals(roleMap.size(), 1);
 
         // with our new token cache size limit of 1 the size should not change
+        // but the old token must be evicted and replaced with the new one
 
         AuthZpeClient.setTokenCacheMaxValue(1);
 
+        final String firstToken = signedToken;
         roles.add("testrole1");
         signedToken = createAccessToken("angler", roles, "0");
         status = AuthZpeClient.allowAccess(signedToken, cert, null, resource, action);
         Assert.assertEquals(status, AccessCheckStatus.ALLOW);
 
         Assert.assertEquals(roleMap.size(), 1);
+        Assert.assertTrue(roleMap.containsKey(signedToken));
 
         // set a negative value will be ignored, so we'll still
         // have a single entry in the cache
@@ -1513,11 +1575,11 @@ public class TestAuthZpe {
         Assert.assertEquals(roleMap.size(), 1);
 
 
-        // now let's increase the size and try again
+        // now let's increase the size and try again with our first token
 
         AuthZpeClient.setTokenCacheMaxValue(10);
 
-        status = AuthZpeClient.allowAccess(signedToken, cert, null, resource, action);
+        status = AuthZpeClient.allowAccess(firstToken, cert, null, resource, action);
         Assert.assertEquals(status, AccessCheckStatus.ALLOW);
 
         Assert.assertEquals(roleMap.size(), 2);
@@ -1534,6 +1596,115 @@ public class TestAuthZpe {
         Assert.assertEquals(roleMap.size(), 3);
     }
 
+    @Test
+    public void testEvictTokens() {
+
+        final int origMaxValue = 10240;
+        AuthZpeClient.setTokenCacheMaxValue(10);
+
+        final long now = System.currentTimeMillis() / 1000;
+        Map<String, Long> tokenCache = new HashMap<>();
+        ZpeTokenCacheStats cacheStats = new ZpeTokenCacheStats();
+
+        // cache is not full so no eviction
+
+        tokenCache.put("token-expired", now - 10);
+        AuthZpeClient.evictTokens(tokenCache, Long::longValue, cacheStats);
+        assertEquals(tokenCache.size(), 1);
+        assertEquals(cacheStats.getEvictionCount(), 0);
+
+        // add 9 valid tokens with different expiry times and the
+        // next token should trigger the eviction of the expired token
+        // which is sufficient to reach our eviction target
+
+        for (int i = 1; i <= 9; i++) {
+            tokenCache.put("token-" + i, now + i * 100);
+        }
+        assertEquals(tokenCache.size(), 10);
+
+        AuthZpeClient.addTokenToCache(tokenCache, "token-10", now + 1000, Long::longValue, cacheStats);
+        assertEquals(tokenCache.size(), 10);
+        assertFalse(tokenCache.containsKey("token-expired"));
+        assertTrue(tokenCache.containsKey("token-1"));
+        assertTrue(tokenCache.containsKey("token-10"));
+        assertEquals(cacheStats.getEvictionCount(), 1);
+
+        // with no expired tokens the next token should trigger the
+        // eviction of the token with the earliest expiry time
+
+        AuthZpeClient.addTokenToCache(tokenCache, "token-11", now + 1100, Long::longValue, cacheStats);
+        assertEquals(tokenCache.size(), 10);
+        assertFalse(tokenCache.containsKey("token-1"));
+        assertTrue(tokenCache.containsKey("token-2"));
+        assertTrue(tokenCache.containsKey("token-11"));
+        assertEquals(cacheStats.getEvictionCount(), 2);
+
+        // with only expired tokens in the cache they should all be removed
+
+        tokenCache.clear();
+        for (int i = 1; i <= 10; i++) {
+            tokenCache.put("token-expired-" + i, now - i);
+        }
+        AuthZpeClient.addTokenToCache(tokenCache, "token-new", now + 100, Long::longValue, cacheStats);
+        assertEquals(tokenCache.size(), 1);
+        assertTrue(tokenCache.containsKey("token-new"));
+        assertEquals(cacheStats.getEvictionCount(), 12);
+
+        AuthZpeClient.setTokenCacheMaxValue(origMaxValue);
+    }
+
+    @Test
+    public void testTokenCacheStats() {
+
+        ZpeTokenCacheStats cacheStats = new ZpeTokenCacheStats();
+        assertEquals(cacheStats.getHitRatio(), 0.0);
+        assertEquals(cacheStats.getValidationTimeSavedNanos(), 0);
+
+        cacheStats.recordMiss();
+        cacheStats.recordValidation(1000);
+        cacheStats.recordMiss();
+        cacheStats.recordValidation(3000);
+        cacheStats.recordHit();
+        cacheStats.recordHit();
+        cacheStats.recordHit();
+        cacheStats.recordEvictions(5);
+
+        assertEquals(cacheStats.getHitCount(), 3);
+        assertEquals(cacheStats.getMissCount(), 2);
+        assertEquals(cacheStats.getEvictionCount(), 5);
+        assertEquals(cacheStats.getValidationCount(), 2);
+        assertEquals(cacheStats.getValidationTimeNanos(), 4000);
+        assertEquals(cacheStats.getHitRatio(), 0.6, 0.0001);
+        assertEquals(cacheStats.getValidationTimeSavedNanos(), 6000);
+
+        cacheStats.reset();
+        assertEquals(cacheStats.getHitCount(), 0);
+        assertEquals(cacheStats.getMissCount(), 0);
+        assertEquals(cacheStats.getEvictionCount(), 0);
+        assertEquals(cacheStats.getValidationCount(), 0);
+        assertEquals(cacheStats.getValidationTimeNanos(), 0);
+    }
+
+    @Test
+    public void testRoleTokenCacheStats() {
+
+        ZpeTokenCacheStats cacheStats = AuthZpeClient.getRoleTokenCacheStats();
+        Map<String, RoleToken> roleMap = ZpeUpdPolLoader.getRoleTokenCacheMap();
+        roleMap.remove(rToken0AnglerPublic.getSignedToken());
+
+        final long hitCount = cacheStats.getHitCount();
+        final long missCount = cacheStats.getMissCount();
+        final long validationCount = cacheStats.getValidationCount();
+
+        assertNotNull(AuthZpeClient.validateRoleToken(rToken0AnglerPublic.getSignedToken()));
+        assertNotNull(AuthZpeClient.validateRoleToken(rToken0AnglerPublic.getSignedToken()));
+
+        assertEquals(cacheStats.getMissCount(), missCount + 1);
+        assertEquals(cacheStats.getValidationCount(), validationCount + 1);
+        assertEquals(cacheStats.getHitCount(), hitCount + 1);
+        assertNotNull(AuthZpeClient.getAccessTokenCacheStats());
+    }
+
     @Test
     public void testInitializeAccessTokenSignKeyResolver() throws IOException {
         final String originalJwkValue = System.clearProperty(ZpeConsts.ZPE_PROP_JWK_URI);
@@ -0,0 +1,162 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.testng.annotations.Test;
+
+import com.yahoo.athenz.zpe.AuthZpeClient.AccessCheckStatus;
+
+import static org.testng.Assert.*;
+
+public class TestZpeDomainPolicy {
+
+    private void addAssertion(ZpeUpdPolLoader loader, ZpeDomainPolicy domainPolicy, final String role,
+            final String action, final String resource, boolean deny) {
+        domainPolicy.addAssertion(role, loader.getMatchObject(role), action, loader.getMatchObject(action),
+                resource, deny);
+    }
+
+    private ZpeDomainPolicy createDomainPolicy() {
+
+        ZpeDomainPolicy domainPolicy = new ZpeDomainPolicy();
+        try (ZpeUpdPolLoader loader = new ZpeUpdPolLoader(null)) {
+            addAssertion(loader, domainPolicy, "readers", "read", "articles.*", false);
+            addAssertion(loader, domainPolicy, "readers", "read", "news", false);
+            addAssertion(loader, domainPolicy, "writers", "write*", "articles.*", false);
+            addAssertion(loader, domainPolicy, "writers", "*", "drafts", false);
+            addAssertion(loader, domainPolicy, "admin*", "*", "*", false);
+            addAssertion(loader, domainPolicy, "*", "list", "public?index", false);
+            addAssertion(loader, domainPolicy, "readers", "read", "articles.secret*", true);
+            addAssertion(loader, domainPolicy, "guest*", "*", "articles.*", true);
+        }
+        domainPolicy.compile();
+        return domainPolicy;
+    }
+
+    @Test
+    public void testMatchStandardRoles() {
+
+        ZpeDomainPolicy domainPolicy = createDomainPolicy();
+
+        assertEquals(domainPolicy.matchStandardAllowRole(Collections.singletonList("readers"),
+                "read", "articles.sports"), "readers");
+        assertEquals(domainPolicy.matchStandardAllowRole(Arrays.asList("unknown", "readers"),
+                "read", "news"), "readers");
+        assertEquals(domainPolicy.matchStandardAllowRole(Arrays.asList("readers", "writers"),
+                "writemeta", "articles.sports"), "writers");
+        assertEquals(domainPolicy.matchStandardAllowRole(Collections.singletonList("writers"),
+                "delete", "drafts"), "writers");
+        assertNull(domainPolicy.matchStandardAllowRole(Collections.singletonList("readers"),
+                "write", "articles.sports"));
+        assertNull(domainPolicy.matchStandardAllowRole(Collections.singletonList("writers"),
+                "read", "news"));
+
+        assertEquals(domainPolicy.matchStandardDenyRole(Collections.singletonList("readers"),
+                "read", "articles.secret.data"), "readers");
+        assertNull(domainPolicy.matchStandardDenyRole(Collections.singletonList("readers"),
+                "read", "articles.sports"));
+    }
+
+    @Test
+    public void testMatchWildcardRoles() {
+
+        ZpeDomainPolicy domainPolicy = createDomainPolicy();
+
+        // wildcard roles are returned in sorted order
+
+        assertEquals(domainPolicy.matchWildcardAllowRole(Collections.singletonList("admins"),
+                "list", "public.index"), "*");
+        assertEquals(domainPolicy.matchWildcardAllowRole(Collections.singletonList("admins"),
+                "delete", "articles"), "admin*");
+        assertEquals(domainPolicy.matchWildcardAllowRole(Collections.singletonList("readers"),
+                "list", "public-index"), "*");
+        assertNull(domainPolicy.matchWildcardAllowRole(Collections.singletonList("readers"),
+                "list", "publicindex"));
+
+        assertEquals(domainPolicy.matchWildcardDenyRole(Collections.singletonList("guests"),
+                "read", "articles.sports"), "guest*");
+        assertNull(domainPolicy.matchWildcardDenyRole(Collections.singletonList("readers"),
+                "read", "articles.sports"));
+    }
+
+    @Test
+    public void testAllowActionByDomainPolicy() {
+
+        ZpeDomainPolicy domainPolicy = createDomainPolicy();
+        StringBuilder matchRoleName = new StringBuilder();
+
+        assertEquals(AuthZpeClient.allowActionByDomainPolicy(domainPolicy, "read", "coretech",
+                "articles.sports", Collections.singletonList("readers"), matchRoleName, "test"),
+                AccessCheckStatus.ALLOW);
+        assertEquals(matchRoleName.toString(), "readers");
+
+        assertEquals(AuthZpeClient.allowActionByDomainPolicy(domainPolicy, "read", "coretech",
+                "articles.secret", Collections.singletonList("readers"), matchRoleName, "test"),
+                AccessCheckStatus.DENY);
+        assertEquals(matchRoleName.toString(), "readers");
+
+        assertEquals(AuthZpeClient.allowActionByDomainPolicy(domainPolicy, "read", "coretech",
+                "articles.sports", Arrays.asList("readers", "guests"), matchRoleName, "test"),
+                AccessCheckStatus.DENY);
+        assertEquals(matchRoleName.toString(), "guest*");
+
+        assertEquals(AuthZpeClient.allowActionByDomainPolicy(domainPolicy, "update", "coretech",
+                "articles.sports", Collections.singletonList("admins"), matchRoleName, "test"),
+                AccessCheckStatus.ALLOW);
+        assertEquals(matchRoleName.toString(), "admin*");
+
+        matchRoleName.setLength(0);
+        assertEquals(AuthZpeClient.allowActionByDomainPolicy(domainPolicy, "update", "coretech",
+                "articles.sports", Collections.singletonList("readers"), matchRoleName, "test"),
+                AccessCheckStatus.DENY_NO_MATCH);
+        assertEquals(matchRoleName.length(), 0);
+    }
+
+    @Test
+    public void testAllowActionByDomainPolicyEmpty() {
+
+        ZpeDomainPolicy domainPolicy = new ZpeDomainPolicy();
+        domainPolicy.compile();
+
+        assertTrue(domainPolicy.isStandardAllowEmpty());
+        assertTrue(domainPolicy.isWildcardAllowEmpty());
+        assertTrue(domainPolicy.isStandardDenyEmpty());
+        assertTrue(domainPolicy.isWildcardDenyEmpty());
+
+        StringBuilder matchRoleName = new StringBuilder();
+        assertEquals(AuthZpeClient.allowActionByDomainPolicy(domainPolicy, "read", "coretech",
+                "articles", Collections.singletonList("readers"), matchRoleName, "test"),
+                AccessCheckStatus.DENY_DOMAIN_EMPTY);
+    }
+
+    @Test
+    public void testAllowActionByDomainPolicyDenyOnly() {
+
+        ZpeDomainPolicy domainPolicy = new ZpeDomainPolicy();
+        try (ZpeUpdPolLoader loader = new ZpeUpdPolLoader(null)) {
+            addAssertion(loader, domainPolicy, "readers", "read", "articles", true);
+        }
+        domainPolicy.compile();
+
+        StringBuilder matchRoleName = new StringBuilder();
+        assertEquals(AuthZpeClient.allowActionByDomainPolicy(domainPolicy, "read", "coretech",
+                "news", Collections.singletonList("readers"), matchRoleName, "test"),
+                AccessCheckStatus.DENY_NO_MATCH);
+    }
+}
@@ -21,6 +21,7 @@ import com.yahoo.athenz.zpe.match.ZpeMatch;
 import com.yahoo.athenz.zpe.match.impl.ZpeMatchAll;
 import com.yahoo.athenz.zpe.match.impl.ZpeMatchEqual;
 import com.yahoo.athenz.zpe.match.impl.ZpeMatchRegex;
+import com.yahoo.athenz.zpe.match.impl.ZpeMatchSet;
 import com.yahoo.athenz.zpe.match.impl.ZpeMatchStartsWith;
 
 import static org.testng.Assert.assertTrue;
@@ -97,4 +98,71 @@ public class TestZpeMatch {
             assertFalse(matchObject.matches("coretecA")); // missing h + extra A
         }
     }
+
+    @Test
+    public void testMatchSet() {
+
+        ZpeMatchSet matchSet = new ZpeMatchSet();
+        matchSet.addValue("coretech");
+        matchSet.addValue("sports");
+        matchSet.addValue("weather.*");
+        matchSet.addValue("weather.api*");
+        matchSet.addValue("media?test*");
+        matchSet.addValue("news*.api");
+        matchSet.compile();
+
+        assertTrue(matchSet.matches("coretech"));
+        assertTrue(matchSet.matches("sports"));
+        assertTrue(matchSet.matches("weather."));
+        assertTrue(matchSet.matches("weather.api"));
+        assertTrue(matchSet.matches("weather.data"));
+        assertTrue(matchSet.matches("mediaAtest"));
+        assertTrue(matchSet.matches("mediabtestgreat"));
+        assertTrue(matchSet.matches("news.api"));
+        assertTrue(matchSet.matches("newsfeed.api"));
+
+        // failures
+
+        assertFalse(matchSet.matches("coretec")); // missing h
+        assertFalse(matchSet.matches("coretechA")); // extra A
+        assertFalse(matchSet.matches("weather")); // missing .
+        assertFalse(matchSet.matches("mediatest")); // missing ?
+        assertFalse(matchSet.matches("newsfeed.apis")); // extra s
+        assertFalse(matchSet.matches(""));
+    }
+
+    @Test
+    public void testMatchSetSinglePattern() {
+
+        ZpeMatchSet matchSet = new ZpeMatchSet();
+        matchSet.addValue("coretech?test*");
+        matchSet.compile();
+
+        assertTrue(matchSet.matches("coretechAtest"));
+        assertFalse(matchSet.matches("coretechtestgreat"));
+        assertFalse(matchSet.matches("coretech"));
+    }
+
+    @Test
+    public void testMatchSetAll() {
+
+        ZpeMatchSet matchSet = new ZpeMatchSet();
+        matchSet.addValue("coretech");
+        matchSet.addValue("*");
+        matchSet.compile();
+
+        assertTrue(matchSet.matches("coretech"));
+        assertTrue(matchSet.matches("whatever"));
+        assertTrue(matchSet.matches(""));
+    }
+
+    @Test
+    public void testMatchSetEmpty() {
+
+        ZpeMatchSet matchSet = new ZpeMatchSet();
+        matchSet.compile();
+
+        assertFalse(matchSet.matches("coretech"));
+        assertFalse(matchSet.matches(""));
+    }
 }
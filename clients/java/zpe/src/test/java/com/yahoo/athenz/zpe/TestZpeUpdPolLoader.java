@@ -332,6 +332,9 @@ public class TestZpeUpdPolLoader {
         fstat = fsmap.get(polFile.getName());
         assertTrue(fstat.validPolFile);
         assertEquals(loader.getDomainCount(), 1);
+        assertNotNull(loader.getDomainPolicy(fstat.domain));
+        assertFalse(loader.getDomainPolicy(fstat.domain).isStandardAllowEmpty());
+        final String domainName = fstat.domain;
         loader.close();
 
         // mock a deleted file scenario
@@ -345,6 +348,13 @@ public class TestZpeUpdPolLoader {
         loader.loadDb(mockFiles);
         assertNull(fsmap.get(polFile.getName()));
 
+        ZpeDomainPolicy domainPolicy = loader.getDomainPolicy(domainName);
+        assertNotNull(domainPolicy);
+        assertTrue(domainPolicy.isStandardAllowEmpty());
+        assertTrue(domainPolicy.isWildcardAllowEmpty());
+        assertTrue(domainPolicy.isStandardDenyEmpty());
+        assertTrue(domainPolicy.isWildcardDenyEmpty());
+
         System.out.println("TestZpeUpdPolLoader: testLoadDb: timestamp1=" + lastModMilliSeconds
                 + " timestamp2=" + lastModMilliSeconds2);
     }
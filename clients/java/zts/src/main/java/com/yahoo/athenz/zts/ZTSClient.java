@@ -31,6 +31,14 @@ import java.security.cert.X509Certificate;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -106,6 +114,8 @@ public class ZTSClient implements Closeable {
     static private boolean cacheDisabled = false;
     static private int tokenMinExpiryTime = 900;
     static private long prefetchInterval = 60; // seconds
+    static private int prefetchThreads = 4;
+    static private long prefetchMaxJitter = 0; // milliseconds
     static private boolean prefetchAutoEnable = true;
     static private String x509CsrDn = null;
     static private String x509CsrDomain = null;
@@ -137,6 +147,8 @@ public class ZTSClient implements Closeable {
     public static final String ZTS_CLIENT_PROP_HANDSHAKE_TIMEOUT         = "athenz.zts.client.handshake_timeout";
     public static final String ZTS_CLIENT_PROP_PREFETCH_SLEEP_INTERVAL   = "athenz.zts.client.prefetch_sleep_interval";
     public static final String ZTS_CLIENT_PROP_PREFETCH_AUTO_ENABLE      = "athenz.zts.client.prefetch_auto_enable";
+    public static final String ZTS_CLIENT_PROP_PREFETCH_THREADS          = "athenz.zts.client.prefetch_threads";
+    public static final String ZTS_CLIENT_PROP_PREFETCH_MAX_JITTER       = "athenz.zts.client.prefetch_max_jitter";
     public static final String ZTS_CLIENT_PROP_X509CERT_DNS_NAME         = "athenz.zts.client.x509cert_dns_name";
     public static final String ZTS_CLIENT_PROP_X509CSR_DN                = "athenz.zts.client.x509csr_dn";
     public static final String ZTS_CLIENT_PROP_X509CSR_DOMAIN            = "athenz.zts.client.x509csr_domain";
@@ -185,10 +197,13 @@ public class ZTSClient implements Closeable {
     final static ConcurrentHashMap<String, AWSTemporaryCredentials> AWS_CREDS_CACHE = new ConcurrentHashMap<>();
     final static ConcurrentHashMap<String, OIDCResponse> ID_TOKEN_CACHE = new ConcurrentHashMap<>();
 
-    private static final Queue<PrefetchTokenScheduledItem> PREFETCH_SCHEDULED_ITEMS = new ConcurrentLinkedQueue<>();
-    private static Timer FETCH_TIMER;
+    static final Queue<PrefetchTokenScheduledItem> PREFETCH_SCHEDULED_ITEMS = new ConcurrentLinkedQueue<>();
+    private static ScheduledExecutorService FETCH_TIMER;
+    private static ExecutorService PREFETCH_EXECUTOR;
     private static final Object TIMER_LOCK = new Object();
     static AtomicLong FETCHER_LAST_RUN_AT = new AtomicLong(-1);
+    static final AtomicLong PREFETCH_REFRESH_LAG = new AtomicLong(0);
+    static final AtomicLong PREFETCH_FAILURE_COUNT = new AtomicLong(0);
     static final ClientKeyRefresherListener KEY_REFRESHER_LISTENER = new ClientKeyRefresherListener();
 
     // allows outside implementations to get role tokens for special environments - ex. hadoop
@@ -223,6 +238,11 @@ public class ZTSClient implements Closeable {
         // set the prefetch support
         
         setPrefetchAutoEnable(Boolean.parseBoolean(System.getProperty(ZTS_CLIENT_PROP_PREFETCH_AUTO_ENABLE, "true")));
+
+        // set the number of threads and the max jitter for prefetch refreshes
+
+        setPrefetchThreads(Integer.parseInt(System.getProperty(ZTS_CLIENT_PROP_PREFETCH_THREADS, "4")));
+        setPrefetchMaxJitter(Long.parseLong(System.getProperty(ZTS_CLIENT_PROP_PREFETCH_MAX_JITTER, "0")));
         
         // disable the cache if configured
         
@@ -320,6 +340,52 @@ public class ZTSClient implements Closeable {
             prefetchInterval = 60;
         }
     }
+
+    /**
+     * Set the number of threads used to refresh the prefetch items
+     * concurrently. The value only takes effect when the prefetch
+     * task is started. The minimum value is 1.
+     * @param threads number of prefetch threads
+     */
+    public static void setPrefetchThreads(int threads) {
+        prefetchThreads = Math.max(1, threads);
+    }
+
+    /**
+     * Set the max random delay added before refreshing each prefetch
+     * item so that multiple clients do not refresh their tokens from
+     * ZTS Server at the same time. 0 disables the jitter.
+     * @param maxJitter max delay in milliseconds
+     */
+    public static void setPrefetchMaxJitter(long maxJitter) {
+        prefetchMaxJitter = Math.max(0, maxJitter);
+    }
+
+    /**
+     * Return the number of items in the prefetch queue
+     * @return number of prefetch items
+     */
+    public static int getPrefetchQueueSize() {
+        return PREFETCH_SCHEDULED_ITEMS.size();
+    }
+
+    /**
+     * Return the refresh lag of the last prefetch run - the max number
+     * of seconds between the time an item was due to be refreshed and
+     * the time its refresh completed.
+     * @return refresh lag in seconds
+     */
+    public static long getPrefetchRefreshLag() {
+        return PREFETCH_REFRESH_LAG.get();
+    }
+
+    /**
+     * Return the number of failed prefetch refresh requests
+     * @return number of failed refreshes
+     */
+    public static long getPrefetchFailureCount() {
+        return PREFETCH_FAILURE_COUNT.get();
+    }
     /**
      * Set the minimum token expiry time. The server will not give out tokens
      * less than configured expiry time
@@ -611,15 +677,21 @@ public class ZTSClient implements Closeable {
 
     /**
      * Cancel the Prefetch Timer. This removes all the prefetch
-     * items from the list, purges and cancels the fetch timer.
+     * items from the list and shuts down the fetch timer and
+     * the refresh thread pool.
      * This should be called before application shutdown.
      */
     public static void cancelPrefetch() {
         PREFETCH_SCHEDULED_ITEMS.clear();
-        if (FETCH_TIMER != null) {
-            FETCH_TIMER.purge();
-            FETCH_TIMER.cancel();
-            FETCH_TIMER = null;
+        synchronized (TIMER_LOCK) {
+            if (FETCH_TIMER != null) {
+                FETCH_TIMER.shutdownNow();
+                FETCH_TIMER = null;
+            }
+            if (PREFETCH_EXECUTOR != null) {
+                PREFETCH_EXECUTOR.shutdown();
+                PREFETCH_EXECUTOR = null;
+            }
         }
     }
     
@@ -1919,7 +1991,7 @@ public class ZTSClient implements Closeable {
                 x509CsrDn, csrDomain, expiryTime);
     }
     
-    static class TokenPrefetchTask extends TimerTask {
+    static class TokenPrefetchTask implements Runnable {
         
         ZTSClient getZTSClient(PrefetchTokenScheduledItem item) {
             
@@ -1965,6 +2037,24 @@ public class ZTSClient implements Closeable {
             return (expiryTime - lastFailTime) / 2 + lastFailTime <= currentTime;
         }
 
+        /**
+         * Return the time when the item is due to be refreshed based on
+         * the same halfway checks as shouldRefresh. Access tokens that must
+         * be refreshed because of a certificate refresh are due immediately.
+         */
+        long refreshDeadline(PrefetchTokenScheduledItem item, long currentTime) {
+
+            if (item.tokenType == TokenType.ACCESS && item.fetchTime < KEY_REFRESHER_LISTENER.getLastCertRefreshTime()) {
+                return currentTime;
+            }
+
+            long deadline = (item.expiresAtUTC - item.fetchTime) / 2 + item.fetchTime;
+            if (item.lastFailTime != 0) {
+                deadline = Math.max(deadline, (item.expiresAtUTC - item.lastFailTime) / 2 + item.lastFailTime);
+            }
+            return deadline;
+        }
+
         @Override
         public void run() {
 
@@ -1981,12 +2071,14 @@ public class ZTSClient implements Closeable {
                 }
                 return;
             }
-            
-            List<PrefetchTokenScheduledItem> toFetch = new ArrayList<>();
 
-            // if this item is to be fetched now, add it to collection
-            // special handling for service tokens so we'll keep track
-            // of if we have any expired service tokens
+            // if this item is to be fetched now, add it to the queue ordered
+            // by its refresh deadline so the items closest to their expiry
+            // are refreshed first. special handling for service tokens so
+            // we'll keep track of if we have any expired service tokens
+
+            PriorityQueue<PrefetchRefreshItem> toFetch = new PriorityQueue<>(
+                    Comparator.comparingLong(entry -> entry.deadline));
 
             boolean svcTokenRefresh = false;
             for (PrefetchTokenScheduledItem item : PREFETCH_SCHEDULED_ITEMS) {
@@ -2005,7 +2097,7 @@ public class ZTSClient implements Closeable {
                         LOG.debug("PrefetchTask: domain={} roleName={}. Refresh this item.",
                                 item.domainName, item.roleName);
                     }
-                    toFetch.add(item);
+                    toFetch.add(new PrefetchRefreshItem(item, refreshDeadline(item, currentTime)));
                     if (item.tokenType == TokenType.SVC_ROLE) {
                         svcTokenRefresh = true;
                     }
@@ -2031,20 +2123,91 @@ public class ZTSClient implements Closeable {
                 }
             }
 
-            // fetch items
+            // submit the items to our refresh pool in deadline order. the
+            // pool processes its queue in submission order so the most urgent
+            // items are refreshed first. if the prefetch task was not started
+            // (or has been cancelled) we'll process the items in this thread
+
+            final Set<String> refreshSvcLoaderCache = svcLoaderCache;
+            final ExecutorService executor = PREFETCH_EXECUTOR;
+            final AtomicLong refreshLag = new AtomicLong(0);
+            List<Future<?>> futures = new ArrayList<>(toFetch.size());
+
+            PrefetchRefreshItem refreshItem;
+            while ((refreshItem = toFetch.poll()) != null) {
+                final PrefetchRefreshItem dueItem = refreshItem;
+                Runnable refreshTask = () -> refreshItem(dueItem, refreshSvcLoaderCache, currentTime, refreshLag);
+                try {
+                    if (executor == null) {
+                        refreshTask.run();
+                    } else {
+                        futures.add(executor.submit(refreshTask));
+                    }
+                } catch (RejectedExecutionException ex) {
+                    LOG.info("PrefetchTask: refresh pool is shutdown, skipping remaining items");
+                    break;
+                }
+            }
+
+            // wait for all the refresh requests to complete before
+            // we update our lag metric and process the next run
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException ex) {
+                    LOG.error("PrefetchTask: unable to refresh item", ex.getCause());
+                }
+            }
+
+            PREFETCH_REFRESH_LAG.set(refreshLag.get());
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("PrefetchTask: refreshed {} items, queue size={} lag={} failures={}",
+                        futures.size(), PREFETCH_SCHEDULED_ITEMS.size(), refreshLag.get(),
+                        PREFETCH_FAILURE_COUNT.get());
+            }
+        }
 
-            for (PrefetchTokenScheduledItem item : toFetch) {
+        void refreshItem(PrefetchRefreshItem refreshItem, Set<String> svcLoaderCache, long currentTime,
+                AtomicLong refreshLag) {
 
-                // create ZTS Client for this particular item
+            // add a random delay if configured so that we don't send
+            // all the refresh requests to ZTS Server at the same time
 
-                try (ZTSClient itemZtsClient = getZTSClient(item)) {
-                    processPrefetchTask(item, itemZtsClient, svcLoaderCache, currentTime);
+            if (prefetchMaxJitter > 0) {
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(prefetchMaxJitter));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
                 }
             }
 
-            // clean our temporary list
+            // create ZTS Client for this particular item
+
+            try (ZTSClient itemZtsClient = getZTSClient(refreshItem.item)) {
+                processPrefetchTask(refreshItem.item, itemZtsClient, svcLoaderCache, currentTime);
+            }
+
+            // the lag is the time between the item's refresh deadline
+            // and the time its refresh was completed
 
-            toFetch.clear();
+            final long lag = System.currentTimeMillis() / 1000 - refreshItem.deadline;
+            refreshLag.accumulateAndGet(lag, Math::max);
+        }
+    }
+
+    static class PrefetchRefreshItem {
+
+        final PrefetchTokenScheduledItem item;
+        final long deadline;
+
+        PrefetchRefreshItem(PrefetchTokenScheduledItem item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
         }
     }
 
@@ -2135,6 +2298,7 @@ public class ZTSClient implements Closeable {
         } catch (ZTSClientException ex) {
 
             LOG.error("PrefetchTask: Error while trying to prefetch token", ex);
+            PREFETCH_FAILURE_COUNT.incrementAndGet();
 
             // if we get either invalid credential, the request is forbidden,
             // or the request is invalid, then there is no point of retrying.
@@ -2167,6 +2331,7 @@ public class ZTSClient implements Closeable {
             item.setIsInvalid(true);
             PREFETCH_SCHEDULED_ITEMS.remove(item);
             LOG.error("PrefetchTask: Error while trying to prefetch token", ex);
+            PREFETCH_FAILURE_COUNT.incrementAndGet();
         }
 
         if (item.shouldSendNotification()) {
@@ -4634,13 +4799,27 @@ public class ZTSClient implements Closeable {
 
         synchronized (TIMER_LOCK) {
             if (FETCH_TIMER == null) {
-                FETCH_TIMER = new Timer(true);
+                PREFETCH_EXECUTOR = Executors.newFixedThreadPool(prefetchThreads, ZTSClient::newPrefetchThread);
+                FETCH_TIMER = Executors.newSingleThreadScheduledExecutor(ZTSClient::newPrefetchThread);
                 // check the fetch items every prefetchInterval seconds.
-                FETCH_TIMER.schedule(new TokenPrefetchTask(), 0, prefetchInterval * 1000);
+                TokenPrefetchTask prefetchTask = new TokenPrefetchTask();
+                FETCH_TIMER.scheduleWithFixedDelay(() -> {
+                    try {
+                        prefetchTask.run();
+                    } catch (Exception ex) {
+                        LOG.error("PrefetchTask: unable to process prefetch items", ex);
+                    }
+                }, 0, prefetchInterval * 1000, TimeUnit.MILLISECONDS);
             }
         }
     }
 
+    static Thread newPrefetchThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "zts-client-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    }
+
     static class CustomRequestRetryStrategy extends DefaultHttpRequestRetryStrategy {
         public CustomRequestRetryStrategy(int maxRetries, TimeValue defaultRetryInterval) {
             super(maxRetries, defaultRetryInterval,
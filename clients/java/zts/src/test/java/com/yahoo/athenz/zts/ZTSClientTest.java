@@ -44,6 +44,7 @@ import java.security.*;
 import java.security.cert.*;
 import java.security.cert.Certificate;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.*;
 
@@ -4405,6 +4406,120 @@ public class ZTSClientTest {
         assertFalse(task.shouldRefresh(ZTSClient.TokenType.ROLE, currentTime, lastFetchTime, 0, expiryTime));
     }
 
+    @Test
+    public void testRefreshDeadline() {
+
+        ZTSClient.TokenPrefetchTask task = new ZTSClient.TokenPrefetchTask();
+
+        // last fetch is 1000, expiry time is 1800 so we're due at 1400
+        // and after a failure at 1400 we're due at 1600
+
+        ZTSClient.PrefetchTokenScheduledItem item = new ZTSClient.PrefetchTokenScheduledItem()
+                .setTokenType(ZTSClient.TokenType.ROLE).setFetchTime(1000).setExpiresAtUTC(1800);
+        assertEquals(task.refreshDeadline(item, 1200), 1400);
+        item.setLastFailTime(1400);
+        assertEquals(task.refreshDeadline(item, 1500), 1600);
+
+        // access tokens fetched before the cert refresh are due now
+
+        final long lastCertRefreshTime = ZTSClient.KEY_REFRESHER_LISTENER.lastCertRefreshTime;
+        ZTSClient.KEY_REFRESHER_LISTENER.lastCertRefreshTime = 1200;
+        item.setTokenType(ZTSClient.TokenType.ACCESS);
+        assertEquals(task.refreshDeadline(item, 1500), 1500);
+        item.setTokenType(ZTSClient.TokenType.ROLE);
+        assertEquals(task.refreshDeadline(item, 1500), 1600);
+        ZTSClient.KEY_REFRESHER_LISTENER.lastCertRefreshTime = lastCertRefreshTime;
+    }
+
+    @Test
+    public void testPrefetchTaskDeadlineOrder() {
+
+        ZTSClient.cancelPrefetch();
+
+        // first two items are due with the second one being closer
+        // to its expiry while the last one is not due yet
+
+        long now = System.currentTimeMillis() / 1000;
+        ZTSClient.PrefetchTokenScheduledItem item1 = new ZTSClient.PrefetchTokenScheduledItem()
+                .setTokenType(ZTSClient.TokenType.ROLE).setDomainName("coretech1")
+                .setFetchTime(now - 1000).setExpiresAtUTC(now + 800);
+        ZTSClient.PrefetchTokenScheduledItem item2 = new ZTSClient.PrefetchTokenScheduledItem()
+                .setTokenType(ZTSClient.TokenType.ROLE).setDomainName("coretech2")
+                .setFetchTime(now - 1000).setExpiresAtUTC(now + 200);
+        ZTSClient.PrefetchTokenScheduledItem item3 = new ZTSClient.PrefetchTokenScheduledItem()
+                .setTokenType(ZTSClient.TokenType.ROLE).setDomainName("coretech3")
+                .setFetchTime(now).setExpiresAtUTC(now + 3600);
+        ZTSClient.PREFETCH_SCHEDULED_ITEMS.add(item1);
+        ZTSClient.PREFETCH_SCHEDULED_ITEMS.add(item3);
+        ZTSClient.PREFETCH_SCHEDULED_ITEMS.add(item2);
+        assertEquals(ZTSClient.getPrefetchQueueSize(), 3);
+
+        List<String> refreshed = new ArrayList<>();
+        ZTSClient.TokenPrefetchTask task = new ZTSClient.TokenPrefetchTask() {
+            @Override
+            void refreshItem(ZTSClient.PrefetchRefreshItem refreshItem, Set<String> svcLoaderCache,
+                    long currentTime, AtomicLong refreshLag) {
+                refreshed.add(refreshItem.item.domainName);
+                refreshLag.accumulateAndGet(currentTime - refreshItem.deadline, Math::max);
+            }
+        };
+
+        // without a refresh pool the items are refreshed in the
+        // calling thread in deadline order
+
+        task.run();
+        assertEquals(refreshed, Arrays.asList("coretech2", "coretech1"));
+        assertTrue(ZTSClient.getPrefetchRefreshLag() >= 400);
+        assertTrue(ZTSClient.getPrefetchRefreshLag() <= 402);
+
+        ZTSClient.cancelPrefetch();
+        assertEquals(ZTSClient.getPrefetchQueueSize(), 0);
+    }
+
+    @Test
+    public void testPrefetchTaskRefreshPoolFailure() throws Exception {
+
+        ZTSClient.cancelPrefetch();
+        ZTSClient.setPrefetchThreads(2);
+        ZTSClient.setPrefetchMaxJitter(10);
+
+        final Principal principal = SimplePrincipal.create("user_domain", "user",
+                "auth_creds", PRINCIPAL_AUTHORITY);
+        ServiceIdentityProvider siaProvider = Mockito.mock(ServiceIdentityProvider.class);
+        when(siaProvider.getIdentity(any(), any())).thenReturn(principal);
+
+        ZTSRDLGeneratedClient ztsRdlClient = Mockito.mock(ZTSRDLGeneratedClient.class);
+        when(ztsRdlClient.getRoleToken(any(), any(), any(), any(), any()))
+                .thenThrow(new ClientResourceException(503, "unavailable"));
+
+        long now = System.currentTimeMillis() / 1000;
+        long failureCount = ZTSClient.getPrefetchFailureCount();
+        ZTSClient.PrefetchTokenScheduledItem item = new ZTSClient.PrefetchTokenScheduledItem()
+                .setTokenType(ZTSClient.TokenType.ROLE).setDomainName("coretech")
+                .setIdentityDomain("user_domain").setIdentityName("user")
+                .setSiaIdentityProvider(siaProvider).setZtsClient(ztsRdlClient)
+                .setProvidedZTSUrl("http://localhost:4080/")
+                .setFetchTime(now - 1000).setExpiresAtUTC(now + 200);
+        ZTSClient.PREFETCH_SCHEDULED_ITEMS.add(item);
+
+        // the prefetch timer runs immediately and refreshes
+        // the item using the refresh pool
+
+        ZTSClient.startPrefetch();
+        for (int i = 0; i < 50 && item.lastFailTime == 0; i++) {
+            Thread.sleep(100);
+        }
+
+        assertTrue(item.lastFailTime > 0);
+        assertFalse(item.isInvalid);
+        assertTrue(ZTSClient.getPrefetchFailureCount() > failureCount);
+        assertEquals(ZTSClient.getPrefetchQueueSize(), 1);
+
+        ZTSClient.cancelPrefetch();
+        ZTSClient.setPrefetchThreads(4);
+        ZTSClient.setPrefetchMaxJitter(0);
+    }
+
     @Test
     public void testPrefetchAccessTokenShouldNotCallServer() throws Exception {
 
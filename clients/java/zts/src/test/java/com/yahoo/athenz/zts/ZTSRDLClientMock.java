@@ -18,6 +18,7 @@ package com.yahoo.athenz.zts;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.yahoo.rdl.Timestamp;
 
@@ -40,12 +41,12 @@ public class ZTSRDLClientMock extends ZTSRDLGeneratedClient implements java.io.C
     private int requestCount = 0;
     private int openIDConfigExcCode = 0;
 
-    Map<String, AWSTemporaryCredentials> credsMap = new HashMap<>();
+    Map<String, AWSTemporaryCredentials> credsMap = new ConcurrentHashMap<>();
 
-    private final Map<String, Long> lastRoleTokenFetchedTime = new HashMap<>();
-    private final Map<String, Long> lastAccessTokenFetchedTime = new HashMap<>();
-    private final Map<String, Long> lastRoleTokenFailTime = new HashMap<>();
-    private final Map<String, Long> lastIdTokenFetchedTime = new HashMap<>();
+    private final Map<String, Long> lastRoleTokenFetchedTime = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastAccessTokenFetchedTime = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastRoleTokenFailTime = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastIdTokenFetchedTime = new ConcurrentHashMap<>();
 
     static String getKey(String domain, String roleName, String proxyForPrincipal) {
         return domain + "-" + roleName + "-" + proxyForPrincipal;
@@ -16,6 +16,7 @@
 package com.yahoo.athenz.auth.impl;
 
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -47,6 +48,11 @@ import static com.yahoo.athenz.auth.AuthorityConsts.ATHENZ_PROP_RESTRICTED_OU;
  *       {@code athenz.authority.truststore.path} system property is not set,
  *       the filter is a no-op and certificates from any issuer are
  *       accepted.
+ *
+ * When {@code athenz.auth.certificate.identity_cache_size} is set, the
+ * details extracted from each certificate are kept in a
+ * {@link CertificateIdentityCache} so that the same certificate presented
+ * over keep-alive connections is only parsed once.
  */
 public class CertificateAuthority implements Authority {
 
@@ -55,11 +61,14 @@ public class CertificateAuthority implements Authority {
     private static final String ATHENZ_PROP_EXCLUDED_PRINCIPALS = "athenz.auth.certificate.excluded_principals";
     private static final String ATHENZ_PROP_EXCLUDE_ROLE_CERTIFICATES = "athenz.auth.certificate.exclude_role_certificates";
     private static final String ATHENZ_PROP_IDENTITY_ISSUER_MAP_FNAME = "athenz.auth.certificate.identity_issuer_map_fname";
+    private static final String ATHENZ_PROP_IDENTITY_CACHE_SIZE = "athenz.auth.certificate.identity_cache_size";
+    private static final String ATHENZ_PROP_IDENTITY_CACHE_TIMEOUT = "athenz.auth.certificate.identity_cache_timeout";
 
     private static final String ATHENZ_AUTH_CHALLENGE = "AthenzX509Certificate realm=\"athenz\"";
 
     private CertificateIdentityParser certificateIdentityParser = null;
     private PrincipalIdentityIssuer principalIdentityIssuer = null;
+    private CertificateIdentityCache certificateIdentityCache = null;
     private final GlobStringsMatcher globStringsMatcher = new GlobStringsMatcher(ATHENZ_PROP_RESTRICTED_OU);
 
     @Override
@@ -76,6 +85,22 @@ public class CertificateAuthority implements Authority {
         certificateIdentityParser = new CertificateIdentityParser(excludedPrincipalSet, excludeRoleCertificates,
                 new CertificateAuthorityValidator());
         principalIdentityIssuer = new PrincipalIdentityIssuer(System.getProperty(ATHENZ_PROP_IDENTITY_ISSUER_MAP_FNAME));
+
+        // the certificate identity cache is disabled by default
+
+        final long cacheSize = Long.parseLong(System.getProperty(ATHENZ_PROP_IDENTITY_CACHE_SIZE, "0"));
+        if (cacheSize > 0) {
+            certificateIdentityCache = new CertificateIdentityCache(cacheSize,
+                    Long.parseLong(System.getProperty(ATHENZ_PROP_IDENTITY_CACHE_TIMEOUT, "3600")));
+        }
+    }
+
+    /**
+     * Return the certificate identity cache if one is configured
+     * @return certificate identity cache or null
+     */
+    public CertificateIdentityCache getCertificateIdentityCache() {
+        return certificateIdentityCache;
     }
 
     @Override
@@ -128,29 +153,49 @@ public class CertificateAuthority implements Authority {
             }
         }
 
-        // parse certificate
-        CertificateIdentity certId;
-        try {
-            certId = certificateIdentityParser.parse(certs);
-        } catch (CertificateIdentityException ex) {
-            reportError("CertificateAuthority: " + ex.getMessage(), ex.isReportError(), errMsg);
-            return null;
+        // check if we have already processed this certificate
+
+        CertificateIdentityCache.Entry entry = null;
+        if (certificateIdentityCache != null && certs != null && certs.length > 0 && certs[0] != null) {
+            entry = certificateIdentityCache.getEntry(certs[0]);
         }
 
-        // create principal
+        if (entry == null) {
+
+            // parse certificate
+            CertificateIdentity certId;
+            try {
+                certId = certificateIdentityParser.parse(certs);
+            } catch (CertificateIdentityException ex) {
+                reportError("CertificateAuthority: " + ex.getMessage(), ex.isReportError(), errMsg);
+                return null;
+            }
+
+            X509Certificate x509Cert = certId.getX509Certificate();
+            final long expiryTime = (certificateIdentityCache != null) ? x509Cert.getNotAfter().getTime() : 0;
+            entry = new CertificateIdentityCache.Entry(certId, x509Cert.toString(),
+                    x509Cert.getSubjectX500Principal().toString(),
+                    Crypto.isRestrictedCertificate(x509Cert, globStringsMatcher),
+                    principalIdentityIssuer.getIssuerIdentity(x509Cert), expiryTime);
+            if (certificateIdentityCache != null) {
+                certificateIdentityCache.putEntry(x509Cert, entry);
+            }
+        }
 
-        X509Certificate x509Cert = certId.getX509Certificate();
+        // create principal. each request gets its own principal object
+        // since the server updates its fields during request processing
 
+        CertificateIdentity certId = entry.certId;
         SimplePrincipal principal = (SimplePrincipal) SimplePrincipal.create(certId.getDomain(),
-                certId.getService(), x509Cert.toString(), this);
-        principal.setUnsignedCreds(x509Cert.getSubjectX500Principal().toString());
-        principal.setX509Certificate(x509Cert);
+                certId.getService(), entry.creds, this);
+        principal.setUnsignedCreds(entry.unsignedCreds);
+        principal.setX509Certificate(certId.getX509Certificate());
         if (certId.getRoles() != null) {
-            principal.setRoles(certId.getRoles());
+            principal.setRoles(new ArrayList<>(certId.getRoles()));
             principal.setRolePrincipalName(certId.getRolePrincipalName());
         }
-        principal.setMtlsRestricted(Crypto.isRestrictedCertificate(x509Cert, globStringsMatcher));
-        principal.setIssuerIdentity(principalIdentityIssuer.getIssuerIdentity(x509Cert));
+        principal.setMtlsRestricted(entry.mtlsRestricted);
+        principal.setIssuerIdentity(entry.issuerIdentity);
         return principal;
     }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.auth.impl;
+
+import java.security.cert.X509Certificate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of the details extracted from client certificates. With
+ * keep-alive connections the same certificate is presented on every
+ * request so instead of parsing the certificate fields and generating
+ * the principal credentials for each request we keep the results keyed
+ * by the certificate itself. Certificate equality is based on the encoded
+ * form so the same certificate presented over different connections
+ * maps to the same entry. Entries are never returned once the certificate
+ * has expired or the configured timeout has passed. When the cache is full,
+ * the expired entries are removed and, if there is still no room, the new
+ * certificate is not cached until older entries expire.
+ */
+public class CertificateIdentityCache {
+
+    static class Entry {
+
+        final CertificateIdentity certId;
+        final String creds;
+        final String unsignedCreds;
+        final boolean mtlsRestricted;
+        final String issuerIdentity;
+        long expiryTime;
+
+        Entry(CertificateIdentity certId, final String creds, final String unsignedCreds,
+                boolean mtlsRestricted, final String issuerIdentity, long expiryTime) {
+            this.certId = certId;
+            this.creds = creds;
+            this.unsignedCreds = unsignedCreds;
+            this.mtlsRestricted = mtlsRestricted;
+            this.issuerIdentity = issuerIdentity;
+            this.expiryTime = expiryTime;
+        }
+    }
+
+    private final ConcurrentHashMap<X509Certificate, Entry> certCache = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final long maxEntries;
+    private final long timeoutMillis;
+
+    public CertificateIdentityCache(long maxEntries, long timeoutSecs) {
+        this.maxEntries = maxEntries;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, timeoutSecs));
+    }
+
+    /**
+     * Return the cached entry for the given certificate or null if
+     * there is no entry or the certificate has expired
+     * @param cert client certificate
+     * @return cached entry or null
+     */
+    Entry getEntry(X509Certificate cert) {
+
+        Entry entry = certCache.get(cert);
+        if (entry != null && entry.expiryTime <= System.currentTimeMillis()) {
+            certCache.remove(cert, entry);
+            entry = null;
+        }
+
+        if (entry == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Add the entry for the given certificate unless the certificate
+     * has already expired or there is no room in the cache
+     * @param cert client certificate
+     * @param entry details extracted from the certificate with its
+     *              expiry time set to the certificate expiry time
+     */
+    void putEntry(X509Certificate cert, Entry entry) {
+
+        final long now = System.currentTimeMillis();
+        if (entry.expiryTime <= now) {
+            return;
+        }
+
+        if (certCache.size() >= maxEntries) {
+            certCache.values().removeIf(cacheEntry -> cacheEntry.expiryTime <= now);
+            if (certCache.size() >= maxEntries) {
+                return;
+            }
+        }
+
+        entry.expiryTime = Math.min(entry.expiryTime, now + timeoutMillis);
+        certCache.put(cert, entry);
+    }
+
+    /**
+     * Return the number of requests served from the cache
+     * @return number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Return the number of requests that required the certificate
+     * to be parsed
+     * @return number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Return the number of entries in the cache
+     * @return number of entries
+     */
+    public long size() {
+        return certCache.size();
+    }
+}
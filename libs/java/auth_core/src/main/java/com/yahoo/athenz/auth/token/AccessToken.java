@@ -34,6 +34,8 @@ import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class AccessToken extends OAuth2Token {
 
@@ -62,6 +64,11 @@ public class AccessToken extends OAuth2Token {
     // default no check on access token proxy principals
     private static Set<String> ACCESS_TOKEN_PROXY_PRINCIPALS = null;
 
+    // default no cache for the x.509 certificate hashes
+    private static Map<X509Certificate, String> X509_CERT_HASH_CACHE = null;
+    private static long X509_CERT_HASH_CACHE_SIZE = 0;
+    private static final AtomicLong X509_CERT_HASH_CACHE_HITS = new AtomicLong();
+
     private String clientId;
     private String userId;
     private String proxyPrincipal;
@@ -229,6 +236,30 @@ public class AccessToken extends OAuth2Token {
         ACCESS_TOKEN_PROXY_PRINCIPALS = proxyPrincipals;
     }
 
+    /**
+     * The x.509 certificate hash is calculated for every mTLS bound
+     * access token that is issued or validated. Since clients use the
+     * same certificate for all their requests, the server can configure
+     * a cache for the calculated hashes. The cache is cleared once it
+     * reaches the configured number of entries.
+     *
+     * @param maxEntries max number of entries in the cache. 0 disables the cache
+     */
+    public static void setX509CertHashCacheSize(long maxEntries) {
+        X509_CERT_HASH_CACHE_SIZE = maxEntries;
+        X509_CERT_HASH_CACHE = (maxEntries > 0) ? new ConcurrentHashMap<>() : null;
+        X509_CERT_HASH_CACHE_HITS.set(0);
+    }
+
+    /**
+     * Return the number of x.509 certificate hashes returned from the cache
+     *
+     * @return number of cache hits
+     */
+    public static long getX509CertHashCacheHitCount() {
+        return X509_CERT_HASH_CACHE_HITS.get();
+    }
+
     void setAccessTokenFields() {
 
         setClientId(JwtsHelper.getStringClaim(claimsSet, CLAIM_CLIENT_ID));
@@ -493,6 +524,29 @@ public class AccessToken extends OAuth2Token {
     }
 
     String getX509CertificateHash(X509Certificate cert) {
+
+        final Map<X509Certificate, String> cache = X509_CERT_HASH_CACHE;
+        if (cache == null) {
+            return generateX509CertificateHash(cert);
+        }
+
+        String certHash = cache.get(cert);
+        if (certHash != null) {
+            X509_CERT_HASH_CACHE_HITS.incrementAndGet();
+            return certHash;
+        }
+
+        certHash = generateX509CertificateHash(cert);
+        if (certHash != null) {
+            if (cache.size() >= X509_CERT_HASH_CACHE_SIZE) {
+                cache.clear();
+            }
+            cache.put(cert, certHash);
+        }
+        return certHash;
+    }
+
+    String generateX509CertificateHash(X509Certificate cert) {
         try {
             byte[] encCert = Crypto.sha256(cert.getEncoded());
             return Base64.getUrlEncoder().withoutPadding().encodeToString(encCert);
@@ -127,6 +127,66 @@ public class CertificateAuthorityTest {
         }
     }
 
+    @Test
+    public void testAuthenticateCertificateIdentityCache() throws Exception {
+
+        System.setProperty("athenz.auth.certificate.identity_cache_size", "10");
+        CertificateAuthority authority = new CertificateAuthority();
+        authority.initialize();
+        System.clearProperty("athenz.auth.certificate.identity_cache_size");
+
+        CertificateIdentityCache cache = authority.getCertificateIdentityCache();
+        assertNotNull(cache);
+
+        try (InputStream inStream = new FileInputStream("src/test/resources/valid_email_x509.cert")) {
+            CertificateFactory cf = CertificateFactory.getInstance("X.509");
+            X509Certificate cert = (X509Certificate) cf.generateCertificate(inStream);
+
+            X509Certificate[] certs = new X509Certificate[1];
+            certs[0] = cert;
+            Principal principal1 = authority.authenticate(certs, null);
+            assertNotNull(principal1);
+            assertEquals(cache.getMissCount(), 1);
+            assertEquals(cache.size(), 1);
+
+            // the second request is served from the cache but
+            // with its own principal object
+
+            Principal principal2 = authority.authenticate(certs, null);
+            assertNotNull(principal2);
+            assertNotSame(principal1, principal2);
+            assertEquals(cache.getHitCount(), 1);
+            assertEquals(principal2.getDomain(), "athens");
+            assertEquals(principal2.getName(), "zts");
+            assertEquals(principal2.getCredentials(), principal1.getCredentials());
+            assertEquals(principal2.getUnsignedCredentials(), principal1.getUnsignedCredentials());
+            assertEquals(principal2.getRoles(), principal1.getRoles());
+            assertNotSame(principal2.getRoles(), principal1.getRoles());
+            assertEquals(principal2.getX509Certificate(), cert);
+            assertFalse(principal2.getMtlsRestricted());
+        }
+
+        // expired certificates are not cached
+
+        try (InputStream inStream = new FileInputStream("src/test/resources/valid_cn_x509.cert")) {
+            CertificateFactory cf = CertificateFactory.getInstance("X.509");
+            X509Certificate cert = (X509Certificate) cf.generateCertificate(inStream);
+
+            X509Certificate[] certs = new X509Certificate[1];
+            certs[0] = cert;
+            assertNotNull(authority.authenticate(certs, null));
+            assertNotNull(authority.authenticate(certs, null));
+            assertEquals(cache.getMissCount(), 3);
+            assertEquals(cache.size(), 1);
+        }
+
+        // invalid requests are not cached
+
+        assertNull(authority.authenticate((X509Certificate[]) null, null));
+        assertNull(authority.authenticate(new X509Certificate[1], null));
+        assertEquals(cache.size(), 1);
+    }
+
     @Test
     public void testAuthenciateInvalidArray() {
 
@@ -0,0 +1,125 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.auth.impl;
+
+import static org.testng.Assert.*;
+
+import java.security.cert.X509Certificate;
+
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+public class CertificateIdentityCacheTest {
+
+    private CertificateIdentityCache.Entry createEntry(X509Certificate cert, long expiryTime) {
+        CertificateIdentity certId = new CertificateIdentity("athenz", "api", null, cert);
+        return new CertificateIdentityCache.Entry(certId, "creds", "unsigned-creds", false,
+                "issuer", expiryTime);
+    }
+
+    @Test
+    public void testGetEntry() {
+
+        CertificateIdentityCache cache = new CertificateIdentityCache(10, 3600);
+        X509Certificate cert = Mockito.mock(X509Certificate.class);
+
+        assertNull(cache.getEntry(cert));
+        assertEquals(cache.getMissCount(), 1);
+
+        CertificateIdentityCache.Entry entry = createEntry(cert, System.currentTimeMillis() + 60000);
+        cache.putEntry(cert, entry);
+        assertEquals(cache.size(), 1);
+
+        assertSame(cache.getEntry(cert), entry);
+        assertSame(cache.getEntry(cert), entry);
+        assertEquals(cache.getHitCount(), 2);
+        assertEquals(cache.getMissCount(), 1);
+    }
+
+    @Test
+    public void testExpiredCertificate() {
+
+        CertificateIdentityCache cache = new CertificateIdentityCache(10, 3600);
+        X509Certificate cert = Mockito.mock(X509Certificate.class);
+
+        // expired certificates are not added to the cache
+
+        cache.putEntry(cert, createEntry(cert, System.currentTimeMillis() - 1000));
+        assertEquals(cache.size(), 0);
+
+        // entries for certificates that expire while in the
+        // cache are removed when looked up
+
+        cache.putEntry(cert, createEntry(cert, System.currentTimeMillis() + 100));
+        assertEquals(cache.size(), 1);
+        assertNotNull(cache.getEntry(cert));
+
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException ignored) {
+        }
+
+        assertNull(cache.getEntry(cert));
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 1);
+    }
+
+    @Test
+    public void testCacheFull() {
+
+        CertificateIdentityCache cache = new CertificateIdentityCache(2, 3600);
+        X509Certificate cert1 = Mockito.mock(X509Certificate.class);
+        X509Certificate cert2 = Mockito.mock(X509Certificate.class);
+        X509Certificate cert3 = Mockito.mock(X509Certificate.class);
+
+        cache.putEntry(cert1, createEntry(cert1, System.currentTimeMillis() + 100));
+        cache.putEntry(cert2, createEntry(cert2, System.currentTimeMillis() + 60000));
+        assertEquals(cache.size(), 2);
+
+        // with no expired entries the new certificate is not cached
+
+        cache.putEntry(cert3, createEntry(cert3, System.currentTimeMillis() + 60000));
+        assertEquals(cache.size(), 2);
+        assertNull(cache.getEntry(cert3));
+
+        // once the first entry expires, it's replaced by the new certificate
+
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException ignored) {
+        }
+
+        cache.putEntry(cert3, createEntry(cert3, System.currentTimeMillis() + 60000));
+        assertEquals(cache.size(), 2);
+        assertNotNull(cache.getEntry(cert2));
+        assertNotNull(cache.getEntry(cert3));
+    }
+
+    @Test
+    public void testCacheTimeout() {
+
+        // entries expire after the configured timeout even
+        // if the certificate is still valid
+
+        CertificateIdentityCache cache = new CertificateIdentityCache(10, 1);
+        X509Certificate cert = Mockito.mock(X509Certificate.class);
+        CertificateIdentityCache.Entry entry = createEntry(cert, System.currentTimeMillis() + 3600000);
+        cache.putEntry(cert, entry);
+        assertTrue(entry.expiryTime <= System.currentTimeMillis() + 1000);
+        assertSame(cache.getEntry(cert), entry);
+    }
+}
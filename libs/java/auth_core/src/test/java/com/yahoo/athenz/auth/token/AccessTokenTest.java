@@ -685,6 +685,49 @@ public class AccessTokenTest {
         assertNull(accessToken.getX509CertificateHash(mockCert));
     }
 
+    @Test
+    public void testGetX509CertificateHashCache() throws Exception {
+
+        Path path = Paths.get("src/test/resources/valid_cn_x509.cert");
+        X509Certificate cert = Crypto.loadX509Certificate(new String(Files.readAllBytes(path)));
+
+        AccessToken accessToken = new AccessToken();
+        final String certHash = accessToken.getX509CertificateHash(cert);
+        assertNotNull(certHash);
+        assertEquals(AccessToken.getX509CertHashCacheHitCount(), 0);
+
+        AccessToken.setX509CertHashCacheSize(10);
+        assertEquals(accessToken.getX509CertificateHash(cert), certHash);
+        assertEquals(AccessToken.getX509CertHashCacheHitCount(), 0);
+        assertEquals(accessToken.getX509CertificateHash(cert), certHash);
+        assertEquals(new AccessToken().getX509CertificateHash(cert), certHash);
+        assertEquals(AccessToken.getX509CertHashCacheHitCount(), 2);
+
+        // failures are not cached
+
+        X509Certificate mockCert = Mockito.mock(X509Certificate.class);
+        Mockito.when(mockCert.getEncoded()).thenThrow(new CryptoException());
+        assertNull(accessToken.getX509CertificateHash(mockCert));
+        assertNull(accessToken.getX509CertificateHash(mockCert));
+        assertEquals(AccessToken.getX509CertHashCacheHitCount(), 2);
+
+        // the cache is cleared once it's full
+
+        AccessToken.setX509CertHashCacheSize(1);
+        Path path2 = Paths.get("src/test/resources/valid_email_x509.cert");
+        X509Certificate cert2 = Crypto.loadX509Certificate(new String(Files.readAllBytes(path2)));
+        final String certHash2 = accessToken.getX509CertificateHash(cert2);
+        assertNotEquals(certHash2, certHash);
+        assertEquals(accessToken.getX509CertificateHash(cert), certHash);
+        assertEquals(accessToken.getX509CertificateHash(cert), certHash);
+        assertEquals(accessToken.getX509CertificateHash(cert2), certHash2);
+        assertEquals(AccessToken.getX509CertHashCacheHitCount(), 1);
+
+        AccessToken.setX509CertHashCacheSize(0);
+        assertEquals(AccessToken.getX509CertHashCacheHitCount(), 0);
+        assertEquals(accessToken.getX509CertificateHash(cert), certHash);
+    }
+
     @Test
     public void testConfirmX509CertHashFailure() {
 
@@ -88,314 +88,391 @@ public class SignUtils {
     private static final String ATTR_SERVICE_REVIEW_DAYS = "serviceReviewDays";
     private static final String ATTR_SIGN_ALGORITHM = "signAlgorithm";
 
-    private static Struct asStruct(DomainPolicies domainPolicies) {
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /**
+     * Canonical json writer that generates the output in a single pass
+     * into the same buffer. The caller is responsible for writing the
+     * fields of each object in the canonical order based on their
+     * attribute names.
+     */
+    static final class CanonicalWriter {
+
+        private final StringBuilder buffer;
+        private boolean first = true;
+
+        CanonicalWriter(int capacity) {
+            buffer = new StringBuilder(capacity);
+        }
+
+        private void separator() {
+            if (!first) {
+                buffer.append(',');
+            }
+            first = false;
+        }
+
+        private void name(final String name) {
+            separator();
+            buffer.append('"').append(name).append("\":");
+        }
+
+        CanonicalWriter startObject() {
+            separator();
+            buffer.append('{');
+            first = true;
+            return this;
+        }
+
+        CanonicalWriter startObject(final String name) {
+            name(name);
+            buffer.append('{');
+            first = true;
+            return this;
+        }
+
+        CanonicalWriter endObject() {
+            buffer.append('}');
+            first = false;
+            return this;
+        }
+
+        CanonicalWriter field(final String name) {
+            // the attribute name for a nested object which
+            // will be written by the following startObject call
+            name(name);
+            first = true;
+            return this;
+        }
+
+        CanonicalWriter startArray(final String name) {
+            name(name);
+            buffer.append('[');
+            first = true;
+            return this;
+        }
+
+        CanonicalWriter endArray() {
+            buffer.append(']');
+            first = false;
+            return this;
+        }
+
+        CanonicalWriter value(final String name, Object value) {
+            if (value == null) {
+                return this;
+            }
+            name(name);
+            if (value instanceof Integer || value instanceof Boolean) {
+                buffer.append(value);
+            } else {
+                buffer.append('"').append(value).append('"');
+            }
+            return this;
+        }
+
+        CanonicalWriter list(final String name, List<String> list) {
+            if (list == null) {
+                return this;
+            }
+            startArray(name);
+            for (String item : list) {
+                separator();
+                buffer.append('"').append(item).append('"');
+            }
+            return endArray();
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+    }
+
+    private static void write(CanonicalWriter writer, DomainPolicies domainPolicies) {
         // all of our fields are in canonical order based
         // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_DOMAIN, domainPolicies.getDomain());
-        Array policiesArray = new Array();
+        writer.startObject();
+        writer.value(ATTR_DOMAIN, domainPolicies.getDomain());
+        writer.startArray(ATTR_POLICIES);
         for (Policy policy : domainPolicies.getPolicies()) {
-            policiesArray.add(asStruct(policy));
+            write(writer, policy);
         }
-        appendArray(struct, ATTR_POLICIES, policiesArray);
-        return struct;
+        writer.endArray();
+        writer.endObject();
     }
-    
-    private static Struct asStruct(Policy policy) {
+
+    private static void write(CanonicalWriter writer, Policy policy) {
         // all of our fields are in canonical order based
         // on their attribute name
-        Struct struct = new Struct();
+        writer.startObject();
         List<Assertion> assertions = policy.getAssertions();
         if (assertions != null && !assertions.isEmpty()) {
-            Array assertionsArray = new Array();
+            writer.startArray(ATTR_ASSERTIONS);
             for (Assertion assertion : assertions) {
-                Struct structAssertion = new Struct();
-                appendObject(structAssertion, ATTR_ACTION, assertion.getAction());
-                appendObject(structAssertion, ATTR_EFFECT, assertion.getEffect());
-                appendObject(structAssertion, ATTR_RESOURCE, assertion.getResource());
-                appendObject(structAssertion, ATTR_ROLE, assertion.getRole());
-                assertionsArray.add(structAssertion);
+                writer.startObject()
+                        .value(ATTR_ACTION, assertion.getAction())
+                        .value(ATTR_EFFECT, assertion.getEffect())
+                        .value(ATTR_RESOURCE, assertion.getResource())
+                        .value(ATTR_ROLE, assertion.getRole())
+                        .endObject();
             }
-            appendArray(struct, ATTR_ASSERTIONS, assertionsArray);
+            writer.endArray();
         }
-        appendObject(struct, ATTR_MODIFIED, policy.getModified());
-        appendObject(struct, ATTR_NAME, policy.getName());
-        return struct;
+        writer.value(ATTR_MODIFIED, policy.getModified());
+        writer.value(ATTR_NAME, policy.getName());
+        writer.endObject();
     }
-    
-    private static Struct asStruct(com.yahoo.athenz.zts.Policy policy) {
+
+    private static void write(CanonicalWriter writer, com.yahoo.athenz.zts.Policy policy) {
         // all of our fields are in canonical order based
         // on their attribute name
-        Struct struct = new Struct();
+        writer.startObject();
         List<com.yahoo.athenz.zts.Assertion> assertions = policy.getAssertions();
         if (assertions != null && !assertions.isEmpty()) {
-            Array assertionsArray = new Array();
+            writer.startArray(ATTR_ASSERTIONS);
             for (com.yahoo.athenz.zts.Assertion assertion : assertions) {
-                Struct structAssertion = new Struct();
-                appendObject(structAssertion, ATTR_ACTION, assertion.getAction());
-                appendObject(structAssertion, ATTR_EFFECT, assertion.getEffect());
-                appendObject(structAssertion, ATTR_RESOURCE, assertion.getResource());
-                appendObject(structAssertion, ATTR_ROLE, assertion.getRole());
-                assertionsArray.add(structAssertion);
+                writer.startObject()
+                        .value(ATTR_ACTION, assertion.getAction())
+                        .value(ATTR_EFFECT, assertion.getEffect())
+                        .value(ATTR_RESOURCE, assertion.getResource())
+                        .value(ATTR_ROLE, assertion.getRole())
+                        .endObject();
             }
-            appendArray(struct, ATTR_ASSERTIONS, assertionsArray);
+            writer.endArray();
         }
-        appendObject(struct, ATTR_MODIFIED, policy.getModified());
-        appendObject(struct, ATTR_NAME, policy.getName());
-        return struct;
+        writer.value(ATTR_MODIFIED, policy.getModified());
+        writer.value(ATTR_NAME, policy.getName());
+        writer.endObject();
     }
-    
-    private static Struct asStruct(Role role) {
+
+    private static void write(CanonicalWriter writer, Role role) {
         // all of our fields are in canonical order based
         // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_AUDIT_ENABLED, role.getAuditEnabled());
-        appendObject(struct, ATTR_CERT_EXPIRY_MINS, role.getCertExpiryMins());
-        appendObject(struct, ATTR_MEMBER_EXPIRY_DAYS, role.getMemberExpiryDays());
-        appendObject(struct, ATTR_MEMBER_REVIEW_DAYS, role.getMemberReviewDays());
-        appendList(struct, ATTR_MEMBERS, role.getMembers());
-        appendObject(struct, ATTR_MODIFIED, role.getModified());
-        appendObject(struct, ATTR_NAME, role.getName());
+        writer.startObject();
+        writer.value(ATTR_AUDIT_ENABLED, role.getAuditEnabled());
+        writer.value(ATTR_CERT_EXPIRY_MINS, role.getCertExpiryMins());
+        writer.value(ATTR_MEMBER_EXPIRY_DAYS, role.getMemberExpiryDays());
+        writer.value(ATTR_MEMBER_REVIEW_DAYS, role.getMemberReviewDays());
+        writer.list(ATTR_MEMBERS, role.getMembers());
+        writer.value(ATTR_MODIFIED, role.getModified());
+        writer.value(ATTR_NAME, role.getName());
         List<RoleMember> roleMembers = role.getRoleMembers();
         if (roleMembers != null) {
-            Array roleMembersArray = new Array();
+            writer.startArray(ATTR_ROLE_MEMBERS);
             for (RoleMember roleMember : roleMembers) {
-                Struct structRoleMember = new Struct();
-                appendObject(structRoleMember, ATTR_EXPIRATION, roleMember.getExpiration());
-                appendObject(structRoleMember, ATTR_MEMBER_NAME, roleMember.getMemberName());
-                appendObject(structRoleMember, ATTR_SYSTEM_DISABLED, roleMember.getSystemDisabled());
-                roleMembersArray.add(structRoleMember);
+                writer.startObject()
+                        .value(ATTR_EXPIRATION, roleMember.getExpiration())
+                        .value(ATTR_MEMBER_NAME, roleMember.getMemberName())
+                        .value(ATTR_SYSTEM_DISABLED, roleMember.getSystemDisabled())
+                        .endObject();
             }
-            appendArray(struct, ATTR_ROLE_MEMBERS, roleMembersArray);
+            writer.endArray();
         }
-        appendObject(struct, ATTR_SELF_SERVE, role.getSelfServe());
-        appendObject(struct, ATTR_SERVICE_EXPIRY_DAYS, role.getServiceExpiryDays());
-        appendObject(struct, ATTR_SERVICE_REVIEW_DAYS, role.getServiceReviewDays());
-        appendObject(struct, ATTR_SIGN_ALGORITHM, role.getSignAlgorithm());
-        appendObject(struct, ATTR_TOKEN_EXPIRY_MINS, role.getTokenExpiryMins());
-        appendObject(struct, ATTR_TRUST, role.getTrust());
-        return struct;
+        writer.value(ATTR_SELF_SERVE, role.getSelfServe());
+        writer.value(ATTR_SERVICE_EXPIRY_DAYS, role.getServiceExpiryDays());
+        writer.value(ATTR_SERVICE_REVIEW_DAYS, role.getServiceReviewDays());
+        writer.value(ATTR_SIGN_ALGORITHM, role.getSignAlgorithm());
+        writer.value(ATTR_TOKEN_EXPIRY_MINS, role.getTokenExpiryMins());
+        writer.value(ATTR_TRUST, role.getTrust());
+        writer.endObject();
     }
 
-    private static Struct asStruct(Group group) {
+    private static void write(CanonicalWriter writer, Group group) {
         // all of our fields are in canonical order based
         // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_AUDIT_ENABLED, group.getAuditEnabled());
-        appendObject(struct, ATTR_MEMBER_EXPIRY_DAYS, group.getMemberExpiryDays());
+        writer.startObject();
+        writer.value(ATTR_AUDIT_ENABLED, group.getAuditEnabled());
         List<GroupMember> groupMembers = group.getGroupMembers();
         if (groupMembers != null) {
-            Array groupMembersArray = new Array();
+            writer.startArray(ATTR_GROUP_MEMBERS);
             for (GroupMember groupMember : groupMembers) {
-                Struct structRoleMember = new Struct();
-                appendObject(structRoleMember, ATTR_EXPIRATION, groupMember.getExpiration());
-                appendObject(structRoleMember, ATTR_GROUP_NAME, groupMember.getGroupName());
-                appendObject(structRoleMember, ATTR_MEMBER_NAME, groupMember.getMemberName());
-                appendObject(structRoleMember, ATTR_SYSTEM_DISABLED, groupMember.getSystemDisabled());
-                groupMembersArray.add(structRoleMember);
+                writer.startObject()
+                        .value(ATTR_EXPIRATION, groupMember.getExpiration())
+                        .value(ATTR_GROUP_NAME, groupMember.getGroupName())
+                        .value(ATTR_MEMBER_NAME, groupMember.getMemberName())
+                        .value(ATTR_SYSTEM_DISABLED, groupMember.getSystemDisabled())
+                        .endObject();
             }
-            appendArray(struct, ATTR_GROUP_MEMBERS, groupMembersArray);
+            writer.endArray();
         }
-        appendObject(struct, ATTR_MODIFIED, group.getModified());
-        appendObject(struct, ATTR_NAME, group.getName());
-        appendObject(struct, ATTR_REVIEW_ENABLED, group.getReviewEnabled());
-        appendObject(struct, ATTR_SELF_SERVE, group.getSelfServe());
-        appendObject(struct, ATTR_SERVICE_EXPIRY_DAYS, group.getServiceExpiryDays());
-        return struct;
+        writer.value(ATTR_MEMBER_EXPIRY_DAYS, group.getMemberExpiryDays());
+        writer.value(ATTR_MODIFIED, group.getModified());
+        writer.value(ATTR_NAME, group.getName());
+        writer.value(ATTR_REVIEW_ENABLED, group.getReviewEnabled());
+        writer.value(ATTR_SELF_SERVE, group.getSelfServe());
+        writer.value(ATTR_SERVICE_EXPIRY_DAYS, group.getServiceExpiryDays());
+        writer.endObject();
     }
 
-    private static Struct asStruct(ServiceIdentity service) {
+    private static void write(CanonicalWriter writer, ServiceIdentity service) {
         // all of our fields are in canonical order based
         // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_DESCRIPTION, service.getDescription());
-        appendObject(struct, ATTR_EXECUTABLE, service.getExecutable());
-        appendObject(struct, ATTR_GROUP, service.getGroup());
-        appendList(struct, ATTR_HOSTS, service.getHosts());
-        appendObject(struct, ATTR_MODIFIED, service.getModified());
-        appendObject(struct, ATTR_NAME, service.getName());
-        appendObject(struct, ATTR_PROVIDER_ENDPOINT, service.getProviderEndpoint());
+        writer.startObject();
+        writer.value(ATTR_DESCRIPTION, service.getDescription());
+        writer.value(ATTR_EXECUTABLE, service.getExecutable());
+        writer.value(ATTR_GROUP, service.getGroup());
+        writer.list(ATTR_HOSTS, service.getHosts());
+        writer.value(ATTR_MODIFIED, service.getModified());
+        writer.value(ATTR_NAME, service.getName());
+        writer.value(ATTR_PROVIDER_ENDPOINT, service.getProviderEndpoint());
+        writer.startArray(ATTR_PUBLIC_KEYS);
         List<PublicKeyEntry> publicKeys = service.getPublicKeys();
-        Array publicKeysArray = new Array();
         if (publicKeys != null) {
             for (PublicKeyEntry publicKey : publicKeys) {
-                Struct structPublicKey = new Struct();
-                appendObject(structPublicKey, ATTR_ID, publicKey.getId());
-                appendObject(structPublicKey, ATTR_KEY, publicKey.getKey());
-                publicKeysArray.add(structPublicKey);
+                writer.startObject()
+                        .value(ATTR_ID, publicKey.getId())
+                        .value(ATTR_KEY, publicKey.getKey())
+                        .endObject();
             }
         }
-        appendArray(struct, ATTR_PUBLIC_KEYS, publicKeysArray);
-        appendObject(struct, ATTR_USER, service.getUser());
-        return struct;
-    }
-    
-    private static void appendList(Struct struct, String name, List<String> list) {
-        if (list == null) {
-            return;
-        }
-        Array items = new Array();
-        items.addAll(list);
-        appendArray(struct, name, items);
-    }
-    
-    private static void appendObject(Struct struct, String name, Object value) {
-        if (value == null) {
-            return;
-        }
-        if (value instanceof Struct) {
-            struct.append(name, value);
-        } else if (value instanceof String) {
-            struct.append(name, value);
-        } else if (value instanceof Integer) {
-            struct.append(name, value);
-        } else if (value instanceof Boolean) {
-            struct.append(name, value);
-        } else {
-            struct.append(name, value.toString());
-        }
+        writer.endArray();
+        writer.value(ATTR_USER, service.getUser());
+        writer.endObject();
     }
-    
-    private static void appendArray(Struct struct, String name, Array array) {
-        struct.append(name, array);
-    }
-    
-    private static Object asStruct(PolicyData policyData) {
+
+    private static void write(CanonicalWriter writer, PolicyData policyData) {
         // all of our fields are in canonical order based
         // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_DOMAIN, policyData.getDomain());
+        writer.startObject();
+        writer.value(ATTR_DOMAIN, policyData.getDomain());
+        writer.startArray(ATTR_POLICIES);
         List<com.yahoo.athenz.zts.Policy> policies = policyData.getPolicies();
-        Array policiesArray = new Array();
         if (policies != null) {
             for (com.yahoo.athenz.zts.Policy policy : policies) {
-                policiesArray.add(asStruct(policy));
+                write(writer, policy);
             }
         }
-        appendArray(struct, ATTR_POLICIES, policiesArray);
-        return struct;
+        writer.endArray();
+        writer.endObject();
     }
-    
-    private static Object asStruct(SignedPolicyData signedPolicyData) {
+
+    private static void write(CanonicalWriter writer, SignedPolicyData signedPolicyData) {
         // all of our fields are in canonical order based
         // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_EXPIRES, signedPolicyData.getExpires());
-        appendObject(struct, ATTR_MODIFIED, signedPolicyData.getModified());
-        appendObject(struct, ATTR_POLICY_DATA, asStruct(signedPolicyData.getPolicyData()));
-        appendObject(struct, ATTR_ZMS_KEY_ID, signedPolicyData.getZmsKeyId());
-        appendObject(struct, ATTR_ZMS_SIGNATURE, signedPolicyData.getZmsSignature());
-        return struct;
+        writer.startObject();
+        writer.value(ATTR_EXPIRES, signedPolicyData.getExpires());
+        writer.value(ATTR_MODIFIED, signedPolicyData.getModified());
+        writer.field(ATTR_POLICY_DATA);
+        write(writer, signedPolicyData.getPolicyData());
+        writer.value(ATTR_ZMS_KEY_ID, signedPolicyData.getZmsKeyId());
+        writer.value(ATTR_ZMS_SIGNATURE, signedPolicyData.getZmsSignature());
+        writer.endObject();
     }
-    
-    private static Struct asStruct(DomainData domainData) {
+
+    private static void write(CanonicalWriter writer, DomainData domainData) {
         // all of our fields are in canonical order based
         // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_ACCOUNT, domainData.getAccount());
-        appendObject(struct, ATTR_AUDIT_ENABLED, domainData.getAuditEnabled());
-        appendObject(struct, ATTR_CERT_DNS_DOMAIN, domainData.getCertDnsDomain());
-        appendObject(struct, ATTR_ENABLED, domainData.getEnabled());
+        writer.startObject();
+        writer.value(ATTR_ACCOUNT, domainData.getAccount());
+        writer.value(ATTR_AUDIT_ENABLED, domainData.getAuditEnabled());
+        writer.value(ATTR_CERT_DNS_DOMAIN, domainData.getCertDnsDomain());
+        writer.value(ATTR_ENABLED, domainData.getEnabled());
         if (domainData.getGroups() != null && !domainData.getGroups().isEmpty()) {
-            Array structGroups = new Array();
+            writer.startArray(ATTR_GROUPS);
             for (Group group : domainData.getGroups()) {
-                structGroups.add(asStruct(group));
+                write(writer, group);
             }
-            appendArray(struct, ATTR_GROUPS, structGroups);
+            writer.endArray();
         }
-        appendObject(struct, ATTR_MEMBER_EXPIRY_DAYS, domainData.getMemberExpiryDays());
-        appendObject(struct, ATTR_MODIFIED, domainData.getModified());
-        appendObject(struct, ATTR_NAME, domainData.getName());
+        writer.value(ATTR_MEMBER_EXPIRY_DAYS, domainData.getMemberExpiryDays());
+        writer.value(ATTR_MODIFIED, domainData.getModified());
+        writer.value(ATTR_NAME, domainData.getName());
         SignedPolicies signedPolicies = domainData.getPolicies();
         if (signedPolicies != null) {
-            Struct structSignedPolicies = new Struct();
-            appendObject(structSignedPolicies, ATTR_CONTENTS, asStruct(signedPolicies.getContents()));
-            appendObject(structSignedPolicies, ATTR_KEYID, signedPolicies.getKeyId());
-            appendObject(struct, ATTR_POLICIES, structSignedPolicies);
-            appendObject(structSignedPolicies, ATTR_SIGNATURE, signedPolicies.getSignature());
+            writer.startObject(ATTR_POLICIES);
+            writer.field(ATTR_CONTENTS);
+            write(writer, signedPolicies.getContents());
+            writer.value(ATTR_KEYID, signedPolicies.getKeyId());
+            writer.value(ATTR_SIGNATURE, signedPolicies.getSignature());
+            writer.endObject();
         }
-        appendObject(struct, ATTR_ROLE_CERT_EXPIRY_MINS, domainData.getRoleCertExpiryMins());
-        Array structRoles = new Array();
+        writer.value(ATTR_ROLE_CERT_EXPIRY_MINS, domainData.getRoleCertExpiryMins());
+        writer.startArray(ATTR_ROLES);
         if (domainData.getRoles() != null) {
             for (Role role : domainData.getRoles()) {
-                structRoles.add(asStruct(role));
+                write(writer, role);
             }
         }
-        appendArray(struct, ATTR_ROLES, structRoles);
-        Array structServices = new Array();
+        writer.endArray();
+        writer.value(ATTR_SERVICE_CERT_EXPIRY_MINS, domainData.getServiceCertExpiryMins());
+        writer.value(ATTR_SERVICE_EXPIRY_DAYS, domainData.getServiceExpiryDays());
+        writer.startArray(ATTR_SERVICES);
         if (domainData.getServices() != null) {
             for (ServiceIdentity service : domainData.getServices()) {
-                structServices.add(asStruct(service));
+                write(writer, service);
             }
         }
-        appendObject(struct, ATTR_SERVICE_CERT_EXPIRY_MINS, domainData.getServiceCertExpiryMins());
-        appendObject(struct, ATTR_SERVICE_EXPIRY_DAYS, domainData.getServiceExpiryDays());
-        appendArray(struct, ATTR_SERVICES, structServices);
-        appendObject(struct, ATTR_SIGN_ALGORITHM, domainData.getSignAlgorithm());
-        appendObject(struct, ATTR_TOKEN_EXPIRY_MINS, domainData.getTokenExpiryMins());
-        appendObject(struct, ATTR_YPMID, domainData.getYpmId());
-        return struct;
-    }
-    
-    private static void appendSeparator(StringBuilder strBuffer) {
-        // if we have more than a single character
-        // (which is our initial {/[ character) 
-        // in our buffer then we need to separate
-        // the item with a comma
-        if (strBuffer.length() != 1) {
-            strBuffer.append(',');
-        }
+        writer.endArray();
+        writer.value(ATTR_SIGN_ALGORITHM, domainData.getSignAlgorithm());
+        writer.value(ATTR_TOKEN_EXPIRY_MINS, domainData.getTokenExpiryMins());
+        writer.value(ATTR_YPMID, domainData.getYpmId());
+        writer.endObject();
     }
-    
-    static String asCanonicalString(Object obj) {
-        StringBuilder strBuffer = new StringBuilder();
+
+    private static void appendCanonicalString(StringBuilder strBuffer, Object obj) {
         if (obj instanceof Struct) {
             Struct struct = (Struct) obj;
             strBuffer.append('{');
+            boolean first = true;
             for (String name : struct.sortedNames()) {
-                appendSeparator(strBuffer);
+                if (!first) {
+                    strBuffer.append(',');
+                }
+                first = false;
                 strBuffer.append('"');
                 strBuffer.append(name);
                 strBuffer.append("\":");
-                strBuffer.append(asCanonicalString(struct.get(name)));
+                appendCanonicalString(strBuffer, struct.get(name));
             }
             strBuffer.append('}');
         } else if (obj instanceof Array) {
             strBuffer.append('[');
+            boolean first = true;
             for (Object item : (Array) obj) {
-                appendSeparator(strBuffer);
-                strBuffer.append(asCanonicalString(item));
+                if (!first) {
+                    strBuffer.append(',');
+                }
+                first = false;
+                appendCanonicalString(strBuffer, item);
             }
             strBuffer.append(']');
         } else if (obj instanceof String) {
             strBuffer.append('"');
             strBuffer.append(obj);
             strBuffer.append('"');
-        } else if (obj instanceof Integer) {
-            strBuffer.append(obj);
-        } else if (obj instanceof Long) {
-            strBuffer.append(obj);
-        } else if (obj instanceof Boolean) {
-            strBuffer.append(obj);
         } else {
-            strBuffer.append(obj.toString());
+            strBuffer.append(obj);
         }
+    }
+
+    static String asCanonicalString(Object obj) {
+        StringBuilder strBuffer = new StringBuilder();
+        appendCanonicalString(strBuffer, obj);
         return strBuffer.toString();
     }
-    
+
     public static String asCanonicalString(PolicyData policyData) {
-        return asCanonicalString(asStruct(policyData));
+        CanonicalWriter writer = new CanonicalWriter(INITIAL_BUFFER_SIZE);
+        write(writer, policyData);
+        return writer.toString();
     }
-    
+
     public static String asCanonicalString(DomainData domainData) {
-        return asCanonicalString(asStruct(domainData));
+        CanonicalWriter writer = new CanonicalWriter(INITIAL_BUFFER_SIZE);
+        write(writer, domainData);
+        return writer.toString();
     }
-    
+
     public static String asCanonicalString(DomainPolicies domainPolicies) {
-        return asCanonicalString(asStruct(domainPolicies));
+        CanonicalWriter writer = new CanonicalWriter(INITIAL_BUFFER_SIZE);
+        write(writer, domainPolicies);
+        return writer.toString();
     }
-    
+
     public static String asCanonicalString(SignedPolicyData signedPolicyData) {
-        return asCanonicalString(asStruct(signedPolicyData));
+        CanonicalWriter writer = new CanonicalWriter(INITIAL_BUFFER_SIZE);
+        write(writer, signedPolicyData);
+        return writer.toString();
     }
 }
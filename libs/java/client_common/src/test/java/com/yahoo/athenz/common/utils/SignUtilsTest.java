@@ -3,9 +3,13 @@ package com.yahoo.athenz.common.utils;
 import static org.testng.Assert.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import com.yahoo.athenz.zms.*;
+import com.yahoo.rdl.Array;
 import com.yahoo.rdl.Struct;
 import com.yahoo.rdl.Timestamp;
 import org.mockito.Mock;
@@ -18,7 +22,15 @@ import com.yahoo.athenz.zts.PolicyData;
 import com.yahoo.athenz.zts.SignedPolicyData;
 
 public class SignUtilsTest {
-    
+
+    // values that would require escaping in a regular json document.
+    // the canonical string includes them as is
+
+    private static final String[] SPECIAL_VALUES = {
+            "quote\"value", "back\\slash", "new\nline", "tab\tvalue", "{\"json\":[1,2]}",
+            "unicode-\u00fc\u00f1\u00ee\u00e7\u00f8d\u00e9", "control-\u0001", ""
+    };
+
     @Mock
     PolicyData mockPolicy;
     @Mock
@@ -234,6 +246,25 @@ public class SignUtilsTest {
         assertEquals(check, expected);
     }
 
+    @Test
+    public void testAsCannonicalStringObjectArray() {
+
+        Array items = new Array();
+        items.add("item1");
+        items.add(10);
+        Struct nested = new Struct();
+        nested.append("name", "nested");
+        items.add(nested);
+
+        Struct struct = new Struct();
+        struct.append("items", items);
+        struct.append("enabled", true);
+
+        final String check = SignUtils.asCanonicalString(struct);
+        final String expected = "{\"enabled\":true,\"items\":[\"item1\",10,{\"name\":\"nested\"}]}";
+        assertEquals(check, expected);
+    }
+
     @Test
     public void testAsStructRoleDomainWithAuditEnabled() {
 
@@ -352,4 +383,289 @@ public class SignUtilsTest {
                 +"\"roles\":[],\"services\":[],\"ypmId\":100}";
         assertEquals(check, expected);
     }
+
+    @Test
+    public void testAsCanonicalStringRandomizedData() {
+
+        // generate domains with all the optional fields randomly
+        // set and verify we generate the same output as the original
+        // rdl Struct based implementation
+
+        Random random = new Random(1234);
+        for (int i = 0; i < 500; i++) {
+            DomainData domainData = generateDomainData(random, "domain" + i);
+            assertCanonicalString(domainData);
+
+            DomainPolicies domainPolicies = domainData.getPolicies().getContents();
+            assertCanonicalString(domainPolicies);
+
+            PolicyData policyData = new PolicyData().setDomain(randomValue(random, domainData.getName()));
+            List<com.yahoo.athenz.zts.Policy> policies = new ArrayList<>();
+            for (int j = 0; j < random.nextInt(3); j++) {
+                policies.add(generateZTSPolicy(random, domainData.getName() + ":policy.p" + j));
+            }
+            policyData.setPolicies(randomValue(random, policies));
+            assertCanonicalString(policyData);
+
+            SignedPolicyData signedPolicyData = new SignedPolicyData().setPolicyData(policyData)
+                    .setExpires(randomValue(random, Timestamp.fromMillis(random.nextInt(100000))))
+                    .setModified(randomValue(random, Timestamp.fromMillis(random.nextInt(100000))))
+                    .setZmsKeyId(randomValue(random, "0"))
+                    .setZmsSignature(randomValue(random, randomText(random, "signature")));
+            assertCanonicalString(signedPolicyData);
+        }
+    }
+
+    @Test
+    public void testAsCanonicalStringNullFields() {
+
+        // objects with only their required fields set
+
+        DomainData domainData = new DomainData().setName("coretech");
+        assertCanonicalString(domainData);
+        assertEquals(SignUtils.asCanonicalString(domainData), "{\"name\":\"coretech\",\"roles\":[],\"services\":[]}");
+
+        // objects with all optional fields set to null and empty lists
+
+        domainData.setRoles(Arrays.asList(new Role(), new Role().setMembers(new ArrayList<>())
+                        .setRoleMembers(Arrays.asList(new RoleMember(), new RoleMember().setMemberName("user.joe")))))
+                .setGroups(Arrays.asList(new Group(), new Group().setGroupMembers(Collections.singletonList(new GroupMember()))))
+                .setServices(Arrays.asList(new ServiceIdentity(), new ServiceIdentity().setHosts(new ArrayList<>())
+                        .setPublicKeys(Collections.singletonList(new PublicKeyEntry()))))
+                .setPolicies(new SignedPolicies().setContents(new DomainPolicies()
+                        .setPolicies(Arrays.asList(new Policy(), new Policy().setAssertions(new ArrayList<>()),
+                                new Policy().setAssertions(Collections.singletonList(new Assertion()))))));
+        assertCanonicalString(domainData);
+        assertCanonicalString(domainData.getPolicies().getContents());
+
+        // empty group list is skipped while empty role and service lists are not
+
+        domainData.setRoles(new ArrayList<>()).setGroups(new ArrayList<>()).setServices(new ArrayList<>());
+        assertCanonicalString(domainData);
+
+        PolicyData policyData = new PolicyData();
+        assertCanonicalString(policyData);
+        assertCanonicalString(new SignedPolicyData().setPolicyData(policyData));
+
+        policyData.setPolicies(Arrays.asList(new com.yahoo.athenz.zts.Policy(),
+                new com.yahoo.athenz.zts.Policy().setAssertions(Collections.singletonList(
+                        new com.yahoo.athenz.zts.Assertion()))));
+        assertCanonicalString(policyData);
+        assertCanonicalString(new SignedPolicyData().setPolicyData(policyData));
+    }
+
+    @Test
+    public void testAsCanonicalStringSpecialValues() {
+
+        for (String value : SPECIAL_VALUES) {
+
+            DomainData domainData = new DomainData().setName("coretech").setAccount(value)
+                    .setDescription(value).setCertDnsDomain(value)
+                    .setRoles(Collections.singletonList(new Role().setName("coretech:role." + value)
+                            .setTrust(value).setMembers(Arrays.asList(value, "user.joe"))
+                            .setRoleMembers(Collections.singletonList(new RoleMember().setMemberName(value)))))
+                    .setGroups(Collections.singletonList(new Group().setName(value)
+                            .setGroupMembers(Collections.singletonList(new GroupMember().setMemberName(value)
+                                    .setGroupName(value)))))
+                    .setServices(Collections.singletonList(new ServiceIdentity().setName(value)
+                            .setDescription(value).setExecutable(value).setHosts(Collections.singletonList(value))
+                            .setPublicKeys(Collections.singletonList(new PublicKeyEntry().setId(value).setKey(value)))))
+                    .setPolicies(new SignedPolicies().setKeyId(value).setSignature(value)
+                            .setContents(new DomainPolicies().setDomain(value).setPolicies(Collections.singletonList(
+                                    new Policy().setName(value).setAssertions(Collections.singletonList(
+                                            new Assertion().setRole(value).setResource(value).setAction(value)))))));
+            assertCanonicalString(domainData);
+
+            // the value is included without any escaping
+
+            assertTrue(SignUtils.asCanonicalString(domainData).contains("\"account\":\"" + value + "\""));
+
+            PolicyData policyData = new PolicyData().setDomain(value)
+                    .setPolicies(Collections.singletonList(new com.yahoo.athenz.zts.Policy().setName(value)
+                            .setAssertions(Collections.singletonList(new com.yahoo.athenz.zts.Assertion()
+                                    .setRole(value).setResource(value).setAction(value)))));
+            assertCanonicalString(new SignedPolicyData().setPolicyData(policyData).setZmsKeyId(value)
+                    .setZmsSignature(value));
+        }
+    }
+
+    @Test
+    public void testAsCanonicalStringNestedObjects() {
+
+        Struct inner = new Struct();
+        inner.append("value", SPECIAL_VALUES[0]);
+        inner.append("count", 10);
+        inner.append("empty", new Struct());
+
+        Array innerArray = new Array();
+        innerArray.add(inner);
+        innerArray.add(new Array());
+        innerArray.add(SPECIAL_VALUES[1]);
+        innerArray.add(Long.MAX_VALUE);
+
+        Array outerArray = new Array();
+        outerArray.add(innerArray);
+        outerArray.add(false);
+
+        Struct middle = new Struct();
+        middle.append("list", outerArray);
+        middle.append("map", inner);
+
+        Struct struct = new Struct();
+        struct.append("zeta", middle);
+        struct.append("alpha", new Array());
+        struct.append("beta", Timestamp.fromMillis(1000));
+
+        assertEquals(SignUtils.asCanonicalString(struct), StructSignUtils.asCanonicalString(struct));
+        assertEquals(SignUtils.asCanonicalString(outerArray), StructSignUtils.asCanonicalString(outerArray));
+    }
+
+    private static void assertCanonicalString(DomainData domainData) {
+        assertEquals(SignUtils.asCanonicalString(domainData), StructSignUtils.asCanonicalString(domainData));
+    }
+
+    private static void assertCanonicalString(DomainPolicies domainPolicies) {
+        assertEquals(SignUtils.asCanonicalString(domainPolicies), StructSignUtils.asCanonicalString(domainPolicies));
+    }
+
+    private static void assertCanonicalString(PolicyData policyData) {
+        assertEquals(SignUtils.asCanonicalString(policyData), StructSignUtils.asCanonicalString(policyData));
+    }
+
+    private static void assertCanonicalString(SignedPolicyData signedPolicyData) {
+        assertEquals(SignUtils.asCanonicalString(signedPolicyData),
+                StructSignUtils.asCanonicalString(signedPolicyData));
+    }
+
+    private static String randomText(Random random, final String value) {
+        return random.nextInt(4) == 0 ? SPECIAL_VALUES[random.nextInt(SPECIAL_VALUES.length)] : value;
+    }
+
+    private static <T> T randomValue(Random random, T value) {
+        return random.nextBoolean() ? value : null;
+    }
+
+    private static DomainData generateDomainData(Random random, final String domainName) {
+
+        DomainData domainData = new DomainData().setName(domainName)
+                .setAccount(randomValue(random, randomText(random, "aws-account")))
+                .setAuditEnabled(randomValue(random, random.nextBoolean()))
+                .setCertDnsDomain(randomValue(random, "athenz.cloud"))
+                .setEnabled(randomValue(random, random.nextBoolean()))
+                .setMemberExpiryDays(randomValue(random, random.nextInt(100)))
+                .setModified(randomValue(random, Timestamp.fromMillis(random.nextInt(100000))))
+                .setRoleCertExpiryMins(randomValue(random, random.nextInt(100)))
+                .setServiceCertExpiryMins(randomValue(random, random.nextInt(100)))
+                .setServiceExpiryDays(randomValue(random, random.nextInt(100)))
+                .setSignAlgorithm(randomValue(random, "rsa"))
+                .setTokenExpiryMins(randomValue(random, random.nextInt(100)))
+                .setYpmId(randomValue(random, random.nextInt(100)));
+
+        List<Role> roles = new ArrayList<>();
+        for (int i = 0; i < random.nextInt(4); i++) {
+            Role role = new Role().setName(domainName + ":role.role" + i)
+                    .setAuditEnabled(randomValue(random, random.nextBoolean()))
+                    .setCertExpiryMins(randomValue(random, random.nextInt(100)))
+                    .setMemberExpiryDays(randomValue(random, random.nextInt(100)))
+                    .setMemberReviewDays(randomValue(random, random.nextInt(100)))
+                    .setModified(randomValue(random, Timestamp.fromMillis(random.nextInt(100000))))
+                    .setSelfServe(randomValue(random, random.nextBoolean()))
+                    .setServiceExpiryDays(randomValue(random, random.nextInt(100)))
+                    .setServiceReviewDays(randomValue(random, random.nextInt(100)))
+                    .setSignAlgorithm(randomValue(random, "ec"))
+                    .setTokenExpiryMins(randomValue(random, random.nextInt(100)))
+                    .setTrust(randomValue(random, randomText(random, "trust-domain")));
+            if (random.nextBoolean()) {
+                role.setMembers(Arrays.asList("user.joe", randomText(random, "user.jane")));
+            }
+            if (random.nextBoolean()) {
+                List<RoleMember> roleMembers = new ArrayList<>();
+                for (int j = 0; j < random.nextInt(3); j++) {
+                    roleMembers.add(new RoleMember().setMemberName("user.user" + j)
+                            .setExpiration(randomValue(random, Timestamp.fromMillis(random.nextInt(100000))))
+                            .setSystemDisabled(randomValue(random, random.nextInt(3))));
+                }
+                role.setRoleMembers(roleMembers);
+            }
+            roles.add(role);
+        }
+        domainData.setRoles(randomValue(random, roles));
+
+        List<Group> groups = new ArrayList<>();
+        for (int i = 0; i < random.nextInt(3); i++) {
+            Group group = new Group().setName(domainName + ":group.group" + i)
+                    .setAuditEnabled(randomValue(random, random.nextBoolean()))
+                    .setMemberExpiryDays(randomValue(random, random.nextInt(100)))
+                    .setModified(randomValue(random, Timestamp.fromMillis(random.nextInt(100000))))
+                    .setReviewEnabled(randomValue(random, random.nextBoolean()))
+                    .setSelfServe(randomValue(random, random.nextBoolean()))
+                    .setServiceExpiryDays(randomValue(random, random.nextInt(100)));
+            if (random.nextBoolean()) {
+                List<GroupMember> groupMembers = new ArrayList<>();
+                for (int j = 0; j < random.nextInt(3); j++) {
+                    groupMembers.add(new GroupMember().setMemberName("user.user" + j)
+                            .setGroupName(randomValue(random, group.getName()))
+                            .setExpiration(randomValue(random, Timestamp.fromMillis(random.nextInt(100000))))
+                            .setSystemDisabled(randomValue(random, random.nextInt(3))));
+                }
+                group.setGroupMembers(groupMembers);
+            }
+            groups.add(group);
+        }
+        domainData.setGroups(randomValue(random, groups));
+
+        List<ServiceIdentity> services = new ArrayList<>();
+        for (int i = 0; i < random.nextInt(3); i++) {
+            ServiceIdentity service = new ServiceIdentity().setName(domainName + ".service" + i)
+                    .setDescription(randomValue(random, randomText(random, "test service")))
+                    .setExecutable(randomValue(random, "/usr/bin/service"))
+                    .setGroup(randomValue(random, "users"))
+                    .setUser(randomValue(random, "root"))
+                    .setProviderEndpoint(randomValue(random, "https://localhost:4443"))
+                    .setModified(randomValue(random, Timestamp.fromMillis(random.nextInt(100000))))
+                    .setHosts(randomValue(random, Arrays.asList("host1", randomText(random, "host2"))));
+            if (random.nextBoolean()) {
+                List<PublicKeyEntry> publicKeys = new ArrayList<>();
+                for (int j = 0; j < random.nextInt(3); j++) {
+                    publicKeys.add(new PublicKeyEntry().setId(randomValue(random, "" + j))
+                            .setKey(randomValue(random, randomText(random, "public-key"))));
+                }
+                service.setPublicKeys(publicKeys);
+            }
+            services.add(service);
+        }
+        domainData.setServices(randomValue(random, services));
+
+        List<Policy> policies = new ArrayList<>();
+        for (int i = 0; i < random.nextInt(3); i++) {
+            Policy policy = new Policy().setName(domainName + ":policy.policy" + i)
+                    .setModified(randomValue(random, Timestamp.fromMillis(random.nextInt(100000))));
+            List<Assertion> assertions = new ArrayList<>();
+            for (int j = 0; j < random.nextInt(3); j++) {
+                assertions.add(new Assertion().setRole(domainName + ":role.role" + j)
+                        .setAction(randomValue(random, randomText(random, "read"))).setResource(randomValue(random, domainName + ":*"))
+                        .setEffect(randomValue(random, random.nextBoolean() ? AssertionEffect.ALLOW : AssertionEffect.DENY)));
+            }
+            policy.setAssertions(randomValue(random, assertions));
+            policies.add(policy);
+        }
+        domainData.setPolicies(new SignedPolicies().setKeyId(randomValue(random, "0"))
+                .setSignature(randomValue(random, "signature"))
+                .setContents(new DomainPolicies().setDomain(randomValue(random, domainName)).setPolicies(policies)));
+
+        return domainData;
+    }
+
+    private static com.yahoo.athenz.zts.Policy generateZTSPolicy(Random random, final String policyName) {
+        com.yahoo.athenz.zts.Policy policy = new com.yahoo.athenz.zts.Policy().setName(policyName)
+                .setModified(randomValue(random, Timestamp.fromMillis(random.nextInt(100000))));
+        List<com.yahoo.athenz.zts.Assertion> assertions = new ArrayList<>();
+        for (int j = 0; j < random.nextInt(3); j++) {
+            assertions.add(new com.yahoo.athenz.zts.Assertion().setRole("coretech:role.role" + j)
+                    .setAction(randomValue(random, "read")).setResource(randomValue(random, "coretech:*"))
+                    .setEffect(randomValue(random, com.yahoo.athenz.zts.AssertionEffect.ALLOW)));
+        }
+        policy.setAssertions(randomValue(random, assertions));
+        return policy;
+    }
 }
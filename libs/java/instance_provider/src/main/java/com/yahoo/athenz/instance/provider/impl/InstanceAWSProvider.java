@@ -32,7 +32,7 @@ import com.yahoo.athenz.instance.provider.AWSAttestationValidatorFactory;
 import com.yahoo.athenz.instance.provider.InstanceConfirmation;
 import com.yahoo.athenz.instance.provider.InstanceProvider;
 import com.yahoo.athenz.instance.provider.ProviderResourceException;
-import com.yahoo.athenz.common.server.util.IPBlock;
+import com.yahoo.athenz.common.server.util.IPPrefixTrie;
 import com.yahoo.athenz.common.server.util.Utils;
 import com.yahoo.rdl.JSON;
 import com.yahoo.rdl.Struct;
@@ -76,7 +76,7 @@ public class InstanceAWSProvider implements InstanceProvider {
     List<String> eksDnsSuffixes = null;
     InstanceAWSUtils awsUtils = null;
     DynamicConfigBoolean validateIPAddress;
-    List<IPBlock> systemAllowedIPAddresses;
+    IPPrefixTrie systemAllowedIPAddresses;
     AWSAttestationValidator attestationValidator;
     Authorizer authorizer;
 
@@ -135,7 +135,7 @@ public class InstanceAWSProvider implements InstanceProvider {
 
         validateIPAddress = new DynamicConfigBoolean(CONFIG_MANAGER, AWS_PROP_VALIDATE_IP_ADDRESS, false);
         final String certAllowedIPAddresses = System.getProperty(AWS_PROP_ALLOWED_IP_ADDRESSES, "");
-        systemAllowedIPAddresses = InstanceUtils.parseIPBlocks(certAllowedIPAddresses);
+        systemAllowedIPAddresses = InstanceUtils.parseIPPrefixTrie(certAllowedIPAddresses);
 
         // create our attestation validator to verify the instance identity. the
         // validator is configurable so adopters can swap the mechanism (e.g. STS
@@ -25,7 +25,7 @@ import com.yahoo.athenz.common.server.db.RolesProvider;
 import com.yahoo.athenz.common.server.util.config.dynamic.DynamicConfigBoolean;
 import com.yahoo.athenz.common.server.util.config.dynamic.DynamicConfigCsv;
 import com.yahoo.athenz.common.server.util.config.dynamic.DynamicConfigLong;
-import com.yahoo.athenz.common.server.util.IPBlock;
+import com.yahoo.athenz.common.server.util.IPPrefixTrie;
 import com.yahoo.athenz.instance.provider.ExternalCredentialsProvider;
 import com.yahoo.athenz.instance.provider.InstanceConfirmation;
 import com.yahoo.athenz.instance.provider.InstanceProvider;
@@ -69,7 +69,7 @@ public class InstanceGCPProvider implements InstanceProvider {
     ExternalCredentialsProvider externalCredentialsProvider = null;
     RolesProvider rolesProvider = null;
     DynamicConfigBoolean validateIPAddress;
-    List<IPBlock> systemAllowedIPAddresses;
+    IPPrefixTrie systemAllowedIPAddresses;
     Authorizer authorizer = null;
 
     public long getTimeOffsetInMilli() {
@@ -137,7 +137,7 @@ public class InstanceGCPProvider implements InstanceProvider {
 
         validateIPAddress = new DynamicConfigBoolean(CONFIG_MANAGER, GCP_PROP_VALIDATE_IP_ADDRESS, false);
         final String certAllowedIPAddresses = System.getProperty(GCP_PROP_ALLOWED_IP_ADDRESSES, "");
-        systemAllowedIPAddresses = InstanceUtils.parseIPBlocks(certAllowedIPAddresses);
+        systemAllowedIPAddresses = InstanceUtils.parseIPPrefixTrie(certAllowedIPAddresses);
     }
 
     @Override
@@ -19,12 +19,14 @@ import com.yahoo.athenz.common.ServerCommonConsts;
 import com.yahoo.athenz.common.server.util.config.dynamic.DynamicConfigBoolean;
 import com.yahoo.athenz.instance.provider.InstanceProvider;
 import com.yahoo.athenz.common.server.util.IPBlock;
+import com.yahoo.athenz.common.server.util.IPPrefixTrie;
 import com.yahoo.athenz.instance.provider.ProviderResourceException;
 import org.eclipse.jetty.util.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -449,6 +451,15 @@ public class InstanceUtils {
         return null;
     }
 
+    /**
+     * Parse the comma separated list of ip blocks into a list of IPBlock objects.
+     * Invalid entries are logged and skipped.
+     * @param certAllowedIPAddresses comma separated list of ip blocks
+     * @return list of IPBlock objects
+     * @deprecated use {@link #parseIPPrefixTrie(String)} instead which supports
+     * both IPv4 and IPv6 blocks and does not scan all entries for each lookup
+     */
+    @Deprecated
     public static List<IPBlock> parseIPBlocks(final String certAllowedIPAddresses) {
         List<IPBlock> ipBlocks = new ArrayList<>();
         for (String ipEntry : certAllowedIPAddresses.split(",")) {
@@ -462,6 +473,29 @@ public class InstanceUtils {
         return ipBlocks;
     }
 
+    /**
+     * Parse the comma separated list of ip blocks into an IPPrefixTrie object.
+     * Invalid entries are logged and skipped.
+     * @param certAllowedIPAddresses comma separated list of ip blocks
+     * @return IPPrefixTrie object with all valid ip blocks
+     */
+    public static IPPrefixTrie parseIPPrefixTrie(final String certAllowedIPAddresses) {
+        IPPrefixTrie ipBlocks = new IPPrefixTrie();
+        for (String ipEntry : certAllowedIPAddresses.split(",")) {
+            ipEntry = ipEntry.trim();
+            try {
+                ipBlocks.addPrefix(ipEntry);
+            } catch (Exception ex) {
+                LOGGER.error("Skipping invalid ip block entry: {}, error: {}", ipEntry, ex.getMessage());
+            }
+        }
+        return ipBlocks;
+    }
+
+    /**
+     * @deprecated use {@link #verifyIPAddressAccess(String, IPPrefixTrie)} instead
+     */
+    @Deprecated
     public static boolean verifyIPAddressAccess(final String ipAddress, final List<IPBlock> ipBlocks) {
         long ipAddr = IPBlock.convertIPToLong(ipAddress);
         for (IPBlock ipBlock : ipBlocks) {
@@ -472,9 +506,31 @@ public class InstanceUtils {
         return false;
     }
 
+    public static boolean verifyIPAddressAccess(final String ipAddress, final IPPrefixTrie ipBlocks) {
+        return ipBlocks.contains(ipAddress);
+    }
+
+    /**
+     * @deprecated use {@link #validateCertIPAddresses(DynamicConfigBoolean, Map, String, IPPrefixTrie)} instead
+     */
+    @Deprecated
     public static void validateCertIPAddresses(DynamicConfigBoolean validateIPAddress,
             Map<String, String> instanceAttributes, final String instancePrivateIP, List<IPBlock> allowedIPAddresses)
             throws ProviderResourceException {
+        validateCertIPAddresses(validateIPAddress, instanceAttributes, instancePrivateIP,
+                ipAddress -> verifyIPAddressAccess(ipAddress, allowedIPAddresses));
+    }
+
+    public static void validateCertIPAddresses(DynamicConfigBoolean validateIPAddress,
+            Map<String, String> instanceAttributes, final String instancePrivateIP, IPPrefixTrie allowedIPAddresses)
+            throws ProviderResourceException {
+        validateCertIPAddresses(validateIPAddress, instanceAttributes, instancePrivateIP,
+                ipAddress -> verifyIPAddressAccess(ipAddress, allowedIPAddresses));
+    }
+
+    static void validateCertIPAddresses(DynamicConfigBoolean validateIPAddress,
+            Map<String, String> instanceAttributes, final String instancePrivateIP,
+            Predicate<String> allowedIPAddress) throws ProviderResourceException {
 
         // if we have no IP address validation enabled then we're good to go
 
@@ -503,7 +559,7 @@ public class InstanceUtils {
 
             // otherwise, let's check if the IP address is in our allowed list
 
-            if (verifyIPAddressAccess(ipAddress, allowedIPAddresses)) {
+            if (allowedIPAddress.test(ipAddress)) {
                 continue;
             }
 
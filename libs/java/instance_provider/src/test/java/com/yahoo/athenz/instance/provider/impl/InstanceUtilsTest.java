@@ -17,6 +17,7 @@ package com.yahoo.athenz.instance.provider.impl;
 
 import com.yahoo.athenz.common.ServerCommonConsts;
 import com.yahoo.athenz.common.server.util.IPBlock;
+import com.yahoo.athenz.common.server.util.IPPrefixTrie;
 import com.yahoo.athenz.common.server.util.config.dynamic.DynamicConfigBoolean;
 import com.yahoo.athenz.instance.provider.InstanceProvider;
 import com.yahoo.athenz.instance.provider.ProviderResourceException;
@@ -545,11 +546,11 @@ public class InstanceUtilsTest {
         // any exceptions
 
         DynamicConfigBoolean feature = new DynamicConfigBoolean(false);
-        InstanceUtils.validateCertIPAddresses(feature, null, null, null);
+        InstanceUtils.validateCertIPAddresses(feature, null, null, (IPPrefixTrie) null);
 
         DynamicConfigBoolean featureMock = Mockito.mock(DynamicConfigBoolean.class);
         Mockito.when(featureMock.get()).thenReturn(null);
-        InstanceUtils.validateCertIPAddresses(featureMock, null, null, null);
+        InstanceUtils.validateCertIPAddresses(featureMock, null, null, (IPPrefixTrie) null);
 
         // if there are no IP addresses specified in the attributes then the
         // method returns without any exceptions
@@ -557,21 +558,21 @@ public class InstanceUtilsTest {
         feature = new DynamicConfigBoolean(true);
         Map<String, String> attributes = new HashMap<>();
         attributes.put(InstanceProvider.ZTS_INSTANCE_SAN_IP, "");
-        InstanceUtils.validateCertIPAddresses(feature, attributes, null, null);
+        InstanceUtils.validateCertIPAddresses(feature, attributes, null, (IPPrefixTrie) null);
 
         // if the list only contains empty values then the method returns without any exceptions
 
         attributes.put(InstanceProvider.ZTS_INSTANCE_SAN_IP, ", ,  ,");
-        InstanceUtils.validateCertIPAddresses(feature, attributes, null, null);
+        InstanceUtils.validateCertIPAddresses(feature, attributes, null, (IPPrefixTrie) null);
 
         // if the IP address matches to the private IP, then we return without any exceptions
 
         attributes.put(InstanceProvider.ZTS_INSTANCE_SAN_IP, "10.11.11.11");
-        InstanceUtils.validateCertIPAddresses(feature, attributes, "10.11.11.11", null);
+        InstanceUtils.validateCertIPAddresses(feature, attributes, "10.11.11.11", (IPPrefixTrie) null);
 
         // generate the IPBlocks object
 
-        List<IPBlock> ipBlocks = InstanceUtils.parseIPBlocks("10.0.0.0/8,172.16.0.0/12");
+        IPPrefixTrie ipBlocks = InstanceUtils.parseIPPrefixTrie("10.0.0.0/8,172.16.0.0/12");
         InstanceUtils.validateCertIPAddresses(feature, attributes, null, ipBlocks);
 
         // specify multiple IP addresses in the attributes
@@ -614,6 +615,56 @@ public class InstanceUtilsTest {
         }
     }
 
+    @Test
+    public void testParseIPPrefixTrie() {
+
+        // invalid entries are skipped
+
+        IPPrefixTrie ipBlocks = InstanceUtils.parseIPPrefixTrie("10.0.0.0/8, invalid,172.16.0.0/33,2600:1f18::/36");
+        assertEquals(ipBlocks.size(), 2);
+
+        assertTrue(InstanceUtils.verifyIPAddressAccess("10.11.11.11", ipBlocks));
+        assertTrue(InstanceUtils.verifyIPAddressAccess("2600:1f18:0fff::1", ipBlocks));
+        assertFalse(InstanceUtils.verifyIPAddressAccess("172.16.10.10", ipBlocks));
+        assertFalse(InstanceUtils.verifyIPAddressAccess("2600:1f19::1", ipBlocks));
+
+        assertTrue(InstanceUtils.parseIPPrefixTrie("").isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testValidateCertIPAddressesIPBlockList() throws ProviderResourceException {
+
+        DynamicConfigBoolean feature = new DynamicConfigBoolean(true);
+
+        // invalid entries are skipped
+
+        List<IPBlock> ipBlocks = InstanceUtils.parseIPBlocks("10.0.0.0/8, invalid,172.16.0.0/12");
+        assertEquals(ipBlocks.size(), 2);
+
+        assertTrue(InstanceUtils.verifyIPAddressAccess("10.11.11.11", ipBlocks));
+        assertTrue(InstanceUtils.verifyIPAddressAccess("172.16.10.10", ipBlocks));
+        assertFalse(InstanceUtils.verifyIPAddressAccess("12.12.12.12", ipBlocks));
+
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put(InstanceProvider.ZTS_INSTANCE_SAN_IP, "10.11.11.11,172.16.10.10");
+        InstanceUtils.validateCertIPAddresses(feature, attributes, null, ipBlocks);
+
+        attributes.put(InstanceProvider.ZTS_INSTANCE_SAN_IP, "10.11.11.11,12.12.12.12");
+        try {
+            InstanceUtils.validateCertIPAddresses(feature, attributes, "10.11.11.11", ipBlocks);
+            fail();
+        } catch (ProviderResourceException ex) {
+            assertTrue(ex.getMessage().contains("Certificate IP address validation failed for: 12.12.12.12"));
+            assertEquals(ex.getCode(), ProviderResourceException.FORBIDDEN);
+        }
+
+        // the private IP is accepted even if it's not in the list
+
+        attributes.put(InstanceProvider.ZTS_INSTANCE_SAN_IP, "12.12.12.12");
+        InstanceUtils.validateCertIPAddresses(feature, attributes, "12.12.12.12", ipBlocks);
+    }
+
     @Test
     public void testShouldCheckBootTimeNullAttributes() {
         assertTrue(InstanceUtils.shouldCheckBootTime(null));
@@ -0,0 +1,99 @@
+/*
+ *
+ *   Copyright The Athenz Authors
+ *  
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *  
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.yahoo.athenz.common.messaging.impl;
+
+import com.yahoo.athenz.common.messaging.ChangeSubscriber;
+import com.yahoo.athenz.common.messaging.DomainChangeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * In-memory implementation of {@link ChangeSubscriber} for local testing.
+ * Messages published with {@link InMemoryDomainChangePublisher} are
+ * delivered to all subscribers of the same topic in the same JVM.
+ */
+public class InMemoryDomainChangeSubscriber implements ChangeSubscriber<DomainChangeMessage> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryDomainChangeSubscriber.class);
+
+    private static final Map<String, Set<InMemoryDomainChangeSubscriber>> TOPIC_SUBSCRIBERS = new ConcurrentHashMap<>();
+
+    private final String topicName;
+    private final BlockingQueue<DomainChangeMessage> messageQueue = new LinkedBlockingQueue<>();
+    private Consumer<DomainChangeMessage> processor;
+    private volatile boolean closed = false;
+
+    public InMemoryDomainChangeSubscriber(final String topicName) {
+        this.topicName = topicName;
+        TOPIC_SUBSCRIBERS.computeIfAbsent(topicName, k -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    /**
+     * Deliver the message to all subscribers of the given topic
+     * @param topicName name of the topic
+     * @param message domain change message
+     */
+    static void publish(final String topicName, DomainChangeMessage message) {
+        Set<InMemoryDomainChangeSubscriber> subscribers = TOPIC_SUBSCRIBERS.get(topicName);
+        if (subscribers != null) {
+            for (InMemoryDomainChangeSubscriber subscriber : subscribers) {
+                subscriber.messageQueue.offer(message);
+            }
+        }
+    }
+
+    @Override
+    public void init(Consumer<DomainChangeMessage> processor, Class<DomainChangeMessage> valueType) {
+        this.processor = processor;
+    }
+
+    @Override
+    public void run() {
+        while (!closed) {
+            try {
+                DomainChangeMessage message = messageQueue.poll(1, TimeUnit.SECONDS);
+                if (message != null) {
+                    processor.accept(message);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception ex) {
+                LOG.error("unable to process domain change message: {}", ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Set<InMemoryDomainChangeSubscriber> subscribers = TOPIC_SUBSCRIBERS.get(topicName);
+        if (subscribers != null) {
+            subscribers.remove(this);
+        }
+    }
+}
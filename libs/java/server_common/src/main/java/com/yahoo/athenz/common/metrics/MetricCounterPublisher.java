@@ -0,0 +1,126 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically publishes counters maintained by components that have no
+ * access to the server's metric object (e.g. the caches in auth_core).
+ * Each run increments the metric by the amount the counter has grown
+ * since the previous run. If the counter has been reset, its current
+ * value is published.
+ */
+public class MetricCounterPublisher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricCounterPublisher.class);
+
+    static class Counter {
+
+        final String metricName;
+        final LongSupplier supplier;
+        long lastValue;
+
+        Counter(final String metricName, LongSupplier supplier) {
+            this.metricName = metricName;
+            this.supplier = supplier;
+            this.lastValue = 0;
+        }
+    }
+
+    private final Metric metric;
+    private final List<Counter> counters = new ArrayList<>();
+    ScheduledExecutorService scheduledExecutor;
+
+    public MetricCounterPublisher(Metric metric) {
+        this.metric = metric;
+    }
+
+    /**
+     * Register a counter to be published with the given metric name
+     * @param metricName name of the metric
+     * @param supplier supplier returning the current counter value
+     */
+    public synchronized void addCounter(final String metricName, LongSupplier supplier) {
+        counters.add(new Counter(metricName, supplier));
+    }
+
+    /**
+     * Return the number of registered counters
+     * @return number of counters
+     */
+    public synchronized int size() {
+        return counters.size();
+    }
+
+    /**
+     * Publish the change of all registered counters since the last run
+     */
+    public synchronized void publish() {
+
+        for (Counter counter : counters) {
+            try {
+                final long value = counter.supplier.getAsLong();
+                long delta = (value >= counter.lastValue) ? value - counter.lastValue : value;
+                counter.lastValue = value;
+                while (delta > 0) {
+                    final int count = (int) Math.min(delta, Integer.MAX_VALUE);
+                    metric.increment(counter.metricName, null, count);
+                    delta -= count;
+                }
+            } catch (Exception ex) {
+                LOGGER.error("Unable to publish counter {}: {}", counter.metricName, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Start publishing the registered counters at the given interval.
+     * The publisher is not started if no counters are registered.
+     * @param intervalSecs publish interval in seconds
+     */
+    public synchronized void start(long intervalSecs) {
+
+        if (counters.isEmpty() || intervalSecs <= 0 || scheduledExecutor != null) {
+            return;
+        }
+
+        scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+        scheduledExecutor.scheduleAtFixedRate(this::publish, intervalSecs, intervalSecs, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Publish any remaining counter changes and stop the publisher
+     */
+    public synchronized void shutdown() {
+
+        if (scheduledExecutor == null) {
+            return;
+        }
+
+        scheduledExecutor.shutdownNow();
+        scheduledExecutor = null;
+        publish();
+    }
+}
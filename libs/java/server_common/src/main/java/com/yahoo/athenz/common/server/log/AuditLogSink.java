@@ -0,0 +1,36 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.log;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface AuditLogSink {
+
+    /**
+     * Write the given batch of audit log records
+     * @param records audit log messages to be written
+     * @throws IOException if the records could not be written
+     */
+    void write(List<String> records) throws IOException;
+
+    /**
+     * Release any resources held by the sink. No records
+     * are written to the sink once it's closed.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.log.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.yahoo.athenz.common.server.log.AuditLogMsgBuilder;
+import com.yahoo.athenz.common.server.log.AuditLogSink;
+import com.yahoo.athenz.common.server.log.AuditLogger;
+
+/**
+ * Audit logger that queues the records in a bounded ring buffer and
+ * writes them to the configured sink in batches from a dedicated
+ * writer thread so the request threads do not wait for the audit
+ * log I/O. The message builders are only converted into strings by
+ * the writer thread so callers must not modify the builders after
+ * they're logged. When the buffer is full, based on the overflow
+ * policy, the request thread either waits for room in the buffer or
+ * drops the record. All pending records are written when the logger
+ * is closed.
+ */
+public class AsyncAuditLogger implements AuditLogger {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncAuditLogger.class);
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP
+    }
+
+    private static final long WRITER_IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long PRODUCER_FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final AuditLogRingBuffer<Object> buffer;
+    private final AuditLogSink sink;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final Thread writerThread;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicInteger activeProducers = new AtomicInteger();
+    private volatile boolean running = true;
+    private volatile boolean writerIdle = false;
+
+    /**
+     * Create a new asynchronous audit logger and start its writer thread
+     * @param sink sink that the audit log records are written to
+     * @param bufferSize maximum number of pending records
+     * @param batchSize maximum number of records written to the sink at once
+     * @param overflowPolicy policy applied when the buffer is full
+     */
+    public AsyncAuditLogger(AuditLogSink sink, int bufferSize, int batchSize, OverflowPolicy overflowPolicy) {
+        this.sink = sink;
+        this.buffer = new AuditLogRingBuffer<>(bufferSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.overflowPolicy = overflowPolicy;
+
+        writerThread = new Thread(this::processRecords, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void log(String logMsg, String msgVersionTag) {
+        addRecord(logMsg); // ignore msgVersionTag for this logger implementation
+    }
+
+    @Override
+    public void log(AuditLogMsgBuilder msgBldr) {
+        if (msgBldr != null) {
+            addRecord(msgBldr);
+        }
+    }
+
+    @Override
+    public AuditLogMsgBuilder getMsgBuilder() {
+        return new DefaultAuditLogMsgBuilder();
+    }
+
+    void addRecord(Object record) {
+
+        // we keep track of the producers adding records so the writer
+        // does not exit while a record is being added after the logger
+        // has been closed. once we're closed there is no writer to
+        // process our buffer so any new records are dropped
+
+        activeProducers.incrementAndGet();
+        try {
+            if (!running) {
+                droppedCount.incrementAndGet();
+                return;
+            }
+
+            while (!buffer.offer(record)) {
+                if (overflowPolicy == OverflowPolicy.DROP || !running) {
+                    droppedCount.incrementAndGet();
+                    return;
+                }
+                LockSupport.unpark(writerThread);
+                LockSupport.parkNanos(PRODUCER_FULL_WAIT_NANOS);
+            }
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+
+        if (writerIdle) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    void processRecords() {
+
+        List<String> records = new ArrayList<>(batchSize);
+        while (running || activeProducers.get() > 0 || !buffer.isEmpty()) {
+
+            Object record;
+            while (records.size() < batchSize && (record = buffer.poll()) != null) {
+                records.add(buildRecord(record));
+            }
+
+            if (!records.isEmpty()) {
+                writeRecords(records);
+                records.clear();
+                continue;
+            }
+
+            // nothing to write so we'll wait until a new record is
+            // added. we re-check the buffer after marking ourselves
+            // as idle so we don't miss the wakeup from a producer
+
+            writerIdle = true;
+            if ((running || activeProducers.get() > 0) && buffer.isEmpty()) {
+                LockSupport.parkNanos(WRITER_IDLE_WAIT_NANOS);
+            }
+            writerIdle = false;
+        }
+    }
+
+    String buildRecord(Object record) {
+        return (record instanceof AuditLogMsgBuilder) ? ((AuditLogMsgBuilder) record).build() : (String) record;
+    }
+
+    void writeRecords(List<String> records) {
+        try {
+            sink.write(records);
+        } catch (Exception ex) {
+            failedCount.addAndGet(records.size());
+            LOG.error("Unable to write {} audit log records: {}", records.size(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Stop accepting new records, write all pending records
+     * to the sink and then close the sink
+     */
+    public void close() {
+
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (writerThread.isAlive()) {
+            LOG.error("Audit log writer did not complete, pending records: {}", buffer.size());
+        }
+        sink.close();
+    }
+
+    /**
+     * Return the number of records dropped since the buffer was full
+     * or the logger was already closed
+     * @return number of dropped records
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Return the number of records that the sink failed to write
+     * @return number of failed records
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Return the number of records waiting to be written
+     * @return number of pending records
+     */
+    public int getPendingCount() {
+        return buffer.size();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.log.impl;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.yahoo.athenz.common.server.log.AuditLogSink;
+import com.yahoo.athenz.common.server.log.AuditLogger;
+import com.yahoo.athenz.common.server.log.AuditLoggerFactory;
+
+public class AsyncAuditLoggerFactory implements AuditLoggerFactory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncAuditLoggerFactory.class);
+
+    public static final String PROP_BUFFER_SIZE     = "athenz.audit_logger.async_buffer_size";
+    public static final String PROP_BATCH_SIZE      = "athenz.audit_logger.async_batch_size";
+    public static final String PROP_OVERFLOW_POLICY = "athenz.audit_logger.async_overflow_policy";
+    public static final String PROP_LOG_FILE        = "athenz.audit_logger.async_log_file";
+
+    static final String AUDIT_LOGGER_NAME = "AuditSoxLogger";
+
+    @Override
+    public AuditLogger create() {
+
+        final int bufferSize = Integer.parseInt(System.getProperty(PROP_BUFFER_SIZE, "8192"));
+        final int batchSize = Integer.parseInt(System.getProperty(PROP_BATCH_SIZE, "256"));
+        final AsyncAuditLogger.OverflowPolicy overflowPolicy = AsyncAuditLogger.OverflowPolicy.valueOf(
+                System.getProperty(PROP_OVERFLOW_POLICY, "block").toUpperCase());
+
+        AsyncAuditLogger auditLogger = new AsyncAuditLogger(createSink(), bufferSize, batchSize, overflowPolicy);
+
+        // make sure all pending records are written before we exit
+
+        Runtime.getRuntime().addShutdownHook(new Thread(auditLogger::close, "audit-log-shutdown"));
+        return auditLogger;
+    }
+
+    AuditLogSink createSink() {
+
+        // if the log file is not configured we're going to use
+        // the same logger as the default audit logger
+
+        final String logFile = System.getProperty(PROP_LOG_FILE);
+        if (logFile == null || logFile.isEmpty()) {
+            return new Slf4jAuditLogSink(AUDIT_LOGGER_NAME);
+        }
+
+        try {
+            return new FileAuditLogSink(Paths.get(logFile));
+        } catch (IOException ex) {
+            LOG.error("Unable to open audit log file {}: {}", logFile, ex.getMessage());
+            throw new IllegalArgumentException("Invalid audit log file: " + logFile, ex);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.log.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.yahoo.athenz.common.server.log.AuditLogSink;
+
+public class FileAuditLogSink implements AuditLogSink {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileAuditLogSink.class);
+
+    private final BufferedWriter writer;
+
+    /**
+     * Append the audit log records to the given file, one record per line
+     * @param logFile path of the audit log file
+     * @throws IOException if the file could not be opened
+     */
+    public FileAuditLogSink(Path logFile) throws IOException {
+        writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void write(List<String> records) throws IOException {
+
+        // the records are flushed once per batch rather than
+        // for each record
+
+        for (String record : records) {
+            writer.write(record);
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException ex) {
+            LOG.error("Unable to close audit log file: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.log.impl;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.yahoo.athenz.common.server.log.AuditLogSink;
+
+public class Slf4jAuditLogSink implements AuditLogSink {
+
+    private final Logger auditLogger;
+
+    /**
+     * Write the audit log records with the logger named loggerName
+     * @param loggerName name of the logger
+     */
+    public Slf4jAuditLogSink(final String loggerName) {
+        auditLogger = LoggerFactory.getLogger(loggerName);
+    }
+
+    @Override
+    public void write(List<String> records) {
+        for (String record : records) {
+            auditLogger.info(record);
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.yahoo.athenz.common.server.store;
 
 import com.yahoo.athenz.zms.DomainAttributes;
+import com.yahoo.athenz.zms.DomainData;
 import com.yahoo.athenz.zms.JWSDomain;
 import com.yahoo.athenz.zms.SignedDomain;
 import com.yahoo.athenz.zms.SignedDomains;
@@ -165,4 +166,26 @@ public interface ChangeLogStore {
      */
     default void setJWSDomainSupport(boolean jwsDomainSupport) {
     }
+
+    /**
+     * Gets the domain data for the given domain from the local snapshot
+     * of the domains. The snapshot only includes domains whose signatures
+     * were validated before they were saved in the store, so the caller
+     * does not need to validate the data again. The store must only
+     * return the data if it matches the currently saved local domain.
+     * Default implementation does not support snapshots.
+     * @param domainName the name of the domain
+     * @return DomainData object of the domain or null if not available
+     */
+    default DomainData getLocalSnapshotDomain(String domainName) {
+        return null;
+    }
+
+    /**
+     * Save a snapshot of all locally saved domains so they can be
+     * loaded without re-validating their signatures during the next
+     * server startup. Default implementation does not take any action.
+     */
+    default void saveLocalDomainSnapshot() {
+    }
 }
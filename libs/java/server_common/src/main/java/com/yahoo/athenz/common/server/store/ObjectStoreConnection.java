@@ -21,6 +21,7 @@ import com.yahoo.rdl.Timestamp;
 
 import java.io.Closeable;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -39,6 +40,16 @@ public interface ObjectStoreConnection extends Closeable {
     void setOperationTimeout(int opTimeout);
     void setTagLimit(int domainLimit, int roleLimit, int groupLimit, int policyLimit, int serviceLimit);
 
+    /**
+     * Check if the connection has an open transaction and as such might
+     * have changes that are not yet committed. Implementations that
+     * cannot determine the state must report an open transaction.
+     * @return true if the connection has an open transaction
+     */
+    default boolean isTransactionActive() {
+        return true;
+    }
+
     // Domain commands
 
     Domain getDomain(String domainName) throws ServerResourceException;
@@ -55,6 +66,19 @@ public interface ObjectStoreConnection extends Closeable {
     List<String> lookupDomainByRole(String roleMember, String roleName) throws ServerResourceException;
     List<String> lookupDomainByBusinessService(String businessService) throws ServerResourceException;
     AthenzDomain getAthenzDomain(String domainName) throws ServerResourceException;
+    default Map<String, AthenzDomain> getAthenzDomains(List<String> domainNames) throws ServerResourceException {
+        Map<String, AthenzDomain> athenzDomains = new HashMap<>();
+        for (String domainName : domainNames) {
+            try {
+                athenzDomains.put(domainName, getAthenzDomain(domainName));
+            } catch (ServerResourceException ex) {
+                if (ex.getCode() != ServerResourceException.NOT_FOUND) {
+                    throw ex;
+                }
+            }
+        }
+        return athenzDomains;
+    }
     DomainMetaList listModifiedDomains(long modifiedSince) throws ServerResourceException;
     void setDomainOptions(DomainOptions domainOptions) throws ServerResourceException;
     default Map<String, String> listDomainsWithExternalMemberValidator() throws ServerResourceException {
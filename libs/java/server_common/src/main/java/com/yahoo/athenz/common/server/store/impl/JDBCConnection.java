@@ -330,6 +330,52 @@ public class JDBCConnection implements ObjectStoreConnection {
             + "public_key.key_id, public_key.key_value FROM public_key "
             + "JOIN service ON service.service_id=public_key.service_id "
             + "WHERE service.domain_id=?;";
+    private static final String SQL_GET_DOMAINS = "SELECT * FROM domain WHERE name IN (%s);";
+    private static final String SQL_GET_DOMAINS_TAGS = "SELECT dt.key, dt.value, dt.domain_id FROM domain_tags dt "
+            + "WHERE dt.domain_id IN (%s);";
+    private static final String SQL_LIST_DOMAINS_CONTACTS = "SELECT type, name, domain_id FROM domain_contacts "
+            + "WHERE domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_ENTITIES = "SELECT * FROM entity WHERE domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_ROLES = "SELECT * FROM role WHERE domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_ROLE_MEMBERS = "SELECT role.name, principal.name, role_member.expiration, "
+            + "role_member.review_reminder, role_member.system_disabled, role_member.req_principal, role.domain_id FROM principal "
+            + "JOIN role_member ON role_member.principal_id=principal.principal_id "
+            + "JOIN role ON role.role_id=role_member.role_id "
+            + "WHERE role.domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_ROLE_TAGS = "SELECT r.name, rt.key, rt.value, r.domain_id FROM role_tags rt "
+            + "JOIN role r ON rt.role_id = r.role_id WHERE r.domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_GROUPS = "SELECT * FROM principal_group WHERE domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_GROUP_MEMBERS = "SELECT principal_group.name, principal.name, "
+            + "principal_group_member.expiration, principal_group_member.system_disabled, principal_group.domain_id FROM principal "
+            + "JOIN principal_group_member ON principal_group_member.principal_id=principal.principal_id "
+            + "JOIN principal_group ON principal_group.group_id=principal_group_member.group_id "
+            + "WHERE principal_group.domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_GROUP_TAGS = "SELECT g.name, gt.key, gt.value, g.domain_id FROM group_tags gt "
+            + "JOIN principal_group g ON gt.group_id = g.group_id WHERE g.domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_POLICIES = "SELECT * FROM policy WHERE domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_POLICY_ASSERTIONS = "SELECT policy.policy_id, "
+            + "assertion.effect, assertion.action, assertion.role, assertion.resource, "
+            + "assertion.assertion_id FROM assertion "
+            + "JOIN policy ON policy.policy_id=assertion.policy_id "
+            + "WHERE policy.domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_POLICY_ASSERTIONS_CONDITIONS = "SELECT assertion.assertion_id, "
+            + "assertion_condition.condition_id, assertion_condition.key, assertion_condition.operator, assertion_condition.value "
+            + "FROM assertion_condition JOIN assertion ON assertion_condition.assertion_id=assertion.assertion_id "
+            + "JOIN policy ON policy.policy_id=assertion.policy_id "
+            + "WHERE policy.domain_id IN (%s) ORDER BY assertion.assertion_id, assertion_condition.condition_id;";
+    private static final String SQL_GET_DOMAINS_POLICY_TAGS = "SELECT pt.policy_id, pt.key, pt.value FROM policy_tags pt "
+            + "JOIN policy p ON pt.policy_id = p.policy_id WHERE p.domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_SERVICES = "SELECT * FROM service WHERE domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_SERVICES_HOSTS = "SELECT service.name, host.name, service.domain_id FROM host "
+            + "JOIN service_host ON host.host_id=service_host.host_id "
+            + "JOIN service ON service.service_id=service_host.service_id "
+            + "WHERE service.domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_SERVICES_PUBLIC_KEYS = "SELECT service.name, "
+            + "public_key.key_id, public_key.key_value, service.domain_id FROM public_key "
+            + "JOIN service ON service.service_id=public_key.service_id "
+            + "WHERE service.domain_id IN (%s);";
+    private static final String SQL_GET_DOMAINS_SERVICE_TAGS = "SELECT s.name, st.key, st.value, s.domain_id FROM service_tags st "
+            + "JOIN service s ON st.service_id = s.service_id WHERE s.domain_id IN (%s);";
     private static final String SQL_LIST_POLICY_REFERENCING_ROLE = "SELECT name FROM policy "
             + "JOIN assertion ON policy.policy_id=assertion.policy_id "
             + "WHERE policy.domain_id=? AND assertion.role=?;";
@@ -770,6 +816,8 @@ public class JDBCConnection implements ObjectStoreConnection {
 
     Connection con;
     int queryTimeout = 60;
+    int domainBatchSize = DOMAIN_BATCH_SIZE;
+    boolean streamBatchResults = STREAM_BATCH_RESULTS;
     Map<String, Integer> objectMap;
     boolean transactionCompleted;
     DomainOptions domainOptions;
@@ -783,6 +831,10 @@ public class JDBCConnection implements ObjectStoreConnection {
     private volatile static long SERVER_TRUST_ROLES_TIMESTAMP;
     private static final long SERVER_TRUST_ROLES_UPDATE_TIMEOUT = Long.parseLong(
             System.getProperty(JDBCConsts.ZMS_PROP_MYSQL_SERVER_TRUST_ROLES_UPDATE_TIMEOUT, "600000"));
+    private static final int DOMAIN_BATCH_SIZE = Integer.parseInt(
+            System.getProperty(JDBCConsts.ZMS_PROP_MYSQL_DOMAIN_BATCH_SIZE, "100"));
+    private static final boolean STREAM_BATCH_RESULTS = Boolean.parseBoolean(
+            System.getProperty(JDBCConsts.ZMS_PROP_MYSQL_STREAM_BATCH_RESULTS, "true"));
 
     public JDBCConnection(Connection con, boolean autoCommit) throws SQLException {
         this.con = con;
@@ -858,6 +910,16 @@ public class JDBCConnection implements ObjectStoreConnection {
         }
     }
 
+    @Override
+    public boolean isTransactionActive() {
+
+        // the transaction is marked as completed when the connection
+        // is created in auto-commit mode or after it's committed or
+        // rolled back, which also resets the connection to auto-commit
+
+        return !transactionCompleted;
+    }
+
     @Override
     public void rollbackChanges() {
 
@@ -921,6 +983,19 @@ public class JDBCConnection implements ObjectStoreConnection {
         return ps.executeQuery();
     }
 
+    ResultSet executeStreamingQuery(PreparedStatement ps, String caller) throws SQLException {
+
+        // with mysql connector the result set is streamed row by row
+        // instead of being loaded fully into memory only if the fetch
+        // size is set to Integer.MIN_VALUE. the connection cannot be
+        // used for any other statements until the result set is closed
+
+        if (streamBatchResults) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+        }
+        return executeQuery(ps, caller);
+    }
+
     int[] executeBatch(PreparedStatement ps, String caller) throws SQLException {
         if (LOG.isDebugEnabled()) {
             LOG.debug("{}: {}", caller, ps.toString());
@@ -4259,6 +4334,73 @@ public class JDBCConnection implements ObjectStoreConnection {
         return role;
     }
 
+    RoleMember retrieveDomainRoleMember(ResultSet rs) throws SQLException {
+        RoleMember roleMember = new RoleMember();
+        roleMember.setMemberName(rs.getString(2));
+        java.sql.Timestamp expiration = rs.getTimestamp(3);
+        if (expiration != null) {
+            roleMember.setExpiration(Timestamp.fromMillis(expiration.getTime()));
+        }
+        java.sql.Timestamp reviewReminder = rs.getTimestamp(4);
+        if (reviewReminder != null) {
+            roleMember.setReviewReminder(Timestamp.fromMillis(reviewReminder.getTime()));
+        }
+        roleMember.setSystemDisabled(nullIfDefaultValue(rs.getInt(5), 0));
+        roleMember.setRequestPrincipal(rs.getString(6));
+        return roleMember;
+    }
+
+    GroupMember retrieveDomainGroupMember(ResultSet rs, final String groupName) throws SQLException {
+        GroupMember groupMember = new GroupMember();
+        groupMember.setMemberName(rs.getString(2));
+        groupMember.setGroupName(groupName);
+        java.sql.Timestamp expiration = rs.getTimestamp(3);
+        if (expiration != null) {
+            groupMember.setExpiration(Timestamp.fromMillis(expiration.getTime()));
+        }
+        groupMember.setSystemDisabled(nullIfDefaultValue(rs.getInt(4), 0));
+        return groupMember;
+    }
+
+    Assertion retrieveDomainAssertion(ResultSet rs, final String domainName) throws SQLException {
+        Assertion assertion = new Assertion();
+        assertion.setRole(ResourceUtils.roleResourceName(domainName, rs.getString(JDBCConsts.DB_COLUMN_ROLE)));
+        assertion.setResource(rs.getString(JDBCConsts.DB_COLUMN_RESOURCE));
+        assertion.setAction(rs.getString(JDBCConsts.DB_COLUMN_ACTION));
+        assertion.setEffect(AssertionEffect.valueOf(rs.getString(JDBCConsts.DB_COLUMN_EFFECT)));
+        assertion.setId(rs.getLong(JDBCConsts.DB_COLUMN_ASSERT_ID));
+        return assertion;
+    }
+
+    void addDomainAssertionCondition(ResultSet rs, Assertion assertion,
+            Map<String, AssertionCondition> assertionConditionMap) throws SQLException {
+
+        AssertionConditions assertionConditions = assertion.getConditions();
+        if (assertionConditions == null) {
+            assertionConditions = new AssertionConditions();
+            List<AssertionCondition> assertionConditionList = new ArrayList<>();
+            assertionConditions.setConditionsList(assertionConditionList);
+            assertion.setConditions(assertionConditions);
+        }
+        final long assertionId = assertion.getId();
+        int conditionId = rs.getInt(JDBCConsts.DB_COLUMN_CONDITION_ID);
+        AssertionCondition assertionCondition = assertionConditionMap.get(assertionId + ":" + conditionId);
+        if (assertionCondition == null) {
+            assertionCondition = new AssertionCondition();
+            Map<String, AssertionConditionData> assertionConditionDataMap = new HashMap<>();
+            assertionCondition.setConditionsMap(assertionConditionDataMap);
+            assertionCondition.setId(conditionId);
+            assertionConditionMap.put(assertionId + ":" + conditionId, assertionCondition);
+            assertionConditions.getConditionsList().add(assertionCondition);
+        }
+        AssertionConditionData assertionConditionData = new AssertionConditionData();
+        if (rs.getString(JDBCConsts.DB_COLUMN_OPERATOR) != null) {
+            assertionConditionData.setOperator(AssertionConditionOperator.fromString(rs.getString(JDBCConsts.DB_COLUMN_OPERATOR)));
+        }
+        assertionConditionData.setValue(rs.getString(JDBCConsts.DB_COLUMN_VALUE));
+        assertionCondition.getConditionsMap().put(rs.getString(JDBCConsts.DB_COLUMN_KEY), assertionConditionData);
+    }
+
     void getAthenzDomainRoles(String domainName, int domainId, AthenzDomain athenzDomain) throws ServerResourceException {
 
         final String caller = "getAthenzDomain";
@@ -4290,19 +4432,7 @@ public class JDBCConnection implements ObjectStoreConnection {
                         members = new ArrayList<>();
                         role.setRoleMembers(members);
                     }
-                    RoleMember roleMember = new RoleMember();
-                    roleMember.setMemberName(rs.getString(2));
-                    java.sql.Timestamp expiration = rs.getTimestamp(3);
-                    if (expiration != null) {
-                        roleMember.setExpiration(Timestamp.fromMillis(expiration.getTime()));
-                    }
-                    java.sql.Timestamp reviewReminder = rs.getTimestamp(4);
-                    if (reviewReminder != null) {
-                        roleMember.setReviewReminder(Timestamp.fromMillis(reviewReminder.getTime()));
-                    }
-                    roleMember.setSystemDisabled(nullIfDefaultValue(rs.getInt(5), 0));
-                    roleMember.setRequestPrincipal(rs.getString(6));
-                    members.add(roleMember);
+                    members.add(retrieveDomainRoleMember(rs));
                 }
             }
         } catch (SQLException ex) {
@@ -4346,15 +4476,7 @@ public class JDBCConnection implements ObjectStoreConnection {
                         members = new ArrayList<>();
                         group.setGroupMembers(members);
                     }
-                    GroupMember groupMember = new GroupMember();
-                    groupMember.setMemberName(rs.getString(2));
-                    groupMember.setGroupName(group.getName());
-                    java.sql.Timestamp expiration = rs.getTimestamp(3);
-                    if (expiration != null) {
-                        groupMember.setExpiration(Timestamp.fromMillis(expiration.getTime()));
-                    }
-                    groupMember.setSystemDisabled(nullIfDefaultValue(rs.getInt(4), 0));
-                    members.add(groupMember);
+                    members.add(retrieveDomainGroupMember(rs, group.getName()));
                 }
             }
         } catch (SQLException ex) {
@@ -4399,13 +4521,7 @@ public class JDBCConnection implements ObjectStoreConnection {
                         assertions = new ArrayList<>();
                         policy.setAssertions(assertions);
                     }
-                    Assertion assertion = new Assertion();
-                    assertion.setRole(ResourceUtils.roleResourceName(domainName, rs.getString(JDBCConsts.DB_COLUMN_ROLE)));
-                    assertion.setResource(rs.getString(JDBCConsts.DB_COLUMN_RESOURCE));
-                    assertion.setAction(rs.getString(JDBCConsts.DB_COLUMN_ACTION));
-                    assertion.setEffect(AssertionEffect.valueOf(rs.getString(JDBCConsts.DB_COLUMN_EFFECT)));
-                    assertion.setId(rs.getLong(JDBCConsts.DB_COLUMN_ASSERT_ID));
-
+                    Assertion assertion = retrieveDomainAssertion(rs, domainName);
                     assertions.add(assertion);
                     assertionsMap.put(assertion.getId(), assertion);
                 }
@@ -4426,29 +4542,7 @@ public class JDBCConnection implements ObjectStoreConnection {
                     if (assertion == null) {
                         continue;
                     }
-                    AssertionConditions assertionConditions = assertion.getConditions();
-                    if (assertionConditions == null) {
-                        assertionConditions = new AssertionConditions();
-                        List<AssertionCondition> assertionConditionList = new ArrayList<>();
-                        assertionConditions.setConditionsList(assertionConditionList);
-                        assertion.setConditions(assertionConditions);
-                    }
-                    int conditionId = rs.getInt(JDBCConsts.DB_COLUMN_CONDITION_ID);
-                    AssertionCondition assertionCondition = assertionConditionMap.get(assertionId + ":" + conditionId);
-                    if (assertionCondition == null) {
-                        assertionCondition = new AssertionCondition();
-                        Map<String, AssertionConditionData> assertionConditionDataMap = new HashMap<>();
-                        assertionCondition.setConditionsMap(assertionConditionDataMap);
-                        assertionCondition.setId(conditionId);
-                        assertionConditionMap.put(assertionId + ":" + conditionId, assertionCondition);
-                        assertionConditions.getConditionsList().add(assertionCondition);
-                    }
-                    AssertionConditionData assertionConditionData = new AssertionConditionData();
-                    if (rs.getString(JDBCConsts.DB_COLUMN_OPERATOR) != null) {
-                        assertionConditionData.setOperator(AssertionConditionOperator.fromString(rs.getString(JDBCConsts.DB_COLUMN_OPERATOR)));
-                    }
-                    assertionConditionData.setValue(rs.getString(JDBCConsts.DB_COLUMN_VALUE));
-                    assertionCondition.getConditionsMap().put(rs.getString(JDBCConsts.DB_COLUMN_KEY), assertionConditionData);
+                    addDomainAssertionCondition(rs, assertion, assertionConditionMap);
                 }
             }
         } catch (SQLException ex) {
@@ -4723,6 +4817,443 @@ public class JDBCConnection implements ObjectStoreConnection {
         return athenzDomain;
     }
 
+    static class AthenzDomainBatchEntry {
+
+        final AthenzDomain athenzDomain;
+        final Map<String, Role> roleMap = new HashMap<>();
+        final Map<String, Group> groupMap = new HashMap<>();
+        final Map<Integer, Policy> policyMap = new HashMap<>();
+        final Map<String, ServiceIdentity> serviceMap = new HashMap<>();
+
+        AthenzDomainBatchEntry(AthenzDomain athenzDomain) {
+            this.athenzDomain = athenzDomain;
+        }
+
+        String getName() {
+            return athenzDomain.getName();
+        }
+    }
+
+    @Override
+    public Map<String, AthenzDomain> getAthenzDomains(List<String> domainNames) throws ServerResourceException {
+
+        // we're going to process the domains in batches so we don't
+        // generate huge IN lists for our queries and the server does
+        // not need to keep too many domain objects in memory
+
+        Map<String, AthenzDomain> athenzDomains = new HashMap<>();
+        final int batchSize = Math.max(1, domainBatchSize);
+        for (int i = 0; i < domainNames.size(); i += batchSize) {
+            getAthenzDomainsBatch(domainNames.subList(i, Math.min(i + batchSize, domainNames.size())), athenzDomains);
+        }
+        return athenzDomains;
+    }
+
+    void getAthenzDomainsBatch(List<String> domainNames, Map<String, AthenzDomain> athenzDomains)
+            throws ServerResourceException {
+
+        final String caller = "getAthenzDomains";
+
+        // first retrieve all the domains from our list. any domain
+        // that has been deleted in the mean time is skipped
+
+        Map<Integer, AthenzDomainBatchEntry> domainMap = new HashMap<>();
+        try (PreparedStatement ps = prepareDomainBatchStatement(SQL_GET_DOMAINS, domainNames)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    final String domainName = rs.getString(JDBCConsts.DB_COLUMN_NAME);
+                    AthenzDomain athenzDomain = new AthenzDomain(domainName);
+                    athenzDomain.setDomain(saveDomainSettings(domainName, rs, false));
+                    domainMap.put(rs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID), new AthenzDomainBatchEntry(athenzDomain));
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+
+        if (domainMap.isEmpty()) {
+            return;
+        }
+
+        // all other objects are retrieved based on the domain ids
+        // and each row includes the domain id so we can route the
+        // object to the appropriate domain
+
+        final List<Integer> domainIds = new ArrayList<>(domainMap.keySet());
+
+        getAthenzDomainsDetails(domainIds, domainMap);
+        getAthenzDomainsRoles(domainIds, domainMap);
+        getAthenzDomainsGroups(domainIds, domainMap);
+        getAthenzDomainsPolicies(domainIds, domainMap);
+        getAthenzDomainsServices(domainIds, domainMap);
+        getAthenzDomainsEntities(domainIds, domainMap);
+
+        for (AthenzDomainBatchEntry entry : domainMap.values()) {
+            AthenzDomain athenzDomain = entry.athenzDomain;
+            athenzDomain.getRoles().addAll(entry.roleMap.values());
+            athenzDomain.getGroups().addAll(entry.groupMap.values());
+            athenzDomain.getPolicies().addAll(entry.policyMap.values());
+            athenzDomain.getServices().addAll(entry.serviceMap.values());
+            athenzDomains.put(entry.getName(), athenzDomain);
+        }
+    }
+
+    PreparedStatement prepareDomainBatchStatement(final String sqlCommand, List<String> domainNames) throws SQLException {
+        final String placeholders = String.join(",", Collections.nCopies(domainNames.size(), "?"));
+        PreparedStatement ps = con.prepareStatement(String.format(sqlCommand, placeholders));
+        int paramIndex = 1;
+        for (String domainName : domainNames) {
+            ps.setString(paramIndex++, domainName);
+        }
+        return ps;
+    }
+
+    PreparedStatement prepareDomainIdBatchStatement(final String sqlCommand, List<Integer> domainIds) throws SQLException {
+        final String placeholders = String.join(",", Collections.nCopies(domainIds.size(), "?"));
+        PreparedStatement ps = con.prepareStatement(String.format(sqlCommand, placeholders));
+        int paramIndex = 1;
+        for (Integer domainId : domainIds) {
+            ps.setInt(paramIndex++, domainId);
+        }
+        return ps;
+    }
+
+    Map<String, TagValueList> addTagValue(Map<String, TagValueList> tags, final String tagKey, final String tagValue) {
+        if (tags == null) {
+            tags = new HashMap<>();
+        }
+        TagValueList tagValues = tags.computeIfAbsent(tagKey, k -> new TagValueList().setList(new ArrayList<>()));
+        tagValues.getList().add(tagValue);
+        return tags;
+    }
+
+    void getAthenzDomainsDetails(List<Integer> domainIds, Map<Integer, AthenzDomainBatchEntry> domainMap)
+            throws ServerResourceException {
+
+        final String caller = "getAthenzDomains";
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_TAGS, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(3));
+                    if (entry == null) {
+                        continue;
+                    }
+                    Domain domain = entry.athenzDomain.getDomain();
+                    domain.setTags(addTagValue(domain.getTags(), rs.getString(1), rs.getString(2)));
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+
+        // the contacts map is always set for the domain even if empty
+
+        for (AthenzDomainBatchEntry entry : domainMap.values()) {
+            entry.athenzDomain.getDomain().setContacts(new HashMap<>());
+        }
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_LIST_DOMAINS_CONTACTS, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID));
+                    if (entry == null) {
+                        continue;
+                    }
+                    entry.athenzDomain.getDomain().getContacts().put(rs.getString(JDBCConsts.DB_COLUMN_TYPE),
+                            rs.getString(JDBCConsts.DB_COLUMN_NAME));
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+    }
+
+    void getAthenzDomainsRoles(List<Integer> domainIds, Map<Integer, AthenzDomainBatchEntry> domainMap)
+            throws ServerResourceException {
+
+        final String caller = "getAthenzDomains";
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_ROLES, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID));
+                    if (entry == null) {
+                        continue;
+                    }
+                    final String roleName = rs.getString(JDBCConsts.DB_COLUMN_NAME);
+                    entry.roleMap.put(roleName, retrieveRole(rs, entry.getName(), roleName));
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_ROLE_MEMBERS, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(7));
+                    Role role = (entry == null) ? null : entry.roleMap.get(rs.getString(1));
+                    if (role == null) {
+                        continue;
+                    }
+                    List<RoleMember> members = role.getRoleMembers();
+                    if (members == null) {
+                        members = new ArrayList<>();
+                        role.setRoleMembers(members);
+                    }
+                    members.add(retrieveDomainRoleMember(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_ROLE_TAGS, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(4));
+                    Role role = (entry == null) ? null : entry.roleMap.get(rs.getString(1));
+                    if (role == null) {
+                        continue;
+                    }
+                    role.setTags(addTagValue(role.getTags(), rs.getString(2), rs.getString(3)));
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+    }
+
+    void getAthenzDomainsGroups(List<Integer> domainIds, Map<Integer, AthenzDomainBatchEntry> domainMap)
+            throws ServerResourceException {
+
+        final String caller = "getAthenzDomains";
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_GROUPS, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID));
+                    if (entry == null) {
+                        continue;
+                    }
+                    final String groupName = rs.getString(JDBCConsts.DB_COLUMN_NAME);
+                    entry.groupMap.put(groupName, retrieveGroup(rs, entry.getName(), groupName));
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_GROUP_MEMBERS, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(5));
+                    Group group = (entry == null) ? null : entry.groupMap.get(rs.getString(1));
+                    if (group == null) {
+                        continue;
+                    }
+                    List<GroupMember> members = group.getGroupMembers();
+                    if (members == null) {
+                        members = new ArrayList<>();
+                        group.setGroupMembers(members);
+                    }
+                    members.add(retrieveDomainGroupMember(rs, group.getName()));
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_GROUP_TAGS, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(4));
+                    Group group = (entry == null) ? null : entry.groupMap.get(rs.getString(1));
+                    if (group == null) {
+                        continue;
+                    }
+                    group.setTags(addTagValue(group.getTags(), rs.getString(2), rs.getString(3)));
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+    }
+
+    void getAthenzDomainsPolicies(List<Integer> domainIds, Map<Integer, AthenzDomainBatchEntry> domainMap)
+            throws ServerResourceException {
+
+        // policy and assertion ids are unique across all domains so
+        // we can use them directly to route our assertions and tags
+
+        final String caller = "getAthenzDomains";
+        Map<Integer, AthenzDomainBatchEntry> policyDomainMap = new HashMap<>();
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_POLICIES, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID));
+                    if (entry == null) {
+                        continue;
+                    }
+                    int policyId = rs.getInt(JDBCConsts.DB_COLUMN_POLICY_ID);
+                    final String policyName = rs.getString(JDBCConsts.DB_COLUMN_NAME);
+                    entry.policyMap.put(policyId, savePolicySettings(entry.getName(), policyName, rs));
+                    policyDomainMap.put(policyId, entry);
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+
+        Map<Long, Assertion> assertionsMap = new HashMap<>();
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_POLICY_ASSERTIONS, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    int policyId = rs.getInt(JDBCConsts.DB_COLUMN_POLICY_ID);
+                    AthenzDomainBatchEntry entry = policyDomainMap.get(policyId);
+                    if (entry == null) {
+                        continue;
+                    }
+                    Policy policy = entry.policyMap.get(policyId);
+                    List<Assertion> assertions = policy.getAssertions();
+                    if (assertions == null) {
+                        assertions = new ArrayList<>();
+                        policy.setAssertions(assertions);
+                    }
+                    Assertion assertion = retrieveDomainAssertion(rs, entry.getName());
+                    assertions.add(assertion);
+                    assertionsMap.put(assertion.getId(), assertion);
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+
+        Map<String, AssertionCondition> assertionConditionMap = new HashMap<>();
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_POLICY_ASSERTIONS_CONDITIONS, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    Assertion assertion = assertionsMap.get(rs.getLong(JDBCConsts.DB_COLUMN_ASSERT_ID));
+                    if (assertion == null) {
+                        continue;
+                    }
+                    addDomainAssertionCondition(rs, assertion, assertionConditionMap);
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_POLICY_TAGS, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    int policyId = rs.getInt(1);
+                    AthenzDomainBatchEntry entry = policyDomainMap.get(policyId);
+                    if (entry == null) {
+                        continue;
+                    }
+                    Policy policy = entry.policyMap.get(policyId);
+                    policy.setTags(addTagValue(policy.getTags(), rs.getString(2), rs.getString(3)));
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+    }
+
+    void getAthenzDomainsServices(List<Integer> domainIds, Map<Integer, AthenzDomainBatchEntry> domainMap)
+            throws ServerResourceException {
+
+        final String caller = "getAthenzDomains";
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_SERVICES, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID));
+                    if (entry == null) {
+                        continue;
+                    }
+                    final String serviceName = rs.getString(JDBCConsts.DB_COLUMN_NAME);
+                    ServiceIdentity service = saveServiceIdentitySettings(entry.getName(), serviceName, rs);
+                    service.setPublicKeys(new ArrayList<>());
+                    entry.serviceMap.put(serviceName, service);
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_SERVICES_HOSTS, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(3));
+                    ServiceIdentity service = (entry == null) ? null : entry.serviceMap.get(rs.getString(1));
+                    if (service == null) {
+                        continue;
+                    }
+                    List<String> hosts = service.getHosts();
+                    if (hosts == null) {
+                        hosts = new ArrayList<>();
+                        service.setHosts(hosts);
+                    }
+                    hosts.add(rs.getString(2));
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_SERVICES_PUBLIC_KEYS, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(4));
+                    ServiceIdentity service = (entry == null) ? null : entry.serviceMap.get(rs.getString(1));
+                    if (service == null) {
+                        continue;
+                    }
+                    PublicKeyEntry publicKey = new PublicKeyEntry()
+                            .setId(rs.getString(JDBCConsts.DB_COLUMN_KEY_ID))
+                            .setKey(rs.getString(JDBCConsts.DB_COLUMN_KEY_VALUE));
+                    service.getPublicKeys().add(publicKey);
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_SERVICE_TAGS, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(4));
+                    ServiceIdentity service = (entry == null) ? null : entry.serviceMap.get(rs.getString(1));
+                    if (service == null) {
+                        continue;
+                    }
+                    service.setTags(addTagValue(service.getTags(), rs.getString(2), rs.getString(3)));
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+    }
+
+    void getAthenzDomainsEntities(List<Integer> domainIds, Map<Integer, AthenzDomainBatchEntry> domainMap)
+            throws ServerResourceException {
+
+        final String caller = "getAthenzDomains";
+        try (PreparedStatement ps = prepareDomainIdBatchStatement(SQL_GET_DOMAINS_ENTITIES, domainIds)) {
+            try (ResultSet rs = executeStreamingQuery(ps, caller)) {
+                while (rs.next()) {
+                    AthenzDomainBatchEntry entry = domainMap.get(rs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID));
+                    if (entry == null) {
+                        continue;
+                    }
+                    entry.athenzDomain.getEntities().add(new Entity()
+                            .setName(ResourceUtils.entityResourceName(entry.getName(), rs.getString(JDBCConsts.DB_COLUMN_NAME)))
+                            .setValue(JSON.fromString(rs.getString(JDBCConsts.DB_COLUMN_VALUE), Struct.class)));
+                }
+            }
+        } catch (SQLException ex) {
+            throw sqlError(ex, caller);
+        }
+    }
+
     @Override
     public DomainMetaList listModifiedDomains(long modifiedSince) throws ServerResourceException {
 
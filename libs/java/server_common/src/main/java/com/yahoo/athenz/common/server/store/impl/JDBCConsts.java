@@ -36,6 +36,8 @@ public final class JDBCConsts {
 
     public static final String ZMS_PROP_MYSQL_SERVER_TIMEZONE = "athenz.zms.mysql_server_timezone";
     public static final String ZMS_PROP_MYSQL_SERVER_TRUST_ROLES_UPDATE_TIMEOUT = "athenz.zms.mysql_server_trust_roles_update_timeout";
+    public static final String ZMS_PROP_MYSQL_DOMAIN_BATCH_SIZE = "athenz.zms.mysql_domain_batch_size";
+    public static final String ZMS_PROP_MYSQL_STREAM_BATCH_RESULTS = "athenz.zms.mysql_stream_batch_results";
 
     public static final int ZMS_DEFAULT_TAG_LIMIT   = 25;
 
@@ -0,0 +1,256 @@
+/*
+ *  Copyright The Athenz Authors
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.yahoo.athenz.common.server.store.impl;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Single file snapshot of the locally saved domains. The file starts
+ * with a header (magic, version and entry count) followed by length
+ * prefixed entries. Each entry includes the domain name, the size and
+ * sha-256 digest of the domain file it was generated from, the original
+ * signature details and the domain data json, followed by the crc32
+ * checksum of the entry. The file is memory-mapped when loaded and
+ * the domain data is parsed directly from the mapped buffer.
+ */
+class LocalDomainSnapshot {
+
+    static final int MAGIC   = 0x41545344;
+    static final int VERSION = 2;
+
+    private static final int COUNT_OFFSET = 8;
+
+    static class Entry {
+
+        final String domainName;
+        final long fileSize;
+        final byte[] fileDigest;
+        final String signatureHeader;
+        final String signature;
+        final int dataOffset;
+        final int dataLength;
+
+        Entry(final String domainName, long fileSize, byte[] fileDigest, final String signatureHeader,
+                final String signature, int dataOffset, int dataLength) {
+            this.domainName = domainName;
+            this.fileSize = fileSize;
+            this.fileDigest = fileDigest;
+            this.signatureHeader = signatureHeader;
+            this.signature = signature;
+            this.dataOffset = dataOffset;
+            this.dataLength = dataLength;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final Map<String, Entry> entries;
+
+    private LocalDomainSnapshot(ByteBuffer buffer, Map<String, Entry> entries) {
+        this.buffer = buffer;
+        this.entries = entries;
+    }
+
+    /**
+     * Memory-map the given snapshot file and validate all of its entries
+     * @param file snapshot file
+     * @return snapshot object
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    static LocalDomainSnapshot load(File file) throws IOException {
+
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("snapshot file too large: " + size);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("invalid snapshot file header");
+            }
+            final int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported snapshot version: " + version);
+            }
+
+            final int count = buffer.getInt();
+            Map<String, Entry> entries = new HashMap<>();
+            CRC32 crc = new CRC32();
+            for (int i = 0; i < count; i++) {
+                Entry entry = readEntry(buffer, crc);
+                entries.put(entry.domainName, entry);
+            }
+            return new LocalDomainSnapshot(buffer, entries);
+
+        } catch (RuntimeException ex) {
+            throw new IOException("invalid snapshot file: " + ex.getMessage(), ex);
+        }
+    }
+
+    static Entry readEntry(ByteBuffer buffer, CRC32 crc) throws IOException {
+
+        final int bodyLength = buffer.getInt();
+        final int bodyStart = buffer.position();
+        final int bodyEnd = bodyStart + bodyLength;
+        if (bodyLength < 0 || bodyEnd > buffer.limit() - Integer.BYTES) {
+            throw new IOException("truncated snapshot entry");
+        }
+
+        crc.reset();
+        crc.update(buffer.duplicate().position(bodyStart).limit(bodyEnd));
+
+        final String domainName = readString(buffer);
+        final long fileSize = buffer.getLong();
+        final byte[] fileDigest = readBytes(buffer);
+        final String signatureHeader = readString(buffer);
+        final String signature = readString(buffer);
+        final int dataLength = buffer.getInt();
+        final int dataOffset = buffer.position();
+
+        if (dataLength < 0 || dataOffset + dataLength != bodyEnd) {
+            throw new IOException("invalid snapshot entry for domain " + domainName);
+        }
+
+        buffer.position(bodyEnd);
+        if (buffer.getInt() != (int) crc.getValue()) {
+            throw new IOException("checksum mismatch for domain " + domainName);
+        }
+
+        return new Entry(domainName, fileSize, fileDigest, signatureHeader, signature, dataOffset, dataLength);
+    }
+
+    static byte[] readBytes(ByteBuffer buffer) {
+        byte[] value = new byte[buffer.getInt()];
+        buffer.get(value);
+        return value;
+    }
+
+    static String readString(ByteBuffer buffer) {
+        return new String(readBytes(buffer), StandardCharsets.UTF_8);
+    }
+
+    Entry getEntry(final String domainName) {
+        return entries.get(domainName);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Return a read-only view of the domain data json for the given
+     * entry without copying the data from the mapped file
+     * @param entry snapshot entry
+     * @return byte buffer with the domain data
+     */
+    ByteBuffer getDomainData(Entry entry) {
+        return buffer.duplicate().position(entry.dataOffset)
+                .limit(entry.dataOffset + entry.dataLength).slice();
+    }
+
+    /**
+     * Return a copy of the domain data json for the given entry
+     * @param entry snapshot entry
+     * @return domain data bytes
+     */
+    byte[] getDomainDataBytes(Entry entry) {
+        byte[] domainData = new byte[entry.dataLength];
+        getDomainData(entry).get(domainData);
+        return domainData;
+    }
+
+    /**
+     * Writer for the snapshot file. The entry count in the header
+     * is updated when the writer is closed.
+     */
+    static class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private final CRC32 crc = new CRC32();
+        private int count = 0;
+
+        Writer(File file) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(0);
+        }
+
+        void addEntry(final String domainName, long fileSize, byte[] fileDigest, final String signatureHeader,
+                final String signature, byte[] domainData) throws IOException {
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream(domainData.length + 256);
+            DataOutputStream bodyOut = new DataOutputStream(body);
+            writeString(bodyOut, domainName);
+            bodyOut.writeLong(fileSize);
+            writeBytes(bodyOut, fileDigest);
+            writeString(bodyOut, signatureHeader);
+            writeString(bodyOut, signature);
+            bodyOut.writeInt(domainData.length);
+            bodyOut.write(domainData);
+            bodyOut.flush();
+
+            crc.reset();
+            crc.update(body.toByteArray());
+
+            out.writeInt(body.size());
+            body.writeTo(out);
+            out.writeInt((int) crc.getValue());
+            count += 1;
+        }
+
+        static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+
+        static void writeString(DataOutputStream out, final String value) throws IOException {
+            writeBytes(out, (value == null ? "" : value).getBytes(StandardCharsets.UTF_8));
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.flush();
+                ByteBuffer countBuffer = ByteBuffer.allocate(Integer.BYTES).putInt(count);
+                countBuffer.flip();
+                channel.write(countBuffer, COUNT_OFFSET);
+                channel.force(true);
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
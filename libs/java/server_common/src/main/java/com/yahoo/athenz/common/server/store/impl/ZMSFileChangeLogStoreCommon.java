@@ -18,6 +18,8 @@ package com.yahoo.athenz.common.server.store.impl;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.yahoo.athenz.auth.util.Crypto;
 import com.yahoo.athenz.common.server.util.FilesHelper;
 import com.yahoo.athenz.zms.*;
 import com.yahoo.rdl.Struct;
@@ -26,9 +28,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class ZMSFileChangeLogStoreCommon {
 
@@ -44,8 +50,22 @@ public class ZMSFileChangeLogStoreCommon {
     private static final String VALUE_TRUE         = "true";
     private static final String LAST_MOD_FNAME     = ".lastModTime";
     private static final String ATTR_LAST_MOD_TIME = "lastModTime";
+    private static final String TEMP_FILE_SUFFIX   = ".tmp";
+    private static final String SNAPSHOT_FNAME     = ".domainSnapshot";
+
+    static final String PROP_FILE_STORE_LOCK_STRIPES = "athenz.common.server.clog.file_store_lock_stripes";
+
+    final ReadWriteLock[] fileLocks;
 
     boolean requestConditions;
+    boolean jwsDomainSupport;
+    LocalDomainSnapshot domainSnapshot;
+    boolean domainSnapshotLoaded;
+
+    // domains whose entry in the current snapshot has been verified
+    // against the domain file and the file has not been updated since
+
+    final Set<String> validSnapshotDomains = ConcurrentHashMap.newKeySet();
     int maxRateLimitRetryCount = 101;
 
     public ZMSFileChangeLogStoreCommon(final String rootDirectory) {
@@ -54,6 +74,11 @@ public class ZMSFileChangeLogStoreCommon {
 
         filesHelper = new FilesHelper();
 
+        // domain files are protected by striped read/write locks so
+        // operations on different domains can run concurrently
+
+        fileLocks = createFileLocks(Integer.parseInt(System.getProperty(PROP_FILE_STORE_LOCK_STRIPES, "64")));
+
         // initialize our jackson object mapper
 
         jsonMapper = new ObjectMapper();
@@ -79,6 +104,10 @@ public class ZMSFileChangeLogStoreCommon {
                 PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE);
         setupFilePermissions(rootDir, perms);
 
+        // remove any temporary files left over from incomplete updates
+
+        removeTempFiles();
+
         // retrieve our last modification timestamp
 
         lastModTime = retrieveLastModificationTime();
@@ -98,6 +127,15 @@ public class ZMSFileChangeLogStoreCommon {
         this.requestConditions = requestConditions;
     }
 
+    public void setJWSDomainSupport(final boolean jwsDomainSupport) {
+        this.jwsDomainSupport = jwsDomainSupport;
+
+        // snapshot entries are generated from the domain files saved
+        // in the configured format so they must be verified again
+
+        validSnapshotDomains.clear();
+    }
+
     public boolean supportsFullRefresh() {
         return false;
     }
@@ -144,6 +182,195 @@ public class ZMSFileChangeLogStoreCommon {
         put(domainName, jsonValueAsBytes(jwsDomain, JWSDomain.class));
     }
 
+    /**
+     * Return the domain data from the local snapshot if the snapshot entry
+     * was generated from the current contents of the local domain file.
+     * The snapshot is loaded when this method is called for the first time.
+     * @param domainName name of the domain
+     * @return domain data or null if not available in the snapshot
+     */
+    public DomainData getLocalSnapshotDomain(final String domainName) {
+
+        LocalDomainSnapshot snapshot = getDomainSnapshot();
+        if (snapshot == null) {
+            return null;
+        }
+
+        LocalDomainSnapshot.Entry entry = snapshot.getEntry(domainName);
+        if (entry == null) {
+            return null;
+        }
+
+        // the entry is only valid if the digest of the domain file
+        // matches the one recorded when the snapshot was generated.
+        // we don't rely on the file modification time since a file
+        // could be rewritten with the same size within its resolution
+
+        final ReadWriteLock lock = getFileLock(domainName);
+        lock.readLock().lock();
+        try {
+            if (!isSnapshotEntryCurrent(entry)) {
+                return null;
+            }
+            validSnapshotDomains.add(domainName);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try {
+            return jsonMapper.readValue(new ByteBufferBackedInputStream(snapshot.getDomainData(entry)),
+                    DomainData.class);
+        } catch (Exception ex) {
+            LOGGER.error("Unable to parse snapshot data for domain: {} error: {}", domainName, ex.getMessage());
+        }
+        return null;
+    }
+
+    boolean isSnapshotEntryCurrent(LocalDomainSnapshot.Entry entry) {
+
+        File file = new File(rootDir, entry.domainName);
+        if (file.length() != entry.fileSize) {
+            return false;
+        }
+
+        try {
+            return Arrays.equals(Crypto.sha256(Files.readAllBytes(file.toPath())), entry.fileDigest);
+        } catch (IOException ex) {
+            LOGGER.error("Unable to read domain file: {} error: {}", entry.domainName, ex.getMessage());
+            return false;
+        }
+    }
+
+    synchronized LocalDomainSnapshot getDomainSnapshot() {
+
+        if (!domainSnapshotLoaded) {
+            domainSnapshotLoaded = true;
+            File file = new File(rootDir, SNAPSHOT_FNAME);
+            if (file.exists()) {
+                try {
+                    domainSnapshot = LocalDomainSnapshot.load(file);
+                    LOGGER.info("Loaded local domain snapshot with {} domains", domainSnapshot.size());
+                } catch (IOException ex) {
+                    LOGGER.error("Unable to load local domain snapshot: {}", ex.getMessage());
+                }
+            }
+        }
+        return domainSnapshot;
+    }
+
+    /**
+     * Generate a new snapshot of all the locally saved domains. The
+     * domain files are only saved after their signatures have been
+     * validated, so the snapshot keeps the domain data along with the
+     * original signature details. Entries of the current snapshot for
+     * domains that have not been updated since they were verified are
+     * copied as is, so only the updated domain files are parsed again.
+     * The new snapshot replaces the currently loaded one.
+     */
+    public synchronized void saveLocalDomainSnapshot() {
+
+        LocalDomainSnapshot currentSnapshot = getDomainSnapshot();
+
+        File file = new File(rootDir, SNAPSHOT_FNAME);
+        File tempFile = new File(rootDir, "." + SNAPSHOT_FNAME + TEMP_FILE_SUFFIX);
+
+        try {
+            setupDomainFile(tempFile);
+            int count;
+            int copied = 0;
+            try (LocalDomainSnapshot.Writer writer = new LocalDomainSnapshot.Writer(tempFile)) {
+                for (String domainName : getLocalDomainList()) {
+                    if (copySnapshotEntry(writer, currentSnapshot, domainName)) {
+                        copied += 1;
+                    } else {
+                        addSnapshotEntry(writer, domainName);
+                    }
+                }
+                count = writer.getCount();
+            }
+            filesHelper.move(tempFile, file);
+            LOGGER.info("Saved local domain snapshot with {} domains ({} unchanged)", count, copied);
+        } catch (Exception ex) {
+            LOGGER.error("Unable to save local domain snapshot: {}", ex.getMessage());
+            delete(tempFile.getName());
+            validSnapshotDomains.clear();
+            return;
+        }
+
+        try {
+            domainSnapshot = LocalDomainSnapshot.load(file);
+        } catch (IOException ex) {
+            LOGGER.error("Unable to load local domain snapshot: {}", ex.getMessage());
+            domainSnapshot = null;
+            validSnapshotDomains.clear();
+        }
+    }
+
+    boolean copySnapshotEntry(LocalDomainSnapshot.Writer writer, LocalDomainSnapshot snapshot,
+            final String domainName) throws IOException {
+
+        if (snapshot == null || !validSnapshotDomains.contains(domainName)) {
+            return false;
+        }
+
+        LocalDomainSnapshot.Entry entry = snapshot.getEntry(domainName);
+        if (entry == null) {
+            return false;
+        }
+
+        writer.addEntry(domainName, entry.fileSize, entry.fileDigest, entry.signatureHeader,
+                entry.signature, snapshot.getDomainDataBytes(entry));
+        return true;
+    }
+
+    void addSnapshotEntry(LocalDomainSnapshot.Writer writer, final String domainName) throws IOException {
+
+        final ReadWriteLock lock = getFileLock(domainName);
+        lock.readLock().lock();
+        try {
+            byte[] fileData;
+            try {
+                fileData = Files.readAllBytes(new File(rootDir, domainName).toPath());
+            } catch (IOException ex) {
+                LOGGER.error("Unable to read domain file: {} error: {}", domainName, ex.getMessage());
+                return;
+            }
+            final byte[] fileDigest = Crypto.sha256(fileData);
+
+            if (jwsDomainSupport) {
+                JWSDomain jwsDomain = readSnapshotDomain(domainName, fileData, JWSDomain.class);
+                if (jwsDomain == null) {
+                    return;
+                }
+                writer.addEntry(domainName, fileData.length, fileDigest, jwsDomain.getProtectedHeader(),
+                        jwsDomain.getSignature(), Base64.getUrlDecoder().decode(jwsDomain.getPayload()));
+            } else {
+                SignedDomain signedDomain = readSnapshotDomain(domainName, fileData, SignedDomain.class);
+                if (signedDomain == null) {
+                    return;
+                }
+                writer.addEntry(domainName, fileData.length, fileDigest, signedDomain.getKeyId(),
+                        signedDomain.getSignature(), jsonMapper.writeValueAsBytes(signedDomain.getDomain()));
+            }
+
+            // the entry matches the domain file until the next update
+            // which removes the domain from the set with the write lock
+
+            validSnapshotDomains.add(domainName);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    <T> T readSnapshotDomain(final String domainName, byte[] fileData, Class<T> classType) {
+        try {
+            return jsonMapper.readValue(fileData, classType);
+        } catch (Exception ex) {
+            LOGGER.error("Unable to parse domain file: {} error: {}", domainName, ex.getMessage());
+        }
+        return null;
+    }
+
     void setupFilePermissions(File file, Set<PosixFilePermission> perms) {
         try {
             filesHelper.setPosixFilePermissions(file, perms);
@@ -164,45 +391,94 @@ public class ZMSFileChangeLogStoreCommon {
         }
     }
 
-    public synchronized <T> T get(String name, Class<T> classType) {
+    static ReadWriteLock[] createFileLocks(int lockStripes) {
+        ReadWriteLock[] locks = new ReadWriteLock[lockStripes > 0 ? lockStripes : 1];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        return locks;
+    }
 
-        File file = new File(rootDir, name);
-        if (!file.exists()) {
-            return null;
+    ReadWriteLock getFileLock(final String name) {
+        return fileLocks[Math.floorMod(name.hashCode(), fileLocks.length)];
+    }
+
+    void removeTempFiles() {
+
+        String[] names = rootDir.list();
+        if (names == null) {
+            return;
         }
+        for (String name : names) {
+            if (name.charAt(0) == '.' && name.endsWith(TEMP_FILE_SUFFIX)) {
+                LOGGER.info("Removing incomplete domain file: {}", name);
+                delete(name);
+            }
+        }
+    }
+
+    public <T> T get(String name, Class<T> classType) {
 
+        final ReadWriteLock lock = getFileLock(name);
+        lock.readLock().lock();
         try {
-            return jsonMapper.readValue(file, classType);
-        } catch (Exception ex) {
-            LOGGER.error("Unable to retrieve file: {} error: {}", file.getAbsolutePath(), ex.getMessage());
+            File file = new File(rootDir, name);
+            if (!file.exists()) {
+                return null;
+            }
+
+            try {
+                return jsonMapper.readValue(file, classType);
+            } catch (Exception ex) {
+                LOGGER.error("Unable to retrieve file: {} error: {}", file.getAbsolutePath(), ex.getMessage());
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
         }
-        return null;
     }
 
-    public synchronized void put(String name, byte[] data) {
+    public void put(String name, byte[] data) {
+
+        // we write the data into a hidden temporary file first and then
+        // rename it so readers never see a partially written domain file
+        // even if the server is stopped during the update
 
         File file = new File(rootDir, name);
-        if (!file.exists()) {
-            setupDomainFile(file);
-        }
+        File tempFile = new File(rootDir, "." + name + TEMP_FILE_SUFFIX);
 
+        final ReadWriteLock lock = getFileLock(name);
+        lock.writeLock().lock();
         try {
-            filesHelper.write(file, data);
+            setupDomainFile(tempFile);
+            filesHelper.write(tempFile, data);
+            filesHelper.move(tempFile, file);
+            validSnapshotDomains.remove(name);
         } catch (IOException ex) {
             error("unable to save file: " + file.getPath() + " error: " + ex.getMessage());
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
-    public synchronized void delete(String name) {
-        File file = new File(rootDir, name);
-        if (!file.exists()) {
-            return;
-        }
+    public void delete(String name) {
 
+        final ReadWriteLock lock = getFileLock(name);
+        lock.writeLock().lock();
         try {
-            filesHelper.delete(file);
-        } catch (Exception exc) {
-            error("Cannot delete file or directory: " + name + " : exc: " + exc);
+            File file = new File(rootDir, name);
+            if (!file.exists()) {
+                return;
+            }
+
+            try {
+                filesHelper.delete(file);
+                validSnapshotDomains.remove(name);
+            } catch (Exception exc) {
+                error("Cannot delete file or directory: " + name + " : exc: " + exc);
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
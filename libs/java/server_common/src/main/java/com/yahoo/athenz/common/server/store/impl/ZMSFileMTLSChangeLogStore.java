@@ -205,4 +205,19 @@ public class ZMSFileMTLSChangeLogStore implements ChangeLogStore {
     public void setRequestConditions(final boolean requestConditions) {
         changeLogStoreCommon.setRequestConditions(requestConditions);
     }
+
+    @Override
+    public void setJWSDomainSupport(final boolean jwsDomainSupport) {
+        changeLogStoreCommon.setJWSDomainSupport(jwsDomainSupport);
+    }
+
+    @Override
+    public DomainData getLocalSnapshotDomain(String domainName) {
+        return changeLogStoreCommon.getLocalSnapshotDomain(domainName);
+    }
+
+    @Override
+    public void saveLocalDomainSnapshot() {
+        changeLogStoreCommon.saveLocalDomainSnapshot();
+    }
 }
@@ -0,0 +1,367 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.util;
+
+import com.yahoo.athenz.auth.AuthorityConsts;
+import com.yahoo.athenz.auth.Principal;
+import com.yahoo.athenz.auth.util.StringUtils;
+import com.yahoo.athenz.zms.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled view of the active policies in a domain used by the ZMS and
+ * ZTS authorizers to evaluate access checks without walking every policy
+ * and compiling the glob patterns for every request. The action, resource
+ * and role globs are compiled once when the index is built, the assertions
+ * are grouped by their effect and literal action, and each assertion keeps
+ * the list of domain roles that match its role pattern. The index is built
+ * from a single version of the domain and must be rebuilt once the domain
+ * is updated.
+ */
+public class AccessPolicyIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccessPolicyIndex.class);
+
+    /**
+     * Check if the principal is a member of the given role, including
+     * any delegated trust checks, when evaluating access without
+     * authenticated roles
+     */
+    public interface PrincipalRoleMatcher {
+        boolean match(Role role, String identity, String trustDomain);
+    }
+
+    /**
+     * Result of an access check along with the number of assertions
+     * that were inspected to reach the decision
+     */
+    public static class AccessDecision {
+
+        boolean allowed = false;
+        int inspectedAssertions = 0;
+
+        public boolean isAllowed() {
+            return allowed;
+        }
+
+        public int getInspectedAssertions() {
+            return inspectedAssertions;
+        }
+    }
+
+    static class GlobMatcher {
+
+        final String literal;
+        final String prefix;
+        final Pattern pattern;
+
+        GlobMatcher(final String glob) {
+
+            // globs without any wildcards are matched with a simple
+            // string comparison. otherwise we use the literal prefix
+            // of the glob to reject most values before running the regex
+
+            if (!StringUtils.containsMatchCharacter(glob)) {
+                literal = glob;
+                prefix = null;
+                pattern = null;
+            } else {
+                literal = null;
+                prefix = glob.substring(0, firstMatchCharacter(glob));
+                pattern = Pattern.compile(StringUtils.patternFromGlob(glob));
+            }
+        }
+
+        static int firstMatchCharacter(final String glob) {
+            int idx = glob.indexOf('*');
+            int idx2 = glob.indexOf('?');
+            if (idx == -1 || (idx2 != -1 && idx2 < idx)) {
+                idx = idx2;
+            }
+            return idx;
+        }
+
+        boolean isLiteral() {
+            return literal != null;
+        }
+
+        boolean matches(final String value) {
+            if (literal != null) {
+                return literal.equals(value);
+            }
+            return value.startsWith(prefix) && pattern.matcher(value).matches();
+        }
+    }
+
+    static class IndexedRole {
+
+        final Role role;
+        final String name;
+        final Set<String> memberNames;
+
+        IndexedRole(Role role) {
+            this.role = role;
+            this.name = role.getName();
+            this.memberNames = directMemberNames(role);
+        }
+
+        /**
+         * If the role only includes regular members (no wildcards and
+         * no groups) then return the set of member names so we can
+         * quickly reject principals that are not members of the role.
+         * Otherwise, return null to indicate that a full check is required.
+         * @param role role object
+         * @return set of member names or null
+         */
+        static Set<String> directMemberNames(Role role) {
+
+            List<RoleMember> roleMembers = role.getRoleMembers();
+            if (roleMembers == null) {
+                return null;
+            }
+
+            Set<String> memberNames = new HashSet<>();
+            for (RoleMember roleMember : roleMembers) {
+                final String memberName = roleMember.getMemberName();
+                if (memberName.endsWith("*") || (roleMember.getPrincipalType() != null
+                        && roleMember.getPrincipalType() == Principal.Type.GROUP.getValue())) {
+                    return null;
+                }
+                memberNames.add(memberName);
+            }
+            return memberNames;
+        }
+    }
+
+    static class IndexedAssertion {
+
+        final Assertion assertion;
+        final GlobMatcher actionMatcher;
+        final GlobMatcher resourceMatcher;
+        final List<IndexedRole> roles;
+
+        IndexedAssertion(Assertion assertion, List<IndexedRole> domainRoles) {
+            this.assertion = assertion;
+            actionMatcher = new GlobMatcher(assertion.getAction().toLowerCase());
+            resourceMatcher = new GlobMatcher(assertion.getResource().toLowerCase());
+
+            Pattern rolePattern = Pattern.compile(StringUtils.patternFromGlob(assertion.getRole()));
+            roles = new ArrayList<>();
+            for (IndexedRole role : domainRoles) {
+                if (rolePattern.matcher(role.name).matches()) {
+                    roles.add(role);
+                }
+            }
+        }
+    }
+
+    static class EffectAssertions {
+
+        final Map<String, List<IndexedAssertion>> actionAssertions = new HashMap<>();
+        final List<IndexedAssertion> wildcardAssertions = new ArrayList<>();
+
+        void add(IndexedAssertion assertion) {
+            if (assertion.actionMatcher.isLiteral()) {
+                actionAssertions.computeIfAbsent(assertion.actionMatcher.literal, k -> new ArrayList<>()).add(assertion);
+            } else {
+                wildcardAssertions.add(assertion);
+            }
+        }
+    }
+
+    final String domainName;
+    final EffectAssertions denyAssertions = new EffectAssertions();
+    final EffectAssertions allowAssertions = new EffectAssertions();
+    final Map<String, IndexedRole> indexedRoles = new HashMap<>();
+
+    AccessPolicyIndex(final String domainName, List<Role> roles, List<Policy> policies,
+            AccessPolicyIndex previousIndex) {
+
+        this.domainName = domainName;
+
+        // roles that have not been modified since the previous index
+        // was built are reused without processing their members again
+
+        List<IndexedRole> domainRoles = new ArrayList<>();
+        for (Role role : roles) {
+            IndexedRole indexedRole = (previousIndex != null) ? previousIndex.indexedRoles.get(role.getName()) : null;
+            if (indexedRole == null || !indexedRole.role.equals(role)) {
+                indexedRole = new IndexedRole(role);
+            }
+            domainRoles.add(indexedRole);
+            indexedRoles.put(indexedRole.name, indexedRole);
+        }
+
+        for (Policy policy : policies) {
+
+            // ignore any inactive/multi-version policies
+
+            if (policy.getActive() == Boolean.FALSE || policy.getAssertions() == null) {
+                continue;
+            }
+
+            for (Assertion assertion : policy.getAssertions()) {
+                IndexedAssertion indexedAssertion = new IndexedAssertion(assertion, domainRoles);
+                if (assertion.getEffect() == AssertionEffect.DENY) {
+                    denyAssertions.add(indexedAssertion);
+                } else {
+                    allowAssertions.add(indexedAssertion);
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the access policy index for the given domain
+     * @param domainName name of the domain
+     * @param roles list of roles in the domain
+     * @param policies list of policies in the domain
+     * @return access policy index or null if the domain includes data
+     *  that cannot be indexed, in which case the caller must use the
+     *  regular policy evaluation
+     */
+    public static AccessPolicyIndex build(final String domainName, List<Role> roles, List<Policy> policies) {
+        return build(domainName, roles, policies, null);
+    }
+
+    /**
+     * Build the access policy index for the given domain
+     * @param domainName name of the domain
+     * @param roles list of roles in the domain
+     * @param policies list of policies in the domain
+     * @param previousIndex optional index built for the previous version
+     *  of the domain whose unmodified roles are reused
+     * @return access policy index or null if the domain includes data
+     *  that cannot be indexed, in which case the caller must use the
+     *  regular policy evaluation
+     */
+    public static AccessPolicyIndex build(final String domainName, List<Role> roles, List<Policy> policies,
+            AccessPolicyIndex previousIndex) {
+        try {
+            return new AccessPolicyIndex(domainName, roles, policies, previousIndex);
+        } catch (Exception ex) {
+            LOGGER.error("unable to build access policy index for domain {}: {}", domainName, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Evaluate the access check against the indexed assertions. Deny
+     * assertions are evaluated first since any match denies access,
+     * and then we look for the first allow assertion that matches.
+     * @param identity full name of the principal
+     * @param action action value in lower case
+     * @param resource resource value in lower case
+     * @param authenticatedRoles list of roles for role based checks, null otherwise
+     * @param trustDomain optional trust domain
+     * @param principalRoleMatcher role member checker for principal based checks
+     * @return access decision
+     */
+    public AccessDecision evaluateAccess(final String identity, final String action, final String resource,
+            List<String> authenticatedRoles, final String trustDomain, PrincipalRoleMatcher principalRoleMatcher) {
+
+        AccessDecision decision = new AccessDecision();
+        if (assertionsMatch(denyAssertions, identity, action, resource, authenticatedRoles,
+                trustDomain, principalRoleMatcher, decision)) {
+            return decision;
+        }
+
+        decision.allowed = assertionsMatch(allowAssertions, identity, action, resource, authenticatedRoles,
+                trustDomain, principalRoleMatcher, decision);
+        return decision;
+    }
+
+    boolean assertionsMatch(EffectAssertions assertions, final String identity, final String action,
+            final String resource, List<String> authenticatedRoles, final String trustDomain,
+            PrincipalRoleMatcher principalRoleMatcher, AccessDecision decision) {
+
+        List<IndexedAssertion> actionAssertions = assertions.actionAssertions.get(action);
+        if (actionAssertions != null) {
+            for (IndexedAssertion assertion : actionAssertions) {
+                decision.inspectedAssertions += 1;
+                if (assertionMatch(assertion, identity, resource, authenticatedRoles,
+                        trustDomain, principalRoleMatcher)) {
+                    return true;
+                }
+            }
+        }
+
+        for (IndexedAssertion assertion : assertions.wildcardAssertions) {
+            decision.inspectedAssertions += 1;
+            if (assertion.actionMatcher.matches(action) && assertionMatch(assertion, identity, resource,
+                    authenticatedRoles, trustDomain, principalRoleMatcher)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    boolean assertionMatch(IndexedAssertion assertion, final String identity, final String resource,
+            List<String> authenticatedRoles, final String trustDomain, PrincipalRoleMatcher principalRoleMatcher) {
+
+        if (!assertion.resourceMatcher.matches(resource)) {
+            return false;
+        }
+
+        boolean matchResult = (authenticatedRoles != null) ? matchRole(assertion.roles, authenticatedRoles)
+                : matchPrincipal(assertion.roles, identity, trustDomain, principalRoleMatcher);
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("assertionMatch: {} -> {} (effect: {})", assertion.assertion, matchResult,
+                    assertion.assertion.getEffect());
+        }
+
+        return matchResult;
+    }
+
+    boolean matchRole(List<IndexedRole> roles, List<String> authenticatedRoles) {
+
+        // depending on the authority we either have the full role name
+        // or only the short name so we're going to check both
+
+        final int prefixLen = domainName.length() + AuthorityConsts.ROLE_SEP.length();
+        for (IndexedRole role : roles) {
+            if (authenticatedRoles.contains(role.name) || authenticatedRoles.contains(role.name.substring(prefixLen))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean matchPrincipal(List<IndexedRole> roles, final String identity, final String trustDomain,
+            PrincipalRoleMatcher principalRoleMatcher) {
+
+        for (IndexedRole role : roles) {
+
+            // if the role has only regular members and the principal
+            // is not one of them then there is no need for a full check
+
+            if (role.memberNames != null && !role.memberNames.contains(identity)) {
+                continue;
+            }
+
+            if (principalRoleMatcher.match(role.role, identity, trustDomain)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
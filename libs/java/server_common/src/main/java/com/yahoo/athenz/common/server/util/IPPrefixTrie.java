@@ -0,0 +1,198 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.util;
+
+import com.google.common.net.InetAddresses;
+
+/**
+ * Compressed binary radix trie of IPv4 and IPv6 CIDR blocks. Each node
+ * keeps the full prefix bits leading to it so chains of single-child
+ * nodes are collapsed, and a lookup visits at most one node per bit of
+ * the address so its cost does not depend on the number of blocks in
+ * the trie. Since any matching block is sufficient,
+ * blocks that are already covered by a shorter block are not stored.
+ * IPv4-mapped IPv6 addresses are checked against the IPv4 blocks.
+ */
+public class IPPrefixTrie {
+
+    static final class Node {
+
+        final byte[] prefix;
+        final int length;
+        boolean terminal;
+        final Node[] children = new Node[2];
+
+        Node(byte[] address, int length, boolean terminal) {
+            this.prefix = maskAddress(address, length);
+            this.length = length;
+            this.terminal = terminal;
+        }
+    }
+
+    Node ipv4Root;
+    Node ipv6Root;
+    private int size = 0;
+
+    /**
+     * Add the given CIDR block to the trie
+     * @param ipBlock block in subnet/mask format e.g. 192.1.0.0/20 or 2600:1f18::/36
+     * @throws IllegalArgumentException if the block is not valid
+     */
+    public void addPrefix(final String ipBlock) {
+
+        // the expected format is subnet/mask e.g. 192.1.0.0/20
+
+        int idx = ipBlock.indexOf('/');
+        if (idx == -1) {
+            throw new IllegalArgumentException("Invalid ipblock line - missing / separator");
+        }
+        byte[] address = InetAddresses.forString(ipBlock.substring(0, idx).trim()).getAddress();
+
+        // valid mask is 1..32 for IPv4 and 1..128 for IPv6
+
+        final int maxLength = address.length * 8;
+        int length = Integer.parseInt(ipBlock.substring(idx + 1).trim());
+        if (length < 1 || length > maxLength) {
+            throw new IllegalArgumentException("Invalid ipblock line - invalid mask: " + length);
+        }
+
+        if (address.length == 4) {
+            ipv4Root = insert(ipv4Root, address, length);
+        } else {
+            ipv6Root = insert(ipv6Root, address, length);
+        }
+        size += 1;
+    }
+
+    /**
+     * Check if the given ip address is included in any of the blocks
+     * @param ipAddress IPv4 or IPv6 address
+     * @return true if the address is included in one of the blocks
+     * @throws IllegalArgumentException if the address is not valid
+     */
+    public boolean contains(final String ipAddress) {
+
+        // IPv4-mapped IPv6 addresses are returned as IPv4 addresses
+
+        byte[] address = InetAddresses.forString(ipAddress).getAddress();
+        return contains(address.length == 4 ? ipv4Root : ipv6Root, address);
+    }
+
+    /**
+     * Return the number of blocks added to the trie
+     * @return number of blocks
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    static Node insert(Node node, byte[] address, int length) {
+
+        if (node == null) {
+            return new Node(address, length, true);
+        }
+
+        final int common = commonPrefixLength(node.prefix, address, Math.min(node.length, length));
+
+        // the new block is at or below this node
+
+        if (common == node.length) {
+
+            // if this node is already a block then it covers the new one
+
+            if (node.terminal) {
+                return node;
+            }
+
+            // the node becomes a block covering all of its children
+
+            if (length == node.length) {
+                node.terminal = true;
+                node.children[0] = null;
+                node.children[1] = null;
+                return node;
+            }
+
+            final int bit = bitAt(address, node.length);
+            node.children[bit] = insert(node.children[bit], address, length);
+            return node;
+        }
+
+        // the new block covers this node and all of its children
+
+        if (common == length) {
+            return new Node(address, length, true);
+        }
+
+        // otherwise we need a branch node where the prefixes diverge
+
+        Node branch = new Node(address, common, false);
+        branch.children[bitAt(node.prefix, common)] = node;
+        branch.children[bitAt(address, common)] = new Node(address, length, true);
+        return branch;
+    }
+
+    static boolean contains(Node node, byte[] address) {
+
+        final int maxLength = address.length * 8;
+        while (node != null) {
+            if (commonPrefixLength(node.prefix, address, node.length) < node.length) {
+                return false;
+            }
+            if (node.terminal) {
+                return true;
+            }
+            if (node.length >= maxLength) {
+                return false;
+            }
+            node = node.children[bitAt(address, node.length)];
+        }
+        return false;
+    }
+
+    static int commonPrefixLength(byte[] a, byte[] b, int maxLength) {
+
+        int length = 0;
+        for (int i = 0; length < maxLength; i++) {
+            final int diff = (a[i] ^ b[i]) & 0xFF;
+            if (diff != 0) {
+                length += Integer.numberOfLeadingZeros(diff) - 24;
+                break;
+            }
+            length += 8;
+        }
+        return Math.min(length, maxLength);
+    }
+
+    static int bitAt(byte[] address, int index) {
+        return (address[index >> 3] >> (7 - (index & 7))) & 1;
+    }
+
+    static byte[] maskAddress(byte[] address, int length) {
+        byte[] masked = new byte[address.length];
+        final int fullBytes = length >> 3;
+        System.arraycopy(address, 0, masked, 0, fullBytes);
+        final int remainingBits = length & 7;
+        if (remainingBits != 0) {
+            masked[fullBytes] = (byte) (address[fullBytes] & (0xFF << (8 - remainingBits)));
+        }
+        return masked;
+    }
+}
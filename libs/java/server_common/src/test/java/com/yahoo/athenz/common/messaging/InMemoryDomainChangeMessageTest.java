@@ -0,0 +1,84 @@
+/*
+ *
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.yahoo.athenz.common.messaging;
+
+import com.yahoo.athenz.common.messaging.impl.InMemoryDomainChangePublisherFactory;
+import com.yahoo.athenz.common.messaging.impl.InMemoryDomainChangeSubscriberFactory;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+public class InMemoryDomainChangeMessageTest {
+
+    @Test
+    public void testPublishSubscribe() throws InterruptedException {
+
+        ChangeSubscriberFactory<DomainChangeMessage> subscriberFactory = new InMemoryDomainChangeSubscriberFactory();
+        ChangeSubscriber<DomainChangeMessage> subscriber1 = subscriberFactory.create(null, "topic1", "sub1", "Exclusive");
+        ChangeSubscriber<DomainChangeMessage> subscriber2 = subscriberFactory.create(null, "topic2", "sub2", "Exclusive");
+
+        BlockingQueue<DomainChangeMessage> received1 = new LinkedBlockingQueue<>();
+        BlockingQueue<DomainChangeMessage> received2 = new LinkedBlockingQueue<>();
+        subscriber1.init(message -> {
+            if (message.getDomainName().equals("invalid")) {
+                throw new IllegalArgumentException("invalid domain");
+            }
+            received1.add(message);
+        }, DomainChangeMessage.class);
+        subscriber2.init(received2::add, DomainChangeMessage.class);
+
+        Thread thread1 = new Thread(subscriber1);
+        Thread thread2 = new Thread(subscriber2);
+        thread1.start();
+        thread2.start();
+
+        ChangePublisherFactory<DomainChangeMessage> publisherFactory = new InMemoryDomainChangePublisherFactory();
+        ChangePublisher<DomainChangeMessage> publisher = publisherFactory.create(null, "topic1");
+        publisher.publish(new DomainChangeMessage().setDomainName("invalid"));
+        publisher.publish(new DomainChangeMessage().setDomainName("coretech"));
+
+        // processing failures do not stop the subscriber and messages
+        // are only delivered to the subscribers of the same topic
+
+        DomainChangeMessage message = received1.poll(5, TimeUnit.SECONDS);
+        assertNotNull(message);
+        assertEquals(message.getDomainName(), "coretech");
+        assertNull(received2.poll(100, TimeUnit.MILLISECONDS));
+
+        // once closed the subscriber no longer receives messages
+
+        subscriber1.close();
+        publisher.publish(new DomainChangeMessage().setDomainName("weather"));
+        publisher.close();
+        thread1.join(5000);
+        assertFalse(thread1.isAlive());
+        assertTrue(received1.isEmpty());
+
+        // interrupting the subscriber thread stops the subscriber
+
+        thread2.interrupt();
+        thread2.join(5000);
+        assertFalse(thread2.isAlive());
+        subscriber2.close();
+    }
+}
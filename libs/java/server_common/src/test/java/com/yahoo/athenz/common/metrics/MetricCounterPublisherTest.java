@@ -0,0 +1,133 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.metrics;
+
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.*;
+
+public class MetricCounterPublisherTest {
+
+    @Test
+    public void testPublish() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        MetricCounterPublisher publisher = new MetricCounterPublisher(metric);
+
+        AtomicLong hits = new AtomicLong();
+        AtomicLong misses = new AtomicLong();
+        publisher.addCounter("cache_hit", hits::get);
+        publisher.addCounter("cache_miss", misses::get);
+        assertEquals(publisher.size(), 2);
+
+        // nothing is published if the counters have not changed
+
+        publisher.publish();
+        Mockito.verifyNoInteractions(metric);
+
+        // only the change since the last run is published
+
+        hits.set(5);
+        misses.set(2);
+        publisher.publish();
+        Mockito.verify(metric).increment("cache_hit", null, 5);
+        Mockito.verify(metric).increment("cache_miss", null, 2);
+
+        hits.set(8);
+        publisher.publish();
+        Mockito.verify(metric).increment("cache_hit", null, 3);
+        Mockito.verifyNoMoreInteractions(metric);
+
+        // if the counter is reset then its current value is published
+
+        hits.set(4);
+        publisher.publish();
+        Mockito.verify(metric).increment("cache_hit", null, 4);
+        Mockito.verifyNoMoreInteractions(metric);
+    }
+
+    @Test
+    public void testPublishLargeDelta() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        MetricCounterPublisher publisher = new MetricCounterPublisher(metric);
+
+        publisher.addCounter("cache_hit", () -> Integer.MAX_VALUE + 10L);
+        publisher.publish();
+        Mockito.verify(metric).increment("cache_hit", null, Integer.MAX_VALUE);
+        Mockito.verify(metric).increment("cache_hit", null, 10);
+    }
+
+    @Test
+    public void testPublishFailure() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        MetricCounterPublisher publisher = new MetricCounterPublisher(metric);
+
+        // a failing counter does not prevent other counters from being published
+
+        publisher.addCounter("invalid", () -> {
+            throw new IllegalStateException("invalid counter");
+        });
+        publisher.addCounter("cache_hit", () -> 3);
+        publisher.publish();
+        Mockito.verify(metric).increment("cache_hit", null, 3);
+        Mockito.verifyNoMoreInteractions(metric);
+    }
+
+    @Test
+    public void testStartShutdown() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        MetricCounterPublisher publisher = new MetricCounterPublisher(metric);
+
+        // without any counters or with an invalid interval the publisher is not started
+
+        publisher.start(60);
+        assertNull(publisher.scheduledExecutor);
+
+        AtomicLong hits = new AtomicLong();
+        publisher.addCounter("cache_hit", hits::get);
+
+        publisher.start(0);
+        assertNull(publisher.scheduledExecutor);
+
+        // shutdown without start is a no-op
+
+        publisher.shutdown();
+        Mockito.verifyNoInteractions(metric);
+
+        publisher.start(1);
+        assertNotNull(publisher.scheduledExecutor);
+
+        hits.set(2);
+        Mockito.verify(metric, Mockito.timeout(5000)).increment("cache_hit", null, 2);
+
+        // starting the publisher again keeps the same executor
+
+        publisher.start(1);
+
+        // shutdown publishes the remaining changes
+
+        hits.set(5);
+        publisher.shutdown();
+        assertNull(publisher.scheduledExecutor);
+        Mockito.verify(metric).increment("cache_hit", null, 3);
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.log.impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.testng.annotations.Test;
+
+import com.yahoo.athenz.common.server.log.AuditLogMsgBuilder;
+import com.yahoo.athenz.common.server.log.AuditLogSink;
+import com.yahoo.athenz.common.server.log.AuditLogger;
+
+import static org.testng.Assert.*;
+
+public class AsyncAuditLoggerTest {
+
+    static class TestAuditLogSink implements AuditLogSink {
+
+        final List<String> records = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch writeLatch;
+        boolean failWrite = false;
+        boolean closed = false;
+
+        @Override
+        public void write(List<String> records) throws IOException {
+            if (writeLatch != null) {
+                try {
+                    writeLatch.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+            if (failWrite) {
+                throw new IOException("write failure");
+            }
+            batchSizes.add(records.size());
+            this.records.addAll(records);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void testLogRecords() {
+
+        TestAuditLogSink sink = new TestAuditLogSink();
+        AsyncAuditLogger auditLogger = new AsyncAuditLogger(sink, 1024, 16,
+                AsyncAuditLogger.OverflowPolicy.BLOCK);
+
+        AuditLogMsgBuilder msgBldr = auditLogger.getMsgBuilder();
+        assertTrue(msgBldr instanceof DefaultAuditLogMsgBuilder);
+        msgBldr.uuId("uuid-1").who("user.joe").whatApi("putRole").whatDomain("athenz");
+
+        auditLogger.log("msg1", "VERS=(test);");
+        auditLogger.log(msgBldr);
+        auditLogger.log(null);
+        for (int i = 0; i < 100; i++) {
+            auditLogger.log("record" + i, null);
+        }
+
+        // all the pending records are written before close returns
+
+        auditLogger.close();
+        assertTrue(sink.closed);
+        assertEquals(auditLogger.getPendingCount(), 0);
+        assertEquals(sink.records.size(), 102);
+        assertEquals(sink.records.get(0), "msg1");
+        assertEquals(sink.records.get(1), msgBldr.build());
+        assertEquals(sink.records.get(101), "record99");
+        for (int batchSize : sink.batchSizes) {
+            assertTrue(batchSize <= 16);
+        }
+
+        // records logged after close are dropped
+
+        auditLogger.log("msg2", null);
+        auditLogger.log(msgBldr);
+        assertEquals(auditLogger.getDroppedCount(), 2);
+        assertEquals(auditLogger.getPendingCount(), 0);
+        assertEquals(sink.records.size(), 102);
+        auditLogger.close();
+    }
+
+    @Test
+    public void testOverflowDrop() {
+
+        TestAuditLogSink sink = new TestAuditLogSink();
+        sink.writeLatch = new CountDownLatch(1);
+        AsyncAuditLogger auditLogger = new AsyncAuditLogger(sink, 4, 1,
+                AsyncAuditLogger.OverflowPolicy.DROP);
+
+        // the writer is blocked on the first record so we can
+        // have at most 1 record in the writer and 4 in the buffer
+
+        for (int i = 0; i < 10; i++) {
+            auditLogger.log("record" + i, null);
+        }
+        assertTrue(auditLogger.getDroppedCount() >= 5);
+
+        sink.writeLatch.countDown();
+        auditLogger.close();
+        assertEquals(sink.records.size() + auditLogger.getDroppedCount(), 10);
+        assertEquals(sink.records.get(0), "record0");
+    }
+
+    @Test
+    public void testOverflowBlock() throws InterruptedException {
+
+        TestAuditLogSink sink = new TestAuditLogSink();
+        sink.writeLatch = new CountDownLatch(1);
+        AsyncAuditLogger auditLogger = new AsyncAuditLogger(sink, 4, 2,
+                AsyncAuditLogger.OverflowPolicy.BLOCK);
+
+        // the producer waits for room in the buffer until
+        // the writer is able to process the records
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 20; i++) {
+                auditLogger.log("record" + i, null);
+            }
+        });
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive());
+
+        sink.writeLatch.countDown();
+        producer.join();
+        auditLogger.close();
+
+        assertEquals(auditLogger.getDroppedCount(), 0);
+        assertEquals(sink.records.size(), 20);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(sink.records.get(i), "record" + i);
+        }
+    }
+
+    @Test
+    public void testCloseWithActiveProducers() throws InterruptedException {
+
+        TestAuditLogSink sink = new TestAuditLogSink();
+        AsyncAuditLogger auditLogger = new AsyncAuditLogger(sink, 64, 8,
+                AsyncAuditLogger.OverflowPolicy.BLOCK);
+
+        // every record logged while the logger is being closed
+        // is either written to the sink or counted as dropped
+
+        final int producerCount = 4;
+        final int recordCount = 2000;
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < producerCount; i++) {
+            producers.add(new Thread(() -> {
+                for (int j = 0; j < recordCount; j++) {
+                    auditLogger.log("record" + j, null);
+                }
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        Thread.sleep(5);
+        auditLogger.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertEquals(sink.records.size() + auditLogger.getDroppedCount(), producerCount * recordCount);
+        assertEquals(auditLogger.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testWriteFailure() {
+
+        TestAuditLogSink sink = new TestAuditLogSink();
+        sink.failWrite = true;
+        AsyncAuditLogger auditLogger = new AsyncAuditLogger(sink, 16, 16,
+                AsyncAuditLogger.OverflowPolicy.BLOCK);
+
+        auditLogger.log("msg1", null);
+        auditLogger.log("msg2", null);
+        auditLogger.close();
+
+        assertEquals(auditLogger.getFailedCount(), 2);
+        assertTrue(sink.records.isEmpty());
+    }
+
+    @Test
+    public void testFileAuditLogSink() throws IOException {
+
+        Path logFile = Files.createTempFile("audit", ".log");
+        try {
+            Files.write(logFile, "existing\n".getBytes(StandardCharsets.UTF_8));
+
+            FileAuditLogSink sink = new FileAuditLogSink(logFile);
+            AsyncAuditLogger auditLogger = new AsyncAuditLogger(sink, 16, 4,
+                    AsyncAuditLogger.OverflowPolicy.BLOCK);
+            for (int i = 0; i < 10; i++) {
+                auditLogger.log("record" + i, null);
+            }
+            auditLogger.close();
+
+            // records are appended to the existing file
+
+            List<String> lines = Files.readAllLines(logFile, StandardCharsets.UTF_8);
+            assertEquals(lines.size(), 11);
+            assertEquals(lines.get(0), "existing");
+            assertEquals(lines.get(10), "record9");
+
+            // closing the sink again is not an issue
+
+            sink.close();
+        } finally {
+            Files.deleteIfExists(logFile);
+        }
+    }
+
+    @Test
+    public void testSlf4jAuditLogSink() {
+        Slf4jAuditLogSink sink = new Slf4jAuditLogSink(AsyncAuditLoggerFactory.AUDIT_LOGGER_NAME);
+        sink.write(List.of("record1", "record2"));
+        sink.close();
+    }
+
+    @Test
+    public void testLogFactory() throws IOException {
+
+        AsyncAuditLoggerFactory factory = new AsyncAuditLoggerFactory();
+        AuditLogger auditLogger = factory.create();
+        assertTrue(auditLogger instanceof AsyncAuditLogger);
+        auditLogger.log("factory logger succeeds", null);
+        ((AsyncAuditLogger) auditLogger).close();
+
+        assertTrue(factory.createSink() instanceof Slf4jAuditLogSink);
+
+        Path logFile = Files.createTempFile("audit", ".log");
+        try {
+            System.setProperty(AsyncAuditLoggerFactory.PROP_LOG_FILE, logFile.toString());
+            System.setProperty(AsyncAuditLoggerFactory.PROP_OVERFLOW_POLICY, "drop");
+            auditLogger = factory.create();
+            auditLogger.log("file logger succeeds", null);
+            ((AsyncAuditLogger) auditLogger).close();
+            assertEquals(Files.readAllLines(logFile, StandardCharsets.UTF_8), List.of("file logger succeeds"));
+
+            // invalid log file
+
+            System.setProperty(AsyncAuditLoggerFactory.PROP_LOG_FILE, logFile.resolve("invalid").toString());
+            try {
+                factory.createSink();
+                fail();
+            } catch (IllegalArgumentException ex) {
+                assertTrue(ex.getMessage().contains("Invalid audit log file"));
+            }
+        } finally {
+            System.clearProperty(AsyncAuditLoggerFactory.PROP_LOG_FILE);
+            System.clearProperty(AsyncAuditLoggerFactory.PROP_OVERFLOW_POLICY);
+            Files.deleteIfExists(logFile);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.log.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class AuditLogRingBufferTest {
+
+    @Test
+    public void testCapacity() {
+        assertEquals(new AuditLogRingBuffer<String>(0).capacity(), 2);
+        assertEquals(new AuditLogRingBuffer<String>(2).capacity(), 2);
+        assertEquals(new AuditLogRingBuffer<String>(8).capacity(), 8);
+        assertEquals(new AuditLogRingBuffer<String>(9).capacity(), 16);
+        assertEquals(new AuditLogRingBuffer<String>(1000).capacity(), 1024);
+    }
+
+    @Test
+    public void testOfferPoll() {
+
+        AuditLogRingBuffer<String> buffer = new AuditLogRingBuffer<>(4);
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.poll());
+
+        assertTrue(buffer.offer("msg1"));
+        assertTrue(buffer.offer("msg2"));
+        assertTrue(buffer.offer("msg3"));
+        assertTrue(buffer.offer("msg4"));
+        assertEquals(buffer.size(), 4);
+
+        // buffer is full
+
+        assertFalse(buffer.offer("msg5"));
+
+        assertEquals(buffer.poll(), "msg1");
+        assertTrue(buffer.offer("msg5"));
+
+        // elements are returned in order across the wrap around
+
+        assertEquals(buffer.poll(), "msg2");
+        assertEquals(buffer.poll(), "msg3");
+        assertEquals(buffer.poll(), "msg4");
+        assertEquals(buffer.poll(), "msg5");
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+
+        final int producerCount = 4;
+        final int recordCount = 10000;
+        AuditLogRingBuffer<String> buffer = new AuditLogRingBuffer<>(64);
+
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < producerCount; i++) {
+            final String prefix = "producer" + i + "-";
+            producers.add(new Thread(() -> {
+                for (int j = 0; j < recordCount; j++) {
+                    while (!buffer.offer(prefix + j)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.start();
+        }
+
+        // every record must be received exactly once
+
+        Set<String> records = new HashSet<>();
+        while (records.size() < producerCount * recordCount) {
+            String record = buffer.poll();
+            if (record == null) {
+                Thread.yield();
+                continue;
+            }
+            assertTrue(records.add(record), record);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertNull(buffer.poll());
+    }
+}
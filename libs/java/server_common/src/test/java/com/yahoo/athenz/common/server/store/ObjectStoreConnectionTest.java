@@ -0,0 +1,57 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.store;
+
+import com.yahoo.athenz.common.server.ServerResourceException;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+public class ObjectStoreConnectionTest {
+
+    @Test
+    public void testGetAthenzDomains() throws ServerResourceException {
+
+        ObjectStoreConnection con = Mockito.mock(ObjectStoreConnection.class, Mockito.CALLS_REAL_METHODS);
+
+        AthenzDomain dom1 = new AthenzDomain("dom1");
+        Mockito.doReturn(dom1).when(con).getAthenzDomain("dom1");
+        Mockito.doThrow(new ServerResourceException(ServerResourceException.NOT_FOUND))
+                .when(con).getAthenzDomain("dom2");
+
+        // domains that are not found are skipped
+
+        Map<String, AthenzDomain> athenzDomains = con.getAthenzDomains(Arrays.asList("dom1", "dom2"));
+        assertEquals(athenzDomains.size(), 1);
+        assertSame(athenzDomains.get("dom1"), dom1);
+
+        // all other errors are returned to the caller
+
+        Mockito.doThrow(new ServerResourceException(ServerResourceException.INTERNAL_SERVER_ERROR))
+                .when(con).getAthenzDomain("dom3");
+        try {
+            con.getAthenzDomains(Collections.singletonList("dom3"));
+            fail();
+        } catch (ServerResourceException ex) {
+            assertEquals(ex.getCode(), ServerResourceException.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
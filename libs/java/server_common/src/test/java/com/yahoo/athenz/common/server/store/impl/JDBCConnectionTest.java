@@ -6993,6 +6993,314 @@ public class JDBCConnectionTest {
         jdbcConn.close();
     }
 
+    private ResultSet mockBatchQuery(final String sqlFragment) throws SQLException {
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.doReturn(ps).when(mockConn).prepareStatement(ArgumentMatchers.contains(sqlFragment));
+        Mockito.doReturn(rs).when(ps).executeQuery();
+        Mockito.doReturn("").when(rs).getString(ArgumentMatchers.anyString());
+        Mockito.doReturn(new java.sql.Timestamp(1454358916)).when(rs).getTimestamp(JDBCConsts.DB_COLUMN_MODIFIED);
+        return rs;
+    }
+
+    @Test
+    public void testGetAthenzDomains() throws Exception {
+
+        JDBCConnection jdbcConn = new JDBCConnection(mockConn, true);
+
+        // two domains - dom3 does not exist
+
+        ResultSet domainRs = mockBatchQuery("FROM domain WHERE name IN");
+        Mockito.when(domainRs.next()).thenReturn(true, true, false);
+        Mockito.when(domainRs.getString(JDBCConsts.DB_COLUMN_NAME)).thenReturn("dom1", "dom2");
+        Mockito.when(domainRs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID)).thenReturn(1, 2);
+
+        ResultSet domainTagsRs = mockBatchQuery("FROM domain_tags dt WHERE dt.domain_id IN");
+        Mockito.when(domainTagsRs.next()).thenReturn(true, false);
+        Mockito.when(domainTagsRs.getString(1)).thenReturn("dkey");
+        Mockito.when(domainTagsRs.getString(2)).thenReturn("dval");
+        Mockito.when(domainTagsRs.getInt(3)).thenReturn(1);
+
+        ResultSet contactsRs = mockBatchQuery("FROM domain_contacts WHERE domain_id IN");
+        Mockito.when(contactsRs.next()).thenReturn(true, false);
+        Mockito.when(contactsRs.getString(JDBCConsts.DB_COLUMN_TYPE)).thenReturn("security-contact");
+        Mockito.when(contactsRs.getString(JDBCConsts.DB_COLUMN_NAME)).thenReturn("user.joe");
+        Mockito.when(contactsRs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID)).thenReturn(2);
+
+        // both domains have an admin role
+
+        ResultSet rolesRs = mockBatchQuery("FROM role WHERE domain_id IN");
+        Mockito.when(rolesRs.next()).thenReturn(true, true, true, false);
+        Mockito.when(rolesRs.getString(JDBCConsts.DB_COLUMN_NAME)).thenReturn("admin", "admin", "readers");
+        Mockito.when(rolesRs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID)).thenReturn(1, 2, 1);
+
+        ResultSet roleMembersRs = mockBatchQuery("role_member.req_principal, role.domain_id");
+        Mockito.when(roleMembersRs.next()).thenReturn(true, true, true, false);
+        Mockito.when(roleMembersRs.getString(1)).thenReturn("admin", "admin", "admin");
+        Mockito.when(roleMembersRs.getString(2)).thenReturn("user.joe", "user.jane", "user.unknown");
+        Mockito.when(roleMembersRs.getInt(7)).thenReturn(1, 2, 3);
+
+        ResultSet roleTagsRs = mockBatchQuery("FROM role_tags rt JOIN role r");
+        Mockito.when(roleTagsRs.next()).thenReturn(true, false);
+        Mockito.when(roleTagsRs.getString(1)).thenReturn("readers");
+        Mockito.when(roleTagsRs.getString(2)).thenReturn("rkey");
+        Mockito.when(roleTagsRs.getString(3)).thenReturn("rval");
+        Mockito.when(roleTagsRs.getInt(4)).thenReturn(1);
+
+        ResultSet groupsRs = mockBatchQuery("FROM principal_group WHERE domain_id IN");
+        Mockito.when(groupsRs.next()).thenReturn(true, false);
+        Mockito.when(groupsRs.getString(JDBCConsts.DB_COLUMN_NAME)).thenReturn("dev-team");
+        Mockito.when(groupsRs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID)).thenReturn(2);
+
+        ResultSet groupMembersRs = mockBatchQuery("principal_group_member.system_disabled, principal_group.domain_id");
+        Mockito.when(groupMembersRs.next()).thenReturn(true, true, false);
+        Mockito.when(groupMembersRs.getString(1)).thenReturn("dev-team", "dev-team");
+        Mockito.when(groupMembersRs.getString(2)).thenReturn("user.joe", "user.jane");
+        Mockito.when(groupMembersRs.getInt(5)).thenReturn(2, 1);
+
+        ResultSet groupTagsRs = mockBatchQuery("FROM group_tags gt JOIN principal_group g");
+        Mockito.when(groupTagsRs.next()).thenReturn(true, false);
+        Mockito.when(groupTagsRs.getString(1)).thenReturn("dev-team");
+        Mockito.when(groupTagsRs.getString(2)).thenReturn("gkey");
+        Mockito.when(groupTagsRs.getString(3)).thenReturn("gval");
+        Mockito.when(groupTagsRs.getInt(4)).thenReturn(2);
+
+        ResultSet policiesRs = mockBatchQuery("FROM policy WHERE domain_id IN");
+        Mockito.when(policiesRs.next()).thenReturn(true, true, false);
+        Mockito.when(policiesRs.getString(JDBCConsts.DB_COLUMN_NAME)).thenReturn("admin", "admin");
+        Mockito.when(policiesRs.getInt(JDBCConsts.DB_COLUMN_POLICY_ID)).thenReturn(11, 21);
+        Mockito.when(policiesRs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID)).thenReturn(1, 2);
+        Mockito.when(policiesRs.getBoolean(JDBCConsts.DB_COLUMN_ACTIVE)).thenReturn(true);
+        Mockito.when(policiesRs.getString(JDBCConsts.DB_COLUMN_VERSION)).thenReturn("0");
+
+        ResultSet assertionsRs = mockBatchQuery("assertion.assertion_id FROM assertion");
+        Mockito.when(assertionsRs.next()).thenReturn(true, true, true, false);
+        Mockito.when(assertionsRs.getInt(JDBCConsts.DB_COLUMN_POLICY_ID)).thenReturn(11, 21, 31);
+        Mockito.when(assertionsRs.getString(JDBCConsts.DB_COLUMN_ROLE)).thenReturn("admin", "admin");
+        Mockito.when(assertionsRs.getString(JDBCConsts.DB_COLUMN_RESOURCE)).thenReturn("dom1:*", "dom2:*");
+        Mockito.when(assertionsRs.getString(JDBCConsts.DB_COLUMN_ACTION)).thenReturn("*", "read");
+        Mockito.when(assertionsRs.getString(JDBCConsts.DB_COLUMN_EFFECT)).thenReturn("ALLOW", "DENY");
+        Mockito.when(assertionsRs.getLong(JDBCConsts.DB_COLUMN_ASSERT_ID)).thenReturn(101L, 201L);
+
+        ResultSet conditionsRs = mockBatchQuery("FROM assertion_condition JOIN assertion");
+        Mockito.when(conditionsRs.next()).thenReturn(true, true, false);
+        Mockito.when(conditionsRs.getLong(JDBCConsts.DB_COLUMN_ASSERT_ID)).thenReturn(201L, 301L);
+        Mockito.when(conditionsRs.getInt(JDBCConsts.DB_COLUMN_CONDITION_ID)).thenReturn(1);
+        Mockito.when(conditionsRs.getString(JDBCConsts.DB_COLUMN_KEY)).thenReturn("instances");
+        Mockito.when(conditionsRs.getString(JDBCConsts.DB_COLUMN_OPERATOR)).thenReturn("EQUALS");
+        Mockito.when(conditionsRs.getString(JDBCConsts.DB_COLUMN_VALUE)).thenReturn("host1");
+
+        ResultSet policyTagsRs = mockBatchQuery("FROM policy_tags pt");
+        Mockito.when(policyTagsRs.next()).thenReturn(true, true, false);
+        Mockito.when(policyTagsRs.getInt(1)).thenReturn(11, 31);
+        Mockito.when(policyTagsRs.getString(2)).thenReturn("pkey");
+        Mockito.when(policyTagsRs.getString(3)).thenReturn("pval");
+
+        ResultSet servicesRs = mockBatchQuery("FROM service WHERE domain_id IN");
+        Mockito.when(servicesRs.next()).thenReturn(true, false);
+        Mockito.when(servicesRs.getString(JDBCConsts.DB_COLUMN_NAME)).thenReturn("api");
+        Mockito.when(servicesRs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID)).thenReturn(1);
+
+        ResultSet hostsRs = mockBatchQuery("FROM host JOIN service_host");
+        Mockito.when(hostsRs.next()).thenReturn(true, true, false);
+        Mockito.when(hostsRs.getString(1)).thenReturn("api", "api");
+        Mockito.when(hostsRs.getString(2)).thenReturn("host1", "host2");
+        Mockito.when(hostsRs.getInt(3)).thenReturn(1, 2);
+
+        ResultSet publicKeysRs = mockBatchQuery("FROM public_key JOIN service");
+        Mockito.when(publicKeysRs.next()).thenReturn(true, false);
+        Mockito.when(publicKeysRs.getString(1)).thenReturn("api");
+        Mockito.when(publicKeysRs.getString(JDBCConsts.DB_COLUMN_KEY_ID)).thenReturn("0");
+        Mockito.when(publicKeysRs.getString(JDBCConsts.DB_COLUMN_KEY_VALUE)).thenReturn("key-value");
+        Mockito.when(publicKeysRs.getInt(4)).thenReturn(1);
+
+        ResultSet serviceTagsRs = mockBatchQuery("FROM service_tags st");
+        Mockito.when(serviceTagsRs.next()).thenReturn(true, false);
+        Mockito.when(serviceTagsRs.getString(1)).thenReturn("api");
+        Mockito.when(serviceTagsRs.getString(2)).thenReturn("skey");
+        Mockito.when(serviceTagsRs.getString(3)).thenReturn("sval");
+        Mockito.when(serviceTagsRs.getInt(4)).thenReturn(1);
+
+        ResultSet entitiesRs = mockBatchQuery("FROM entity WHERE domain_id IN");
+        Mockito.when(entitiesRs.next()).thenReturn(true, true, false);
+        Mockito.when(entitiesRs.getString(JDBCConsts.DB_COLUMN_NAME)).thenReturn("entity1");
+        Mockito.when(entitiesRs.getString(JDBCConsts.DB_COLUMN_VALUE)).thenReturn("{\"key\":\"value\"}");
+        Mockito.when(entitiesRs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID)).thenReturn(2, 3);
+
+        Map<String, AthenzDomain> athenzDomains = jdbcConn.getAthenzDomains(Arrays.asList("dom1", "dom2", "dom3"));
+        assertEquals(athenzDomains.size(), 2);
+        assertNull(athenzDomains.get("dom3"));
+
+        AthenzDomain dom1 = athenzDomains.get("dom1");
+        assertEquals(dom1.getDomain().getName(), "dom1");
+        assertEquals(dom1.getDomain().getTags().get("dkey").getList(), Collections.singletonList("dval"));
+        assertTrue(dom1.getDomain().getContacts().isEmpty());
+
+        assertEquals(dom1.getRoles().size(), 2);
+        for (Role role : dom1.getRoles()) {
+            if (role.getName().equals("dom1:role.admin")) {
+                assertEquals(role.getRoleMembers().size(), 1);
+                assertEquals(role.getRoleMembers().get(0).getMemberName(), "user.joe");
+                assertNull(role.getTags());
+            } else {
+                assertEquals(role.getName(), "dom1:role.readers");
+                assertNull(role.getRoleMembers());
+                assertEquals(role.getTags().get("rkey").getList(), Collections.singletonList("rval"));
+            }
+        }
+        assertTrue(dom1.getGroups().isEmpty());
+
+        assertEquals(dom1.getPolicies().size(), 1);
+        Policy policy = dom1.getPolicies().get(0);
+        assertEquals(policy.getName(), "dom1:policy.admin");
+        assertEquals(policy.getAssertions().size(), 1);
+        assertEquals(policy.getAssertions().get(0).getRole(), "dom1:role.admin");
+        assertEquals(policy.getAssertions().get(0).getAction(), "*");
+        assertNull(policy.getAssertions().get(0).getConditions());
+        assertEquals(policy.getTags().get("pkey").getList(), Collections.singletonList("pval"));
+
+        assertEquals(dom1.getServices().size(), 1);
+        ServiceIdentity service = dom1.getServices().get(0);
+        assertEquals(service.getName(), "dom1.api");
+        assertEquals(service.getHosts(), Collections.singletonList("host1"));
+        assertEquals(service.getPublicKeys().size(), 1);
+        assertEquals(service.getPublicKeys().get(0).getKey(), "key-value");
+        assertEquals(service.getTags().get("skey").getList(), Collections.singletonList("sval"));
+        assertTrue(dom1.getEntities().isEmpty());
+
+        AthenzDomain dom2 = athenzDomains.get("dom2");
+        assertNull(dom2.getDomain().getTags());
+        assertEquals(dom2.getDomain().getContacts().get("security-contact"), "user.joe");
+
+        assertEquals(dom2.getRoles().size(), 1);
+        assertEquals(dom2.getRoles().get(0).getName(), "dom2:role.admin");
+        assertEquals(dom2.getRoles().get(0).getRoleMembers().size(), 1);
+        assertEquals(dom2.getRoles().get(0).getRoleMembers().get(0).getMemberName(), "user.jane");
+
+        assertEquals(dom2.getGroups().size(), 1);
+        Group group = dom2.getGroups().get(0);
+        assertEquals(group.getName(), "dom2:group.dev-team");
+        assertEquals(group.getGroupMembers().size(), 1);
+        assertEquals(group.getGroupMembers().get(0).getMemberName(), "user.joe");
+        assertEquals(group.getGroupMembers().get(0).getGroupName(), "dom2:group.dev-team");
+        assertEquals(group.getTags().get("gkey").getList(), Collections.singletonList("gval"));
+
+        assertEquals(dom2.getPolicies().size(), 1);
+        policy = dom2.getPolicies().get(0);
+        assertEquals(policy.getName(), "dom2:policy.admin");
+        assertEquals(policy.getAssertions().get(0).getRole(), "dom2:role.admin");
+        assertEquals(policy.getAssertions().get(0).getEffect(), AssertionEffect.DENY);
+        AssertionConditions conditions = policy.getAssertions().get(0).getConditions();
+        assertEquals(conditions.getConditionsList().size(), 1);
+        assertEquals(conditions.getConditionsList().get(0).getConditionsMap().get("instances").getValue(), "host1");
+        assertNull(policy.getTags());
+
+        assertTrue(dom2.getServices().isEmpty());
+        assertEquals(dom2.getEntities().size(), 1);
+        assertEquals(dom2.getEntities().get(0).getName(), "dom2:entity.entity1");
+
+        jdbcConn.close();
+    }
+
+    @Test
+    public void testGetAthenzDomainsBatches() throws Exception {
+
+        JDBCConnection jdbcConn = new JDBCConnection(mockConn, true);
+        jdbcConn.domainBatchSize = 2;
+
+        Mockito.when(mockResultSet.next()).thenReturn(false);
+
+        Map<String, AthenzDomain> athenzDomains = jdbcConn.getAthenzDomains(Arrays.asList("dom1", "dom2", "dom3"));
+        assertTrue(athenzDomains.isEmpty());
+
+        // with no domains found we should not carry out any other queries
+
+        Mockito.verify(mockConn, times(1)).prepareStatement("SELECT * FROM domain WHERE name IN (?,?);");
+        Mockito.verify(mockConn, times(1)).prepareStatement("SELECT * FROM domain WHERE name IN (?);");
+        Mockito.verify(mockConn, times(2)).prepareStatement(ArgumentMatchers.anyString());
+        Mockito.verify(mockPrepStmt, times(1)).setString(1, "dom1");
+        Mockito.verify(mockPrepStmt, times(1)).setString(2, "dom2");
+        Mockito.verify(mockPrepStmt, times(1)).setString(1, "dom3");
+        Mockito.verify(mockPrepStmt, times(2)).setFetchSize(Integer.MIN_VALUE);
+
+        // no streaming when disabled
+
+        jdbcConn.streamBatchResults = false;
+        jdbcConn.getAthenzDomains(Collections.singletonList("dom1"));
+        Mockito.verify(mockPrepStmt, times(2)).setFetchSize(Integer.MIN_VALUE);
+
+        jdbcConn.close();
+    }
+
+    @Test
+    public void testGetAthenzDomainsException() throws Exception {
+
+        JDBCConnection jdbcConn = new JDBCConnection(mockConn, true);
+
+        Mockito.when(mockPrepStmt.executeQuery()).thenThrow(new SQLException("sql error"));
+
+        try {
+            jdbcConn.getAthenzDomains(Collections.singletonList("dom1"));
+            fail();
+        } catch (ServerResourceException ex) {
+            assertTrue(ex.getMessage().contains("sql error"));
+        }
+
+        jdbcConn.close();
+    }
+
+    @Test
+    public void testGetAthenzDomainsQueryFailures() throws Exception {
+
+        final String[] queries = {
+                "FROM domain_tags dt WHERE dt.domain_id IN",
+                "FROM domain_contacts WHERE domain_id IN",
+                "FROM role WHERE domain_id IN",
+                "role_member.req_principal, role.domain_id",
+                "FROM role_tags rt JOIN role r",
+                "FROM principal_group WHERE domain_id IN",
+                "principal_group_member.system_disabled, principal_group.domain_id",
+                "FROM group_tags gt JOIN principal_group g",
+                "FROM policy WHERE domain_id IN",
+                "assertion.assertion_id FROM assertion",
+                "FROM assertion_condition JOIN assertion",
+                "FROM policy_tags pt",
+                "FROM service WHERE domain_id IN",
+                "FROM host JOIN service_host",
+                "FROM public_key JOIN service",
+                "FROM service_tags st",
+                "FROM entity WHERE domain_id IN"
+        };
+
+        // every query failure must be reported back to the caller
+
+        for (String failedQuery : queries) {
+
+            JDBCConnection jdbcConn = new JDBCConnection(mockConn, true);
+
+            ResultSet domainRs = mockBatchQuery("FROM domain WHERE name IN");
+            Mockito.when(domainRs.next()).thenReturn(true, false);
+            Mockito.when(domainRs.getString(JDBCConsts.DB_COLUMN_NAME)).thenReturn("dom1");
+            Mockito.when(domainRs.getInt(JDBCConsts.DB_COLUMN_DOMAIN_ID)).thenReturn(1);
+
+            for (String query : queries) {
+                ResultSet rs = mockBatchQuery(query);
+                if (query.equals(failedQuery)) {
+                    Mockito.when(rs.next()).thenThrow(new SQLException("sql error"));
+                }
+            }
+
+            try {
+                jdbcConn.getAthenzDomains(Collections.singletonList("dom1"));
+                fail();
+            } catch (ServerResourceException ex) {
+                assertTrue(ex.getMessage().contains("sql error"), failedQuery);
+            }
+
+            jdbcConn.close();
+        }
+    }
+
     @Test
     public void testSetName() {
         AthenzDomain athenzDomain = new AthenzDomain("my-domain");
@@ -7018,6 +7326,26 @@ public class JDBCConnectionTest {
         jdbcConn.close();
     }
 
+    @Test
+    public void testIsTransactionActive() throws Exception {
+
+        JDBCConnection jdbcConn = new JDBCConnection(mockConn, true);
+        assertFalse(jdbcConn.isTransactionActive());
+        jdbcConn.close();
+
+        jdbcConn = new JDBCConnection(mockConn, false);
+        assertTrue(jdbcConn.isTransactionActive());
+        jdbcConn.commitChanges();
+        assertFalse(jdbcConn.isTransactionActive());
+        jdbcConn.close();
+
+        jdbcConn = new JDBCConnection(mockConn, false);
+        assertTrue(jdbcConn.isTransactionActive());
+        jdbcConn.rollbackChanges();
+        assertFalse(jdbcConn.isTransactionActive());
+        jdbcConn.close();
+    }
+
     @Test
     public void testCommitException() throws Exception {
 
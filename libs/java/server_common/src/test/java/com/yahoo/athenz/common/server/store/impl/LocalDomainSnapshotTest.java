@@ -0,0 +1,159 @@
+/*
+ *  Copyright The Athenz Authors
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.yahoo.athenz.common.server.store.impl;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.testng.Assert.*;
+
+public class LocalDomainSnapshotTest {
+
+    private File snapshotFile;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        snapshotFile = File.createTempFile("domain-snapshot", ".bin");
+    }
+
+    @AfterMethod
+    public void shutdown() {
+        //noinspection ResultOfMethodCallIgnored
+        snapshotFile.delete();
+    }
+
+    private String domainData(LocalDomainSnapshot snapshot, final String domainName) {
+        ByteBuffer buffer = snapshot.getDomainData(snapshot.getEntry(domainName));
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private void assertInvalidSnapshot() {
+        try {
+            LocalDomainSnapshot.load(snapshotFile);
+            fail();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Test
+    public void testWriteLoad() throws IOException {
+
+        try (LocalDomainSnapshot.Writer writer = new LocalDomainSnapshot.Writer(snapshotFile)) {
+            writer.addEntry("athenz", 50, new byte[] {1, 2, 3}, "0", "signature1",
+                    "{\"name\":\"athenz\"}".getBytes());
+            writer.addEntry("sports", 60, new byte[0], null, null, "{\"name\":\"sports\"}".getBytes());
+            assertEquals(writer.getCount(), 2);
+        }
+
+        LocalDomainSnapshot snapshot = LocalDomainSnapshot.load(snapshotFile);
+        assertEquals(snapshot.size(), 2);
+        assertNull(snapshot.getEntry("weather"));
+
+        LocalDomainSnapshot.Entry entry = snapshot.getEntry("athenz");
+        assertEquals(entry.fileSize, 50);
+        assertEquals(entry.fileDigest, new byte[] {1, 2, 3});
+        assertEquals(entry.signatureHeader, "0");
+        assertEquals(entry.signature, "signature1");
+        assertEquals(domainData(snapshot, "athenz"), "{\"name\":\"athenz\"}");
+
+        entry = snapshot.getEntry("sports");
+        assertEquals(entry.fileDigest.length, 0);
+        assertEquals(entry.signatureHeader, "");
+        assertEquals(entry.signature, "");
+        assertEquals(domainData(snapshot, "sports"), "{\"name\":\"sports\"}");
+
+        // reading the data does not affect other readers
+
+        assertEquals(domainData(snapshot, "athenz"), "{\"name\":\"athenz\"}");
+        assertEquals(new String(snapshot.getDomainDataBytes(snapshot.getEntry("athenz")), StandardCharsets.UTF_8),
+                "{\"name\":\"athenz\"}");
+    }
+
+    @Test
+    public void testLoadEmpty() throws IOException {
+
+        new LocalDomainSnapshot.Writer(snapshotFile).close();
+        assertEquals(LocalDomainSnapshot.load(snapshotFile).size(), 0);
+    }
+
+    @Test
+    public void testLoadInvalidHeader() throws IOException {
+
+        Files.write(snapshotFile.toPath(), new byte[0]);
+        assertInvalidSnapshot();
+
+        Files.write(snapshotFile.toPath(), ByteBuffer.allocate(12).putInt(0x12345678).putInt(1).putInt(0).array());
+        assertInvalidSnapshot();
+
+        Files.write(snapshotFile.toPath(), ByteBuffer.allocate(12).putInt(LocalDomainSnapshot.MAGIC)
+                .putInt(LocalDomainSnapshot.VERSION + 1).putInt(0).array());
+        assertInvalidSnapshot();
+    }
+
+    @Test
+    public void testLoadInvalidEntries() throws IOException {
+
+        try (LocalDomainSnapshot.Writer writer = new LocalDomainSnapshot.Writer(snapshotFile)) {
+            writer.addEntry("athenz", 50, new byte[] {1, 2, 3}, "0", "signature1",
+                    "{\"name\":\"athenz\"}".getBytes());
+        }
+        final byte[] data = Files.readAllBytes(snapshotFile.toPath());
+
+        // truncated file
+
+        Files.write(snapshotFile.toPath(), Arrays.copyOf(data, data.length - 2));
+        assertInvalidSnapshot();
+
+        // checksum mismatch
+
+        byte[] update = data.clone();
+        update[update.length - 6] ^= 0x01;
+        Files.write(snapshotFile.toPath(), update);
+        assertInvalidSnapshot();
+
+        // invalid entry length
+
+        update = data.clone();
+        ByteBuffer.wrap(update).putInt(12, -1);
+        Files.write(snapshotFile.toPath(), update);
+        assertInvalidSnapshot();
+
+        // invalid data length
+
+        update = data.clone();
+        ByteBuffer.wrap(update).putInt(update.length - 4 - 17 - 4, 10);
+        Files.write(snapshotFile.toPath(), update);
+        assertInvalidSnapshot();
+
+        // entry count larger than the number of entries
+
+        update = data.clone();
+        ByteBuffer.wrap(update).putInt(8, 2);
+        Files.write(snapshotFile.toPath(), update);
+        assertInvalidSnapshot();
+    }
+}
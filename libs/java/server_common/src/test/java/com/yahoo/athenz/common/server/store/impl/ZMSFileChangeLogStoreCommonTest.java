@@ -17,6 +17,7 @@ package com.yahoo.athenz.common.server.store.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yahoo.athenz.CommonTestUtils;
+import com.yahoo.athenz.auth.util.Crypto;
 import com.yahoo.athenz.common.server.util.FilesHelper;
 import com.yahoo.athenz.zms.*;
 import com.yahoo.rdl.JSON;
@@ -32,8 +33,12 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Files;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.yahoo.athenz.common.ServerCommonConsts.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -98,6 +103,340 @@ public class ZMSFileChangeLogStoreCommonTest {
         assertTrue(true);
     }
 
+    @Test
+    public void testPutReplacesFile() throws IOException {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        Struct data = new Struct();
+        data.put("key", "val1");
+        fstore.put("test1", JSON.bytes(data));
+
+        data.put("key", "val2");
+        fstore.put("test1", JSON.bytes(data));
+
+        Struct st = fstore.get("test1", Struct.class);
+        assertEquals(st.get("key"), "val2");
+
+        // no temporary files are left in the directory and the
+        // domain file is only accessible by the owner
+
+        assertEquals(fstore.getLocalDomainList(), Collections.singletonList("test1"));
+        assertFalse(new File(FSTORE_PATH, ".test1.tmp").exists());
+        assertEquals(Files.getPosixFilePermissions(new File(FSTORE_PATH, "test1").toPath()),
+                EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+    }
+
+    @Test
+    public void testPutMoveException() throws IOException {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        Struct data = new Struct();
+        data.put("key", "val1");
+        fstore.put("test1", JSON.bytes(data));
+
+        FilesHelper helper = Mockito.spy(new FilesHelper());
+        Mockito.doThrow(new IOException("io exception")).when(helper).move(any(), any());
+        fstore.filesHelper = helper;
+
+        data.put("key", "val2");
+        try {
+            fstore.put("test1", JSON.bytes(data));
+            fail();
+        } catch (Exception ex) {
+            assertTrue(ex.getMessage().contains("unable to save file"));
+        }
+
+        // the original file is not modified
+
+        Struct st = fstore.get("test1", Struct.class);
+        assertEquals(st.get("key"), "val1");
+    }
+
+    @Test
+    public void testRemoveTempFilesOnInit() throws IOException {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        fstore.setLastModificationTimestamp("12345");
+        fstore.saveLocalDomain("athenz", new SignedDomain().setDomain(new DomainData().setName("athenz")));
+
+        Files.write(new File(FSTORE_PATH, ".sports.tmp").toPath(), "{\"domain\":".getBytes());
+
+        ZMSFileChangeLogStoreCommon fstore2 = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        assertFalse(new File(FSTORE_PATH, ".sports.tmp").exists());
+        assertEquals(fstore2.getLocalDomainList(), Collections.singletonList("athenz"));
+        assertNotNull(fstore2.getLocalSignedDomain("athenz"));
+        assertEquals(fstore2.lastModTime, "12345");
+    }
+
+    @Test
+    public void testRemoveTempFilesError() {
+
+        ZMSFileChangeLogStoreCommon cstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+
+        File dir = Mockito.spy(cstore.rootDir);
+        Mockito.when(dir.list()).thenReturn(null);
+        cstore.rootDir = dir;
+
+        cstore.removeTempFiles();
+    }
+
+    @Test
+    public void testFileLockStripes() {
+
+        assertEquals(ZMSFileChangeLogStoreCommon.createFileLocks(16).length, 16);
+        assertEquals(ZMSFileChangeLogStoreCommon.createFileLocks(0).length, 1);
+        assertEquals(ZMSFileChangeLogStoreCommon.createFileLocks(-1).length, 1);
+
+        System.setProperty(ZMSFileChangeLogStoreCommon.PROP_FILE_STORE_LOCK_STRIPES, "4");
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        System.clearProperty(ZMSFileChangeLogStoreCommon.PROP_FILE_STORE_LOCK_STRIPES);
+
+        assertEquals(fstore.fileLocks.length, 4);
+        assertSame(fstore.getFileLock("athenz"), fstore.getFileLock("athenz"));
+    }
+
+    @Test
+    public void testConcurrentPutGet() throws Exception {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+
+        final int threadCount = 8;
+        final int updateCount = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            final String domainName = "domain" + (i % 4);
+            final int threadId = i;
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < updateCount; j++) {
+                    Struct data = new Struct();
+                    data.put("key", "val-" + threadId + "-" + j);
+                    fstore.put(domainName, JSON.bytes(data));
+
+                    // readers must always see a complete file
+
+                    Struct st = fstore.get(domainName, Struct.class);
+                    if (st == null || !st.getString("key").startsWith("val-")) {
+                        return false;
+                    }
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> future : futures) {
+            assertTrue(future.get());
+        }
+        executor.shutdown();
+
+        List<String> domains = fstore.getLocalDomainList();
+        Collections.sort(domains);
+        assertEquals(domains, Arrays.asList("domain0", "domain1", "domain2", "domain3"));
+    }
+
+    @Test
+    public void testLocalDomainSnapshot() {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        fstore.setLastModificationTimestamp("12345");
+
+        DomainData athenzData = new DomainData().setName("athenz").setYpmId(100);
+        fstore.saveLocalDomain("athenz", new SignedDomain().setDomain(athenzData)
+                .setKeyId("0").setSignature("signature1"));
+        DomainData sportsData = new DomainData().setName("sports").setEnabled(false);
+        fstore.saveLocalDomain("sports", new SignedDomain().setDomain(sportsData)
+                .setKeyId("1").setSignature("signature2"));
+        fstore.put("invalid", "{\"domain\":".getBytes());
+
+        // without a snapshot we get no data
+
+        assertNull(fstore.getLocalSnapshotDomain("athenz"));
+
+        fstore.saveLocalDomainSnapshot();
+        assertFalse(new File(FSTORE_PATH, "..domainSnapshot.tmp").exists());
+        assertFalse(fstore.getLocalDomainList().contains(".domainSnapshot"));
+
+        // the snapshot is loaded by the new store instance
+
+        ZMSFileChangeLogStoreCommon fstore2 = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        assertEquals(fstore2.getLocalSnapshotDomain("athenz"), athenzData);
+        assertEquals(fstore2.getLocalSnapshotDomain("sports"), sportsData);
+        assertNull(fstore2.getLocalSnapshotDomain("invalid"));
+        assertNull(fstore2.getLocalSnapshotDomain("weather"));
+        assertEquals(fstore2.getDomainSnapshot().size(), 2);
+
+        LocalDomainSnapshot.Entry entry = fstore2.getDomainSnapshot().getEntry("sports");
+        assertEquals(entry.signatureHeader, "1");
+        assertEquals(entry.signature, "signature2");
+
+        // once the domain file is updated, the snapshot entry is no longer used
+
+        fstore2.saveLocalDomain("athenz", new SignedDomain().setDomain(new DomainData()
+                .setName("athenz").setYpmId(200)).setKeyId("0").setSignature("signature3"));
+        assertNull(fstore2.getLocalSnapshotDomain("athenz"));
+        assertEquals(fstore2.getLocalSnapshotDomain("sports"), sportsData);
+    }
+
+    @Test
+    public void testLocalDomainSnapshotSameSizeUpdate() {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        fstore.setLastModificationTimestamp("12345");
+        fstore.saveLocalDomain("athenz", new SignedDomain().setDomain(new DomainData()
+                .setName("athenz").setYpmId(100)).setKeyId("0").setSignature("signature1"));
+        fstore.saveLocalDomainSnapshot();
+
+        // rewrite the domain file with the same size and modification
+        // time, the entry must not be used since the content is different
+
+        File file = new File(FSTORE_PATH, "athenz");
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        fstore.saveLocalDomain("athenz", new SignedDomain().setDomain(new DomainData()
+                .setName("athenz").setYpmId(200)).setKeyId("0").setSignature("signature2"));
+        assertTrue(file.setLastModified(lastModified));
+        assertEquals(file.length(), length);
+
+        ZMSFileChangeLogStoreCommon fstore2 = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        assertNull(fstore2.getLocalSnapshotDomain("athenz"));
+        assertNotNull(fstore2.getDomainSnapshot().getEntry("athenz"));
+    }
+
+    @Test
+    public void testLocalDomainSnapshotIncrementalUpdate() throws IOException {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        fstore.setLastModificationTimestamp("12345");
+
+        DomainData athenzData = new DomainData().setName("athenz").setYpmId(100);
+        fstore.saveLocalDomain("athenz", new SignedDomain().setDomain(athenzData)
+                .setKeyId("0").setSignature("signature1"));
+        DomainData sportsData = new DomainData().setName("sports").setEnabled(false);
+        fstore.saveLocalDomain("sports", new SignedDomain().setDomain(sportsData)
+                .setKeyId("1").setSignature("signature2"));
+        DomainData weatherData = new DomainData().setName("weather");
+        fstore.saveLocalDomain("weather", new SignedDomain().setDomain(weatherData)
+                .setKeyId("1").setSignature("signature3"));
+        fstore.saveLocalDomainSnapshot();
+        assertEquals(fstore.validSnapshotDomains, Set.of("athenz", "sports", "weather"));
+
+        // only the updated domain is parsed for the next snapshot while
+        // the deleted domain is no longer included
+
+        ZMSFileChangeLogStoreCommon fstore2 = Mockito.spy(new ZMSFileChangeLogStoreCommon(FSTORE_PATH));
+        assertEquals(fstore2.getLocalSnapshotDomain("athenz"), athenzData);
+        assertEquals(fstore2.getLocalSnapshotDomain("weather"), weatherData);
+        assertEquals(fstore2.validSnapshotDomains, Set.of("athenz", "weather"));
+
+        DomainData athenzData2 = new DomainData().setName("athenz").setYpmId(200);
+        fstore2.saveLocalDomain("athenz", new SignedDomain().setDomain(athenzData2)
+                .setKeyId("0").setSignature("signature4"));
+        fstore2.removeLocalDomain("sports");
+        assertEquals(fstore2.validSnapshotDomains, Set.of("weather"));
+
+        fstore2.saveLocalDomainSnapshot();
+        Mockito.verify(fstore2, Mockito.times(1)).addSnapshotEntry(any(), any());
+        Mockito.verify(fstore2, Mockito.times(1)).addSnapshotEntry(any(), Mockito.eq("athenz"));
+        assertEquals(fstore2.validSnapshotDomains, Set.of("athenz", "weather"));
+        assertEquals(fstore2.getDomainSnapshot().size(), 2);
+        assertEquals(fstore2.getDomainSnapshot().getEntry("athenz").signature, "signature4");
+
+        // the following snapshot copies all entries without parsing the files
+
+        fstore2.saveLocalDomainSnapshot();
+        Mockito.verify(fstore2, Mockito.times(1)).addSnapshotEntry(any(), any());
+        assertEquals(fstore2.getDomainSnapshot().size(), 2);
+
+        ZMSFileChangeLogStoreCommon fstore3 = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        assertEquals(fstore3.getLocalSnapshotDomain("athenz"), athenzData2);
+        assertEquals(fstore3.getLocalSnapshotDomain("weather"), weatherData);
+        assertNull(fstore3.getLocalSnapshotDomain("sports"));
+    }
+
+    @Test
+    public void testLocalDomainSnapshotJWSDomain() {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        fstore.setLastModificationTimestamp("12345");
+        fstore.setJWSDomainSupport(true);
+
+        DomainData domainData = new DomainData().setName("athenz").setYpmId(100);
+        final String payload = Base64.getUrlEncoder().encodeToString(JSON.bytes(domainData));
+        fstore.saveLocalDomain("athenz", new JWSDomain().setPayload(payload)
+                .setProtectedHeader("header").setSignature("signature"));
+        fstore.saveLocalDomainSnapshot();
+
+        ZMSFileChangeLogStoreCommon fstore2 = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        fstore2.setJWSDomainSupport(true);
+        assertEquals(fstore2.getLocalSnapshotDomain("athenz"), domainData);
+
+        LocalDomainSnapshot.Entry entry = fstore2.getDomainSnapshot().getEntry("athenz");
+        assertEquals(entry.signatureHeader, "header");
+        assertEquals(entry.signature, "signature");
+
+        // domains in the other format are not included
+
+        fstore2.setJWSDomainSupport(false);
+        fstore2.saveLocalDomainSnapshot();
+        fstore2.domainSnapshotLoaded = false;
+        assertNull(fstore2.getLocalSnapshotDomain("athenz"));
+    }
+
+    @Test
+    public void testLocalDomainSnapshotInvalidFile() throws IOException {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        fstore.setLastModificationTimestamp("12345");
+        fstore.saveLocalDomain("athenz", new SignedDomain().setDomain(new DomainData().setName("athenz")));
+        fstore.saveLocalDomainSnapshot();
+
+        // corrupt the last byte of the domain data
+
+        File file = new File(FSTORE_PATH, ".domainSnapshot");
+        byte[] data = Files.readAllBytes(file.toPath());
+        data[data.length - 5] ^= 0x01;
+        Files.write(file.toPath(), data);
+
+        ZMSFileChangeLogStoreCommon fstore2 = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        assertNull(fstore2.getLocalSnapshotDomain("athenz"));
+        assertNull(fstore2.getDomainSnapshot());
+    }
+
+    @Test
+    public void testLocalDomainSnapshotInvalidData() throws IOException {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        fstore.setLastModificationTimestamp("12345");
+        fstore.saveLocalDomain("athenz", new SignedDomain().setDomain(new DomainData().setName("athenz")));
+
+        File domainFile = new File(FSTORE_PATH, "athenz");
+        try (LocalDomainSnapshot.Writer writer = new LocalDomainSnapshot.Writer(
+                new File(FSTORE_PATH, ".domainSnapshot"))) {
+            writer.addEntry("athenz", domainFile.length(), Crypto.sha256(Files.readAllBytes(domainFile.toPath())),
+                    "0", "sig", "{\"name\":".getBytes());
+        }
+
+        assertNull(fstore.getLocalSnapshotDomain("athenz"));
+        assertNotNull(fstore.getDomainSnapshot());
+    }
+
+    @Test
+    public void testSaveLocalDomainSnapshotFailure() throws IOException {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        fstore.setLastModificationTimestamp("12345");
+        fstore.saveLocalDomain("athenz", new SignedDomain().setDomain(new DomainData().setName("athenz")));
+
+        FilesHelper helper = Mockito.spy(new FilesHelper());
+        Mockito.doThrow(new IOException("io exception")).when(helper).move(any(), any());
+        fstore.filesHelper = helper;
+
+        fstore.saveLocalDomainSnapshot();
+        assertFalse(new File(FSTORE_PATH, ".domainSnapshot").exists());
+        assertFalse(new File(FSTORE_PATH, "..domainSnapshot.tmp").exists());
+        assertNull(fstore.getLocalSnapshotDomain("athenz"));
+        assertTrue(fstore.validSnapshotDomains.isEmpty());
+    }
+
     @Test
     public void testGetSignedDomainList() {
         ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
@@ -415,6 +415,18 @@ public class ZMSFileChangeLogStoreTest {
         assertTrue(storeCommon.requestConditions);
     }
 
+    @Test
+    public void testLocalDomainSnapshot() {
+        MockZMSFileChangeLogStore fstore = new MockZMSFileChangeLogStore(FSTORE_PATH, null, null);
+        MockZMSFileChangeLogStoreCommon storeCommon = new MockZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        fstore.setChangeLogStoreCommon(storeCommon);
+        fstore.setJWSDomainSupport(true);
+        assertTrue(storeCommon.jwsDomainSupport);
+
+        fstore.saveLocalDomainSnapshot();
+        assertNull(fstore.getLocalSnapshotDomain("athenz"));
+    }
+
     @Test
     public void testGetUpdatedJWSDomainsNull() {
         MockZMSFileChangeLogStore store = new MockZMSFileChangeLogStore(FSTORE_PATH, null, "0");
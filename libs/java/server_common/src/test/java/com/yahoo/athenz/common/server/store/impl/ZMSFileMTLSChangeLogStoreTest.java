@@ -477,6 +477,19 @@ public class ZMSFileMTLSChangeLogStoreTest {
         assertTrue(storeCommon.requestConditions);
     }
 
+    @Test
+    public void testLocalDomainSnapshot() throws InterruptedException, IOException, KeyRefresherException {
+        MockZMSFileMTLSChangeLogStore fstore = new MockZMSFileMTLSChangeLogStore(FSTORE_PATH, keyPath, certPath,
+                trustStorePath, trustStorePassword);
+        MockZMSFileChangeLogStoreCommon storeCommon = new MockZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        fstore.setChangeLogStoreCommon(storeCommon);
+        fstore.setJWSDomainSupport(true);
+        assertTrue(storeCommon.jwsDomainSupport);
+
+        fstore.saveLocalDomainSnapshot();
+        assertNull(fstore.getLocalSnapshotDomain("athenz"));
+    }
+
     @Test
     public void testGetUpdatedJWSDomainsNull() throws KeyRefresherException, IOException, InterruptedException {
         MockZMSFileMTLSChangeLogStore fstore = new MockZMSFileMTLSChangeLogStore(FSTORE_PATH, keyPath, certPath,
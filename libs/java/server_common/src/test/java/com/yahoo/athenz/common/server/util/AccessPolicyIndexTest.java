@@ -0,0 +1,287 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.util;
+
+import com.yahoo.athenz.auth.Principal;
+import com.yahoo.athenz.zms.*;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class AccessPolicyIndexTest {
+
+    private static final AccessPolicyIndex.PrincipalRoleMatcher MEMBER_MATCHER = (role, identity, trustDomain) ->
+            role.getRoleMembers() != null && role.getRoleMembers().stream()
+                    .anyMatch(member -> member.getMemberName().equals(identity));
+
+    private Role createRole(final String roleName, final String... members) {
+        List<RoleMember> roleMembers = new ArrayList<>();
+        for (String member : members) {
+            roleMembers.add(new RoleMember().setMemberName(member));
+        }
+        return new Role().setName("coretech:role." + roleName).setRoleMembers(roleMembers);
+    }
+
+    private Assertion createAssertion(final String action, final String resource, final String role,
+            AssertionEffect effect) {
+        return new Assertion().setAction(action).setResource(resource).setRole(role).setEffect(effect);
+    }
+
+    private List<Role> createRoles(Role... extraRoles) {
+        List<Role> roles = new ArrayList<>();
+        roles.add(createRole("readers", "user.joe", "user.jane"));
+        roles.add(createRole("writers", "user.jane"));
+        roles.add(createRole("blocked", "user.john"));
+        roles.addAll(Arrays.asList(extraRoles));
+        return roles;
+    }
+
+    private List<Policy> createPolicies(List<Assertion> assertions) {
+        return Collections.singletonList(new Policy().setName("coretech:policy.policy1").setAssertions(assertions));
+    }
+
+    private AccessPolicyIndex buildIndex(List<Assertion> assertions) {
+        return AccessPolicyIndex.build("coretech", createRoles(), createPolicies(assertions));
+    }
+
+    @Test
+    public void testGlobMatcher() {
+
+        AccessPolicyIndex.GlobMatcher matcher = new AccessPolicyIndex.GlobMatcher("coretech:resource1");
+        assertTrue(matcher.isLiteral());
+        assertTrue(matcher.matches("coretech:resource1"));
+        assertFalse(matcher.matches("coretech:resource12"));
+        assertFalse(matcher.matches("coretech:resource"));
+
+        matcher = new AccessPolicyIndex.GlobMatcher("coretech:resource*");
+        assertFalse(matcher.isLiteral());
+        assertEquals(matcher.prefix, "coretech:resource");
+        assertTrue(matcher.matches("coretech:resource"));
+        assertTrue(matcher.matches("coretech:resource.data"));
+        assertFalse(matcher.matches("weather:resource"));
+
+        matcher = new AccessPolicyIndex.GlobMatcher("coretech:res?urce.*.data");
+        assertFalse(matcher.isLiteral());
+        assertEquals(matcher.prefix, "coretech:res");
+        assertTrue(matcher.matches("coretech:resource.east.data"));
+        assertTrue(matcher.matches("coretech:res0urce..data"));
+        assertFalse(matcher.matches("coretech:resource.east.data2"));
+        assertFalse(matcher.matches("weather:resource.east.data"));
+
+        matcher = new AccessPolicyIndex.GlobMatcher("*");
+        assertEquals(matcher.prefix, "");
+        assertTrue(matcher.matches(""));
+        assertTrue(matcher.matches("any-value"));
+
+        // regex characters in the glob are treated as literals
+
+        matcher = new AccessPolicyIndex.GlobMatcher("coretech:(data)+.*");
+        assertTrue(matcher.matches("coretech:(data)+.value"));
+        assertFalse(matcher.matches("coretech:datadata.value"));
+    }
+
+    @Test
+    public void testDirectMemberNames() {
+
+        assertEquals(AccessPolicyIndex.IndexedRole.directMemberNames(createRole("role1", "user.joe", "user.jane")),
+                new HashSet<>(Arrays.asList("user.joe", "user.jane")));
+        assertNull(AccessPolicyIndex.IndexedRole.directMemberNames(new Role().setName("coretech:role.trust")));
+        assertNull(AccessPolicyIndex.IndexedRole.directMemberNames(createRole("role1", "user.joe", "user.*")));
+
+        Role role = createRole("role1", "user.joe");
+        role.getRoleMembers().add(new RoleMember().setMemberName("coretech:group.dev-team")
+                .setPrincipalType(Principal.Type.GROUP.getValue()));
+        assertNull(AccessPolicyIndex.IndexedRole.directMemberNames(role));
+    }
+
+    @Test
+    public void testIndexBuckets() {
+
+        List<Assertion> assertions = new ArrayList<>();
+        assertions.add(createAssertion("READ", "coretech:*", "coretech:role.readers", null));
+        assertions.add(createAssertion("update", "coretech:data", "coretech:role.writers", AssertionEffect.ALLOW));
+        assertions.add(createAssertion("*", "coretech:secret", "coretech:role.*", AssertionEffect.DENY));
+
+        AccessPolicyIndex index = buildIndex(assertions);
+        assertNotNull(index);
+
+        assertEquals(index.allowAssertions.actionAssertions.keySet(), new HashSet<>(Arrays.asList("read", "update")));
+        assertTrue(index.allowAssertions.wildcardAssertions.isEmpty());
+        assertTrue(index.denyAssertions.actionAssertions.isEmpty());
+        assertEquals(index.denyAssertions.wildcardAssertions.size(), 1);
+
+        assertEquals(index.allowAssertions.actionAssertions.get("read").get(0).roles.size(), 1);
+        assertEquals(index.denyAssertions.wildcardAssertions.get(0).roles.size(), 3);
+    }
+
+    @Test
+    public void testEvaluateAccessPrincipal() {
+
+        List<Assertion> assertions = new ArrayList<>();
+        assertions.add(createAssertion("read", "coretech:*", "coretech:role.readers", AssertionEffect.ALLOW));
+        assertions.add(createAssertion("*", "coretech:data*", "coretech:role.writers", AssertionEffect.ALLOW));
+        assertions.add(createAssertion("read", "coretech:secret", "coretech:role.readers", AssertionEffect.DENY));
+
+        AccessPolicyIndex index = buildIndex(assertions);
+        assertNotNull(index);
+
+        AccessPolicyIndex.AccessDecision decision = index.evaluateAccess("user.joe", "read",
+                "coretech:resource1", null, null, MEMBER_MATCHER);
+        assertTrue(decision.isAllowed());
+        assertEquals(decision.getInspectedAssertions(), 2);
+
+        decision = index.evaluateAccess("user.joe", "update", "coretech:resource1", null, null, MEMBER_MATCHER);
+        assertFalse(decision.isAllowed());
+        assertEquals(decision.getInspectedAssertions(), 1);
+
+        assertTrue(index.evaluateAccess("user.jane", "update", "coretech:data1", null, null,
+                MEMBER_MATCHER).isAllowed());
+        assertFalse(index.evaluateAccess("user.john", "read", "coretech:resource1", null, null,
+                MEMBER_MATCHER).isAllowed());
+
+        // deny assertions take precedence over allow assertions
+
+        decision = index.evaluateAccess("user.joe", "read", "coretech:secret", null, null, MEMBER_MATCHER);
+        assertFalse(decision.isAllowed());
+        assertEquals(decision.getInspectedAssertions(), 1);
+    }
+
+    @Test
+    public void testEvaluateAccessPrincipalFullCheck() {
+
+        List<Assertion> assertions = new ArrayList<>();
+        assertions.add(createAssertion("read", "coretech:*", "coretech:role.readers", AssertionEffect.ALLOW));
+        assertions.add(createAssertion("read", "coretech:*", "coretech:role.trust", AssertionEffect.ALLOW));
+
+        AccessPolicyIndex index = AccessPolicyIndex.build("coretech",
+                createRoles(new Role().setName("coretech:role.trust").setTrust("weather")),
+                createPolicies(assertions));
+        assertNotNull(index);
+
+        // principals that are not direct members of the readers role
+        // are only checked against the trust role
+
+        List<String> checkedRoles = new ArrayList<>();
+        AccessPolicyIndex.PrincipalRoleMatcher matcher = (role, identity, trustDomain) -> {
+            checkedRoles.add(role.getName());
+            return role.getTrust() != null && identity.equals("weather.api");
+        };
+
+        assertTrue(index.evaluateAccess("weather.api", "read", "coretech:resource1", null, null,
+                matcher).isAllowed());
+        assertEquals(checkedRoles, Collections.singletonList("coretech:role.trust"));
+
+        checkedRoles.clear();
+        assertFalse(index.evaluateAccess("user.joe", "read", "coretech:resource1", null, null,
+                matcher).isAllowed());
+        assertEquals(checkedRoles, Arrays.asList("coretech:role.readers", "coretech:role.trust"));
+    }
+
+    @Test
+    public void testEvaluateAccessAuthenticatedRoles() {
+
+        List<Assertion> assertions = new ArrayList<>();
+        assertions.add(createAssertion("read", "coretech:*", "coretech:role.readers", AssertionEffect.ALLOW));
+        assertions.add(createAssertion("read", "coretech:secret", "coretech:role.blocked", AssertionEffect.DENY));
+
+        AccessPolicyIndex index = buildIndex(assertions);
+        assertNotNull(index);
+
+        AtomicInteger count = new AtomicInteger();
+        AccessPolicyIndex.PrincipalRoleMatcher matcher = (role, identity, trustDomain) -> {
+            count.incrementAndGet();
+            return true;
+        };
+
+        // both full and short role names are accepted
+
+        assertTrue(index.evaluateAccess("coretech", "read", "coretech:data",
+                Collections.singletonList("coretech:role.readers"), null, matcher).isAllowed());
+        assertTrue(index.evaluateAccess("coretech", "read", "coretech:data",
+                Collections.singletonList("readers"), null, matcher).isAllowed());
+        assertFalse(index.evaluateAccess("coretech", "read", "coretech:data",
+                Collections.singletonList("writers"), null, matcher).isAllowed());
+        assertFalse(index.evaluateAccess("coretech", "read", "coretech:secret",
+                Arrays.asList("readers", "blocked"), null, matcher).isAllowed());
+
+        // principal matcher is not used for role based checks
+
+        assertEquals(count.get(), 0);
+    }
+
+    @Test
+    public void testEvaluateAccessInactivePolicy() {
+
+        List<Assertion> assertions = new ArrayList<>();
+        assertions.add(createAssertion("read", "coretech:*", "coretech:role.readers", AssertionEffect.ALLOW));
+
+        List<Policy> policies = new ArrayList<>();
+        policies.add(new Policy().setName("coretech:policy.inactive").setActive(false).setAssertions(assertions));
+        policies.add(new Policy().setName("coretech:policy.empty"));
+
+        AccessPolicyIndex index = AccessPolicyIndex.build("coretech", createRoles(), policies);
+        assertNotNull(index);
+
+        AccessPolicyIndex.AccessDecision decision = index.evaluateAccess("user.joe", "read",
+                "coretech:resource1", null, null, MEMBER_MATCHER);
+        assertFalse(decision.isAllowed());
+        assertEquals(decision.getInspectedAssertions(), 0);
+    }
+
+    @Test
+    public void testBuildFailure() {
+
+        // assertions without required fields cannot be indexed
+
+        List<Assertion> assertions = new ArrayList<>();
+        assertions.add(new Assertion().setAction("read").setRole("coretech:role.readers"));
+        assertNull(buildIndex(assertions));
+
+        // domains without policies cannot be indexed
+
+        assertNull(AccessPolicyIndex.build("coretech", new ArrayList<>(), null));
+    }
+
+    @Test
+    public void testBuildWithPreviousIndex() {
+
+        List<Assertion> assertions = new ArrayList<>();
+        assertions.add(createAssertion("read", "coretech:*", "coretech:role.readers", AssertionEffect.ALLOW));
+        assertions.add(createAssertion("update", "coretech:*", "coretech:role.writers", AssertionEffect.ALLOW));
+
+        AccessPolicyIndex previousIndex = buildIndex(assertions);
+        assertNotNull(previousIndex);
+
+        // unmodified roles are reused while modified roles are processed again
+
+        List<Role> roles = createRoles();
+        roles.set(1, createRole("writers", "user.jane", "user.joe"));
+        AccessPolicyIndex index = AccessPolicyIndex.build("coretech", roles, createPolicies(assertions),
+                previousIndex);
+        assertNotNull(index);
+
+        assertSame(index.indexedRoles.get("coretech:role.readers"), previousIndex.indexedRoles.get("coretech:role.readers"));
+        assertNotSame(index.indexedRoles.get("coretech:role.writers"), previousIndex.indexedRoles.get("coretech:role.writers"));
+
+        assertTrue(index.evaluateAccess("user.joe", "update", "coretech:resource1", null, null,
+                MEMBER_MATCHER).isAllowed());
+        assertFalse(previousIndex.evaluateAccess("user.joe", "update", "coretech:resource1", null, null,
+                MEMBER_MATCHER).isAllowed());
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.util;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+public class IPPrefixTrieTest {
+
+    @Test
+    public void testEmptyTrie() {
+        IPPrefixTrie trie = new IPPrefixTrie();
+        assertTrue(trie.isEmpty());
+        assertEquals(trie.size(), 0);
+        assertFalse(trie.contains("10.1.1.1"));
+        assertFalse(trie.contains("2001:db8::1"));
+    }
+
+    @Test
+    public void testIPv4Blocks() {
+
+        IPPrefixTrie trie = new IPPrefixTrie();
+        trie.addPrefix("10.1.0.0/21");
+        trie.addPrefix("10.2.0.0/ 21");
+        trie.addPrefix("10.0.0.1/32");
+        trie.addPrefix("13.32.0.0/15");
+        assertEquals(trie.size(), 4);
+        assertFalse(trie.isEmpty());
+
+        assertTrue(trie.contains("10.1.0.0"));
+        assertTrue(trie.contains("10.1.7.255"));
+        assertFalse(trie.contains("10.1.8.0"));
+        assertTrue(trie.contains("10.2.3.25"));
+        assertTrue(trie.contains("10.0.0.1"));
+        assertFalse(trie.contains("10.0.0.2"));
+        assertTrue(trie.contains("13.33.255.255"));
+        assertFalse(trie.contains("13.34.0.0"));
+        assertFalse(trie.contains("192.168.1.1"));
+
+        // host bits in the subnet are ignored
+
+        trie.addPrefix("192.168.1.10/24");
+        assertTrue(trie.contains("192.168.1.1"));
+
+        // ipv6 addresses are not matched against ipv4 blocks
+        // except for ipv4-mapped addresses
+
+        assertFalse(trie.contains("2001:db8::1"));
+        assertTrue(trie.contains("::ffff:10.1.3.25"));
+    }
+
+    @Test
+    public void testIPv6Blocks() {
+
+        IPPrefixTrie trie = new IPPrefixTrie();
+        trie.addPrefix("2a05:d07f:8000::/40");
+        trie.addPrefix("2600:1f18:4000::/36");
+        trie.addPrefix("2001:db8::1/128");
+
+        assertTrue(trie.contains("2a05:d07f:8000::1"));
+        assertTrue(trie.contains("2a05:d07f:80ff:ffff::1"));
+        assertFalse(trie.contains("2a05:d07f:8100::1"));
+        assertTrue(trie.contains("2600:1f18:4fff::abcd"));
+        assertFalse(trie.contains("2600:1f18:5000::abcd"));
+        assertTrue(trie.contains("2001:db8::1"));
+        assertFalse(trie.contains("2001:db8::2"));
+        assertFalse(trie.contains("10.1.1.1"));
+    }
+
+    @Test
+    public void testOverlappingBlocks() {
+
+        // a shorter block added after the longer ones replaces them
+
+        IPPrefixTrie trie = new IPPrefixTrie();
+        trie.addPrefix("10.1.1.0/24");
+        trie.addPrefix("10.1.2.0/24");
+        trie.addPrefix("10.1.0.0/16");
+        assertTrue(trie.contains("10.1.200.1"));
+        assertTrue(trie.ipv4Root.terminal);
+        assertNull(trie.ipv4Root.children[0]);
+        assertNull(trie.ipv4Root.children[1]);
+
+        // longer blocks under an existing block are not stored
+
+        trie.addPrefix("10.1.5.0/24");
+        assertTrue(trie.ipv4Root.terminal);
+        assertNull(trie.ipv4Root.children[0]);
+        assertEquals(trie.size(), 4);
+
+        // a block matching an existing branch node converts it to a block
+
+        trie = new IPPrefixTrie();
+        trie.addPrefix("10.1.0.0/24");
+        trie.addPrefix("10.1.128.0/24");
+        assertFalse(trie.ipv4Root.terminal);
+        assertEquals(trie.ipv4Root.length, 16);
+        assertFalse(trie.contains("10.1.64.1"));
+        trie.addPrefix("10.1.0.0/16");
+        assertTrue(trie.ipv4Root.terminal);
+        assertTrue(trie.contains("10.1.64.1"));
+
+        // blocks below a branch node
+
+        trie = new IPPrefixTrie();
+        trie.addPrefix("10.1.0.0/24");
+        trie.addPrefix("10.1.128.0/24");
+        trie.addPrefix("10.1.192.0/24");
+        trie.addPrefix("10.1.1.0/24");
+        assertTrue(trie.contains("10.1.192.1"));
+        assertTrue(trie.contains("10.1.1.1"));
+        assertFalse(trie.contains("10.1.2.1"));
+        assertFalse(trie.contains("10.1.129.1"));
+    }
+
+    @Test
+    public void testInvalidBlocks() {
+
+        IPPrefixTrie trie = new IPPrefixTrie();
+        String[] invalidBlocks = { "10.1.0.0", "10.1.0.0/0", "10.1.0.0/33", "2001:db8::/129",
+                "172.300.10.2/32", "10.1.0.0/abc" };
+        for (String block : invalidBlocks) {
+            try {
+                trie.addPrefix(block);
+                fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        assertTrue(trie.isEmpty());
+
+        try {
+            trie.contains("invalid-ip");
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void testMatchesIPBlock() {
+
+        // verify the trie returns the same results as the linear
+        // ip block check for a random set of blocks and addresses
+
+        Random random = new Random(1234);
+        IPPrefixTrie trie = new IPPrefixTrie();
+        List<IPBlock> ipBlocks = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            final int maskLength = 8 + random.nextInt(25);
+            final long subnet = IPBlock.convertIPToLong((10 + random.nextInt(4)) + "." + random.nextInt(256)
+                    + "." + random.nextInt(256) + ".0") & IPBlock.convertMaskToLong(maskLength);
+            final String block = (subnet >> 24) + "." + ((subnet >> 16) & 0xFF) + "." + ((subnet >> 8) & 0xFF)
+                    + "." + (subnet & 0xFF) + "/" + maskLength;
+            trie.addPrefix(block);
+            ipBlocks.add(new IPBlock(block));
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            final String address = (10 + random.nextInt(4)) + "." + random.nextInt(256) + "."
+                    + random.nextInt(256) + "." + random.nextInt(256);
+            final long ipAddr = IPBlock.convertIPToLong(address);
+            boolean expected = ipBlocks.stream().anyMatch(ipBlock -> ipBlock.ipCheck(ipAddr));
+            assertEquals(trie.contains(address), expected, address);
+        }
+    }
+
+    @Test
+    public void testCommonPrefixLength() {
+        byte[] a = { 10, 1, 0, 0 };
+        byte[] b = { 10, 1, (byte) 0x80, 0 };
+        assertEquals(IPPrefixTrie.commonPrefixLength(a, b, 32), 16);
+        assertEquals(IPPrefixTrie.commonPrefixLength(a, b, 12), 12);
+        assertEquals(IPPrefixTrie.commonPrefixLength(a, a, 32), 32);
+        assertEquals(IPPrefixTrie.commonPrefixLength(a, a, 20), 20);
+    }
+}
@@ -30,6 +30,7 @@ import com.yahoo.athenz.common.server.log.AuditLogMsgBuilder;
 import com.yahoo.athenz.common.server.log.AuditLogger;
 import com.yahoo.athenz.common.server.ServerResourceException;
 import com.yahoo.athenz.common.server.store.*;
+import com.yahoo.athenz.common.server.util.AccessPolicyIndex;
 import com.yahoo.athenz.common.server.util.AuthzHelper;
 import com.yahoo.athenz.common.server.util.PrincipalUtils;
 import com.yahoo.athenz.common.server.util.ResourceUtils;
@@ -46,9 +47,12 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -67,6 +71,9 @@ public class DBService implements RolesProvider, DomainProvider {
     int retrySleepTime;
     int defaultRetryCount;
     int defaultOpTimeout;
+    boolean membershipWriteCoalescing;
+    int membershipWriteBatchSize;
+    final ConcurrentHashMap<String, MembershipWriteQueue> membershipWriteQueues = new ConcurrentHashMap<>();
     ZMSConfig zmsConfig;
     String monitorIdentity;
     private final int maxPolicyVersions;
@@ -96,6 +103,10 @@ public class DBService implements RolesProvider, DomainProvider {
 
     AuditReferenceValidator auditReferenceValidator;
     private final ScheduledExecutorService userAuthorityFilterExecutor;
+    private ScheduledExecutorService domainCacheExecutor;
+    long domainCacheMaxStaleness = 0;
+    long domainCachePollStart = 0;
+    volatile long domainCacheSyncTime = 0;
     protected DynamicConfigInteger purgeMembersMaxDbCallsPerRun;
     protected DynamicConfigInteger purgeMembersLimitPerCall;
     protected DynamicConfigInteger purgeMemberExpiryDays;
@@ -158,6 +169,17 @@ public class DBService implements RolesProvider, DomainProvider {
             retrySleepTime = 250;
         }
 
+        // check if concurrent role membership updates for the same
+        // domain should be combined into a single transaction
+
+        membershipWriteCoalescing = Boolean.parseBoolean(
+                System.getProperty(ZMSConsts.ZMS_PROP_MEMBERSHIP_WRITE_COALESCING, "false"));
+        membershipWriteBatchSize = Integer.parseInt(
+                System.getProperty(ZMSConsts.ZMS_PROP_MEMBERSHIP_WRITE_BATCH_SIZE, "100"));
+        if (membershipWriteBatchSize <= 0) {
+            membershipWriteBatchSize = 100;
+        }
+
         // check what objects we're going to enforce audit reference flag
 
         setAuditRefObjectBits();
@@ -166,12 +188,19 @@ public class DBService implements RolesProvider, DomainProvider {
         // create our quota checker class
 
         quotaCheck = new QuotaChecker();
+        if (Boolean.parseBoolean(System.getProperty(ZMSConsts.ZMS_PROP_QUOTA_CACHED_COUNT, "false"))) {
+            quotaCheck.setCachedDomainLookup(this::getCachedAthenzDomain);
+        }
 
         // start our thread to process user authority changes daily
 
         userAuthorityFilterExecutor = Executors.newScheduledThreadPool(1);
         userAuthorityFilterExecutor.scheduleAtFixedRate(new UserAuthorityFilterEnforcer(), 0, 1, TimeUnit.DAYS);
 
+        // start our thread to poll for modified domains if configured
+
+        initDomainCacheUpdater();
+
         maxPolicyVersions = Integer.parseInt(System.getProperty(ZMSConsts.ZMS_PROP_MAX_POLICY_VERSIONS,
                 ZMSConsts.ZMS_PROP_MAX_POLICY_VERSIONS_DEFAULT));
         purgeMembersMaxDbCallsPerRun = new DynamicConfigInteger(CONFIG_MANAGER,
@@ -201,6 +230,78 @@ public class DBService implements RolesProvider, DomainProvider {
         resourceUpdaterManager = new ResourceUpdaterManager();
     }
 
+    void initDomainCacheUpdater() {
+
+        // by default the domain cache poller is disabled, and we validate
+        // the cache entry against the domain modified timestamp in the
+        // db for every request. If enabled, the poller invalidates all
+        // updated domains in the cache, and we only validate the entries
+        // with the db if the last successful poll is older than the
+        // configured max staleness value
+
+        long pollInterval = Long.parseLong(System.getProperty(ZMSConsts.ZMS_PROP_DOMAIN_CACHE_POLL_INTERVAL, "0"));
+        if (pollInterval <= 0) {
+            return;
+        }
+
+        long maxStaleness = Long.parseLong(System.getProperty(ZMSConsts.ZMS_PROP_DOMAIN_CACHE_MAX_STALENESS, "60"));
+        if (maxStaleness < 2 * pollInterval) {
+            LOG.warn("Domain cache max staleness {} is less than twice the poll interval {}, resetting to {}",
+                    maxStaleness, pollInterval, 2 * pollInterval);
+            maxStaleness = 2 * pollInterval;
+        }
+
+        domainCacheMaxStaleness = TimeUnit.MILLISECONDS.convert(maxStaleness, TimeUnit.SECONDS);
+        domainCachePollStart = System.currentTimeMillis();
+
+        domainCacheExecutor = Executors.newScheduledThreadPool(1);
+        domainCacheExecutor.scheduleAtFixedRate(new DomainCacheUpdater(), pollInterval, pollInterval, TimeUnit.SECONDS);
+    }
+
+    boolean isDomainCacheSynced() {
+
+        // we can only rely on the poller if the last successful poll
+        // was completed within our configured max staleness window
+
+        final long syncTime = domainCacheSyncTime;
+        return syncTime != 0 && System.currentTimeMillis() - syncTime <= domainCacheMaxStaleness;
+    }
+
+    void updateDomainCache() throws ServerResourceException {
+
+        // we're going to include the max staleness window in our query
+        // to handle any updates that were committed after our last poll
+        // but with an earlier modified timestamp along with any replication
+        // delays since we're using the read-only connection. The poll
+        // start time is only recorded if we successfully process all
+        // the modified domains.
+
+        final long pollStart = System.currentTimeMillis();
+        final long lastPoll = (domainCacheSyncTime == 0) ? domainCachePollStart : domainCacheSyncTime;
+
+        DomainMetaList domainList;
+        try (ObjectStoreConnection con = store.getConnection(true, false)) {
+            domainList = con.listModifiedDomains(lastPoll - domainCacheMaxStaleness);
+        }
+
+        if (domainList != null && domainList.getDomains() != null) {
+            for (Domain domain : domainList.getDomains()) {
+                final String domainName = domain.getName();
+                DataCache data = cacheStore.getIfPresent(domainName);
+                if (data != null && domain.getModified() != null
+                        && data.getModTime() < domain.getModified().millis()) {
+
+                    // only remove the entry we checked in case another
+                    // thread has already replaced it with updated data
+
+                    cacheStore.asMap().remove(domainName, data);
+                }
+            }
+        }
+
+        domainCacheSyncTime = pollStart;
+    }
+
     void setAuditRefObjectBits() {
 
         auditRefSet = new BitSet();
@@ -269,6 +370,8 @@ public class DBService implements RolesProvider, DomainProvider {
     static class DataCache {
         AthenzDomain athenzDomain;
         long modTime;
+        volatile boolean accessIndexBuilt = false;
+        volatile AccessPolicyIndex accessIndex;
 
         DataCache(AthenzDomain athenzDomain, long modTime) {
             this.athenzDomain = athenzDomain;
@@ -282,6 +385,36 @@ public class DBService implements RolesProvider, DomainProvider {
         long getModTime() {
             return modTime;
         }
+
+        AccessPolicyIndex getAccessIndex() {
+
+            // the index is built on first use and since the cache
+            // entry is replaced when the domain is updated, it
+            // always matches the domain object in this entry. if
+            // multiple threads build the index at the same time
+            // they generate the same result so there is no harm
+
+            if (!accessIndexBuilt) {
+                accessIndex = AccessPolicyIndex.build(athenzDomain.getName(), athenzDomain.getRoles(),
+                        athenzDomain.getPolicies());
+                accessIndexBuilt = true;
+            }
+            return accessIndex;
+        }
+    }
+
+    /**
+     * Return the access index for the given domain object if the object
+     * is the one currently stored in our cache
+     * @param athenzDomain domain object
+     * @return access index or null if not available
+     */
+    AccessPolicyIndex getDomainAccessIndex(AthenzDomain athenzDomain) {
+        DataCache data = cacheStore.getIfPresent(athenzDomain.getName());
+        if (data == null || data.getAthenzDomain() != athenzDomain) {
+            return null;
+        }
+        return data.getAccessIndex();
     }
 
     void rollbackChanges(ObjectStoreConnection con) {
@@ -292,6 +425,11 @@ public class DBService implements RolesProvider, DomainProvider {
         }
     }
     
+    AthenzDomain getCachedAthenzDomain(final String domainName) {
+        DataCache data = cacheStore.getIfPresent(domainName);
+        return (data == null) ? null : data.getAthenzDomain();
+    }
+
     AthenzDomain getAthenzDomainFromCache(ObjectStoreConnection con, String domainName) {
 
         DataCache data = cacheStore.getIfPresent(domainName);
@@ -299,6 +437,13 @@ public class DBService implements RolesProvider, DomainProvider {
             return null;
         }
 
+        // if the domain cache poller is keeping our cache up to date
+        // then there is no need to check the timestamp in the db
+
+        if (isDomainCacheSynced()) {
+            return data.getAthenzDomain();
+        }
+
         // if we have a match for a given domain name then we're going
         // to check if the last modified domain timestamp matches to what's
         // in the db: So if there is no match, then we'll take the hit
@@ -2164,57 +2309,287 @@ public class DBService implements RolesProvider, DomainProvider {
         return !StringUtil.isEmpty(role.getTrust());
     }
 
+    static class MembershipWriteQueue {
+        final ConcurrentLinkedQueue<PutMembershipRequest> requests = new ConcurrentLinkedQueue<>();
+        final ReentrantLock lock = new ReentrantLock();
+    }
+
+    static class PutMembershipRequest {
+
+        final ResourceContext ctx;
+        final String domainName;
+        final String roleName;
+        final RoleMember roleMember;
+        final String auditRef;
+        final String caller;
+        final Boolean returnObj;
+
+        // the result fields are only updated and read
+        // while holding the domain write queue lock
+
+        boolean completed = false;
+        Membership membership;
+        RuntimeException exception;
+
+        PutMembershipRequest(ResourceContext ctx, String domainName, String roleName, RoleMember roleMember,
+                String auditRef, String caller, Boolean returnObj) {
+            this.ctx = ctx;
+            this.domainName = domainName;
+            this.roleName = roleName;
+            this.roleMember = roleMember;
+            this.auditRef = auditRef;
+            this.caller = caller;
+            this.returnObj = returnObj;
+        }
+    }
+
     Membership executePutMembership(ResourceContext ctx, String domainName, String roleName,
             RoleMember roleMember, String auditRef, String caller, Boolean returnObj) {
 
+        if (!membershipWriteCoalescing) {
+            return processPutMembership(ctx, domainName, roleName, roleMember, auditRef, caller, returnObj);
+        }
+
+        // we're going to add our request to the domain write queue and
+        // the thread that acquires the queue lock processes all the
+        // pending requests in a single transaction. by the time we get
+        // the lock our request might have been already processed by
+        // another thread in which case we just return its result
+
+        PutMembershipRequest request = new PutMembershipRequest(ctx, domainName, roleName, roleMember,
+                auditRef, caller, returnObj);
+        MembershipWriteQueue writeQueue = membershipWriteQueues.computeIfAbsent(domainName,
+                key -> new MembershipWriteQueue());
+        writeQueue.requests.add(request);
+
+        writeQueue.lock.lock();
+        try {
+            while (!request.completed) {
+                List<PutMembershipRequest> batch = new ArrayList<>();
+                PutMembershipRequest pendingRequest;
+                while (batch.size() < membershipWriteBatchSize
+                        && (pendingRequest = writeQueue.requests.poll()) != null) {
+                    batch.add(pendingRequest);
+                }
+                processPutMembershipBatch(domainName, batch);
+            }
+
+            // if there are no other pending requests we can remove the
+            // queue. any thread that has already added its request to
+            // this queue will process it once it acquires the lock
+
+            if (writeQueue.requests.isEmpty()) {
+                membershipWriteQueues.remove(domainName, writeQueue);
+            }
+        } finally {
+            writeQueue.lock.unlock();
+        }
+
+        if (request.exception != null) {
+            throw request.exception;
+        }
+        return request.membership;
+    }
+
+    void processPutMembershipBatch(final String domainName, List<PutMembershipRequest> batch) {
+
+        // with a single request there is nothing to combine so
+        // we'll process it as a standard auto-commit operation
+
+        if (batch.size() == 1) {
+            PutMembershipRequest request = batch.get(0);
+            try {
+                request.membership = processPutMembership(request.ctx, request.domainName, request.roleName,
+                        request.roleMember, request.auditRef, request.caller, request.returnObj);
+            } catch (RuntimeException ex) {
+                request.exception = ex;
+            }
+            request.completed = true;
+            return;
+        }
+
         // our exception handling code does the check for retry count
-        // and throws the exception it had received when the retry
-        // count reaches 0
+        // and fails all the pending requests with the exception it had
+        // received when the retry count reaches 0
 
+        List<PutMembershipRequest> pendingRequests = new ArrayList<>(batch);
         for (int retryCount = defaultRetryCount; ; retryCount--) {
 
-            try (ObjectStoreConnection con = store.getConnection(true, true)) {
+            try (ObjectStoreConnection con = store.getConnection(false, true)) {
+                try {
 
-                final String principal = getPrincipalName(ctx);
+                    // insert all the members within our transaction. any request
+                    // that fails its checks is rejected without affecting others
+
+                    List<PutMembershipRequest> insertedRequests = new ArrayList<>();
+                    PutMembershipRequest failedRequest = null;
+                    ServerResourceException failedException = null;
+                    for (PutMembershipRequest request : pendingRequests) {
+                        request.exception = null;
+                        try {
+                            insertRoleMembership(con, getPrincipalName(request.ctx), request.domainName,
+                                    request.roleName, request.roleMember, request.auditRef, request.caller);
+                            insertedRequests.add(request);
+                        } catch (ResourceException ex) {
+                            request.exception = ex;
+                        } catch (ServerResourceException ex) {
+                            if (isTransactionRetryError(ex)) {
+                                throw ex;
+                            }
+                            failedRequest = request;
+                            failedException = ex;
+                            break;
+                        }
+                    }
 
-                // first verify that auditing requirements are met
+                    // if the object store rejected one of the requests (e.g. the
+                    // member's domain does not exist) we cannot rely on the state
+                    // of our transaction, so we'll roll back our changes and
+                    // process the remaining requests without the failed one
 
-                checkDomainAuditEnabled(con, domainName, auditRef, caller, principal, AUDIT_TYPE_ROLE);
+                    if (failedRequest != null) {
+                        rollbackChanges(con);
+                        failedRequest.exception = ZMSUtils.error(failedException);
+                        failedRequest.completed = true;
+                        pendingRequests.remove(failedRequest);
+                        retryCount++;
+                        continue;
+                    }
 
-                // make sure the role auditing requirements are met
+                    if (insertedRequests.isEmpty()) {
+                        rollbackChanges(con);
+                    } else {
 
-                Role originalRole = con.getRole(domainName, roleName);
-                if (originalRole == null) {
-                    rollbackChanges(con);
-                    throw ZMSUtils.notFoundError(caller + ": Unknown role: " + roleName, caller);
-                }
+                        // update our role time-stamps once per role and then commit
+                        // our changes with a single domain time-stamp update
 
-                checkObjectAuditEnabled(con, originalRole.getAuditEnabled(), originalRole.getName(),
-                        auditRef, caller, principal);
+                        Set<String> roleNames = new HashSet<>();
+                        for (PutMembershipRequest request : insertedRequests) {
+                            if (roleNames.add(request.roleName)) {
+                                con.updateRoleModTimestamp(domainName, request.roleName);
+                            }
+                        }
+                        saveChanges(con, domainName);
 
-                // before inserting a member we need to verify that
-                // this is a group role and not a delegated one.
+                        // audit log each request and generate a single domain
+                        // change event for each role that was updated
+
+                        roleNames.clear();
+                        for (PutMembershipRequest request : insertedRequests) {
+
+                            StringBuilder auditDetails = new StringBuilder(ZMSConsts.STRING_BLDR_SIZE_DEFAULT);
+                            auditLogRoleMember(auditDetails, request.roleMember, true);
+                            auditLogRequest(request.ctx, domainName, request.auditRef, request.caller,
+                                    ZMSConsts.HTTP_PUT, request.roleName, auditDetails.toString());
+
+                            if (roleNames.add(request.roleName)) {
+                                addDomainChangeMessage(request.ctx, domainName, request.roleName,
+                                        DomainChangeMessage.ObjectType.ROLE);
+                            }
+
+                            request.membership = request.returnObj == Boolean.TRUE ? con.getRoleMember(domainName,
+                                    request.roleName, request.roleMember.getMemberName(), 0,
+                                    request.roleMember.getApproved() == Boolean.FALSE) : null;
+                        }
+                    }
+
+                    for (PutMembershipRequest request : pendingRequests) {
+                        request.completed = true;
+                    }
+                    return;
+
+                } catch (ServerResourceException ex) {
+
+                    // since we are using a transaction, roll back any changes
+                    // before we retry the operation or return our failure
 
-                if (isTrustRole(originalRole)) {
                     rollbackChanges(con);
-                    throw ZMSUtils.requestError(caller + ": " + roleName +
-                            " is a delegated role", caller);
+                    throw ex;
                 }
+            } catch (ServerResourceException ex) {
+                if (!shouldRetryOperation(ex, retryCount)) {
+                    RuntimeException batchException = ZMSUtils.error(ex);
+                    for (PutMembershipRequest request : pendingRequests) {
+                        request.exception = batchException;
+                        request.completed = true;
+                    }
+                    return;
+                }
+            }
+        }
+    }
 
-                // now we need verify our quota check
+    boolean isTransactionRetryError(ServerResourceException ex) {
 
-                quotaCheck.checkRoleMembershipQuota(con, domainName, roleName, roleMember.getMemberName(),
-                        originalRole.getMaxMembers(), caller);
+        // conflict (e.g. deadlock) and gone (read-only fail-over) errors
+        // are not specific to a single request and are handled by our
+        // retry logic for the full transaction
 
-                // process our insert role member support. since this is a "single"
-                // operation, we are not using any transactions.
+        return ex.getCode() == ServerResourceException.CONFLICT || ex.getCode() == ServerResourceException.GONE;
+    }
 
-                roleMember.setPendingState(roleMember.getApproved() == Boolean.FALSE ? ZMSConsts.PENDING_REQUEST_ADD_STATE : null);
-                roleMember.setRequestPrincipal(principal);
-                if (!con.insertRoleMember(domainName, roleName, roleMember, principal, auditRef)) {
+    void insertRoleMembership(ObjectStoreConnection con, final String principal, final String domainName,
+            final String roleName, RoleMember roleMember, final String auditRef, final String caller)
+            throws ServerResourceException {
+
+        // first verify that auditing requirements are met
+
+        checkDomainAuditEnabled(con, domainName, auditRef, caller, principal, AUDIT_TYPE_ROLE);
+
+        // make sure the role auditing requirements are met
+
+        Role originalRole = con.getRole(domainName, roleName);
+        if (originalRole == null) {
+            throw ZMSUtils.notFoundError(caller + ": Unknown role: " + roleName, caller);
+        }
+
+        checkObjectAuditEnabled(con, originalRole.getAuditEnabled(), originalRole.getName(),
+                auditRef, caller, principal);
+
+        // before inserting a member we need to verify that
+        // this is a group role and not a delegated one.
+
+        if (isTrustRole(originalRole)) {
+            throw ZMSUtils.requestError(caller + ": " + roleName +
+                    " is a delegated role", caller);
+        }
+
+        // now we need verify our quota check
+
+        quotaCheck.checkRoleMembershipQuota(con, domainName, roleName, roleMember.getMemberName(),
+                originalRole.getMaxMembers(), caller);
+
+        // process our insert role member support
+
+        roleMember.setPendingState(roleMember.getApproved() == Boolean.FALSE ? ZMSConsts.PENDING_REQUEST_ADD_STATE : null);
+        roleMember.setRequestPrincipal(principal);
+        if (!con.insertRoleMember(domainName, roleName, roleMember, principal, auditRef)) {
+            throw ZMSUtils.requestError(caller + ": unable to insert role member: " +
+                    roleMember.getMemberName() + " to role: " + roleName, caller);
+        }
+    }
+
+    Membership processPutMembership(ResourceContext ctx, String domainName, String roleName,
+            RoleMember roleMember, String auditRef, String caller, Boolean returnObj) {
+
+        // our exception handling code does the check for retry count
+        // and throws the exception it had received when the retry
+        // count reaches 0
+
+        for (int retryCount = defaultRetryCount; ; retryCount--) {
+
+            try (ObjectStoreConnection con = store.getConnection(true, true)) {
+
+                final String principal = getPrincipalName(ctx);
+
+                // verify the request and insert the role member. since this
+                // is a "single" operation, we are not using any transactions.
+
+                try {
+                    insertRoleMembership(con, principal, domainName, roleName, roleMember, auditRef, caller);
+                } catch (ResourceException ex) {
                     rollbackChanges(con);
-                    throw ZMSUtils.requestError(caller + ": unable to insert role member: " +
-                            roleMember.getMemberName() + " to role: " + roleName, caller);
+                    throw ex;
                 }
 
                 // update our role and domain time-stamps, and invalidate local cache entry
@@ -6425,6 +6800,49 @@ public class DBService implements RolesProvider, DomainProvider {
         return athenzDomain;
     }
 
+    Map<String, AthenzDomain> getAthenzDomains(List<Domain> domains, boolean masterCopy) {
+
+        // the caller has just retrieved the list of domains along with
+        // their modified timestamps from the store, so there is no need
+        // to verify the timestamps again for the domains in our cache
+
+        Map<String, AthenzDomain> athenzDomains = new HashMap<>();
+        List<String> domainNames = new ArrayList<>();
+        for (Domain domain : domains) {
+            final String domainName = domain.getName();
+            DataCache data = cacheStore.getIfPresent(domainName);
+            if (data != null && data.getModTime() >= domain.getModified().millis()) {
+                athenzDomains.put(domainName, data.getAthenzDomain());
+            } else {
+                domainNames.add(domainName);
+            }
+        }
+
+        if (domainNames.isEmpty()) {
+            return athenzDomains;
+        }
+
+        // retrieve the remaining domains from the store with a single
+        // call and update our cache
+
+        try (ObjectStoreConnection con = store.getConnection(true, masterCopy)) {
+            for (AthenzDomain athenzDomain : con.getAthenzDomains(domainNames).values()) {
+                athenzDomain.setRoleMemberPrincipalTypes(zmsConfig.getUserDomainPrefix(),
+                        zmsConfig.getAddlUserCheckDomainPrefixList(), zmsConfig.getHeadlessUserDomainPrefix());
+
+                DataCache dataCache = new DataCache(athenzDomain,
+                        athenzDomain.getDomain().getModified().millis());
+                cacheStore.put(athenzDomain.getName(), dataCache);
+
+                athenzDomains.put(athenzDomain.getName(), athenzDomain);
+            }
+        } catch (ServerResourceException ex) {
+            throw ZMSUtils.error(ex);
+        }
+
+        return athenzDomains;
+    }
+
     DomainMetaList listModifiedDomains(long modifiedSince, boolean readWrite) {
 
         // since this is the operation executed by ZTS servers to
@@ -10370,4 +10788,21 @@ public class DBService implements RolesProvider, DomainProvider {
             LOG.info("UserAuthorityFilterEnforcer: Completed user authority filter enforcer thread");
         }
     }
+
+    class DomainCacheUpdater implements Runnable {
+
+        @Override
+        public void run() {
+
+            LOG.debug("DomainCacheUpdater: Starting domain cache updater thread...");
+
+            try {
+                updateDomainCache();
+            } catch (Throwable t) {
+                LOG.error("DomainCacheUpdater: unable to update domain cache: {}", t.getMessage());
+            }
+
+            LOG.debug("DomainCacheUpdater: Completed domain cache updater thread");
+        }
+    }
 }
@@ -16,17 +16,35 @@
 package com.yahoo.athenz.zms;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 import com.yahoo.athenz.common.server.ServerResourceException;
+import com.yahoo.athenz.common.server.store.AthenzDomain;
 import com.yahoo.athenz.common.server.store.ObjectStoreConnection;
+import com.yahoo.athenz.common.server.util.ResourceUtils;
 import com.yahoo.athenz.zms.utils.ZMSUtils;
 import com.yahoo.rdl.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 class QuotaChecker {
 
+    private static final Logger LOG = LoggerFactory.getLogger(QuotaChecker.class);
+
+    interface ObjectCounter {
+        int count() throws ServerResourceException;
+    }
+
     private final Quota defaultQuota;
     private boolean quotaCheckEnabled;
     int assertionConditionsQuota = Integer.parseInt(System.getProperty(ZMSConsts.ZMS_PROP_QUOTA_ASSERTION_CONDITIONS, "10"));
+    int cachedCountThreshold = Integer.parseInt(System.getProperty(ZMSConsts.ZMS_PROP_QUOTA_CACHED_COUNT_THRESHOLD, "80"));
+    boolean cachedCountVerify = Boolean.parseBoolean(System.getProperty(ZMSConsts.ZMS_PROP_QUOTA_CACHED_COUNT_VERIFY, "false"));
+    Function<String, AthenzDomain> cachedDomainLookup;
+    final AtomicLong cachedCountHits = new AtomicLong();
+    final AtomicLong cachedCountMismatches = new AtomicLong();
 
     public QuotaChecker() {
         
@@ -66,6 +84,118 @@ class QuotaChecker {
         this.quotaCheckEnabled = quotaCheckEnabled;
     }
 
+    /**
+     * Set the lookup function for the cached domain objects. When set,
+     * the object counts are calculated from the cached domain and the
+     * count queries are only executed if the connection has an open
+     * transaction, the domain is not cached, the object is not found in
+     * the cached domain, or the cached count is above the configured
+     * percentage of the limit.
+     * @param cachedDomainLookup function returning the cached domain or null
+     */
+    void setCachedDomainLookup(Function<String, AthenzDomain> cachedDomainLookup) {
+        this.cachedDomainLookup = cachedDomainLookup;
+    }
+
+    long getCachedCountHits() {
+        return cachedCountHits.get();
+    }
+
+    long getCachedCountMismatches() {
+        return cachedCountMismatches.get();
+    }
+
+    int getObjectCount(ObjectStoreConnection con, final String domainName, int limit,
+            ToIntFunction<AthenzDomain> cachedCounter, ObjectCounter dbCounter) throws ServerResourceException {
+
+        // the cached domain does not include any changes made in an open
+        // transaction (e.g. multiple members or roles added in the same
+        // transaction) so in that case we always count in the object store
+
+        if (cachedDomainLookup == null || con.isTransactionActive()) {
+            return dbCounter.count();
+        }
+
+        // the cached counter returns -1 if the object is not found in
+        // the cached domain, and we only use the cached count if we have
+        // enough room left so that any changes not yet reflected in our
+        // cache (e.g. processed by other servers) would not matter
+
+        final AthenzDomain athenzDomain = cachedDomainLookup.apply(domainName);
+        if (athenzDomain == null) {
+            return dbCounter.count();
+        }
+
+        final int cachedCount = cachedCounter.applyAsInt(athenzDomain);
+        if (cachedCount < 0 || (long) (cachedCount + 1) * 100 > (long) limit * cachedCountThreshold) {
+            return dbCounter.count();
+        }
+
+        // in verification mode we always use the count from the
+        // object store and report any differences
+
+        if (cachedCountVerify) {
+            final int objectCount = dbCounter.count();
+            if (objectCount != cachedCount) {
+                cachedCountMismatches.incrementAndGet();
+                LOG.error("Cached object count mismatch in domain {}: cached count {} actual count {}",
+                        domainName, cachedCount, objectCount);
+            }
+            return objectCount;
+        }
+
+        cachedCountHits.incrementAndGet();
+        return cachedCount;
+    }
+
+    static int getCachedRoleMemberCount(AthenzDomain athenzDomain, final String domainName, final String roleName) {
+        final String resourceName = ResourceUtils.roleResourceName(domainName, roleName);
+        for (Role role : athenzDomain.getRoles()) {
+            if (resourceName.equals(role.getName())) {
+                return (role.getRoleMembers() == null) ? 0 : role.getRoleMembers().size();
+            }
+        }
+        return -1;
+    }
+
+    static int getCachedGroupMemberCount(AthenzDomain athenzDomain, final String domainName, final String groupName) {
+        final String resourceName = ResourceUtils.groupResourceName(domainName, groupName);
+        for (Group group : athenzDomain.getGroups()) {
+            if (resourceName.equals(group.getName())) {
+                return (group.getGroupMembers() == null) ? 0 : group.getGroupMembers().size();
+            }
+        }
+        return -1;
+    }
+
+    static int getCachedAssertionCount(AthenzDomain athenzDomain, final String domainName,
+            final String policyName, final String version) {
+
+        // if the version is not specified then we're looking
+        // for the active version of the policy
+
+        final String resourceName = ResourceUtils.policyResourceName(domainName, policyName);
+        for (Policy policy : athenzDomain.getPolicies()) {
+            if (!resourceName.equals(policy.getName())) {
+                continue;
+            }
+            if (version == null ? policy.getActive() != Boolean.FALSE : version.equals(policy.getVersion())) {
+                return (policy.getAssertions() == null) ? 0 : policy.getAssertions().size();
+            }
+        }
+        return -1;
+    }
+
+    static int getCachedPublicKeyCount(AthenzDomain athenzDomain, final String domainName, final String serviceName) {
+        final String resourceName = ResourceUtils.serviceResourceName(domainName, serviceName);
+        for (ServiceIdentity service : athenzDomain.getServices()) {
+            if (resourceName.equals(service.getName())) {
+                return (service.getPublicKeys() == null) ? 0 : service.getPublicKeys().size();
+            }
+        }
+        return -1;
+    }
+
     int getListSize(List<?> list) {
         return (list == null) ? 0 : list.size();
     }
@@ -143,7 +273,8 @@ class QuotaChecker {
         // now we're going to check if we'll be allowed
         // to create this role in the domain
         
-        objectCount = con.countRoles(domainName) + 1;
+        objectCount = getObjectCount(con, domainName, quota.getRole(), athenzDomain -> athenzDomain.getRoles().size(),
+                () -> con.countRoles(domainName)) + 1;
         if (quota.getRole() < objectCount) {
             throw ZMSUtils.quotaLimitError("role quota exceeded - limit: "
                     + quota.getRole() + " actual: " + objectCount, caller);
@@ -188,7 +319,8 @@ class QuotaChecker {
         // now we're going to check if we'll be allowed
         // to create this group in the domain
 
-        objectCount = con.countGroups(domainName) + 1;
+        objectCount = getObjectCount(con, domainName, quota.getGroup(), athenzDomain -> athenzDomain.getGroups().size(),
+                () -> con.countGroups(domainName)) + 1;
         if (quota.getGroup() < objectCount) {
             throw ZMSUtils.quotaLimitError("group quota exceeded - limit: "
                     + quota.getGroup() + " actual: " + objectCount, caller);
@@ -216,9 +348,15 @@ class QuotaChecker {
         }
 
         // so at this point we know that we'll be adding a new member to the
-        // role. so first let's count the number of role members
+        // role. so first let's retrieve the domain quota and count the
+        // number of role members
 
-        int roleMemberCount = con.countRoleMembers(domainName, roleName);
+        final Quota quota = getDomainQuota(con, domainName);
+        final int limit = (maxMembers != null && maxMembers > 0) ? Math.min(maxMembers, quota.getRoleMember())
+                : quota.getRoleMember();
+        int roleMemberCount = getObjectCount(con, domainName, limit,
+                athenzDomain -> getCachedRoleMemberCount(athenzDomain, domainName, roleName),
+                () -> con.countRoleMembers(domainName, roleName));
 
         // first, let's verify the max member limit if it is set
 
@@ -227,10 +365,6 @@ class QuotaChecker {
                     + maxMembers + " actual: " + roleMemberCount, caller);
         }
 
-        // next, let's retrieve the domain quota
-        
-        final Quota quota = getDomainQuota(con, domainName);
-        
         // now check to make sure we can add 1 more member
         // to this role without exceeding the quota
         
@@ -261,9 +395,15 @@ class QuotaChecker {
         }
 
         // so at this point we know that we'll be adding a new member to the
-        // group. so first let's count the number of group members
+        // group. so first let's retrieve the domain quota and count the
+        // number of group members
 
-        int groupMemberCount = con.countGroupMembers(domainName, groupName);
+        final Quota quota = getDomainQuota(con, domainName);
+        final int limit = (maxMembers != null && maxMembers > 0) ? Math.min(maxMembers, quota.getGroupMember())
+                : quota.getGroupMember();
+        int groupMemberCount = getObjectCount(con, domainName, limit,
+                athenzDomain -> getCachedGroupMemberCount(athenzDomain, domainName, groupName),
+                () -> con.countGroupMembers(domainName, groupName));
 
         // first, let's verify the max member limit if it is set
 
@@ -272,10 +412,6 @@ class QuotaChecker {
                     + maxMembers + " actual: " + groupMemberCount, caller);
         }
 
-        // next, let's retrieve the domain quota
-
-        final Quota quota = getDomainQuota(con, domainName);
-
         // now check to make sure we can add 1 more member
         // to this group without exceeding the quota
 
@@ -315,7 +451,8 @@ class QuotaChecker {
         // now we're going to check if we'll be allowed
         // to create this policy in the domain
         
-        objectCount = con.countPolicies(domainName) + 1;
+        objectCount = getObjectCount(con, domainName, quota.getPolicy(), athenzDomain -> athenzDomain.getPolicies().size(),
+                () -> con.countPolicies(domainName)) + 1;
         if (quota.getPolicy() < objectCount) {
             throw ZMSUtils.quotaLimitError("policy quota exceeded - limit: "
                     + quota.getPolicy() + " actual: " + objectCount, caller);
@@ -338,7 +475,9 @@ class QuotaChecker {
         // now check to make sure we can add 1 more assertion
         // to this policy without exceeding the quota
         
-        int objectCount = con.countAssertions(domainName, policyName, version) + 1;
+        int objectCount = getObjectCount(con, domainName, quota.getAssertion(),
+                athenzDomain -> getCachedAssertionCount(athenzDomain, domainName, policyName, version),
+                () -> con.countAssertions(domainName, policyName, version)) + 1;
         if (quota.getAssertion() < objectCount) {
             throw ZMSUtils.quotaLimitError("policy assertion quota exceeded - limit: "
                     + quota.getAssertion() + " actual: " + objectCount, caller);
@@ -382,7 +521,8 @@ class QuotaChecker {
         // now we're going to check if we'll be allowed
         // to create this service in the domain
         
-        objectCount = con.countServiceIdentities(domainName) + 1;
+        objectCount = getObjectCount(con, domainName, quota.getService(), athenzDomain -> athenzDomain.getServices().size(),
+                () -> con.countServiceIdentities(domainName)) + 1;
         if (quota.getService() < objectCount) {
             throw ZMSUtils.quotaLimitError("service quota exceeded - limit: "
                     + quota.getService() + " actual: " + objectCount, caller);
@@ -405,7 +545,9 @@ class QuotaChecker {
         // now check to make sure we can add 1 more public key
         // to this policy without exceeding the quota
         
-        int objectCount = con.countPublicKeys(domainName, serviceName) + 1;
+        int objectCount = getObjectCount(con, domainName, quota.getPublicKey(),
+                athenzDomain -> getCachedPublicKeyCount(athenzDomain, domainName, serviceName),
+                () -> con.countPublicKeys(domainName, serviceName)) + 1;
         if (quota.getPublicKey() < objectCount) {
             throw ZMSUtils.quotaLimitError("service public key quota exceeded - limit: "
                     + quota.getPublicKey() + " actual: " + objectCount, caller);
@@ -434,7 +576,8 @@ class QuotaChecker {
         // we're going to check if we'll be allowed
         // to create this entity in the domain
         
-        int objectCount = con.countEntities(domainName) + 1;
+        int objectCount = getObjectCount(con, domainName, quota.getEntity(), athenzDomain -> athenzDomain.getEntities().size(),
+                () -> con.countEntities(domainName)) + 1;
         if (quota.getEntity() < objectCount) {
             throw ZMSUtils.quotaLimitError("entity quota exceeded - limit: "
                     + quota.getEntity() + " actual: " + objectCount, caller);
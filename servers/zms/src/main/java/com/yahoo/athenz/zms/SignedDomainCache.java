@@ -0,0 +1,137 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zms;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.yahoo.athenz.common.metrics.Metric;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Cache of the signed domain objects returned by the getSignedDomains
+ * and getJWSDomain apis. All ZTS servers retrieve the same set of modified
+ * domains so instead of reading and signing the domain for every request
+ * we keep the generated objects in memory. Each entry keeps the domain
+ * modified timestamp and the key id it was signed with and it's only
+ * returned if both values match the current ones, so any domain update
+ * automatically invalidates the entry.
+ */
+class SignedDomainCache {
+
+    static final String METRIC_CACHE_HIT  = "signed_domain_cache_hit";
+    static final String METRIC_CACHE_MISS = "signed_domain_cache_miss";
+
+    private final Cache<String, SignedDomainEntry> domainCache;
+    private final Metric metric;
+
+    static class SignedDomainEntry {
+
+        final long modified;
+        final String keyId;
+        final Object signedDomain;
+
+        SignedDomainEntry(long modified, String keyId, Object signedDomain) {
+            this.modified = modified;
+            this.keyId = keyId;
+            this.signedDomain = signedDomain;
+        }
+    }
+
+    SignedDomainCache(long maxEntries, long timeoutSeconds, Metric metric) {
+        this.metric = metric;
+        domainCache = CacheBuilder.newBuilder().concurrencyLevel(25)
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(timeoutSeconds))
+                .build();
+    }
+
+    /**
+     * Generate the cache key for the signed domain object
+     * @param domainName name of the domain
+     * @param includeConditions include assertion conditions flag
+     * @return cache key
+     */
+    static String signedDomainKey(final String domainName, boolean includeConditions) {
+        return "sd:" + domainName + ":" + (includeConditions ? '1' : '0');
+    }
+
+    /**
+     * Generate the cache key for the jws domain object
+     * @param domainName name of the domain
+     * @param signatureP1363Format p1363 signature format flag
+     * @param allowedServiceCreds include service credentials flag
+     * @return cache key
+     */
+    static String jwsDomainKey(final String domainName, boolean signatureP1363Format, boolean allowedServiceCreds) {
+        return "jws:" + domainName + ":" + (signatureP1363Format ? '1' : '0') + (allowedServiceCreds ? '1' : '0');
+    }
+
+    /**
+     * Return the cached signed object for the given key
+     * @param key cache key generated with signedDomainKey or jwsDomainKey
+     * @param modified domain modified timestamp in millis
+     * @param keyId id of the server key used to sign the object
+     * @return signed object or null if not present in the cache or the entry is stale
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(final String key, long modified, final String keyId) {
+
+        SignedDomainEntry entry = domainCache.getIfPresent(key);
+        if (entry == null || entry.modified != modified || !Objects.equals(entry.keyId, keyId)) {
+            metric.increment(METRIC_CACHE_MISS);
+            return null;
+        }
+
+        metric.increment(METRIC_CACHE_HIT);
+        return (T) entry.signedDomain;
+    }
+
+    /**
+     * Check if the cache has a valid signed object for the given key
+     * without updating the cache metrics
+     * @param key cache key generated with signedDomainKey or jwsDomainKey
+     * @param modified domain modified timestamp in millis
+     * @param keyId id of the server key used to sign the object
+     * @return true if the cache has a valid entry
+     */
+    boolean contains(final String key, long modified, final String keyId) {
+        SignedDomainEntry entry = domainCache.getIfPresent(key);
+        return entry != null && entry.modified == modified && Objects.equals(entry.keyId, keyId);
+    }
+
+    /**
+     * Add the signed object to the cache. The caller must make sure the
+     * object was generated from the domain data with the given modified
+     * timestamp otherwise we might return stale data until the next update.
+     * @param key cache key generated with signedDomainKey or jwsDomainKey
+     * @param modified domain modified timestamp in millis
+     * @param keyId id of the server key used to sign the object
+     * @param signedDomain signed object
+     */
+    void put(final String key, long modified, final String keyId, Object signedDomain) {
+        domainCache.put(key, new SignedDomainEntry(modified, keyId, signedDomain));
+    }
+
+    /**
+     * Return the number of entries in the cache
+     * @return number of entries
+     */
+    long size() {
+        return domainCache.size();
+    }
+}
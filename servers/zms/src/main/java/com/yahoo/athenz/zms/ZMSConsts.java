@@ -48,6 +48,8 @@ public final class ZMSConsts {
     public static final String ZMS_PROP_SERVER_REGION        = "athenz.zms.server_region";
     public static final String ZMS_PROP_CONFLICT_RETRY_COUNT      = "athenz.zms.request_conflict_retry_count";
     public static final String ZMS_PROP_CONFLICT_RETRY_SLEEP_TIME = "athenz.zms.request_conflict_retry_sleep_time";
+    public static final String ZMS_PROP_MEMBERSHIP_WRITE_COALESCING = "athenz.zms.membership_write_coalescing";
+    public static final String ZMS_PROP_MEMBERSHIP_WRITE_BATCH_SIZE = "athenz.zms.membership_write_batch_size";
     public static final String ZMS_PROP_JDBC_RW_STORE           = "athenz.zms.jdbc_store";
     public static final String ZMS_PROP_JDBC_RW_USER            = "athenz.zms.jdbc_user";
     public static final String ZMS_PROP_JDBC_RW_PASSWORD        = "athenz.zms.jdbc_password";
@@ -92,6 +94,12 @@ public final class ZMSConsts {
 
     public static final String ZMS_PROP_VALIDATE_SERVICE_MEMBERS_SKIP_DOMAINS = "athenz.zms.validate_service_members_skip_domains";
     public static final String ZMS_PROP_MASTER_COPY_FOR_SIGNED_DOMAINS        = "athenz.zms.master_copy_for_signed_domains";
+    public static final String ZMS_PROP_SIGNED_DOMAIN_CACHE_SIZE             = "athenz.zms.signed_domain_cache_size";
+    public static final String ZMS_PROP_SIGNED_DOMAIN_CACHE_TIMEOUT          = "athenz.zms.signed_domain_cache_timeout";
+    public static final String ZMS_PROP_CACHE_METRICS_INTERVAL               = "athenz.zms.cache_metrics_interval";
+    public static final String ZMS_PROP_SIGNED_DOMAINS_BATCH_SIZE           = "athenz.zms.signed_domains_batch_size";
+    public static final String ZMS_PROP_DOMAIN_CACHE_POLL_INTERVAL          = "athenz.zms.domain_cache_poll_interval";
+    public static final String ZMS_PROP_DOMAIN_CACHE_MAX_STALENESS          = "athenz.zms.domain_cache_max_staleness";
     public static final String ZMS_PROP_ALLOW_UNDERSCORE_IN_SERVICE_NAMES     = "athenz.zms.allow_underscore_in_service_names";
     public static final String ZMS_PROP_DOMAIN_DELETE_META_ATTRIBUTES         = "athenz.zms.domain_delete_meta_attributes";
     public static final String ZMS_PROP_DISALLOW_GROUPS_IN_ADMIN_ROLE         = "athenz.zms.disallow_groups_in_admin_role";
@@ -264,6 +272,9 @@ public final class ZMSConsts {
     public static final String ZMS_PROP_DB_HEALTH_CHECK_DISABLE_TIMER = "athenz.zms.disable_db_health_check_timer_task";
 
     public static final String ZMS_PROP_QUOTA_ASSERTION_CONDITIONS = "athenz.zms.quota_assertion_conditions";
+    public static final String ZMS_PROP_QUOTA_CACHED_COUNT = "athenz.zms.quota_cached_count";
+    public static final String ZMS_PROP_QUOTA_CACHED_COUNT_THRESHOLD = "athenz.zms.quota_cached_count_threshold";
+    public static final String ZMS_PROP_QUOTA_CACHED_COUNT_VERIFY = "athenz.zms.quota_cached_count_verify";
 
     public static final String ZMS_PROP_MAX_POLICY_VERSIONS_DEFAULT = "3";
     
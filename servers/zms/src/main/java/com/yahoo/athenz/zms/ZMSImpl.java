@@ -20,6 +20,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.primitives.Bytes;
 import com.oath.auth.KeyRefresherException;
 import com.yahoo.athenz.auth.*;
+import com.yahoo.athenz.auth.impl.CertificateAuthority;
+import com.yahoo.athenz.auth.impl.CertificateIdentityCache;
 import com.yahoo.athenz.auth.token.PrincipalToken;
 import com.yahoo.athenz.auth.util.Crypto;
 import com.yahoo.athenz.auth.util.CryptoException;
@@ -31,6 +33,7 @@ import com.yahoo.athenz.common.messaging.ChangePublisher;
 import com.yahoo.athenz.common.messaging.ChangePublisherFactory;
 import com.yahoo.athenz.common.messaging.DomainChangeMessage;
 import com.yahoo.athenz.common.metrics.Metric;
+import com.yahoo.athenz.common.metrics.MetricCounterPublisher;
 import com.yahoo.athenz.common.metrics.MetricFactory;
 import com.yahoo.athenz.common.server.audit.AuditReferenceValidator;
 import com.yahoo.athenz.common.server.audit.AuditReferenceValidatorFactory;
@@ -115,6 +118,9 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
     private static final String ADMIN_ROLE_NAME = "admin";
 
     private static final String SYS_AUTH = "sys.auth";
+
+    static final String METRIC_CERT_IDENTITY_CACHE_HIT  = "certificate_identity_cache_hit";
+    static final String METRIC_CERT_IDENTITY_CACHE_MISS = "certificate_identity_cache_miss";
     private static final String USER_TOKEN_DEFAULT_NAME = "_self_";
 
     // data validation types
@@ -187,6 +193,9 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
     protected DynamicConfigBoolean validateUserAuthorityPrincipals;
     protected DynamicConfigBoolean allowUnderscoreInServiceNames;
     protected boolean useMasterCopyForSignedDomains = false;
+    protected int signedDomainsBatchSize = 100;
+    protected SignedDomainCache signedDomainCache = null;
+    protected MetricCounterPublisher cacheMetricsPublisher = null;
     protected List<String> validateServiceMemberSkipDomains;
     protected static Validator validator;
     protected String userDomain;
@@ -656,6 +665,14 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
 
         loadMetricObject();
 
+        // create our signed domain cache if enabled
+
+        loadSignedDomainCache();
+
+        // publish the hit counts of the certificate identity cache
+
+        loadCacheMetricsPublisher();
+
         // load the Solution templates
 
         loadSolutionTemplates();
@@ -941,6 +958,8 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
 
         useMasterCopyForSignedDomains = Boolean.parseBoolean(
                 System.getProperty(ZMSConsts.ZMS_PROP_MASTER_COPY_FOR_SIGNED_DOMAINS, "false"));
+        signedDomainsBatchSize = Integer.parseInt(
+                System.getProperty(ZMSConsts.ZMS_PROP_SIGNED_DOMAINS_BATCH_SIZE, "100"));
 
         // get the maximum length allowed for a top level domain name
 
@@ -1138,6 +1157,41 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
         metric.increment("zms_sa_startup");
     }
 
+    void loadSignedDomainCache() {
+
+        // the cache size is the number of signed domain objects we keep
+        // and the timeout is the number of seconds before we regenerate
+        // the object even if the domain has not been modified
+
+        final long cacheSize = Long.parseLong(
+                System.getProperty(ZMSConsts.ZMS_PROP_SIGNED_DOMAIN_CACHE_SIZE, "0"));
+        final long cacheTimeout = Long.parseLong(
+                System.getProperty(ZMSConsts.ZMS_PROP_SIGNED_DOMAIN_CACHE_TIMEOUT, "3600"));
+        signedDomainCache = (cacheSize > 0 && cacheTimeout > 0) ?
+                new SignedDomainCache(cacheSize, cacheTimeout, metric) : null;
+    }
+
+    void loadCacheMetricsPublisher() {
+
+        // the certificate identity cache in auth_core has no access to
+        // our metric object so we periodically publish its counters
+
+        cacheMetricsPublisher = new MetricCounterPublisher(metric);
+        for (Authority authority : authorities.getAuthorities()) {
+            if (!(authority instanceof CertificateAuthority)) {
+                continue;
+            }
+            CertificateIdentityCache identityCache = ((CertificateAuthority) authority).getCertificateIdentityCache();
+            if (identityCache != null) {
+                cacheMetricsPublisher.addCounter(METRIC_CERT_IDENTITY_CACHE_HIT, identityCache::getHitCount);
+                cacheMetricsPublisher.addCounter(METRIC_CERT_IDENTITY_CACHE_MISS, identityCache::getMissCount);
+            }
+        }
+
+        cacheMetricsPublisher.start(Long.parseLong(
+                System.getProperty(ZMSConsts.ZMS_PROP_CACHE_METRICS_INTERVAL, "60")));
+    }
+
     void loadPrivateKeyStore() {
 
         String pkeyFactoryClass = System.getProperty(ZMSConsts.ZMS_PROP_PRIVATE_KEY_STORE_FACTORY_CLASS,
@@ -3593,6 +3647,16 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
             return AccessStatus.DENIED;
         }
 
+        // if the domain is in our cache then we'll use its pre-compiled
+        // access index instead of processing all policies and assertions
+
+        AccessPolicyIndex accessIndex = dbService.getDomainAccessIndex(domain);
+        if (accessIndex != null) {
+            return accessIndex.evaluateAccess(identity, action, resource, authenticatedRoles, trustDomain,
+                    (role, fullUser, trust) -> matchPrincipalInRole(role, role.getName(), fullUser, trust))
+                    .isAllowed() ? AccessStatus.ALLOWED : AccessStatus.DENIED;
+        }
+
         AccessStatus accessStatus = AccessStatus.DENIED;
 
         List<Policy> policies = domain.getPolicies();
@@ -7816,6 +7880,11 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
     }
 
     SignedDomain retrieveSignedDomain(Domain domain, final String metaAttr, boolean setMetaDataOnly, boolean masterCopy, boolean includeConditions) {
+        return retrieveSignedDomain(domain, metaAttr, setMetaDataOnly, masterCopy, includeConditions, null);
+    }
+
+    SignedDomain retrieveSignedDomain(Domain domain, final String metaAttr, boolean setMetaDataOnly, boolean masterCopy,
+            boolean includeConditions, AthenzDomain prefetchedDomain) {
 
         // check if we're asked to only return the meta data which
         // we already have - name and last modified time, so we can
@@ -7826,18 +7895,64 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
         if (setMetaDataOnly) {
             signedDomain = retrieveSignedDomainMeta(domain, metaAttr);
         } else {
-            signedDomain = retrieveSignedDomainData(domain, masterCopy, includeConditions);
+            signedDomain = retrieveSignedDomainData(domain, masterCopy, includeConditions, prefetchedDomain);
         }
         return signedDomain;
     }
 
+    Map<String, AthenzDomain> prefetchSignedDomains(List<Domain> domains, boolean masterCopy, boolean includeConditions) {
+
+        // we only need to retrieve the domains that we don't already
+        // have signed objects for in our cache
+
+        List<Domain> fetchDomains = new ArrayList<>();
+        for (Domain domain : domains) {
+            if (signedDomainCache == null || !signedDomainCache.contains(
+                    SignedDomainCache.signedDomainKey(domain.getName(), includeConditions),
+                    domain.getModified().millis(), privateKey.getId())) {
+                fetchDomains.add(domain);
+            }
+        }
+
+        if (fetchDomains.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        // if we're not able to retrieve the domains in a batch, then
+        // we'll fall back to retrieving each domain individually
+
+        try {
+            return dbService.getAthenzDomains(fetchDomains, masterCopy);
+        } catch (ResourceException ex) {
+            LOG.error("unable to retrieve domain batch: {}", ex.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
     SignedDomain retrieveSignedDomainData(Domain domain, boolean masterCopy, boolean includeConditions) {
+        return retrieveSignedDomainData(domain, masterCopy, includeConditions, null);
+    }
 
-        // generate our signed domain object
+    SignedDomain retrieveSignedDomainData(Domain domain, boolean masterCopy, boolean includeConditions,
+            AthenzDomain prefetchedDomain) {
+
+        // if enabled, check if we have already generated the signed
+        // domain object for this version of the domain
 
         final String domainName = domain.getName();
-        SignedDomain signedDomain = createSignedDomain(domainName, domain.getModified().millis(),
-                domain.getEnabled());
+        final long modified = domain.getModified().millis();
+        final String cacheKey = (signedDomainCache == null) ? null :
+                SignedDomainCache.signedDomainKey(domainName, includeConditions);
+        if (cacheKey != null) {
+            SignedDomain signedDomain = signedDomainCache.get(cacheKey, modified, privateKey.getId());
+            if (signedDomain != null) {
+                return signedDomain;
+            }
+        }
+
+        // generate our signed domain object
+
+        SignedDomain signedDomain = createSignedDomain(domainName, modified, domain.getEnabled());
 
         // get the policies, roles, and service identities to create the
         // DomainData
@@ -7846,7 +7961,8 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
             LOG.debug("retrieveSignedDomain: retrieving domain {}", domainName);
         }
 
-        AthenzDomain athenzDomain = getAthenzDomain(domainName, true, masterCopy);
+        AthenzDomain athenzDomain = (prefetchedDomain != null) ? prefetchedDomain :
+                getAthenzDomain(domainName, true, masterCopy);
 
         // it's possible that our domain was deleted by another
         // thread while we were processing this request so
@@ -7940,6 +8056,15 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
 
         signature = Crypto.sign(SignUtils.asCanonicalString(domainData), privateKey.getKey());
         signedDomain.setSignature(signature).setKeyId(privateKey.getId());
+
+        // we only cache the object if the domain data matches the modified
+        // timestamp that we were given. with read replicas it's possible
+        // that our domain data is behind the domain list we retrieved
+
+        Timestamp dataModified = athenzDomain.getDomain().getModified();
+        if (cacheKey != null && dataModified != null && dataModified.millis() == modified) {
+            signedDomainCache.put(cacheKey, modified, privateKey.getId(), signedDomain);
+        }
         return signedDomain;
     }
 
@@ -8053,19 +8178,31 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
                         .header("ETag", matchingTag).build();
             }
 
-            // now we can iterate through our list and retrieve each domain
+            // now we can iterate through our list and retrieve each domain.
+            // if we need to return the full domain data, we're going to
+            // retrieve the domains from our store in batches instead of
+            // one domain at a time
+
+            final boolean batchFetch = !setMetaDataOnly && signedDomainsBatchSize > 0;
+            Map<String, AthenzDomain> athenzDomains = Collections.emptyMap();
 
-            for (Domain dmod : modlist) {
+            for (int idx = 0; idx < modlist.size(); idx++) {
 
+                Domain dmod = modlist.get(idx);
                 Long domModMillis = dmod.getModified().millis();
                 if (domModMillis.compareTo(youngestDomMod) > 0) {
                     youngestDomMod = domModMillis;
                 }
 
+                if (batchFetch && idx % signedDomainsBatchSize == 0) {
+                    athenzDomains = prefetchSignedDomains(modlist.subList(idx,
+                            Math.min(idx + signedDomainsBatchSize, modlist.size())), masterCopy, includeConditions);
+                }
+
                 // generate our signed domain object
 
                 SignedDomain signedDomain = retrieveSignedDomain(dmod, metaAttr, setMetaDataOnly,
-                        masterCopy, includeConditions);
+                        masterCopy, includeConditions, athenzDomains.get(dmod.getName()));
 
                 // it's possible that our domain was deleted by another
                 // thread while we were processing this request so
@@ -8141,11 +8278,34 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
 
         return Response
                 .status(ResourceException.OK)
-                .entity(generateJWSDomain(athenzDomain, signatureP1363Format, allowedServiceCreds))
+                .entity(retrieveJWSDomain(athenzDomain, signatureP1363Format, allowedServiceCreds))
                 .header("ETag", ENTITY_TAG_HEADER_DELEGATE.toString(eTag))
                 .build();
     }
 
+    JWSDomain retrieveJWSDomain(AthenzDomain athenzDomain, Boolean signatureP1363Format, boolean allowedServiceCreds) {
+
+        // if enabled, check if we have already generated the signed
+        // domain object for this version of the domain
+
+        if (signedDomainCache == null) {
+            return generateJWSDomain(athenzDomain, signatureP1363Format, allowedServiceCreds);
+        }
+
+        final Domain domain = athenzDomain.getDomain();
+        final long modified = domain.getModified().millis();
+        final String cacheKey = SignedDomainCache.jwsDomainKey(domain.getName(),
+                signatureP1363Format == Boolean.TRUE, allowedServiceCreds);
+        JWSDomain jwsDomain = signedDomainCache.get(cacheKey, modified, privateKey.getId());
+        if (jwsDomain == null) {
+            jwsDomain = generateJWSDomain(athenzDomain, signatureP1363Format, allowedServiceCreds);
+            if (jwsDomain != null) {
+                signedDomainCache.put(cacheKey, modified, privateKey.getId(), jwsDomain);
+            }
+        }
+        return jwsDomain;
+    }
+
     JWSDomain generateJWSDomain(AthenzDomain athenzDomain, Boolean signatureP1363Format, boolean allowedServiceCreds) {
 
         // set all domain attributes including roles and services
@@ -30,6 +30,7 @@ import com.yahoo.athenz.common.server.notification.NotificationManager;
 import com.yahoo.athenz.common.server.rest.ServerResourceContext;
 import com.yahoo.athenz.common.server.ServerResourceException;
 import com.yahoo.athenz.common.server.store.*;
+import com.yahoo.athenz.common.server.util.AccessPolicyIndex;
 import com.yahoo.athenz.common.server.util.ResourceUtils;
 import com.yahoo.athenz.common.server.util.config.dynamic.DynamicConfigInteger;
 import com.yahoo.athenz.zms.DBService.DataCache;
@@ -1990,6 +1991,257 @@ public class DBServiceTest {
         zms.deleteTopLevelDomain(mockDomRsrcCtx, domainName, auditRef, null);
     }
 
+    @Test
+    public void testExecutePutMembershipCoalescing() throws Exception {
+
+        String domainName = "mbrcoalescedom";
+
+        TopLevelDomain dom1 = createTopLevelDomainObject(domainName,
+                "Test Domain1", "testOrg", adminUser);
+        zms.postTopLevelDomain(mockDomRsrcCtx, auditRef, null, dom1);
+
+        Role role1 = createRoleObject(domainName, "role1", null, "user.joe", null);
+        zms.putRole(mockDomRsrcCtx, domainName, "role1", auditRef, false, null, role1);
+        Role role2 = createRoleObject(domainName, "role2", null, "user.joe", null);
+        zms.putRole(mockDomRsrcCtx, domainName, "role2", auditRef, false, null, role2);
+
+        boolean saveCoalescing = zms.dbService.membershipWriteCoalescing;
+        int saveBatchSize = zms.dbService.membershipWriteBatchSize;
+        zms.dbService.membershipWriteCoalescing = true;
+        zms.dbService.membershipWriteBatchSize = 4;
+
+        // add members to both roles from concurrent threads and
+        // verify all requests are processed and return their results
+
+        final int memberCount = 10;
+        List<Thread> threads = new ArrayList<>();
+        List<Membership> results = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < memberCount; i++) {
+            final String roleName = (i % 2 == 0) ? "role1" : "role2";
+            final String memberName = "user.coalesce" + i;
+            threads.add(new Thread(() -> results.add(zms.dbService.executePutMembership(mockDomRsrcCtx,
+                    domainName, roleName, new RoleMember().setMemberName(memberName), auditRef,
+                    "putMembership", true))));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(results.size(), memberCount);
+        for (Membership membership : results) {
+            assertTrue(membership.getIsMember());
+            assertTrue(membership.getMemberName().startsWith("user.coalesce"));
+        }
+        assertTrue(zms.dbService.membershipWriteQueues.isEmpty());
+
+        Role role = zms.getRole(mockDomRsrcCtx, domainName, "role1", false, false, false);
+        assertEquals(role.getRoleMembers().size(), 6);
+        role = zms.getRole(mockDomRsrcCtx, domainName, "role2", false, false, false);
+        assertEquals(role.getRoleMembers().size(), 6);
+
+        // failures are returned to the caller
+
+        try {
+            zms.dbService.executePutMembership(mockDomRsrcCtx, domainName, "unknown",
+                    new RoleMember().setMemberName("user.doe"), auditRef, "putMembership", false);
+            fail();
+        } catch (ResourceException ex) {
+            assertEquals(ex.getCode(), ResourceException.NOT_FOUND);
+        }
+
+        zms.dbService.membershipWriteCoalescing = saveCoalescing;
+        zms.dbService.membershipWriteBatchSize = saveBatchSize;
+        zms.deleteTopLevelDomain(mockDomRsrcCtx, domainName, auditRef, null);
+    }
+
+    @Test
+    public void testProcessPutMembershipBatch() throws ServerResourceException {
+
+        String domainName = "mbrbatchdom";
+
+        TopLevelDomain dom1 = createTopLevelDomainObject(domainName,
+                "Test Domain1", "testOrg", adminUser);
+        zms.postTopLevelDomain(mockDomRsrcCtx, auditRef, null, dom1);
+
+        Role role1 = createRoleObject(domainName, "role1", null, "user.joe", null);
+        zms.putRole(mockDomRsrcCtx, domainName, "role1", auditRef, false, null, role1);
+        Role role2 = createRoleObject(domainName, "role2", "sys.auth", null, null);
+        zms.putRole(mockDomRsrcCtx, domainName, "role2", auditRef, false, null, role2);
+
+        // requests with failed checks are rejected without
+        // affecting the other requests in the batch
+
+        List<DBService.PutMembershipRequest> batch = new ArrayList<>();
+        batch.add(new DBService.PutMembershipRequest(mockDomRsrcCtx, domainName, "role1",
+                new RoleMember().setMemberName("user.doe"), auditRef, "putMembership", true));
+        batch.add(new DBService.PutMembershipRequest(mockDomRsrcCtx, domainName, "unknown",
+                new RoleMember().setMemberName("user.doe"), auditRef, "putMembership", true));
+        batch.add(new DBService.PutMembershipRequest(mockDomRsrcCtx, domainName, "role2",
+                new RoleMember().setMemberName("user.doe"), auditRef, "putMembership", true));
+        batch.add(new DBService.PutMembershipRequest(mockDomRsrcCtx, domainName, "role1",
+                new RoleMember().setMemberName("user.jane"), auditRef, "putMembership", false));
+
+        zms.dbService.processPutMembershipBatch(domainName, batch);
+
+        for (DBService.PutMembershipRequest request : batch) {
+            assertTrue(request.completed);
+        }
+        assertNull(batch.get(0).exception);
+        assertEquals(batch.get(0).membership.getMemberName(), "user.doe");
+        assertEquals(((ResourceException) batch.get(1).exception).getCode(), ResourceException.NOT_FOUND);
+        assertNull(batch.get(1).membership);
+        assertEquals(((ResourceException) batch.get(2).exception).getCode(), ResourceException.BAD_REQUEST);
+        assertNull(batch.get(3).exception);
+        assertNull(batch.get(3).membership);
+
+        Role role = zms.getRole(mockDomRsrcCtx, domainName, "role1", false, false, false);
+        List<String> checkList = new ArrayList<>();
+        checkList.add("user.joe");
+        checkList.add("user.doe");
+        checkList.add("user.jane");
+        checkRoleMember(checkList, role.getRoleMembers());
+
+        zms.deleteTopLevelDomain(mockDomRsrcCtx, domainName, auditRef, null);
+    }
+
+    @Test
+    public void testProcessPutMembershipBatchFailure() throws ServerResourceException {
+
+        String domainName = "mgradddom1";
+        String roleName = "role1";
+
+        Mockito.when(mockJdbcConn.insertRoleMember(anyString(), anyString(), any(RoleMember.class),
+                anyString(), anyString())).thenReturn(false);
+        Domain domain = new Domain().setName(domainName);
+        Mockito.when(mockJdbcConn.getDomain(domainName)).thenReturn(domain);
+        Role role = createRoleObject(domainName, roleName, null, "user.joe", "user.jane");
+        Mockito.when(mockJdbcConn.getRole(domainName, roleName)).thenReturn(role);
+        ObjectStore saveStore = zms.dbService.store;
+        zms.dbService.store = mockObjStore;
+
+        // when all requests fail, no changes are committed
+
+        List<DBService.PutMembershipRequest> batch = new ArrayList<>();
+        batch.add(new DBService.PutMembershipRequest(mockDomRsrcCtx, domainName, roleName,
+                new RoleMember().setMemberName("user.doe"), auditRef, "putMembership", false));
+        batch.add(new DBService.PutMembershipRequest(mockDomRsrcCtx, domainName, roleName,
+                new RoleMember().setMemberName("user.john"), auditRef, "putMembership", false));
+
+        zms.dbService.processPutMembershipBatch(domainName, batch);
+
+        for (DBService.PutMembershipRequest request : batch) {
+            assertTrue(request.completed);
+            assertEquals(((ResourceException) request.exception).getCode(), ResourceException.BAD_REQUEST);
+        }
+        Mockito.verify(mockJdbcConn, times(1)).rollbackChanges();
+        Mockito.verify(mockJdbcConn, times(0)).commitChanges();
+
+        zms.dbService.store = saveStore;
+    }
+
+    @Test
+    public void testProcessPutMembershipBatchPartialFailure() throws ServerResourceException {
+
+        String domainName = "mgradddom1";
+        String roleName = "role1";
+
+        Domain domain = new Domain().setName(domainName);
+        Mockito.when(mockJdbcConn.getDomain(domainName)).thenReturn(domain);
+        Role role = createRoleObject(domainName, roleName, null, "user.joe", "user.jane");
+        Mockito.when(mockJdbcConn.getRole(domainName, roleName)).thenReturn(role);
+        Mockito.when(mockJdbcConn.getRoleMember(eq(domainName), eq(roleName), anyString(), eq(0L), eq(false)))
+                .thenReturn(new Membership().setIsMember(false));
+        Mockito.when(mockJdbcConn.insertRoleMember(eq(domainName), eq(roleName), any(RoleMember.class),
+                anyString(), anyString())).thenReturn(true);
+        Mockito.when(mockJdbcConn.insertRoleMember(eq(domainName), eq(roleName),
+                argThat(member -> member != null && "user.fail".equals(member.getMemberName())),
+                anyString(), anyString())).thenReturn(false);
+        Mockito.when(mockJdbcConn.insertRoleMember(eq(domainName), eq(roleName),
+                argThat(member -> member != null && "unknown.bad".equals(member.getMemberName())),
+                anyString(), anyString())).thenThrow(new ServerResourceException(ServerResourceException.NOT_FOUND));
+        ObjectStore saveStore = zms.dbService.store;
+        zms.dbService.store = mockObjStore;
+
+        // a request rejected by the object store is removed from the batch
+        // and the remaining requests are processed without it
+
+        List<DBService.PutMembershipRequest> batch = new ArrayList<>();
+        batch.add(new DBService.PutMembershipRequest(mockDomRsrcCtx, domainName, roleName,
+                new RoleMember().setMemberName("user.doe"), auditRef, "putMembership", false));
+        batch.add(new DBService.PutMembershipRequest(mockDomRsrcCtx, domainName, roleName,
+                new RoleMember().setMemberName("unknown.bad"), auditRef, "putMembership", false));
+        batch.add(new DBService.PutMembershipRequest(mockDomRsrcCtx, domainName, roleName,
+                new RoleMember().setMemberName("user.fail"), auditRef, "putMembership", false));
+        batch.add(new DBService.PutMembershipRequest(mockDomRsrcCtx, domainName, roleName,
+                new RoleMember().setMemberName("user.john"), auditRef, "putMembership", false));
+
+        zms.dbService.processPutMembershipBatch(domainName, batch);
+
+        for (DBService.PutMembershipRequest request : batch) {
+            assertTrue(request.completed);
+        }
+        assertNull(batch.get(0).exception);
+        assertEquals(((ResourceException) batch.get(1).exception).getCode(), ResourceException.NOT_FOUND);
+        assertEquals(((ResourceException) batch.get(2).exception).getCode(), ResourceException.BAD_REQUEST);
+        assertNull(batch.get(3).exception);
+
+        // the first attempt was rolled back and the second one committed
+
+        Mockito.verify(mockJdbcConn, times(1)).rollbackChanges();
+        Mockito.verify(mockJdbcConn, times(1)).commitChanges();
+        Mockito.verify(mockJdbcConn, times(2)).insertRoleMember(eq(domainName), eq(roleName),
+                argThat(member -> member != null && "user.doe".equals(member.getMemberName())),
+                anyString(), anyString());
+        Mockito.verify(mockJdbcConn, times(1)).insertRoleMember(eq(domainName), eq(roleName),
+                argThat(member -> member != null && "user.john".equals(member.getMemberName())),
+                anyString(), anyString());
+        Mockito.verify(mockJdbcConn, times(1)).updateRoleModTimestamp(domainName, roleName);
+        Mockito.verify(mockJdbcConn, times(1)).updateDomainModTimestamp(domainName);
+
+        zms.dbService.store = saveStore;
+    }
+
+    @Test
+    public void testProcessPutMembershipBatchRetryFailure() throws ServerResourceException {
+
+        String domainName = "mgradddom1";
+        String roleName = "role1";
+
+        Mockito.when(mockJdbcConn.insertRoleMember(anyString(), anyString(), any(RoleMember.class),
+                anyString(), anyString())).thenThrow(new ServerResourceException(ServerResourceException.CONFLICT));
+        Domain domain = new Domain().setName(domainName);
+        Mockito.when(mockJdbcConn.getDomain(domainName)).thenReturn(domain);
+        Role role = createRoleObject(domainName, roleName, null, "user.joe", "user.jane");
+        Mockito.when(mockJdbcConn.getRole(domainName, roleName)).thenReturn(role);
+        ObjectStore saveStore = zms.dbService.store;
+        zms.dbService.store = mockObjStore;
+        int saveRetryCount = zms.dbService.defaultRetryCount;
+        zms.dbService.defaultRetryCount = 2;
+
+        // all requests in the batch fail with the same exception
+        // and the changes are rolled back before each retry
+
+        List<DBService.PutMembershipRequest> batch = new ArrayList<>();
+        batch.add(new DBService.PutMembershipRequest(mockDomRsrcCtx, domainName, roleName,
+                new RoleMember().setMemberName("user.doe"), auditRef, "putMembership", false));
+        batch.add(new DBService.PutMembershipRequest(mockDomRsrcCtx, domainName, roleName,
+                new RoleMember().setMemberName("user.john"), auditRef, "putMembership", false));
+
+        zms.dbService.processPutMembershipBatch(domainName, batch);
+
+        for (DBService.PutMembershipRequest request : batch) {
+            assertTrue(request.completed);
+            assertEquals(((ResourceException) request.exception).getCode(), ResourceException.CONFLICT);
+        }
+        Mockito.verify(mockJdbcConn, times(2)).rollbackChanges();
+
+        zms.dbService.defaultRetryCount = saveRetryCount;
+        zms.dbService.store = saveStore;
+    }
+
     @Test
     public void testExecutePutPolicy() throws ServerResourceException {
 
@@ -9210,6 +9462,222 @@ public class DBServiceTest {
         zms.dbService.store = saveStore;
     }
 
+    @Test
+    public void testGetAthenzDomains() throws ServerResourceException {
+
+        ObjectStore saveStore = zms.dbService.store;
+        zms.dbService.store = mockObjStore;
+
+        final long now = System.currentTimeMillis();
+        Domain domain1 = new Domain().setName("batch-dom1").setModified(Timestamp.fromMillis(now));
+        Domain domain2 = new Domain().setName("batch-dom2").setModified(Timestamp.fromMillis(now));
+        Domain domain3 = new Domain().setName("batch-dom3").setModified(Timestamp.fromMillis(now));
+
+        AthenzDomain athenzDomain1 = new AthenzDomain("batch-dom1");
+        athenzDomain1.setDomain(domain1);
+        List<RoleMember> roleMembers = new ArrayList<>();
+        roleMembers.add(new RoleMember().setMemberName("user.joe"));
+        athenzDomain1.getRoles().add(new Role().setName("batch-dom1:role.admin").setRoleMembers(roleMembers));
+        AthenzDomain athenzDomain2 = new AthenzDomain("batch-dom2");
+        athenzDomain2.setDomain(domain2);
+
+        // domain3 was deleted so it's not returned by the store
+
+        Map<String, AthenzDomain> storeDomains = new HashMap<>();
+        storeDomains.put("batch-dom1", athenzDomain1);
+        storeDomains.put("batch-dom2", athenzDomain2);
+        Mockito.when(mockJdbcConn.getAthenzDomains(Arrays.asList("batch-dom1", "batch-dom2", "batch-dom3")))
+                .thenReturn(storeDomains);
+
+        Map<String, AthenzDomain> athenzDomains = zms.dbService.getAthenzDomains(
+                Arrays.asList(domain1, domain2, domain3), false);
+        assertEquals(athenzDomains.size(), 2);
+        assertSame(athenzDomains.get("batch-dom1"), athenzDomain1);
+        assertSame(athenzDomains.get("batch-dom2"), athenzDomain2);
+        assertEquals(athenzDomain1.getRoles().get(0).getRoleMembers().get(0).getPrincipalType(),
+                Principal.Type.USER.getValue());
+
+        // the domains are now in our cache so the store is only
+        // asked for the domains that have been updated
+
+        Domain updatedDomain2 = new Domain().setName("batch-dom2").setModified(Timestamp.fromMillis(now + 1000));
+        Mockito.when(mockJdbcConn.getAthenzDomains(Collections.singletonList("batch-dom2")))
+                .thenReturn(Collections.emptyMap());
+
+        athenzDomains = zms.dbService.getAthenzDomains(Arrays.asList(domain1, updatedDomain2), false);
+        assertEquals(athenzDomains.size(), 1);
+        assertSame(athenzDomains.get("batch-dom1"), athenzDomain1);
+        Mockito.verify(mockJdbcConn, times(1)).getAthenzDomains(Collections.singletonList("batch-dom2"));
+
+        // with all domains in the cache we don't access the store at all
+
+        Mockito.reset(mockObjStore);
+        athenzDomains = zms.dbService.getAthenzDomains(Collections.singletonList(domain1), false);
+        assertSame(athenzDomains.get("batch-dom1"), athenzDomain1);
+        Mockito.verify(mockObjStore, times(0)).getConnection(anyBoolean(), anyBoolean());
+
+        zms.dbService.cacheStore.invalidate("batch-dom1");
+        zms.dbService.cacheStore.invalidate("batch-dom2");
+        zms.dbService.store = saveStore;
+    }
+
+    @Test
+    public void testGetAthenzDomainsFailure() throws ServerResourceException {
+
+        ObjectStore saveStore = zms.dbService.store;
+        zms.dbService.store = mockObjStore;
+
+        Mockito.when(mockJdbcConn.getAthenzDomains(any()))
+                .thenThrow(new ServerResourceException(ServerResourceException.INTERNAL_SERVER_ERROR, "unit-test"));
+
+        Domain domain = new Domain().setName("batch-fail-dom").setModified(Timestamp.fromCurrentTime());
+        try {
+            zms.dbService.getAthenzDomains(Collections.singletonList(domain), false);
+            fail();
+        } catch (ResourceException ex) {
+            assertEquals(ex.getCode(), ResourceException.INTERNAL_SERVER_ERROR);
+        }
+
+        zms.dbService.store = saveStore;
+    }
+
+    @Test
+    public void testInitDomainCacheUpdater() {
+
+        ZMSConfig zmsConfig = new ZMSConfig();
+        zmsConfig.setUserDomain("user");
+
+        // disabled by default
+
+        DBService dbService = new DBService(mockObjStore, null, zmsConfig, null, null);
+        assertEquals(dbService.domainCacheMaxStaleness, 0);
+        assertFalse(dbService.isDomainCacheSynced());
+
+        // max staleness must be at least twice the poll interval
+
+        System.setProperty(ZMSConsts.ZMS_PROP_DOMAIN_CACHE_POLL_INTERVAL, "3600");
+        System.setProperty(ZMSConsts.ZMS_PROP_DOMAIN_CACHE_MAX_STALENESS, "60");
+        dbService = new DBService(mockObjStore, null, zmsConfig, null, null);
+        assertEquals(dbService.domainCacheMaxStaleness, 7200000);
+        assertTrue(dbService.domainCachePollStart > 0);
+
+        // not synced until we have a successful poll
+
+        assertFalse(dbService.isDomainCacheSynced());
+
+        System.clearProperty(ZMSConsts.ZMS_PROP_DOMAIN_CACHE_POLL_INTERVAL);
+        System.clearProperty(ZMSConsts.ZMS_PROP_DOMAIN_CACHE_MAX_STALENESS);
+    }
+
+    @Test
+    public void testUpdateDomainCache() throws ServerResourceException {
+
+        ObjectStore saveStore = zms.dbService.store;
+        zms.dbService.store = mockObjStore;
+
+        final long now = System.currentTimeMillis();
+        zms.dbService.domainCacheMaxStaleness = 60000;
+        zms.dbService.domainCachePollStart = now;
+        zms.dbService.domainCacheSyncTime = 0;
+
+        zms.dbService.cacheStore.put("poll-dom1", new DBService.DataCache(new AthenzDomain("poll-dom1"), now));
+        zms.dbService.cacheStore.put("poll-dom2", new DBService.DataCache(new AthenzDomain("poll-dom2"), now));
+
+        // dom1 was updated while dom2 is already current in our cache
+
+        List<Domain> domains = new ArrayList<>();
+        domains.add(new Domain().setName("poll-dom1").setModified(Timestamp.fromMillis(now + 1000)));
+        domains.add(new Domain().setName("poll-dom2").setModified(Timestamp.fromMillis(now)));
+        domains.add(new Domain().setName("poll-dom3").setModified(Timestamp.fromMillis(now)));
+        Mockito.when(mockJdbcConn.listModifiedDomains(now - 60000))
+                .thenReturn(new DomainMetaList().setDomains(domains));
+
+        zms.dbService.updateDomainCache();
+
+        assertNull(zms.dbService.cacheStore.getIfPresent("poll-dom1"));
+        assertNotNull(zms.dbService.cacheStore.getIfPresent("poll-dom2"));
+        assertTrue(zms.dbService.domainCacheSyncTime >= now);
+        assertTrue(zms.dbService.isDomainCacheSynced());
+
+        // the next poll is based on the last sync time
+
+        final long syncTime = zms.dbService.domainCacheSyncTime;
+        Mockito.when(mockJdbcConn.listModifiedDomains(syncTime - 60000)).thenReturn(new DomainMetaList());
+        zms.dbService.updateDomainCache();
+        Mockito.verify(mockJdbcConn, times(1)).listModifiedDomains(syncTime - 60000);
+
+        // store failures are handled by the updater without
+        // changing the last sync time
+
+        final long lastSyncTime = zms.dbService.domainCacheSyncTime;
+        Mockito.when(mockJdbcConn.listModifiedDomains(anyLong()))
+                .thenThrow(new ServerResourceException(ServerResourceException.INTERNAL_SERVER_ERROR, "unit-test"));
+        zms.dbService.new DomainCacheUpdater().run();
+        assertEquals(zms.dbService.domainCacheSyncTime, lastSyncTime);
+
+        // once we pass our max staleness window we're no longer synced
+
+        zms.dbService.domainCacheSyncTime = now - 120000;
+        assertFalse(zms.dbService.isDomainCacheSynced());
+
+        zms.dbService.domainCacheMaxStaleness = 0;
+        zms.dbService.domainCachePollStart = 0;
+        zms.dbService.domainCacheSyncTime = 0;
+        zms.dbService.cacheStore.invalidate("poll-dom2");
+        zms.dbService.store = saveStore;
+    }
+
+    @Test
+    public void testGetAthenzDomainFromCacheSynced() throws ServerResourceException {
+
+        final String domainName = "cache-synced-dom";
+        final long now = System.currentTimeMillis();
+        AthenzDomain athenzDomain = new AthenzDomain(domainName);
+        zms.dbService.cacheStore.put(domainName, new DBService.DataCache(athenzDomain, now));
+
+        ObjectStoreConnection con = Mockito.mock(ObjectStoreConnection.class);
+        Mockito.when(con.getDomainModTimestamp(domainName)).thenReturn(now + 1000);
+
+        // with a recent sync we don't check the timestamp in the store
+
+        zms.dbService.domainCacheMaxStaleness = 60000;
+        zms.dbService.domainCacheSyncTime = now;
+        assertSame(zms.dbService.getAthenzDomainFromCache(con, domainName), athenzDomain);
+        Mockito.verify(con, times(0)).getDomainModTimestamp(domainName);
+
+        // with a stale sync we go back to checking the store
+
+        zms.dbService.domainCacheSyncTime = now - 120000;
+        assertNull(zms.dbService.getAthenzDomainFromCache(con, domainName));
+        Mockito.verify(con, times(1)).getDomainModTimestamp(domainName);
+        assertNull(zms.dbService.cacheStore.getIfPresent(domainName));
+
+        zms.dbService.domainCacheMaxStaleness = 0;
+        zms.dbService.domainCacheSyncTime = 0;
+    }
+
+    @Test
+    public void testGetDomainAccessIndex() {
+
+        final String domainName = "access-index-dom";
+        AthenzDomain athenzDomain = new AthenzDomain(domainName);
+        assertNull(zms.dbService.getDomainAccessIndex(athenzDomain));
+
+        zms.dbService.cacheStore.put(domainName, new DBService.DataCache(athenzDomain, 100));
+        AccessPolicyIndex accessIndex = zms.dbService.getDomainAccessIndex(athenzDomain);
+        assertNotNull(accessIndex);
+
+        // the index is only built once for the cache entry
+
+        assertSame(zms.dbService.getDomainAccessIndex(athenzDomain), accessIndex);
+
+        // domain objects that are not in the cache are not indexed
+
+        assertNull(zms.dbService.getDomainAccessIndex(new AthenzDomain(domainName)));
+
+        zms.dbService.cacheStore.invalidate(domainName);
+    }
+
     @Test
     public void testSetMembersInDomainEmptyMembers() throws ServerResourceException {
 
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 import com.yahoo.athenz.common.server.ServerResourceException;
+import com.yahoo.athenz.common.server.store.AthenzDomain;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.testng.annotations.AfterClass;
@@ -287,6 +288,237 @@ public class QuotaCheckerTest {
         quotaCheck.checkRoleMembershipQuota(con, "athenz", "readers", "user.joe", 0, "caller");
     }
 
+    private AthenzDomain createCachedDomain() {
+
+        AthenzDomain athenzDomain = new AthenzDomain("athenz");
+
+        List<RoleMember> roleMembers = new ArrayList<>();
+        roleMembers.add(new RoleMember().setMemberName("user.joe"));
+        roleMembers.add(new RoleMember().setMemberName("user.jane"));
+        athenzDomain.getRoles().add(new Role().setName("athenz:role.readers").setRoleMembers(roleMembers));
+        athenzDomain.getRoles().add(new Role().setName("athenz:role.writers"));
+
+        List<GroupMember> groupMembers = new ArrayList<>();
+        groupMembers.add(new GroupMember().setMemberName("user.joe"));
+        athenzDomain.getGroups().add(new Group().setName("athenz:group.dev-team").setGroupMembers(groupMembers));
+        athenzDomain.getGroups().add(new Group().setName("athenz:group.ops-team"));
+
+        List<Assertion> assertions = new ArrayList<>();
+        assertions.add(new Assertion().setRole("athenz:role.readers").setAction("read").setResource("athenz:*"));
+        athenzDomain.getPolicies().add(new Policy().setName("athenz:policy.readers").setVersion("0")
+                .setActive(true).setAssertions(assertions));
+        athenzDomain.getPolicies().add(new Policy().setName("athenz:policy.readers").setVersion("1")
+                .setActive(false));
+        athenzDomain.getPolicies().add(new Policy().setName("athenz:policy.writers"));
+
+        List<PublicKeyEntry> publicKeys = new ArrayList<>();
+        publicKeys.add(new PublicKeyEntry().setId("0").setKey("key0"));
+        athenzDomain.getServices().add(new ServiceIdentity().setName("athenz.api").setPublicKeys(publicKeys));
+        athenzDomain.getServices().add(new ServiceIdentity().setName("athenz.backend"));
+
+        athenzDomain.getEntities().add(new Entity().setName("athenz:entity.entity1"));
+        return athenzDomain;
+    }
+
+    @Test
+    public void testGetCachedObjectCounts() {
+
+        AthenzDomain athenzDomain = createCachedDomain();
+
+        assertEquals(QuotaChecker.getCachedRoleMemberCount(athenzDomain, "athenz", "readers"), 2);
+        assertEquals(QuotaChecker.getCachedRoleMemberCount(athenzDomain, "athenz", "writers"), 0);
+        assertEquals(QuotaChecker.getCachedRoleMemberCount(athenzDomain, "athenz", "unknown"), -1);
+
+        assertEquals(QuotaChecker.getCachedGroupMemberCount(athenzDomain, "athenz", "dev-team"), 1);
+        assertEquals(QuotaChecker.getCachedGroupMemberCount(athenzDomain, "athenz", "ops-team"), 0);
+        assertEquals(QuotaChecker.getCachedGroupMemberCount(athenzDomain, "athenz", "unknown"), -1);
+
+        assertEquals(QuotaChecker.getCachedAssertionCount(athenzDomain, "athenz", "readers", null), 1);
+        assertEquals(QuotaChecker.getCachedAssertionCount(athenzDomain, "athenz", "readers", "0"), 1);
+        assertEquals(QuotaChecker.getCachedAssertionCount(athenzDomain, "athenz", "readers", "1"), 0);
+        assertEquals(QuotaChecker.getCachedAssertionCount(athenzDomain, "athenz", "readers", "2"), -1);
+        assertEquals(QuotaChecker.getCachedAssertionCount(athenzDomain, "athenz", "writers", null), 0);
+        assertEquals(QuotaChecker.getCachedAssertionCount(athenzDomain, "athenz", "unknown", null), -1);
+
+        assertEquals(QuotaChecker.getCachedPublicKeyCount(athenzDomain, "athenz", "api"), 1);
+        assertEquals(QuotaChecker.getCachedPublicKeyCount(athenzDomain, "athenz", "backend"), 0);
+        assertEquals(QuotaChecker.getCachedPublicKeyCount(athenzDomain, "athenz", "unknown"), -1);
+    }
+
+    @Test
+    public void testCheckQuotaCachedCount() throws ServerResourceException {
+
+        QuotaChecker quotaCheck = new QuotaChecker();
+        AthenzDomain athenzDomain = createCachedDomain();
+        quotaCheck.setCachedDomainLookup(domainName -> "athenz".equals(domainName) ? athenzDomain : null);
+
+        Quota mockQuota = new Quota().setName("athenz").setRole(10).setRoleMember(10)
+                .setGroup(10).setGroupMember(10).setPolicy(10).setAssertion(10)
+                .setService(10).setServiceHost(10).setPublicKey(10).setEntity(10);
+        ObjectStoreConnection con = Mockito.mock(ObjectStoreConnection.class);
+        Mockito.when(con.getQuota("athenz")).thenReturn(mockQuota);
+        Mockito.when(con.getRoleMember("athenz", "readers", "user.doe", 0, false))
+                .thenReturn(new Membership().setIsMember(false));
+        Mockito.when(con.getGroupMember("athenz", "dev-team", "user.doe", 0, false))
+                .thenReturn(new GroupMembership().setIsMember(false));
+
+        // all the counts are well below the limits so no count
+        // queries are executed against the object store
+
+        quotaCheck.checkRoleQuota(con, "athenz", new Role().setName("athenz:role.new"), "caller");
+        quotaCheck.checkGroupQuota(con, "athenz", new Group().setName("athenz:group.new"), "caller");
+        quotaCheck.checkRoleMembershipQuota(con, "athenz", "readers", "user.doe", 0, "caller");
+        quotaCheck.checkGroupMembershipQuota(con, "athenz", "dev-team", "user.doe", null, "caller");
+        quotaCheck.checkPolicyQuota(con, "athenz", new Policy().setName("athenz:policy.new"), "caller");
+        quotaCheck.checkPolicyAssertionQuota(con, "athenz", "readers", null, "caller");
+        quotaCheck.checkServiceIdentityQuota(con, "athenz", new ServiceIdentity().setName("athenz.new"), "caller");
+        quotaCheck.checkServiceIdentityPublicKeyQuota(con, "athenz", "api", "caller");
+        quotaCheck.checkEntityQuota(con, "athenz", new Entity().setName("athenz:entity.new"), "caller");
+
+        assertEquals(quotaCheck.getCachedCountHits(), 9);
+        Mockito.verify(con, Mockito.never()).countRoles("athenz");
+        Mockito.verify(con, Mockito.never()).countGroups("athenz");
+        Mockito.verify(con, Mockito.never()).countRoleMembers("athenz", "readers");
+        Mockito.verify(con, Mockito.never()).countGroupMembers("athenz", "dev-team");
+        Mockito.verify(con, Mockito.never()).countPolicies("athenz");
+        Mockito.verify(con, Mockito.never()).countAssertions("athenz", "readers", null);
+        Mockito.verify(con, Mockito.never()).countServiceIdentities("athenz");
+        Mockito.verify(con, Mockito.never()).countPublicKeys("athenz", "api");
+        Mockito.verify(con, Mockito.never()).countEntities("athenz");
+
+        // objects not in the cached domain and domains not
+        // in the cache are counted in the object store
+
+        Mockito.when(con.countPublicKeys("athenz", "unknown")).thenReturn(10);
+        try {
+            quotaCheck.checkServiceIdentityPublicKeyQuota(con, "athenz", "unknown", "caller");
+            fail();
+        } catch (ResourceException ex) {
+            assertEquals(ex.getCode(), ResourceException.TOO_MANY_REQUESTS);
+        }
+
+        Mockito.when(con.getQuota("coretech")).thenReturn(mockQuota);
+        Mockito.when(con.countRoles("coretech")).thenReturn(10);
+        try {
+            quotaCheck.checkRoleQuota(con, "coretech", new Role().setName("coretech:role.new"), "caller");
+            fail();
+        } catch (ResourceException ex) {
+            assertEquals(ex.getCode(), ResourceException.TOO_MANY_REQUESTS);
+        }
+        assertEquals(quotaCheck.getCachedCountHits(), 9);
+    }
+
+    @Test
+    public void testCheckQuotaCachedCountThreshold() throws ServerResourceException {
+
+        QuotaChecker quotaCheck = new QuotaChecker();
+        AthenzDomain athenzDomain = createCachedDomain();
+        quotaCheck.setCachedDomainLookup(domainName -> athenzDomain);
+
+        Quota mockQuota = new Quota().setName("athenz").setRoleMember(5);
+        ObjectStoreConnection con = Mockito.mock(ObjectStoreConnection.class);
+        Mockito.when(con.getQuota("athenz")).thenReturn(mockQuota);
+        Mockito.when(con.getRoleMember("athenz", "readers", "user.doe", 0, false))
+                .thenReturn(new Membership().setIsMember(false));
+        Mockito.when(con.countRoleMembers("athenz", "readers")).thenReturn(3);
+
+        // with 2 members and limit of 5 we're within the 80% threshold
+
+        quotaCheck.checkRoleMembershipQuota(con, "athenz", "readers", "user.doe", 0, "caller");
+        assertEquals(quotaCheck.getCachedCountHits(), 1);
+        Mockito.verify(con, Mockito.never()).countRoleMembers("athenz", "readers");
+
+        // with the role max members set to 3 we're close to the limit
+        // so the count is retrieved from the object store
+
+        try {
+            quotaCheck.checkRoleMembershipQuota(con, "athenz", "readers", "user.doe", 3, "caller");
+            fail();
+        } catch (ResourceException ex) {
+            assertEquals(ex.getCode(), ResourceException.TOO_MANY_REQUESTS);
+            assertTrue(ex.getMessage().contains("role max members exceeded"));
+        }
+        Mockito.verify(con, Mockito.times(1)).countRoleMembers("athenz", "readers");
+
+        // with the threshold set to 0 we always use the object store
+
+        quotaCheck.cachedCountThreshold = 0;
+        quotaCheck.checkRoleMembershipQuota(con, "athenz", "readers", "user.doe", 0, "caller");
+        Mockito.verify(con, Mockito.times(2)).countRoleMembers("athenz", "readers");
+        assertEquals(quotaCheck.getCachedCountHits(), 1);
+    }
+
+    @Test
+    public void testCheckQuotaCachedCountTransaction() throws ServerResourceException {
+
+        QuotaChecker quotaCheck = new QuotaChecker();
+        AthenzDomain athenzDomain = createCachedDomain();
+        quotaCheck.setCachedDomainLookup(domainName -> athenzDomain);
+
+        Quota mockQuota = new Quota().setName("athenz").setRoleMember(100);
+        ObjectStoreConnection con = Mockito.mock(ObjectStoreConnection.class);
+        Mockito.when(con.isTransactionActive()).thenReturn(true);
+        Mockito.when(con.getQuota("athenz")).thenReturn(mockQuota);
+        Mockito.when(con.getRoleMember(Mockito.eq("athenz"), Mockito.eq("readers"), Mockito.anyString(),
+                Mockito.eq(0L), Mockito.eq(false))).thenReturn(new Membership().setIsMember(false));
+
+        // the cached role has 2 members which is below the threshold
+        // of the max members limit, but members added earlier in the
+        // same transaction are only included in the object store count
+
+        Mockito.when(con.countRoleMembers("athenz", "readers")).thenReturn(2, 3, 4, 5);
+        quotaCheck.checkRoleMembershipQuota(con, "athenz", "readers", "user.doe1", 5, "caller");
+        quotaCheck.checkRoleMembershipQuota(con, "athenz", "readers", "user.doe2", 5, "caller");
+        quotaCheck.checkRoleMembershipQuota(con, "athenz", "readers", "user.doe3", 5, "caller");
+        try {
+            quotaCheck.checkRoleMembershipQuota(con, "athenz", "readers", "user.doe4", 5, "caller");
+            fail();
+        } catch (ResourceException ex) {
+            assertEquals(ex.getCode(), ResourceException.TOO_MANY_REQUESTS);
+            assertTrue(ex.getMessage().contains("role max members exceeded"));
+        }
+        Mockito.verify(con, Mockito.times(4)).countRoleMembers("athenz", "readers");
+        assertEquals(quotaCheck.getCachedCountHits(), 0);
+
+        // once the transaction is completed the cached count is used
+
+        Mockito.when(con.isTransactionActive()).thenReturn(false);
+        quotaCheck.checkRoleMembershipQuota(con, "athenz", "readers", "user.doe5", 5, "caller");
+        assertEquals(quotaCheck.getCachedCountHits(), 1);
+    }
+
+    @Test
+    public void testCheckQuotaCachedCountVerify() throws ServerResourceException {
+
+        QuotaChecker quotaCheck = new QuotaChecker();
+        AthenzDomain athenzDomain = createCachedDomain();
+        quotaCheck.setCachedDomainLookup(domainName -> athenzDomain);
+        quotaCheck.cachedCountVerify = true;
+
+        Quota mockQuota = new Quota().setName("athenz").setRole(10);
+        ObjectStoreConnection con = Mockito.mock(ObjectStoreConnection.class);
+        Mockito.when(con.getQuota("athenz")).thenReturn(mockQuota);
+
+        // matching counts
+
+        Mockito.when(con.countRoles("athenz")).thenReturn(2);
+        quotaCheck.checkRoleQuota(con, "athenz", new Role().setName("athenz:role.new"), "caller");
+        assertEquals(quotaCheck.getCachedCountMismatches(), 0);
+
+        // in verify mode the object store count is used for the check
+        // and any difference from the cached count is reported
+
+        Mockito.when(con.countRoles("athenz")).thenReturn(10);
+        try {
+            quotaCheck.checkRoleQuota(con, "athenz", new Role().setName("athenz:role.new"), "caller");
+            fail();
+        } catch (ResourceException ex) {
+            assertEquals(ex.getCode(), ResourceException.TOO_MANY_REQUESTS);
+        }
+        assertEquals(quotaCheck.getCachedCountMismatches(), 1);
+        assertEquals(quotaCheck.getCachedCountHits(), 0);
+    }
+
     @Test
     public void testCheckPolicyQuotaNull() throws ServerResourceException {
         
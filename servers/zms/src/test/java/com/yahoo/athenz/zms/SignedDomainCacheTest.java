@@ -0,0 +1,100 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zms;
+
+import com.yahoo.athenz.common.metrics.Metric;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class SignedDomainCacheTest {
+
+    @Test
+    public void testGenerateKeys() {
+        assertEquals(SignedDomainCache.signedDomainKey("coretech", false), "sd:coretech:0");
+        assertEquals(SignedDomainCache.signedDomainKey("coretech", true), "sd:coretech:1");
+        assertEquals(SignedDomainCache.jwsDomainKey("coretech", false, true), "jws:coretech:01");
+        assertEquals(SignedDomainCache.jwsDomainKey("coretech", true, false), "jws:coretech:10");
+    }
+
+    @Test
+    public void testGetPut() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        SignedDomainCache cache = new SignedDomainCache(10, 3600, metric);
+
+        final String key = SignedDomainCache.signedDomainKey("coretech", false);
+        assertNull(cache.get(key, 1000, "0"));
+        Mockito.verify(metric, Mockito.times(1)).increment(SignedDomainCache.METRIC_CACHE_MISS);
+
+        SignedDomain signedDomain = new SignedDomain().setKeyId("0");
+        cache.put(key, 1000, "0", signedDomain);
+        assertSame(cache.get(key, 1000, "0"), signedDomain);
+        Mockito.verify(metric, Mockito.times(1)).increment(SignedDomainCache.METRIC_CACHE_HIT);
+        assertEquals(cache.size(), 1);
+
+        // domain update or key rotation invalidates the entry
+
+        assertNull(cache.get(key, 2000, "0"));
+        assertNull(cache.get(key, 1000, "1"));
+        Mockito.verify(metric, Mockito.times(3)).increment(SignedDomainCache.METRIC_CACHE_MISS);
+
+        // updating the entry replaces the old object
+
+        SignedDomain updatedDomain = new SignedDomain().setKeyId("0");
+        cache.put(key, 2000, "0", updatedDomain);
+        assertSame(cache.get(key, 2000, "0"), updatedDomain);
+        assertNull(cache.get(key, 1000, "0"));
+        assertEquals(cache.size(), 1);
+
+        // other keys are not affected
+
+        assertNull(cache.get(SignedDomainCache.signedDomainKey("coretech", true), 2000, "0"));
+    }
+
+    @Test
+    public void testContains() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        SignedDomainCache cache = new SignedDomainCache(10, 3600, metric);
+
+        final String key = SignedDomainCache.signedDomainKey("coretech", false);
+        assertFalse(cache.contains(key, 1000, "0"));
+
+        cache.put(key, 1000, "0", new SignedDomain());
+        assertTrue(cache.contains(key, 1000, "0"));
+        assertFalse(cache.contains(key, 2000, "0"));
+        assertFalse(cache.contains(key, 1000, "1"));
+
+        // contains checks are not included in the cache metrics
+
+        Mockito.verifyNoInteractions(metric);
+    }
+
+    @Test
+    public void testMaxEntries() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        SignedDomainCache cache = new SignedDomainCache(2, 3600, metric);
+
+        for (int i = 0; i < 5; i++) {
+            cache.put(SignedDomainCache.signedDomainKey("coretech" + i, false), 1000, "0", new SignedDomain());
+        }
+        assertTrue(cache.size() <= 2);
+        assertNotNull(cache.get(SignedDomainCache.signedDomainKey("coretech4", false), 1000, "0"));
+    }
+}
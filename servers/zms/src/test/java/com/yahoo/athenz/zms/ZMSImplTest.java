@@ -35,6 +35,7 @@ import com.yahoo.athenz.common.config.AuthzDetailsField;
 import com.yahoo.athenz.common.messaging.DomainChangeMessage;
 import com.yahoo.athenz.common.messaging.MockDomainChangePublisher;
 import com.yahoo.athenz.common.metrics.Metric;
+import com.yahoo.athenz.common.server.rest.Http;
 import com.yahoo.athenz.common.server.metastore.DomainMetaStore;
 import com.yahoo.athenz.common.server.log.AuditLogMsgBuilder;
 import com.yahoo.athenz.common.server.log.AuditLogger;
@@ -12066,6 +12067,44 @@ public class ZMSImplTest {
                 zmsTestInitializer.getMockDomRestRsrcCtx().principal()), AccessStatus.ALLOWED);
     }
 
+    @Test
+    public void testEvaluateAccessIndexedDomain() {
+
+        ZMSImpl zmsImpl = zmsTestInitializer.getZms();
+
+        AthenzDomain domain = new AthenzDomain("coretech-index");
+        Role role = zmsTestInitializer.createRoleObject("coretech-index", "role1", null, "user.user1", null);
+        domain.getRoles().add(role);
+
+        Policy policy = new Policy().setName("coretech-index:policy.policy1");
+        policy.setAssertions(new ArrayList<>());
+        policy.getAssertions().add(new Assertion().setAction("read").setEffect(AssertionEffect.ALLOW)
+                .setResource("coretech-index:*").setRole("coretech-index:role.role1"));
+        policy.getAssertions().add(new Assertion().setAction("read").setEffect(AssertionEffect.DENY)
+                .setResource("coretech-index:secret").setRole("coretech-index:role.role1"));
+        domain.getPolicies().add(policy);
+
+        // with the domain in our cache the access check is
+        // processed by the domain access index
+
+        zmsImpl.dbService.cacheStore.put("coretech-index", new DBService.DataCache(domain, 100));
+        ZMSImpl spiedZms = Mockito.spy(zmsImpl);
+
+        Principal principal = zmsTestInitializer.getMockDomRestRsrcCtx().principal();
+        assertEquals(spiedZms.evaluateAccess(domain, "user.user1", "read", "coretech-index:resource1",
+                null, null, principal), AccessStatus.ALLOWED);
+        assertEquals(spiedZms.evaluateAccess(domain, "user.user1", "read", "coretech-index:secret",
+                null, null, principal), AccessStatus.DENIED);
+        assertEquals(spiedZms.evaluateAccess(domain, "user.user2", "read", "coretech-index:resource1",
+                null, null, principal), AccessStatus.DENIED);
+        assertEquals(spiedZms.evaluateAccess(domain, "user.user2", "read", "coretech-index:resource1",
+                Collections.singletonList("role1"), null, principal), AccessStatus.ALLOWED);
+
+        verify(spiedZms, times(0)).assertionMatch(any(), any(), any(), any(), any(), any(), any(), any());
+
+        zmsImpl.dbService.cacheStore.invalidate("coretech-index");
+    }
+
     @Test
     public void testHasExceededDepthLimitNullLimit() {
         ZMSImpl zmsImpl = zmsTestInitializer.getZms();
@@ -19247,6 +19286,229 @@ public class ZMSImplTest {
         zmsImpl.objectStore.clearConnections();
     }
 
+    @Test
+    public void testGetSignedDomainsCached() throws InterruptedException {
+
+        ZMSImpl zmsImpl = zmsTestInitializer.getZms();
+        RsrcCtxWrapper ctx = zmsTestInitializer.getMockDomRsrcCtx();
+        final String auditRef = zmsTestInitializer.getAuditRef();
+
+        zmsTestInitializer.loadServerPublicKeys(zmsImpl);
+
+        final String domainName = "signed-dom-cached";
+        TopLevelDomain dom1 = zmsTestInitializer.createTopLevelDomainObject(domainName,
+                "Test Domain1", "testOrg", zmsTestInitializer.getAdminUser());
+        zmsImpl.postTopLevelDomain(ctx, auditRef, null, dom1);
+
+        zmsImpl.signedDomainCache = new SignedDomainCache(100, 3600, ZMSImpl.metric);
+
+        Authority principalAuthority = new com.yahoo.athenz.common.server.debug.DebugPrincipalAuthority();
+        Principal sysPrincipal = principalAuthority.authenticate("v=U1;d=sys;n=zts;s=signature",
+                "10.11.12.13", "GET", null);
+        ResourceContext rsrcCtx = zmsTestInitializer.createResourceContext(sysPrincipal);
+
+        // the same signed domain object is returned until the domain is updated
+
+        Response response = zmsImpl.getSignedDomains(rsrcCtx, domainName, null, null, Boolean.TRUE, false, null);
+        SignedDomain signedDomain = ((SignedDomains) response.getEntity()).getDomains().get(0);
+        response = zmsImpl.getSignedDomains(rsrcCtx, domainName, null, null, Boolean.TRUE, false, null);
+        assertSame(((SignedDomains) response.getEntity()).getDomains().get(0), signedDomain);
+
+        // the conditions flag generates a separate object
+
+        response = zmsImpl.getSignedDomains(rsrcCtx, domainName, null, null, Boolean.TRUE, true, null);
+        assertNotSame(((SignedDomains) response.getEntity()).getDomains().get(0), signedDomain);
+        assertEquals(zmsImpl.signedDomainCache.size(), 2);
+
+        Thread.sleep(5);
+        Role role = zmsTestInitializer.createRoleObject(domainName, "role1", null, "user.john", "user.jane");
+        zmsImpl.putRole(ctx, domainName, "role1", auditRef, false, null, role);
+
+        response = zmsImpl.getSignedDomains(rsrcCtx, domainName, null, null, Boolean.TRUE, false, null);
+        SignedDomain updatedDomain = ((SignedDomains) response.getEntity()).getDomains().get(0);
+        assertNotSame(updatedDomain, signedDomain);
+        assertTrue(updatedDomain.getDomain().getRoles().stream()
+                .anyMatch(r -> r.getName().equals(domainName + ":role.role1")));
+
+        String publicKey = zmsImpl.getPublicKey("sys.auth", "zms", updatedDomain.getKeyId());
+        assertTrue(Crypto.verify(SignUtils.asCanonicalString(updatedDomain.getDomain()),
+                Crypto.loadPublicKey(publicKey), updatedDomain.getSignature()));
+
+        zmsImpl.signedDomainCache = null;
+        zmsImpl.deleteTopLevelDomain(ctx, domainName, auditRef, null);
+    }
+
+    @Test
+    public void testGetSignedDomainsBatch() {
+
+        ZMSImpl zmsImpl = zmsTestInitializer.getZms();
+        RsrcCtxWrapper ctx = zmsTestInitializer.getMockDomRsrcCtx();
+        final String auditRef = zmsTestInitializer.getAuditRef();
+
+        zmsTestInitializer.loadServerPublicKeys(zmsImpl);
+
+        final String[] domainNames = { "signed-dom-batch1", "signed-dom-batch2", "signed-dom-batch3" };
+        for (String domainName : domainNames) {
+            TopLevelDomain dom = zmsTestInitializer.createTopLevelDomainObject(domainName,
+                    "Test Domain", "testOrg", zmsTestInitializer.getAdminUser());
+            zmsImpl.postTopLevelDomain(ctx, auditRef, null, dom);
+            Role role = zmsTestInitializer.createRoleObject(domainName, "role1", null, "user.john", "user.jane");
+            zmsImpl.putRole(ctx, domainName, "role1", auditRef, false, null, role);
+        }
+
+        Authority principalAuthority = new com.yahoo.athenz.common.server.debug.DebugPrincipalAuthority();
+        Principal sysPrincipal = principalAuthority.authenticate("v=U1;d=sys;n=zts;s=signature",
+                "10.11.12.13", "GET", null);
+        ResourceContext rsrcCtx = zmsTestInitializer.createResourceContext(sysPrincipal);
+
+        // retrieve the domains in batches of 2
+
+        int saveBatchSize = zmsImpl.signedDomainsBatchSize;
+        zmsImpl.signedDomainsBatchSize = 2;
+
+        Response response = zmsImpl.getSignedDomains(rsrcCtx, null, null, null, Boolean.TRUE, false, null);
+        List<SignedDomain> signedDomains = ((SignedDomains) response.getEntity()).getDomains();
+        for (String domainName : domainNames) {
+            SignedDomain signedDomain = signedDomains.stream()
+                    .filter(sd -> sd.getDomain().getName().equals(domainName)).findFirst().orElse(null);
+            assertNotNull(signedDomain);
+            assertTrue(signedDomain.getDomain().getRoles().stream()
+                    .anyMatch(r -> r.getName().equals(domainName + ":role.role1")));
+
+            String publicKey = zmsImpl.getPublicKey("sys.auth", "zms", signedDomain.getKeyId());
+            assertTrue(Crypto.verify(SignUtils.asCanonicalString(signedDomain.getDomain()),
+                    Crypto.loadPublicKey(publicKey), signedDomain.getSignature()));
+        }
+
+        zmsImpl.signedDomainsBatchSize = saveBatchSize;
+        for (String domainName : domainNames) {
+            zmsImpl.deleteTopLevelDomain(ctx, domainName, auditRef, null);
+        }
+    }
+
+    @Test
+    public void testPrefetchSignedDomains() {
+
+        ZMSImpl zmsImpl = zmsTestInitializer.getZms();
+        DBService saveService = zmsImpl.dbService;
+        DBService mockService = Mockito.mock(DBService.class);
+        zmsImpl.dbService = mockService;
+
+        Domain domain1 = new Domain().setName("prefetch-dom1").setModified(Timestamp.fromMillis(1000));
+        Domain domain2 = new Domain().setName("prefetch-dom2").setModified(Timestamp.fromMillis(1000));
+
+        // domains with valid signed objects in the cache are not retrieved
+
+        zmsImpl.signedDomainCache = new SignedDomainCache(100, 3600, ZMSImpl.metric);
+        zmsImpl.signedDomainCache.put(SignedDomainCache.signedDomainKey("prefetch-dom1", false),
+                1000, zmsImpl.privateKey.getId(), new SignedDomain());
+
+        Map<String, AthenzDomain> athenzDomains = Collections.singletonMap("prefetch-dom2",
+                new AthenzDomain("prefetch-dom2"));
+        Mockito.when(mockService.getAthenzDomains(Collections.singletonList(domain2), false))
+                .thenReturn(athenzDomains);
+        assertSame(zmsImpl.prefetchSignedDomains(Arrays.asList(domain1, domain2), false, false), athenzDomains);
+
+        assertTrue(zmsImpl.prefetchSignedDomains(Collections.singletonList(domain1), false, false).isEmpty());
+        Mockito.verify(mockService, Mockito.times(1)).getAthenzDomains(any(), anyBoolean());
+
+        // failures are ignored and the domains are retrieved individually
+
+        zmsImpl.signedDomainCache = null;
+        Mockito.when(mockService.getAthenzDomains(Arrays.asList(domain1, domain2), false))
+                .thenThrow(new ResourceException(ResourceException.INTERNAL_SERVER_ERROR));
+        assertTrue(zmsImpl.prefetchSignedDomains(Arrays.asList(domain1, domain2), false, false).isEmpty());
+
+        zmsImpl.dbService = saveService;
+    }
+
+    @Test
+    public void testRetrieveSignedDomainDataCacheModifiedMismatch() {
+
+        ZMSImpl zmsImpl = zmsTestInitializer.getZms();
+        RsrcCtxWrapper ctx = zmsTestInitializer.getMockDomRsrcCtx();
+        final String auditRef = zmsTestInitializer.getAuditRef();
+
+        final String domainName = "signed-dom-mismatch";
+        TopLevelDomain dom1 = zmsTestInitializer.createTopLevelDomainObject(domainName,
+                "Test Domain1", "testOrg", zmsTestInitializer.getAdminUser());
+        zmsImpl.postTopLevelDomain(ctx, auditRef, null, dom1);
+
+        zmsImpl.signedDomainCache = new SignedDomainCache(100, 3600, ZMSImpl.metric);
+
+        // if the domain data does not match the requested modified
+        // timestamp (e.g. read replica is behind) we don't cache it
+
+        Domain domain = new Domain().setName(domainName).setModified(Timestamp.fromMillis(1234));
+        assertNotNull(zmsImpl.retrieveSignedDomainData(domain, false, false));
+        assertEquals(zmsImpl.signedDomainCache.size(), 0);
+
+        zmsImpl.signedDomainCache = null;
+        zmsImpl.deleteTopLevelDomain(ctx, domainName, auditRef, null);
+    }
+
+    @Test
+    public void testLoadSignedDomainCache() {
+
+        ZMSImpl zmsImpl = zmsTestInitializer.getZms();
+
+        zmsImpl.loadSignedDomainCache();
+        assertNull(zmsImpl.signedDomainCache);
+
+        System.setProperty(ZMSConsts.ZMS_PROP_SIGNED_DOMAIN_CACHE_SIZE, "100");
+        zmsImpl.loadSignedDomainCache();
+        assertNotNull(zmsImpl.signedDomainCache);
+
+        System.setProperty(ZMSConsts.ZMS_PROP_SIGNED_DOMAIN_CACHE_TIMEOUT, "0");
+        zmsImpl.loadSignedDomainCache();
+        assertNull(zmsImpl.signedDomainCache);
+
+        System.clearProperty(ZMSConsts.ZMS_PROP_SIGNED_DOMAIN_CACHE_SIZE);
+        System.clearProperty(ZMSConsts.ZMS_PROP_SIGNED_DOMAIN_CACHE_TIMEOUT);
+    }
+
+    @Test
+    public void testLoadCacheMetricsPublisher() {
+
+        ZMSImpl zmsImpl = zmsTestInitializer.getZms();
+
+        // without the certificate identity cache there are no counters to publish
+
+        zmsImpl.loadCacheMetricsPublisher();
+        assertEquals(zmsImpl.cacheMetricsPublisher.size(), 0);
+
+        Metric savedMetric = ZMSImpl.metric;
+        Http.AuthorityList savedAuthorities = zmsImpl.authorities;
+
+        Metric metric = Mockito.mock(Metric.class);
+        ZMSImpl.metric = metric;
+
+        CertificateIdentityCache identityCache = Mockito.mock(CertificateIdentityCache.class);
+        Mockito.when(identityCache.getHitCount()).thenReturn(5L);
+        Mockito.when(identityCache.getMissCount()).thenReturn(2L);
+        CertificateAuthority certAuthority = Mockito.mock(CertificateAuthority.class);
+        Mockito.when(certAuthority.getCertificateIdentityCache()).thenReturn(identityCache);
+
+        Http.AuthorityList authorities = new Http.AuthorityList();
+        authorities.add(new PrincipalAuthority());
+        authorities.add(Mockito.mock(CertificateAuthority.class));
+        authorities.add(certAuthority);
+        zmsImpl.authorities = authorities;
+
+        System.setProperty(ZMSConsts.ZMS_PROP_CACHE_METRICS_INTERVAL, "0");
+
+        zmsImpl.loadCacheMetricsPublisher();
+        assertEquals(zmsImpl.cacheMetricsPublisher.size(), 2);
+
+        zmsImpl.cacheMetricsPublisher.publish();
+        Mockito.verify(metric).increment(ZMSImpl.METRIC_CERT_IDENTITY_CACHE_HIT, null, 5);
+        Mockito.verify(metric).increment(ZMSImpl.METRIC_CERT_IDENTITY_CACHE_MISS, null, 2);
+
+        System.clearProperty(ZMSConsts.ZMS_PROP_CACHE_METRICS_INTERVAL);
+        ZMSImpl.metric = savedMetric;
+        zmsImpl.authorities = savedAuthorities;
+    }
+
     @Test
     public void testGetSignedDomainsWithMetaAttrs() {
 
@@ -23210,6 +23472,59 @@ public class ZMSImplTest {
         zmsImpl.deleteTopLevelDomain(ctx, domainName, auditRef, null);
     }
 
+    @Test
+    public void testGetJWSDomainCached() throws JsonProcessingException, ParseException, JOSEException,
+            InterruptedException {
+
+        final String domainName = "jws-domain-cached";
+
+        ZMSImpl zmsImpl = zmsTestInitializer.getZms();
+        RsrcCtxWrapper ctx = zmsTestInitializer.getMockDomRsrcCtx();
+        final String auditRef = zmsTestInitializer.getAuditRef();
+
+        TopLevelDomain dom1 = zmsTestInitializer.createTopLevelDomainObject(domainName,
+                "Test Domain1", "testOrg", zmsTestInitializer.getAdminUser());
+        zmsImpl.postTopLevelDomain(ctx, auditRef, null, dom1);
+
+        zmsImpl.signedDomainCache = new SignedDomainCache(100, 3600, ZMSImpl.metric);
+
+        Response response = zmsImpl.getJWSDomain(ctx, domainName, null, null);
+        JWSDomain jwsDomain = (JWSDomain) response.getEntity();
+        response = zmsImpl.getJWSDomain(ctx, domainName, Boolean.FALSE, null);
+        assertSame(response.getEntity(), jwsDomain);
+
+        // p1363 signature format is a separate entry
+
+        response = zmsImpl.getJWSDomain(ctx, domainName, Boolean.TRUE, null);
+        assertNotSame(response.getEntity(), jwsDomain);
+
+        // domain update generates a new object
+
+        Thread.sleep(5);
+        DomainMeta meta = zmsTestInitializer.createDomainMetaObject("Updated Domain", null, true, false, null, 0);
+        zmsImpl.putDomainMeta(ctx, domainName, auditRef, null, meta);
+
+        response = zmsImpl.getJWSDomain(ctx, domainName, null, null);
+        JWSDomain updatedDomain = (JWSDomain) response.getEntity();
+        assertNotSame(updatedDomain, jwsDomain);
+        assertEquals(zmsTestInitializer.getDomainData(updatedDomain).getDescription(), "Updated Domain");
+
+        // failures to sign the domain are not cached
+
+        zmsImpl.signedDomainCache = new SignedDomainCache(100, 3600, ZMSImpl.metric);
+        ObjectMapper jsonMapper = zmsImpl.jsonMapper;
+        zmsImpl.jsonMapper = Mockito.mock(ObjectMapper.class);
+        Mockito.when(zmsImpl.jsonMapper.writeValueAsBytes(any()))
+                .thenThrow(new IllegalArgumentException("invalid object"));
+        response = zmsImpl.getJWSDomain(ctx, domainName, null, null);
+        assertNull(response.getEntity());
+        assertEquals(zmsImpl.signedDomainCache.size(), 0);
+        zmsImpl.jsonMapper = jsonMapper;
+
+        zmsImpl.signedDomainCache = null;
+        zmsImpl.deleteTopLevelDomain(ctx, domainName, auditRef, null);
+    }
+
     @Test
     public void testGetJWSDomainP1363Signature() throws JsonProcessingException, ParseException, JOSEException {
 
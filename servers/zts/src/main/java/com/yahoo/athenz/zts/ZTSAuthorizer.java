@@ -19,6 +19,9 @@ import com.yahoo.athenz.auth.AuthorityConsts;
 import com.yahoo.athenz.auth.Authorizer;
 import com.yahoo.athenz.auth.Principal;
 import com.yahoo.athenz.auth.util.StringUtils;
+import com.yahoo.athenz.common.metrics.Metric;
+import com.yahoo.athenz.common.metrics.impl.NoOpMetric;
+import com.yahoo.athenz.common.server.util.AccessPolicyIndex;
 import com.yahoo.athenz.common.server.util.AuthzHelper;
 import com.yahoo.athenz.zms.GroupMember;
 import com.yahoo.athenz.zms.Role;
@@ -33,8 +36,15 @@ public class ZTSAuthorizer implements Authorizer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ZTSAuthorizer.class);
 
+    // metrics for the number of access evaluations and the number
+    // of assertions inspected to reach the decision
+
+    static final String METRIC_ACCESS_EVALUATION = "access_evaluation";
+    static final String METRIC_ASSERTIONS_INSPECTED = "access_assertions_inspected";
+
     final protected DataStore dataStore;
     final protected ZTSGroupMembersFetcher groupMembersFetcher;
+    final protected Metric metric;
 
     private static boolean roleBasedAuthzSupport = Boolean.parseBoolean(
             System.getProperty(ZTSConsts.ZTS_PROP_ROLE_BASED_AUTHZ_SUPPORT, "false"));
@@ -50,7 +60,12 @@ public class ZTSAuthorizer implements Authorizer {
     }
     
     public ZTSAuthorizer(final DataStore dataStore) {
+        this(dataStore, new NoOpMetric());
+    }
+
+    public ZTSAuthorizer(final DataStore dataStore, final Metric metric) {
         this.dataStore = dataStore;
+        this.metric = metric;
         groupMembersFetcher = new ZTSGroupMembersFetcher(dataStore);
     }
 
@@ -174,8 +189,22 @@ public class ZTSAuthorizer implements Authorizer {
 
     AccessStatus evaluateAccess(DataCache domain, String identity, String op, String resource,
             List<String> authenticatedRoles, String trustDomain) {
-        
+
+        // if we have the compiled policy index for the domain then
+        // we'll use that instead of processing all the assertions
+
+        final String domainName = domain.getDomainData().getName();
+        AccessPolicyIndex accessPolicyIndex = domain.getAccessPolicyIndex();
+        if (accessPolicyIndex != null) {
+            AccessPolicyIndex.AccessDecision decision = accessPolicyIndex.evaluateAccess(identity, op, resource,
+                    authenticatedRoles, trustDomain,
+                    (role, fullUser, trust) -> matchPrincipalInRole(role, role.getName(), fullUser, trust));
+            reportEvaluationMetrics(domainName, decision.getInspectedAssertions());
+            return decision.isAllowed() ? AccessStatus.ALLOWED : AccessStatus.DENIED;
+        }
+
         AccessStatus accessStatus = AccessStatus.DENIED;
+        int inspectedAssertions = 0;
 
         List<com.yahoo.athenz.zms.Policy> policies = domain.getDomainData().getPolicies().getContents().getPolicies();
         List<Role> roles = domain.getDomainData().getRoles();
@@ -223,10 +252,12 @@ public class ZTSAuthorizer implements Authorizer {
                 if (accessStatus == AccessStatus.ALLOWED && effect == com.yahoo.athenz.zms.AssertionEffect.ALLOW) {
                     continue;
                 }
-                
+
+                inspectedAssertions += 1;
+
                 // if no match then process the next assertion
                 
-                if (!assertionMatch(assertion, identity, op, resource, domain.getDomainData().getName(),
+                if (!assertionMatch(assertion, identity, op, resource, domainName,
                         roles, authenticatedRoles, trustDomain)) {
                     continue;
                 }
@@ -237,16 +268,23 @@ public class ZTSAuthorizer implements Authorizer {
                 // processing other assertions
                 
                 if (effect == com.yahoo.athenz.zms.AssertionEffect.DENY) {
+                    reportEvaluationMetrics(domainName, inspectedAssertions);
                     return AccessStatus.DENIED;
                 }
                 
                 accessStatus = AccessStatus.ALLOWED;
             }
         }
-        
+
+        reportEvaluationMetrics(domainName, inspectedAssertions);
         return accessStatus;
     }
 
+    void reportEvaluationMetrics(final String domainName, int inspectedAssertions) {
+        metric.increment(METRIC_ACCESS_EVALUATION, domainName);
+        metric.increment(METRIC_ASSERTIONS_INSPECTED, domainName, inspectedAssertions);
+    }
+
     //boolean assertionMatch(Assertion assertion, String identity, String action, String resource,
     //                       String domain, List<Role> roles, List<String> authenticatedRoles, String trustDomain)
 
@@ -89,6 +89,11 @@ public final class ZTSConsts {
     public static final String ZTS_PROP_CERTSIGN_CONN_MAX_TOTAL      = "athenz.zts.certsign_conn_max_total";
     public static final String ZTS_PROP_CERTSIGN_CONN_TIME_TO_LIVE   = "athenz.zts.certsign_conn_time_to_live";
     public static final String ZTS_PROP_CERTSIGN_HANDSHAKE_TIMEOUT   = "athenz.zts.certsign_handshake_timeout";
+    public static final String ZTS_PROP_CERTSIGN_ASYNC_MODE          = "athenz.zts.certsign_async_mode";
+    public static final String ZTS_PROP_CERTSIGN_MAX_INFLIGHT        = "athenz.zts.certsign_max_inflight_requests";
+    public static final String ZTS_PROP_CERTSIGN_MAX_INFLIGHT_PER_KEY = "athenz.zts.certsign_max_inflight_requests_per_key";
+    public static final String ZTS_PROP_CERTSIGN_QUEUE_TIMEOUT       = "athenz.zts.certsign_queue_timeout";
+    public static final String ZTS_PROP_CERTSIGN_METRIC_FACTORY_CLASS = "athenz.zts.certsign_metric_factory_class";
 
     public static final String ZTS_PROP_LEAST_PRIVILEGE_PRINCIPLE  = "athenz.zts.least_privilege_principle";
     public static final String ZTS_PROP_ROLE_TOKEN_MAX_TIMEOUT     = "athenz.zts.role_token_max_timeout";
@@ -98,6 +103,12 @@ public final class ZTSConsts {
     public static final String ZTS_PROP_ID_TOKEN_MAX_DOMAINS       = "athenz.zts.id_token_max_domains";
     public static final String ZTS_PROD_ID_TOKEN_ALLOWED_ROLES     = "athenz.zts.id_token_allowed_roles";
     public static final String ZTS_PROP_SIGNED_POLICY_TIMEOUT      = "athenz.zts.signed_policy_timeout";
+    public static final String ZTS_PROP_SIGNED_POLICY_CACHE_SIZE   = "athenz.zts.signed_policy_cache_size";
+    public static final String ZTS_PROP_ACCESS_TOKEN_CACHE_SIZE    = "athenz.zts.access_token_cache_size";
+    public static final String ZTS_PROP_ACCESS_TOKEN_CACHE_MIN_LIFETIME = "athenz.zts.access_token_cache_min_lifetime_percent";
+    public static final String ZTS_PROP_ACCESS_TOKEN_CACHE_MAX_REUSE_TIME = "athenz.zts.access_token_cache_max_reuse_time";
+    public static final String ZTS_PROP_CERT_HASH_CACHE_SIZE       = "athenz.zts.cert_hash_cache_size";
+    public static final String ZTS_PROP_CACHE_METRICS_INTERVAL     = "athenz.zts.cache_metrics_interval";
     public static final String ZTS_PROP_AUTHORIZED_PROXY_USERS     = "athenz.zts.authorized_proxy_users";
     public static final String ZTS_PROP_SECURE_REQUESTS_ONLY       = "athenz.zts.secure_requests_only";
     public static final String ZTS_PROP_STATUS_CERT_SIGNER         = "athenz.zts.status_cert_signer";
@@ -219,6 +230,11 @@ public final class ZTSConsts {
     public static final String ZTS_PROP_VALIDATE_USER_AUTHORITY_PRINCIPALS    = "athenz.zts.validate_user_authority_principals";
     public static final String ZTS_PROP_WORKLOAD_RECORD_STORE_FACTORY_CLASS   = "athenz.zts.workload_record_store_factory_class";
 
+    public static final String ZTS_PROP_DOMAIN_CHANGE_TOPIC_NAMES              = "athenz.zts.domain_change_topic_names";
+    public static final String ZTS_PROP_DOMAIN_CHANGE_SUBSCRIBER_FACTORY_CLASS = "athenz.zts.domain_change_subscriber_factory_class";
+    public static final String ZTS_PROP_DOMAIN_CHANGE_SUBSCRIPTION_NAME        = "athenz.zts.domain_change_subscription_name";
+    public static final String ZTS_PROP_DOMAIN_CHANGE_SUBSCRIPTION_TYPE        = "athenz.zts.domain_change_subscription_type";
+
     public static final String ZTS_CHANGE_LOG_STORE_FACTORY_CLASS  = "com.yahoo.athenz.common.server.store.impl.ZMSFileChangeLogStoreFactory";
     public static final String ZTS_PKEY_STORE_FACTORY_CLASS        = "com.yahoo.athenz.auth.impl.FilePrivateKeyStoreFactory";
     public static final String ZTS_CERT_SIGNER_FACTORY_CLASS       = "com.yahoo.athenz.zts.cert.impl.crypki.HttpCertSignerFactory";
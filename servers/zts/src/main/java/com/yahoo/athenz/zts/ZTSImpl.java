@@ -19,6 +19,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.primitives.Bytes;
 import com.yahoo.athenz.auth.*;
 import com.yahoo.athenz.auth.impl.CertificateAuthority;
+import com.yahoo.athenz.auth.impl.CertificateIdentityCache;
 import com.yahoo.athenz.auth.impl.PrincipalIdentityIssuer;
 import com.yahoo.athenz.auth.token.*;
 import com.yahoo.athenz.auth.token.jwts.JwtsHelper;
@@ -30,7 +31,11 @@ import com.yahoo.athenz.auth.util.StringUtils;
 import com.yahoo.athenz.common.ServerCommonConsts;
 import com.yahoo.athenz.common.config.AuthzDetailsEntity;
 import com.yahoo.athenz.common.config.AuthzDetailsEntityList;
+import com.yahoo.athenz.common.messaging.ChangeSubscriber;
+import com.yahoo.athenz.common.messaging.ChangeSubscriberFactory;
+import com.yahoo.athenz.common.messaging.DomainChangeMessage;
 import com.yahoo.athenz.common.metrics.Metric;
+import com.yahoo.athenz.common.metrics.MetricCounterPublisher;
 import com.yahoo.athenz.common.metrics.MetricFactory;
 import com.yahoo.athenz.common.server.cert.CertificateDataValidator;
 import com.yahoo.athenz.common.server.cert.CertificateDataValidatorFactory;
@@ -72,7 +77,9 @@ import com.yahoo.athenz.instance.provider.impl.InstanceUtils;
 import com.yahoo.athenz.zms.DomainData;
 import com.yahoo.athenz.zms.RoleMeta;
 import com.yahoo.athenz.zms.TagValueList;
+import com.yahoo.athenz.zts.cache.AccessTokenCache;
 import com.yahoo.athenz.zts.cache.DataCache;
+import com.yahoo.athenz.zts.cache.SignedPolicyCache;
 import com.yahoo.athenz.zts.cert.*;
 import com.yahoo.athenz.zts.notification.ZTSNotificationTaskFactory;
 import com.yahoo.athenz.zts.store.CloudStore;
@@ -126,6 +133,7 @@ public class ZTSImpl implements ZTSHandler {
     protected InstanceCertManager instanceCertManager;
     protected InstanceProviderManager instanceProviderManager;
     protected Metric metric = null;
+    protected MetricCounterPublisher cacheMetricsPublisher = null;
     protected Schema schema = null;
     protected ServerPrivateKey privateOrigKey = null;
     protected ServerPrivateKey privateECKey = null;
@@ -144,6 +152,8 @@ public class ZTSImpl implements ZTSHandler {
     protected int jagTokenServiceMaxTimeout;
     protected DynamicConfigLong x509CertRefreshResetTime;
     protected long signedPolicyTimeout;
+    protected SignedPolicyCache signedPolicyCache = null;
+    protected AccessTokenCache accessTokenCache = null;
     protected static String serverHostName = null;
     protected AuditLogger auditLogger = null;
     protected Authority userAuthority = null;
@@ -256,6 +266,10 @@ public class ZTSImpl implements ZTSHandler {
 
     private static final String SYS_AUTH = "sys.auth";
 
+    static final String METRIC_CERT_IDENTITY_CACHE_HIT  = "certificate_identity_cache_hit";
+    static final String METRIC_CERT_IDENTITY_CACHE_MISS = "certificate_identity_cache_miss";
+    static final String METRIC_CERT_HASH_CACHE_HIT      = "cert_hash_cache_hit";
+
     private static final byte[] PERIOD = {46};
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ZTSImpl.class);
@@ -355,6 +369,18 @@ public class ZTSImpl implements ZTSHandler {
 
         loadMetricObject();
 
+        // create our signed policy cache if enabled
+
+        loadSignedPolicyCache();
+
+        // create our access token cache if enabled
+
+        loadAccessTokenCache();
+
+        // publish the hit counts of the certificate caches
+
+        loadCacheMetricsPublisher();
+
         // check if we need to load our hostname resolver for cert requests
 
         loadHostnameResolver();
@@ -379,6 +405,10 @@ public class ZTSImpl implements ZTSHandler {
 
             dataStore.setServiceCredentialsKey(serviceCredsEncryptionKey, serviceCredsEncryptionAlgorithm);
 
+            // set the subscribers for domain change messages if configured
+
+            dataStore.setChangeSubscribers(loadDomainChangeSubscribers());
+
             // Initialize our storage subsystem which would load all data into
             // memory and if necessary retrieve the data from ZMS. It will also
             // create the thread to monitor for changes from ZMS
@@ -391,7 +421,7 @@ public class ZTSImpl implements ZTSHandler {
 
         // set our authorizer
 
-        authorizer = new ZTSAuthorizer(dataStore);
+        authorizer = new ZTSAuthorizer(dataStore, metric);
 
         // create our instance certificate and provider managers
 
@@ -961,6 +991,41 @@ public class ZTSImpl implements ZTSHandler {
         return clogFactory.create(homeDir, privateKey.getKey(), privateKey.getId());
     }
 
+    List<ChangeSubscriber<DomainChangeMessage>> loadDomainChangeSubscribers() {
+
+        List<ChangeSubscriber<DomainChangeMessage>> subscribers = new ArrayList<>();
+        final String topicNames = System.getProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_TOPIC_NAMES, "");
+        if (topicNames.isEmpty()) {
+            return subscribers;
+        }
+
+        final String subscriberFactoryClass = System.getProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_SUBSCRIBER_FACTORY_CLASS);
+        ChangeSubscriberFactory<DomainChangeMessage> subscriberFactory;
+        try {
+            subscriberFactory = (ChangeSubscriberFactory<DomainChangeMessage>)
+                    Class.forName(subscriberFactoryClass).getDeclaredConstructor().newInstance();
+        } catch (Exception ex) {
+            LOGGER.error("Invalid ChangeSubscriberFactory class: {}", subscriberFactoryClass, ex);
+            throw new IllegalArgumentException("Invalid domain change subscriber factory class");
+        }
+
+        // each zts server must receive all the messages so by default
+        // we're using the server hostname as the subscription name
+
+        final String subscriptionName = System.getProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_SUBSCRIPTION_NAME,
+                "zts-" + serverHostName);
+        final String subscriptionType = System.getProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_SUBSCRIPTION_TYPE,
+                "Exclusive");
+
+        for (String topic : topicNames.split(",")) {
+            topic = topic.trim();
+            if (!topic.isEmpty()) {
+                subscribers.add(subscriberFactory.create(privateKeyStore, topic, subscriptionName, subscriptionType));
+            }
+        }
+        return subscribers;
+    }
+
     void loadMetricObject() {
 
         // determine our metric name
@@ -985,6 +1050,75 @@ public class ZTSImpl implements ZTSHandler {
         metric.increment("zts_startup");
     }
 
+    void loadSignedPolicyCache() {
+
+        // the cache size is the number of distinct signed policy
+        // requests (domain, format and policy versions) we keep
+
+        final long cacheSize = Long.parseLong(
+                System.getProperty(ZTSConsts.ZTS_PROP_SIGNED_POLICY_CACHE_SIZE, "1000"));
+        signedPolicyCache = (cacheSize > 0) ? new SignedPolicyCache(cacheSize, signedPolicyTimeout, metric) : null;
+    }
+
+    void loadAccessTokenCache() {
+
+        // the certificate hash is calculated for every mtls bound
+        // access token so we optionally cache the calculated values
+
+        AccessToken.setX509CertHashCacheSize(Long.parseLong(
+                System.getProperty(ZTSConsts.ZTS_PROP_CERT_HASH_CACHE_SIZE, "0")));
+
+        // the cache size is the number of distinct access token
+        // requests (principal, scope and token options) we keep
+
+        final long cacheSize = Long.parseLong(
+                System.getProperty(ZTSConsts.ZTS_PROP_ACCESS_TOKEN_CACHE_SIZE, "0"));
+        if (cacheSize <= 0) {
+            accessTokenCache = null;
+            return;
+        }
+
+        // cached tokens are only returned if they have the configured
+        // percentage of their lifetime remaining (between 1 and 99)
+
+        int minLifetimePercent = Integer.parseInt(
+                System.getProperty(ZTSConsts.ZTS_PROP_ACCESS_TOKEN_CACHE_MIN_LIFETIME, "75"));
+        minLifetimePercent = Math.min(99, Math.max(1, minLifetimePercent));
+
+        // the same token is only returned for the configured number of
+        // seconds since group and trust domain changes are not tracked
+
+        final long maxReuseTime = Long.parseLong(
+                System.getProperty(ZTSConsts.ZTS_PROP_ACCESS_TOKEN_CACHE_MAX_REUSE_TIME, "60"));
+        accessTokenCache = new AccessTokenCache(cacheSize, roleTokenMaxTimeout, minLifetimePercent,
+                maxReuseTime, metric);
+    }
+
+    void loadCacheMetricsPublisher() {
+
+        // the certificate caches in auth_core have no access to our
+        // metric object so we periodically publish their counters
+
+        cacheMetricsPublisher = new MetricCounterPublisher(metric);
+        for (Authority authority : authorities.getAuthorities()) {
+            if (!(authority instanceof CertificateAuthority)) {
+                continue;
+            }
+            CertificateIdentityCache identityCache = ((CertificateAuthority) authority).getCertificateIdentityCache();
+            if (identityCache != null) {
+                cacheMetricsPublisher.addCounter(METRIC_CERT_IDENTITY_CACHE_HIT, identityCache::getHitCount);
+                cacheMetricsPublisher.addCounter(METRIC_CERT_IDENTITY_CACHE_MISS, identityCache::getMissCount);
+            }
+        }
+
+        if (Long.parseLong(System.getProperty(ZTSConsts.ZTS_PROP_CERT_HASH_CACHE_SIZE, "0")) > 0) {
+            cacheMetricsPublisher.addCounter(METRIC_CERT_HASH_CACHE_HIT, AccessToken::getX509CertHashCacheHitCount);
+        }
+
+        cacheMetricsPublisher.start(Long.parseLong(
+                System.getProperty(ZTSConsts.ZTS_PROP_CACHE_METRICS_INTERVAL, "60")));
+    }
+
     void loadHostnameResolver() {
 
         final String resolverFactoryClass = System.getProperty(ZTSConsts.ZTS_PROP_HOSTNAME_RESOLVER_FACTORY_CLASS);
@@ -1569,6 +1703,34 @@ public class ZTSImpl implements ZTSHandler {
         // and all are lowercase
 
         Map<String, String> policyVersions = generatePolicyVersions(domainName, signedPolicyRequest);
+        JWSPolicyData jwsPolicyData = getJwsPolicyData(domainName, domainData, policyVersions,
+                signedPolicyRequest.getSignatureP1363Format());
+        if (jwsPolicyData == null) {
+            return Response.status(ResourceException.INTERNAL_SERVER_ERROR).build();
+        } else {
+            return Response.status(ResourceException.OK).entity(jwsPolicyData).header("ETag", tag).build();
+        }
+    }
+
+    JWSPolicyData getJwsPolicyData(final String domainName, DomainData domainData,
+            Map<String, String> policyVersions, boolean signatureP1363Format) {
+
+        // the signed object only changes when the domain is updated so
+        // if enabled we'll return the object from our cache
+
+        if (signedPolicyCache == null) {
+            return generateJwsPolicyData(domainName, domainData, policyVersions, signatureP1363Format);
+        }
+
+        final String cacheKey = SignedPolicyCache.generateKey(SignedPolicyCache.FORMAT_JWS,
+                domainName, signatureP1363Format, policyVersions);
+        return signedPolicyCache.getSignedPolicy(cacheKey, domainData.getModified().millis(),
+                getServerPrivateKeyId(keyAlgoForJsonWebObjects),
+                () -> generateJwsPolicyData(domainName, domainData, policyVersions, signatureP1363Format));
+    }
+
+    JWSPolicyData generateJwsPolicyData(final String domainName, DomainData domainData,
+            Map<String, String> policyVersions, boolean signatureP1363Format) {
 
         // first get our PolicyData object
 
@@ -1583,16 +1745,11 @@ public class ZTSImpl implements ZTSHandler {
         SignedPolicyData signedPolicyData = new SignedPolicyData()
                 .setPolicyData(policyData)
                 .setExpires(expires)
-                .setModified(modified)
+                .setModified(domainData.getModified())
                 .setZmsKeyId("")
                 .setZmsSignature("");
 
-        JWSPolicyData jwsPolicyData = signJwsPolicyData(signedPolicyData, signedPolicyRequest.getSignatureP1363Format());
-        if (jwsPolicyData == null) {
-            return Response.status(ResourceException.INTERNAL_SERVER_ERROR).build();
-        } else {
-            return Response.status(ResourceException.OK).entity(jwsPolicyData).header("ETag", tag).build();
-        }
+        return signJwsPolicyData(signedPolicyData, signatureP1363Format);
     }
 
     Map<String, String> generatePolicyVersions(final String domainName, SignedPolicyRequest signedPolicyRequest) {
@@ -1704,6 +1861,28 @@ public class ZTSImpl implements ZTSHandler {
             return Response.status(ResourceException.NOT_MODIFIED).header("ETag", tag).build();
         }
 
+        DomainSignedPolicyData result = getDomainSignedPolicyData(domainName, domainData);
+        return Response.status(ResourceException.OK).entity(result).header("ETag", tag).build();
+    }
+
+    DomainSignedPolicyData getDomainSignedPolicyData(final String domainName, DomainData domainData) {
+
+        // the signed object only changes when the domain is updated so
+        // if enabled we'll return the object from our cache
+
+        if (signedPolicyCache == null) {
+            return generateDomainSignedPolicyData(domainName, domainData);
+        }
+
+        final String cacheKey = SignedPolicyCache.generateKey(SignedPolicyCache.FORMAT_ZTS,
+                domainName, false, null);
+        return signedPolicyCache.getSignedPolicy(cacheKey, domainData.getModified().millis(),
+                getServerPrivateKeyId(keyAlgoForProprietaryObjects),
+                () -> generateDomainSignedPolicyData(domainName, domainData));
+    }
+
+    DomainSignedPolicyData generateDomainSignedPolicyData(final String domainName, DomainData domainData) {
+
         // first get our PolicyData object
 
         PolicyData policyData = new PolicyData()
@@ -1717,18 +1896,16 @@ public class ZTSImpl implements ZTSHandler {
         SignedPolicyData signedPolicyData = new SignedPolicyData()
                 .setPolicyData(policyData)
                 .setExpires(expires)
-                .setModified(modified)
+                .setModified(domainData.getModified())
                 .setZmsKeyId(domainData.getPolicies().getKeyId())
                 .setZmsSignature(domainData.getPolicies().getSignature());
 
         ServerPrivateKey privateKey = getServerPrivateKey(keyAlgoForProprietaryObjects);
         String signature = Crypto.sign(SignUtils.asCanonicalString(signedPolicyData), privateKey.getKey());
-        DomainSignedPolicyData result = new DomainSignedPolicyData()
+        return new DomainSignedPolicyData()
                 .setSignedPolicyData(signedPolicyData)
                 .setSignature(signature)
                 .setKeyId(privateKey.getId());
-
-        return Response.status(ResourceException.OK).entity(result).header("ETag", tag).build();
     }
 
     String convertEmptyStringToNull(String value) {
@@ -2560,6 +2737,11 @@ public class ZTSImpl implements ZTSHandler {
                 .collect(Collectors.toList());
     }
 
+    String getServerPrivateKeyId(final String keyType) {
+        ServerPrivateKey serverPrivateKey = getServerPrivateKey(keyType);
+        return (serverPrivateKey == null) ? null : serverPrivateKey.getId();
+    }
+
     ServerPrivateKey getServerPrivateKey(final String keyType) {
 
         // look for the preferred key type - RSA or EC.
@@ -3764,6 +3946,46 @@ public class ZTSImpl implements ZTSHandler {
 
         checkRoleTokenAuthorizedServiceRequest(principal, domainName, caller);
 
+        // if the request is cacheable then we'll return the previously
+        // signed token if it still has enough of its lifetime remaining
+
+        if (isAccessTokenCacheable(accessTokenRequest, tokenScope, data)) {
+            final String issuer = issuerResolver.getAccessTokenIssuer(ctx.request(),
+                    accessTokenRequest.isUseOpenIDIssuer());
+            final String cacheKey = AccessTokenCache.generateKey(principalName, accessTokenRequest.getScope(),
+                    accessTokenRequest.getExpiryTime(), principal.getX509Certificate(),
+                    accessTokenRequest.getProxyForPrincipal(), issuer, accessTokenRequest.isRoleInAudClaim());
+            return accessTokenCache.getAccessToken(cacheKey, data.getDomainData().getModified().millis(),
+                    getServerPrivateKeyId(keyAlgoForJsonWebObjects),
+                    () -> generateAccessTokenResponse(ctx, principal, accessTokenRequest, tokenScope, data,
+                            requestedRoles, principalDomain, caller));
+        }
+
+        return generateAccessTokenResponse(ctx, principal, accessTokenRequest, tokenScope, data,
+                requestedRoles, principalDomain, caller);
+    }
+
+    boolean isAccessTokenCacheable(AccessTokenRequest accessTokenRequest, AccessTokenScope tokenScope,
+            DataCache data) {
+
+        // we only cache plain access tokens. requests for id tokens,
+        // authorization details, actor or proxy principal spiffe uris
+        // are always processed
+
+        return accessTokenCache != null && data.getDomainData().getModified() != null
+                && !tokenScope.isOpenIdScope() && accessTokenRequest.getActor() == null
+                && StringUtil.isEmpty(accessTokenRequest.getAuthzDetails())
+                && accessTokenRequest.getProxyPrincipalsSpiffeUris() == null;
+    }
+
+    AccessTokenResponse generateAccessTokenResponse(ResourceContext ctx, Principal principal,
+            AccessTokenRequest accessTokenRequest, AccessTokenScope tokenScope, DataCache data,
+            String[] requestedRoles, final String principalDomain, final String caller) {
+
+        String principalName = principal.getFullName();
+        final String actor = accessTokenRequest.getActor();
+        final String domainName = tokenScope.getDomainName();
+
         // process our request and retrieve the roles for the principal
 
         Set<String> roles = new HashSet<>();
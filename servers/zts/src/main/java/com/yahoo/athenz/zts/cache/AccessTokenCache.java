@@ -0,0 +1,223 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.yahoo.athenz.auth.util.Crypto;
+import com.yahoo.athenz.common.metrics.Metric;
+import com.yahoo.athenz.zts.AccessTokenResponse;
+
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the signed access token responses returned for standard access
+ * token requests. Services typically request the same scope over and over
+ * (e.g. all instances of a service after a deployment) so instead of
+ * resolving the roles and signing a new token for every request, we return
+ * the previously signed token while it still has the configured percentage
+ * of its lifetime remaining. Each entry keeps the domain modified timestamp
+ * and the key id it was generated with and it's only returned if both
+ * values match the current ones. The roles in the token might also depend
+ * on group and trust domains, so a cached token is only reused for the
+ * configured max reuse time before it's signed again. Concurrent requests
+ * for the same entry wait for a single thread to generate the token.
+ */
+public class AccessTokenCache {
+
+    static final String METRIC_CACHE_HIT  = "access_token_cache_hit";
+    static final String METRIC_CACHE_MISS = "access_token_cache_miss";
+
+    final Cache<String, AccessTokenEntry> tokenCache;
+    private final int minLifetimePercent;
+    private final long maxReuseTime;
+    private final Metric metric;
+
+    static class AccessTokenEntry {
+
+        final long modified;
+        final String keyId;
+        final long createTime;
+        final long expiryTime;
+        final AccessTokenResponse response;
+
+        AccessTokenEntry(long modified, String keyId, long createTime, long expiryTime,
+                AccessTokenResponse response) {
+            this.modified = modified;
+            this.keyId = keyId;
+            this.createTime = createTime;
+            this.expiryTime = expiryTime;
+            this.response = response;
+        }
+    }
+
+    static class LoadResult {
+
+        final AccessTokenEntry entry;
+        final boolean generated;
+
+        LoadResult(AccessTokenEntry entry, boolean generated) {
+            this.entry = entry;
+            this.generated = generated;
+        }
+    }
+
+    public AccessTokenCache(long maxEntries, long maxTokenTimeoutSecs, int minLifetimePercent,
+            long maxReuseTime, Metric metric) {
+        this.minLifetimePercent = minLifetimePercent;
+        this.maxReuseTime = Math.max(1, maxReuseTime);
+        this.metric = metric;
+        tokenCache = CacheBuilder.newBuilder().concurrencyLevel(25)
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, Math.min(maxTokenTimeoutSecs, this.maxReuseTime))))
+                .build();
+    }
+
+    /**
+     * Generate the cache key for the access token request. The key includes
+     * all the request attributes that are included in the signed token.
+     * @param principalName name of the principal requesting the token
+     * @param scope requested scope
+     * @param expiryTime requested expiry time in seconds
+     * @param cert optional certificate the token is bound to
+     * @param proxyForPrincipal optional proxy for principal value
+     * @param issuer token issuer
+     * @param roleInAudClaim flag to include the role name in the audience claim
+     * @return cache key
+     */
+    public static String generateKey(final String principalName, final String scope, int expiryTime,
+            X509Certificate cert, final String proxyForPrincipal, final String issuer, boolean roleInAudClaim) {
+
+        StringBuilder key = new StringBuilder(256);
+        key.append(principalName).append('|').append(scope).append('|').append(expiryTime)
+                .append('|').append(roleInAudClaim ? '1' : '0').append('|').append(issuer);
+        if (proxyForPrincipal != null) {
+            key.append("|p:").append(proxyForPrincipal);
+        }
+
+        // the certificate signature is unique for every issued
+        // certificate so we use its hash as the certificate thumbprint
+
+        if (cert != null) {
+            key.append("|c:").append(Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(Crypto.sha256(cert.getSignature())));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Return the access token response for the given request. If the cache
+     * does not have a valid entry for the given domain modified timestamp
+     * and key id, the cached token was generated more than max reuse time
+     * seconds ago, or it does not have enough of its lifetime remaining,
+     * the generator is called to create a new token which is
+     * then stored in the cache for the subsequent requests. The expires_in
+     * field of the returned response reflects the remaining token lifetime.
+     * @param key cache key generated with generateKey
+     * @param modified domain modified timestamp in millis
+     * @param keyId id of the server key used to sign the token
+     * @param generator supplier to generate the access token response
+     * @return access token response
+     */
+    public AccessTokenResponse getAccessToken(final String key, long modified, final String keyId,
+            Supplier<AccessTokenResponse> generator) {
+
+        LoadResult result = loadAccessToken(key, modified, keyId, generator);
+        AccessTokenEntry entry = result.entry;
+        boolean generated = result.generated;
+
+        // if the entry is stale (the domain was updated, the key was rotated,
+        // the max reuse time has passed or the token is about to expire)
+        // we'll remove it from the cache and try one more time
+
+        long now = System.currentTimeMillis() / 1000;
+        if (!isValidEntry(entry, modified, keyId, now)) {
+            tokenCache.asMap().remove(key, entry);
+            result = loadAccessToken(key, modified, keyId, generator);
+            entry = result.entry;
+            generated |= result.generated;
+        }
+
+        metric.increment(generated ? METRIC_CACHE_MISS : METRIC_CACHE_HIT);
+
+        // if we still don't have a valid entry (e.g. another thread stored
+        // a token for an older domain version) then we'll just generate
+        // the token without updating the cache
+
+        if (!isValidEntry(entry, modified, keyId, now)) {
+            return generator.get();
+        }
+
+        AccessTokenResponse response = entry.response;
+        return new AccessTokenResponse().setAccess_token(response.getAccess_token())
+                .setToken_type(response.getToken_type()).setScope(response.getScope())
+                .setId_token(response.getId_token()).setExpires_in((int) (entry.expiryTime - now));
+    }
+
+    LoadResult loadAccessToken(final String key, long modified, final String keyId,
+            Supplier<AccessTokenResponse> generator) {
+
+        AtomicBoolean generated = new AtomicBoolean(false);
+        try {
+            AccessTokenEntry entry = tokenCache.get(key, () -> {
+                generated.set(true);
+                AccessTokenResponse response = generator.get();
+                final long now = System.currentTimeMillis() / 1000;
+                return new AccessTokenEntry(modified, keyId, now, now + response.getExpires_in(), response);
+            });
+            return new LoadResult(entry, generated.get());
+        } catch (UncheckedExecutionException | ExecutionException ex) {
+            throw (ex.getCause() instanceof RuntimeException) ? (RuntimeException) ex.getCause()
+                    : new IllegalStateException(ex.getCause());
+        }
+    }
+
+    boolean isValidEntry(AccessTokenEntry entry, long modified, final String keyId, long now) {
+
+        if (entry.modified != modified || !Objects.equals(entry.keyId, keyId)) {
+            return false;
+        }
+
+        // changes in group and trust domains are not reflected in
+        // the domain modified timestamp so we limit how long the
+        // same token is returned
+
+        if (now - entry.createTime >= maxReuseTime) {
+            return false;
+        }
+
+        // the token must have the configured percentage of its
+        // original lifetime remaining
+
+        final long remaining = entry.expiryTime - now;
+        return remaining > 0 && remaining * 100 >= (long) entry.response.getExpires_in() * minLifetimePercent;
+    }
+
+    /**
+     * Return the number of entries in the cache
+     * @return number of entries
+     */
+    public long size() {
+        return tokenCache.size();
+    }
+}
@@ -24,6 +24,7 @@ import com.yahoo.athenz.auth.util.CryptoException;
 import com.yahoo.athenz.common.config.AuthzDetailsEntity;
 import com.yahoo.athenz.common.config.AuthzDetailsField;
 import com.yahoo.athenz.common.server.ServerResourceException;
+import com.yahoo.athenz.common.server.util.AccessPolicyIndex;
 import com.yahoo.athenz.common.server.util.AuthzHelper;
 import com.yahoo.athenz.common.server.util.ResourceUtils;
 import com.yahoo.athenz.zms.*;
@@ -33,6 +34,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.yahoo.athenz.common.ServerCommonConsts.ATHENZ_SYS_DOMAIN;
@@ -40,6 +42,8 @@ import static com.yahoo.athenz.common.ServerCommonConsts.ATHENZ_SYS_DOMAIN;
 public class DataCache {
 
     DomainData domainData = null;
+    MemberPrefixRoleTrie memberPrefixRoleTrie = null;
+    AccessPolicyIndex accessPolicyIndex = null;
 
     // member ==> [ role1, role2, ...] complete map
     private final Map<String, Set<MemberRole>> memberRoleCache;
@@ -59,6 +63,12 @@ public class DataCache {
     private final Map<String, Map<String, List<String>>> transportRulesCache;
     private final Set<String> workloadStoreExcludeProvidersCache;
 
+    // when the cache is created from another cache object, the member
+    // and trust sets are shared between both caches so we keep track
+    // of the sets that were copied and can be modified in this cache
+
+    private final Set<Set<?>> ownedSets;
+
     public static final String ACTION_ASSUME_ROLE = "assume_role";
     public static final String ACTION_ASSUME_AWS_ROLE = "assume_aws_role";
     public static final String ACTION_LAUNCH = "launch";
@@ -86,6 +96,61 @@ public class DataCache {
         authzDetailsCache = new HashMap<>();
         transportRulesCache = new HashMap<>();
         workloadStoreExcludeProvidersCache = new HashSet<>();
+        ownedSets = null;
+    }
+
+    /**
+     * Create a new cache object from an existing cache for the same domain
+     * when only the roles in the domain have been modified. The maps
+     * generated from the policies, services and entities are shared with
+     * the original cache, while the role member, trust and role meta maps
+     * are copied and updated with copy-on-write semantics, so the original
+     * cache is not modified and can still be used by other threads.
+     * @param dataCache original cache object for the domain
+     */
+    public DataCache(DataCache dataCache) {
+        memberRoleCache = new HashMap<>(dataCache.memberRoleCache);
+        memberPrefixRoleCache = new HashMap<>(dataCache.memberPrefixRoleCache);
+        memberAllRoleCache = new HashSet<>(dataCache.memberAllRoleCache);
+        trustCache = new HashMap<>(dataCache.trustCache);
+        roleMetaCache = new HashMap<>(dataCache.roleMetaCache);
+        hostCache = dataCache.hostCache;
+        awsRoleCache = dataCache.awsRoleCache;
+        publicKeyCache = dataCache.publicKeyCache;
+        svcCredsCache = dataCache.svcCredsCache;
+        svcClientIdCache = dataCache.svcClientIdCache;
+        providerDnsSuffixCache = dataCache.providerDnsSuffixCache;
+        providerHostnameAllowedSuffixCache = dataCache.providerHostnameAllowedSuffixCache;
+        providerHostnameDeniedSuffixCache = dataCache.providerHostnameDeniedSuffixCache;
+        authzDetailsCache = dataCache.authzDetailsCache;
+        transportRulesCache = dataCache.transportRulesCache;
+        workloadStoreExcludeProvidersCache = dataCache.workloadStoreExcludeProvidersCache;
+        ownedSets = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Return the set for the given key that can be updated by this cache.
+     * If the set is shared with the cache this object was created from,
+     * then a copy of the set is stored in the map and returned.
+     * @param map map of sets
+     * @param key key for the set
+     * @return set that can be modified
+     */
+    <T> Set<T> mutableSet(Map<String, Set<T>> map, final String key) {
+
+        Set<T> set = map.get(key);
+        if (set == null) {
+            set = new HashSet<>();
+            map.put(key, set);
+            if (ownedSets != null) {
+                ownedSets.add(set);
+            }
+        } else if (ownedSets != null && !ownedSets.contains(set)) {
+            set = new HashSet<>(set);
+            map.put(key, set);
+            ownedSets.add(set);
+        }
+        return set;
     }
     
     public void setDomainData(DomainData domainData) {
@@ -138,16 +203,10 @@ public class DataCache {
                 memberAllRoleCache.add(new MemberRole(roleName, expiration));
             } else if (memberName.endsWith("*")) {
                 final String keyName = memberName.substring(0, memberName.length() - 1);
-                if (!memberPrefixRoleCache.containsKey(keyName)) {
-                    memberPrefixRoleCache.put(keyName, new HashSet<>());
-                }
-                final Set<MemberRole> rolesForMember = memberPrefixRoleCache.get(keyName);
+                final Set<MemberRole> rolesForMember = mutableSet(memberPrefixRoleCache, keyName);
                 rolesForMember.add(new MemberRole(roleName, expiration));
             } else {
-                if (!memberRoleCache.containsKey(memberName)) {
-                    memberRoleCache.put(memberName, new HashSet<>());
-                }
-                final Set<MemberRole> rolesForMember = memberRoleCache.get(memberName);
+                final Set<MemberRole> rolesForMember = mutableSet(memberRoleCache, memberName);
                 rolesForMember.add(new MemberRole(roleName, expiration));
             }
         }
@@ -176,13 +235,63 @@ public class DataCache {
             return;
         }
         
-        if (!trustCache.containsKey(trustDomain)) {
-            trustCache.put(trustDomain, new HashSet<>());
-        }
-        
-        final Set<String> rolesForTrustDomain = trustCache.get(trustDomain);
+        final Set<String> rolesForTrustDomain = mutableSet(trustCache, trustDomain);
         rolesForTrustDomain.add(roleName);
     }
+
+    /**
+     * Remove all the entries generated for the given role when it was
+     * processed. This is used when updating the cache for a domain where
+     * the role was either deleted or modified.
+     * @param role role object as it was processed by this cache
+     */
+    public void removeRole(Role role) {
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Removing role: {}", role.getName());
+        }
+
+        final String roleName = role.getName();
+        if (role.getRoleMembers() != null) {
+            for (RoleMember member : role.getRoleMembers()) {
+                final String memberName = member.getMemberName();
+                if (memberName.equals("*")) {
+                    memberAllRoleCache.removeIf(memberRole -> roleName.equals(memberRole.getRole()));
+                } else if (memberName.endsWith("*")) {
+                    removeMemberRole(memberPrefixRoleCache, memberName.substring(0, memberName.length() - 1), roleName);
+                } else {
+                    removeMemberRole(memberRoleCache, memberName, roleName);
+                }
+            }
+        }
+
+        final String trustDomain = role.getTrust();
+        if (trustDomain != null && trustCache.containsKey(trustDomain)) {
+            final Set<String> rolesForTrustDomain = mutableSet(trustCache, trustDomain);
+            rolesForTrustDomain.remove(roleName);
+            if (rolesForTrustDomain.isEmpty()) {
+                trustCache.remove(trustDomain);
+            }
+        }
+
+        final String shortRoleName = AthenzUtils.extractRoleName(roleName);
+        if (shortRoleName != null) {
+            roleMetaCache.remove(shortRoleName);
+        }
+    }
+
+    void removeMemberRole(Map<String, Set<MemberRole>> memberRoles, final String memberName, final String roleName) {
+
+        if (!memberRoles.containsKey(memberName)) {
+            return;
+        }
+
+        final Set<MemberRole> rolesForMember = mutableSet(memberRoles, memberName);
+        rolesForMember.removeIf(memberRole -> roleName.equals(memberRole.getRole()));
+        if (rolesForMember.isEmpty()) {
+            memberRoles.remove(memberName);
+        }
+    }
     
     public void processRole(Role role) {
         
@@ -208,7 +317,7 @@ public class DataCache {
         processRoleMeta(role);
     }
 
-    void setRoleMemberGroupType(List<RoleMember> roleMembers) {
+    public void setRoleMemberGroupType(List<RoleMember> roleMembers) {
 
         if (roleMembers == null || roleMembers.isEmpty()) {
             return;
@@ -567,6 +676,71 @@ public class DataCache {
         return memberPrefixRoleCache;
     }
     
+    /**
+     * Build the immutable role resolution index once all the roles
+     * and policies for the domain have been processed. Until the index
+     * is built, prefix lookups fall back to scanning the prefix map.
+     */
+    public void buildRoleIndex() {
+        memberPrefixRoleTrie = new MemberPrefixRoleTrie(memberPrefixRoleCache);
+    }
+
+    /**
+     * Build the compiled policy index used by the authorizer for
+     * access checks against this domain.
+     * @param domainData domain data object the cache is built from
+     */
+    public void buildAccessPolicyIndex(DomainData domainData) {
+        buildAccessPolicyIndex(domainData, null);
+    }
+
+    /**
+     * Build the compiled policy index used by the authorizer for
+     * access checks against this domain reusing the unmodified
+     * roles from the given index
+     * @param domainData domain data object the cache is built from
+     * @param previousIndex index built for the previous version of the domain
+     */
+    public void buildAccessPolicyIndex(DomainData domainData, AccessPolicyIndex previousIndex) {
+        SignedPolicies signedPolicies = domainData.getPolicies();
+        List<Policy> policies = (signedPolicies == null || signedPolicies.getContents() == null) ? null
+                : signedPolicies.getContents().getPolicies();
+        accessPolicyIndex = AccessPolicyIndex.build(domainData.getName(), domainData.getRoles(),
+                policies, previousIndex);
+    }
+
+    /**
+     * Return the compiled policy index for the domain
+     * @return access policy index or null if not available
+     */
+    public AccessPolicyIndex getAccessPolicyIndex() {
+        return accessPolicyIndex;
+    }
+
+    /**
+     * Pass all role sets configured for wildcard members whose prefix
+     * matches the given principal to the specified consumer
+     * @param principal name of the principal
+     * @param consumer consumer to process matching member role sets
+     */
+    public void processPrefixMemberRoleSets(final String principal, Consumer<Set<MemberRole>> consumer) {
+
+        if (memberPrefixRoleCache.isEmpty()) {
+            return;
+        }
+
+        if (memberPrefixRoleTrie != null) {
+            memberPrefixRoleTrie.findMatchingRoleSets(principal, consumer);
+            return;
+        }
+
+        for (Map.Entry<String, Set<MemberRole>> entry : memberPrefixRoleCache.entrySet()) {
+            if (principal.startsWith(entry.getKey())) {
+                consumer.accept(entry.getValue());
+            }
+        }
+    }
+
     /**
      * Return the number of members in the cache
      * @return member count
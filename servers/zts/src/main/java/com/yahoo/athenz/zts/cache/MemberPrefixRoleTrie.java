@@ -0,0 +1,131 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.cache;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Immutable character trie of the wildcard (prefix) members of a domain.
+ * The trie is built once when the domain data cache is generated and
+ * allows us to find all the prefix entries that match a given principal
+ * with a single walk over the principal name instead of checking every
+ * configured prefix with startsWith.
+ */
+public class MemberPrefixRoleTrie {
+
+    private static final char[] EMPTY_KEYS = new char[0];
+    private static final Node[] EMPTY_NODES = new Node[0];
+
+    private static final class Node {
+
+        char[] keys = EMPTY_KEYS;
+        Node[] children = EMPTY_NODES;
+        Set<MemberRole> memberRoles;
+
+        Node getChild(char key) {
+            int idx = Arrays.binarySearch(keys, key);
+            return idx < 0 ? null : children[idx];
+        }
+
+        Node addChild(char key) {
+            int idx = Arrays.binarySearch(keys, key);
+            if (idx >= 0) {
+                return children[idx];
+            }
+
+            // insert the new key at the expected position so
+            // our keys array is always sorted for binary search
+
+            final int pos = -(idx + 1);
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, pos);
+            System.arraycopy(children, 0, newChildren, 0, pos);
+            System.arraycopy(keys, pos, newKeys, pos + 1, keys.length - pos);
+            System.arraycopy(children, pos, newChildren, pos + 1, children.length - pos);
+
+            Node node = new Node();
+            newKeys[pos] = key;
+            newChildren[pos] = node;
+            keys = newKeys;
+            children = newChildren;
+            return node;
+        }
+    }
+
+    private final Node root = new Node();
+    private final int size;
+
+    /**
+     * Build the trie from the given prefix member map
+     * @param prefixRoleMap map of member prefixes (without the trailing *) to their roles
+     */
+    public MemberPrefixRoleTrie(Map<String, Set<MemberRole>> prefixRoleMap) {
+
+        int count = 0;
+        if (prefixRoleMap != null) {
+            for (Map.Entry<String, Set<MemberRole>> entry : prefixRoleMap.entrySet()) {
+                final Set<MemberRole> memberRoles = entry.getValue();
+                if (memberRoles == null || memberRoles.isEmpty()) {
+                    continue;
+                }
+                Node node = root;
+                final String prefix = entry.getKey();
+                for (int i = 0; i < prefix.length(); i++) {
+                    node = node.addChild(prefix.charAt(i));
+                }
+                node.memberRoles = memberRoles;
+                count += 1;
+            }
+        }
+        size = count;
+    }
+
+    /**
+     * Return the number of prefix entries in the trie
+     * @return number of prefixes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Pass every member role set whose prefix matches the given
+     * principal name to the specified consumer
+     * @param principal name of the principal
+     * @param consumer consumer to process matching member role sets
+     */
+    public void findMatchingRoleSets(final String principal, Consumer<Set<MemberRole>> consumer) {
+
+        Node node = root;
+        if (node.memberRoles != null) {
+            consumer.accept(node.memberRoles);
+        }
+        final int length = principal.length();
+        for (int i = 0; i < length; i++) {
+            node = node.getChild(principal.charAt(i));
+            if (node == null) {
+                return;
+            }
+            if (node.memberRoles != null) {
+                consumer.accept(node.memberRoles);
+            }
+        }
+    }
+}
@@ -15,14 +15,26 @@
  */
 package com.yahoo.athenz.zts.cache;
 
+import com.yahoo.athenz.auth.util.StringUtils;
+
+import java.util.regex.Pattern;
+
 public class MemberRole {
     
     final String role;
     final long expiration;
+    final Pattern rolePattern;
     
     public MemberRole(String role, long expiration) {
         this.role = role;
         this.expiration = expiration;
+
+        // if the role name includes any glob characters (e.g. assume_role
+        // assertions with wildcard resources) we'll compile the pattern
+        // once here instead of for every trusted role check
+
+        this.rolePattern = (role != null && StringUtils.containsMatchCharacter(role)) ?
+                Pattern.compile(StringUtils.patternFromGlob(role)) : null;
     }
 
     public String getRole() {
@@ -32,6 +44,16 @@ public class MemberRole {
     public long getExpiration() {
         return expiration;
     }
+
+    /**
+     * Check if the given role name matches our role which
+     * might be a glob pattern
+     * @param roleName name of the role to check
+     * @return true if the role name matches, false otherwise
+     */
+    public boolean matchesRole(final String roleName) {
+        return rolePattern != null ? rolePattern.matcher(roleName).matches() : roleName.equals(role);
+    }
     
     @Override
     public int hashCode() {
@@ -0,0 +1,169 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.yahoo.athenz.common.metrics.Metric;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the signed policy data objects returned to the ZPU clients.
+ * The signed object only changes when the domain is updated or the server
+ * signing key is rotated so each entry keeps the domain modified timestamp
+ * and the key id it was generated with and it's only returned if both
+ * values match the current ones. The signed policy data includes its own
+ * expiry timestamp so entries are only served for half of the signed
+ * policy timeout to make sure clients always receive objects with most of
+ * their validity period remaining. Concurrent requests for the same entry
+ * wait for a single thread to generate the signature.
+ */
+public class SignedPolicyCache {
+
+    static final String METRIC_CACHE_HIT  = "signed_policy_cache_hit";
+    static final String METRIC_CACHE_MISS = "signed_policy_cache_miss";
+
+    public static final String FORMAT_JWS = "jws";
+    public static final String FORMAT_ZTS = "zts";
+
+    private final Cache<String, SignedPolicy> policyCache;
+    private final Metric metric;
+
+    static class SignedPolicy {
+
+        final long modified;
+        final String keyId;
+        final Object signedData;
+
+        SignedPolicy(long modified, String keyId, Object signedData) {
+            this.modified = modified;
+            this.keyId = keyId;
+            this.signedData = signedData;
+        }
+    }
+
+    public SignedPolicyCache(long maxEntries, long signedPolicyTimeoutMillis, Metric metric) {
+        this.metric = metric;
+        policyCache = CacheBuilder.newBuilder().concurrencyLevel(25)
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, signedPolicyTimeoutMillis / 2)))
+                .build();
+    }
+
+    /**
+     * Generate the cache key for the signed policy request
+     * @param format format of the signed object - jws or zts
+     * @param domainName name of the domain
+     * @param signatureP1363Format p1363 signature format flag
+     * @param policyVersions optional map of requested policy versions
+     * @return cache key
+     */
+    public static String generateKey(final String format, final String domainName,
+            boolean signatureP1363Format, Map<String, String> policyVersions) {
+
+        StringBuilder key = new StringBuilder(domainName.length() + 16);
+        key.append(format).append(':').append(domainName).append(':').append(signatureP1363Format ? '1' : '0');
+        if (policyVersions != null && !policyVersions.isEmpty()) {
+
+            // the versions are provided by the client in any order
+            // so we need to sort them to generate a consistent key
+
+            for (Map.Entry<String, String> entry : new TreeMap<>(policyVersions).entrySet()) {
+                key.append(':').append(entry.getKey()).append('=').append(entry.getValue());
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Return the signed policy object for the given request. If the cache
+     * does not have a valid entry for the given domain modified timestamp
+     * and key id, the signer is called to generate the object which is then
+     * stored in the cache for the subsequent requests.
+     * @param key cache key generated with generateKey
+     * @param modified domain modified timestamp in millis
+     * @param keyId id of the server key used to sign the object
+     * @param signer supplier to generate the signed object
+     * @return signed policy object or null if the signer was not able to generate it
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getSignedPolicy(final String key, long modified, final String keyId, Supplier<T> signer) {
+
+        boolean[] generated = { false };
+        SignedPolicy entry = loadSignedPolicy(key, modified, keyId, signer, generated);
+
+        // if the entry is stale (the domain was updated or the key was rotated)
+        // we'll remove it from the cache and try one more time
+
+        if (entry != null && !isValidEntry(entry, modified, keyId)) {
+            policyCache.asMap().remove(key, entry);
+            entry = loadSignedPolicy(key, modified, keyId, signer, generated);
+        }
+
+        metric.increment(generated[0] ? METRIC_CACHE_MISS : METRIC_CACHE_HIT);
+
+        if (entry == null) {
+            return null;
+        }
+
+        // if we still don't have a valid entry (e.g. another thread stored
+        // an object for an older domain version) then we'll just generate
+        // the object without updating the cache
+
+        return isValidEntry(entry, modified, keyId) ? (T) entry.signedData : signer.get();
+    }
+
+    <T> SignedPolicy loadSignedPolicy(final String key, long modified, final String keyId,
+            Supplier<T> signer, boolean[] generated) {
+
+        try {
+            return policyCache.get(key, () -> {
+                generated[0] = true;
+                T signedData = signer.get();
+                return (signedData == null) ? null : new SignedPolicy(modified, keyId, signedData);
+            });
+        } catch (CacheLoader.InvalidCacheLoadException ex) {
+
+            // guava does not allow null values so a failed
+            // signature is reported with this exception
+
+            return null;
+        } catch (UncheckedExecutionException | ExecutionException ex) {
+            throw (ex.getCause() instanceof RuntimeException) ? (RuntimeException) ex.getCause()
+                    : new IllegalStateException(ex.getCause());
+        }
+    }
+
+    boolean isValidEntry(SignedPolicy entry, long modified, final String keyId) {
+        return entry.modified == modified && Objects.equals(entry.keyId, keyId);
+    }
+
+    /**
+     * Return the number of entries in the cache
+     * @return number of entries
+     */
+    public long size() {
+        return policyCache.size();
+    }
+}
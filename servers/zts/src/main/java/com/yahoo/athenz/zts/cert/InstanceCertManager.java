@@ -31,7 +31,7 @@ import com.yahoo.athenz.common.server.dns.HostnameResolver;
 import com.yahoo.athenz.common.server.notification.NotificationManager;
 import com.yahoo.athenz.common.server.ServerResourceException;
 import com.yahoo.athenz.common.server.ssh.*;
-import com.yahoo.athenz.common.server.util.IPBlock;
+import com.yahoo.athenz.common.server.util.IPPrefixTrie;
 import com.yahoo.athenz.common.server.util.config.dynamic.DynamicConfigBoolean;
 import com.yahoo.athenz.common.server.workload.WorkloadRecord;
 import com.yahoo.athenz.common.server.workload.WorkloadRecordStore;
@@ -77,7 +77,7 @@ public class InstanceCertManager {
     private ScheduledExecutorService certScheduledExecutor;
     private ScheduledExecutorService sshScheduledExecutor;
     private final ScheduledExecutorService ipBlockScheduledExecutor;
-    private final ConcurrentHashMap<String, List<IPBlock>> instanceCertIPBlocks;
+    private final ConcurrentHashMap<String, IPPrefixTrie> instanceCertIPBlocks;
     private String caX509CertificateSigner = null;
     private Map<String, String> caX509ProviderCertificateSigners = null;
     private Map<String, String> caSshProviderCertificateSigners = null;
@@ -203,7 +203,7 @@ public class InstanceCertManager {
     }
 
     // for testing only
-    protected final ConcurrentHashMap<String, List<IPBlock>> getInstanceCertIPBlocks() {
+    protected final ConcurrentHashMap<String, IPPrefixTrie> getInstanceCertIPBlocks() {
         return instanceCertIPBlocks;
     }
 
@@ -382,13 +382,13 @@ public class InstanceCertManager {
     }
 
     private static boolean loadAllowedInstanceCertIPAddresses(
-            ConcurrentHashMap<String, List<IPBlock>> instanceProviderCertIPBlocks) {
+            ConcurrentHashMap<String, IPPrefixTrie> instanceProviderCertIPBlocks) {
 
         // first, let's load the default provider ip blocks for the zts svc token provider
         // we're not going to block the server from startup since this api
         // is deprecated and will be removed in the future
 
-        List<IPBlock> svcCertIPBlocks = new ArrayList<>();
+        IPPrefixTrie svcCertIPBlocks = new IPPrefixTrie();
         if (loadAllowedIPAddresses(svcCertIPBlocks, System.getProperty(ZTSConsts.ZTS_PROP_CERT_REFRESH_IP_FNAME))) {
             if (hasProviderChangeThresholdNotExceeded(instanceProviderCertIPBlocks, ZTS_SVC_TOKEN_PROVIDER,
                     svcCertIPBlocks.size())) {
@@ -423,12 +423,9 @@ public class InstanceCertManager {
 
         for (ProviderIPBlock ipBlock : ipBlocks.getIpblocks()) {
 
-            List<IPBlock> certIPBlocks;
+            IPPrefixTrie certIPBlocks = new IPPrefixTrie();
             final String filename = ipBlock.getFilename();
-            if (filename == null) {
-                certIPBlocks = Collections.emptyList();
-            } else {
-                certIPBlocks = new ArrayList<>();
+            if (filename != null) {
                 if (!loadAllowedIPAddresses(certIPBlocks, filename)) {
                     LOGGER.error("Invalid provider ip file {}", filename);
                     return false;
@@ -444,12 +441,12 @@ public class InstanceCertManager {
         return true;
     }
 
-    static boolean hasProviderChangeThresholdNotExceeded(ConcurrentHashMap<String, List<IPBlock>> providerCertIPBlocks,
+    static boolean hasProviderChangeThresholdNotExceeded(ConcurrentHashMap<String, IPPrefixTrie> providerCertIPBlocks,
             final String provider, int newSize) {
 
         // first check to see if the provider is already present
 
-        List<IPBlock> existingIPBlocks = providerCertIPBlocks.get(provider);
+        IPPrefixTrie existingIPBlocks = providerCertIPBlocks.get(provider);
 
         // we're going to skip the update if the new size is more than 25% of the original size
         // this is to prevent any accidental changes to the configuration
@@ -533,7 +530,7 @@ public class InstanceCertManager {
         return new String(data);
     }
 
-    static boolean loadAllowedIPAddresses(List<IPBlock> ipBlocks, final String ipAddressFileName) {
+    static boolean loadAllowedIPAddresses(IPPrefixTrie ipBlocks, final String ipAddressFileName) {
 
         if (StringUtil.isEmpty(ipAddressFileName)) {
             return true;
@@ -564,23 +561,25 @@ public class InstanceCertManager {
         }
         
         for (IPPrefix prefix : prefixList) {
-            
-            // for now, we're only supporting IPv4 blocks
-            
-            final String ipEntry = prefix.getIpv4Prefix();
-            if (ipEntry == null) {
-                continue;
-            }
-            
-            try {
-                ipBlocks.add(new IPBlock(ipEntry));
-            } catch (Exception ex) {
-                LOGGER.error("Skipping invalid ip block entry: {}, error: {}", ipEntry, ex.getMessage());
-            }
+            addIPBlock(ipBlocks, prefix.getIpv4Prefix());
+            addIPBlock(ipBlocks, prefix.getIpv6Prefix());
         }
         
         return true;
     }
+
+    static void addIPBlock(IPPrefixTrie ipBlocks, final String ipEntry) {
+
+        if (ipEntry == null) {
+            return;
+        }
+
+        try {
+            ipBlocks.addPrefix(ipEntry);
+        } catch (Exception ex) {
+            LOGGER.error("Skipping invalid ip block entry: {}, error: {}", ipEntry, ex.getMessage());
+        }
+    }
     
     private void loadCertificateObjectStore(PrivateKeyStore keyStore) {
         
@@ -1101,7 +1100,7 @@ public class InstanceCertManager {
     }
     
     public boolean verifyCertRefreshIPAddress(final String ipAddress) {
-        final List<IPBlock> certIPBlocks = instanceCertIPBlocks.get(ZTS_SVC_TOKEN_PROVIDER);
+        final IPPrefixTrie certIPBlocks = instanceCertIPBlocks.get(ZTS_SVC_TOKEN_PROVIDER);
         if (certIPBlocks == null) {
             return true;
         }
@@ -1110,7 +1109,7 @@ public class InstanceCertManager {
 
     public boolean verifyInstanceCertIPAddress(final String provider, final String ipAddress) {
 
-        final List<IPBlock> certIPBlocks = instanceCertIPBlocks.get(provider);
+        final IPPrefixTrie certIPBlocks = instanceCertIPBlocks.get(provider);
 
         // if we have no blocks defined for the provider, then we'll return
         // failure if we have others defined or success if there are no
@@ -1241,21 +1240,15 @@ public class InstanceCertManager {
         return true;
     }
 
-    boolean verifyIPAddressAccess(final String ipAddress, final List<IPBlock> ipBlocks) {
+    boolean verifyIPAddressAccess(final String ipAddress, final IPPrefixTrie ipBlocks) {
         
-        // if the list has no IP addresses then we allow all
+        // if the trie has no IP blocks then we allow all
         
         if (ipBlocks.isEmpty()) {
             return true;
         }
-        
-        long ipAddr = IPBlock.convertIPToLong(ipAddress);
-        for (IPBlock ipBlock : ipBlocks) {
-            if (ipBlock.ipCheck(ipAddr)) {
-                return true;
-            }
-        }
-        return false;
+
+        return ipBlocks.contains(ipAddress);
     }
 
     public void logX509Cert(final Principal principal, final String ip, final String provider,
@@ -1548,9 +1541,9 @@ public class InstanceCertManager {
 
     static class RefreshAllowedIPAddresses implements Runnable {
 
-        ConcurrentHashMap<String, List<IPBlock>> instanceProviderCertIPBlocks;
+        ConcurrentHashMap<String, IPPrefixTrie> instanceProviderCertIPBlocks;
 
-        public RefreshAllowedIPAddresses(ConcurrentHashMap<String, List<IPBlock>> instanceProviderCertIPBlocks) {
+        public RefreshAllowedIPAddresses(ConcurrentHashMap<String, IPPrefixTrie> instanceProviderCertIPBlocks) {
             this.instanceProviderCertIPBlocks = instanceProviderCertIPBlocks;
         }
 
@@ -15,6 +15,7 @@
  */
 package com.yahoo.athenz.zts.cert.impl.crypki;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
@@ -22,12 +23,14 @@ import java.net.ConnectException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yahoo.athenz.auth.PrivateKeyStore;
 import com.yahoo.athenz.auth.PrivateKeyStoreFactory;
+import com.yahoo.athenz.common.ServerCommonConsts;
+import com.yahoo.athenz.common.metrics.Metric;
+import com.yahoo.athenz.common.metrics.MetricFactory;
 import com.yahoo.athenz.common.server.cert.CertSigner;
 import com.yahoo.athenz.common.server.cert.Priority;
 import com.yahoo.athenz.common.server.util.config.dynamic.DynamicConfigBoolean;
@@ -36,21 +39,31 @@ import com.yahoo.athenz.instance.provider.InstanceProvider;
 import com.yahoo.athenz.zts.ResourceException;
 import com.yahoo.athenz.zts.ZTSConsts;
 import com.yahoo.athenz.zts.utils.ZTSUtils;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
 import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
 import org.apache.hc.client5.http.ssl.TlsSocketStrategy;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.core5.http.ssl.TLS;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
 import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
 import org.apache.hc.core5.pool.PoolReusePolicy;
 import org.apache.hc.core5.util.TimeValue;
@@ -69,6 +82,11 @@ import static com.yahoo.athenz.common.server.util.config.ConfigManagerSingleton.
  *          https://github.com/theparanoids/crypki
  * Crypki is a service for interacting with an HSM or other PKCS #11 device.
  * It supports minting and signing of both SSH and x509 certificates.
+ * In async mode the x509 certificate requests are submitted through a
+ * non-blocking http client with a bounded number of in-flight requests
+ * (both in total and per signer key id). If a slot does not become
+ * available within the configured queue timeout, the request is rejected
+ * with a 503 Service Unavailable error instead of blocking the caller.
  */
 public class HttpCertSigner implements CertSigner {
 
@@ -78,6 +96,12 @@ public class HttpCertSigner implements CertSigner {
     private static final String CONTENT_JSON = "application/json";
     private static final String X509_KEY_META_IDENTIFIER = "x509-key";
 
+    static final String METRIC_ASYNC_REQUEST_TIMING = "certsign_async_request_timing";
+    static final String METRIC_ASYNC_INFLIGHT       = "certsign_async_inflight_requests";
+    static final String METRIC_ASYNC_QUEUE_DEPTH    = "certsign_async_queue_depth";
+    static final String METRIC_ASYNC_REJECTED       = "certsign_async_rejected_requests";
+    static final String METRIC_ASYNC_COALESCED      = "certsign_async_coalesced_requests";
+
     //default certificate expiration value of 30 days in seconds
     private static final int DEFAULT_CERT_EXPIRE_SECS = (int) TimeUnit.SECONDS.convert(30, TimeUnit.DAYS);
 
@@ -94,6 +118,18 @@ public class HttpCertSigner implements CertSigner {
     String defaultProviderSignerKeyId = X509_KEY_META_IDENTIFIER;
     Map<String, String> providerSignerKeys = new ConcurrentHashMap<>();
 
+    boolean asyncMode;
+    private CloseableHttpAsyncClient httpAsyncClient;
+    private PoolingAsyncClientConnectionManager asyncConnManager;
+    Semaphore inflightRequests;
+    int maxInflightRequests;
+    int maxInflightRequestsPerKey;
+    long queueTimeoutMs;
+    long asyncResponseTimeoutMs;
+    Metric metric;
+    final Map<String, Semaphore> keyInflightRequests = new ConcurrentHashMap<>();
+    final Map<String, CompletableFuture<String>> pendingRequests = new ConcurrentHashMap<>();
+
     public HttpCertSigner() {
 
         PrivateKeyStore privateKeyStore = loadServicePrivateKey();
@@ -126,6 +162,16 @@ public class HttpCertSigner implements CertSigner {
         this.connManager = createConnectionPooling(sslContextFactory.getSslContext());
         this.httpClient = createHttpClient(this.connManager);
 
+        // if configured, set up our async client for x509 certificate requests
+
+        asyncMode = Boolean.parseBoolean(System.getProperty(ZTSConsts.ZTS_PROP_CERTSIGN_ASYNC_MODE, "false"));
+        if (asyncMode) {
+            loadAsyncConfig();
+            this.asyncConnManager = createAsyncConnectionPooling(sslContextFactory.getSslContext());
+            this.httpAsyncClient = createHttpAsyncClient(this.asyncConnManager);
+            this.httpAsyncClient.start();
+        }
+
         // load our provider signer key details
 
         if (!loadProviderSignerKeyConfig()) {
@@ -137,6 +183,43 @@ public class HttpCertSigner implements CertSigner {
         LOGGER.info("HttpCertSigner connection pool stats {} ", this.connManager.getTotalStats().toString());
     }
 
+    void loadAsyncConfig() {
+
+        maxInflightRequests = Integer.parseInt(System.getProperty(ZTSConsts.ZTS_PROP_CERTSIGN_MAX_INFLIGHT, "64"));
+        if (maxInflightRequests <= 0) {
+            maxInflightRequests = 64;
+        }
+        inflightRequests = new Semaphore(maxInflightRequests, true);
+
+        // a per key limit of 0 indicates no limit other than the total one
+
+        maxInflightRequestsPerKey = Integer.parseInt(System.getProperty(
+                ZTSConsts.ZTS_PROP_CERTSIGN_MAX_INFLIGHT_PER_KEY, "0"));
+        queueTimeoutMs = Long.parseLong(System.getProperty(ZTSConsts.ZTS_PROP_CERTSIGN_QUEUE_TIMEOUT, "1000"));
+
+        // the caller waits for the response for the total time that
+        // the request along with its retries might take
+
+        int readTimeoutSec = Integer.parseInt(System.getProperty(ZTSConsts.ZTS_PROP_CERTSIGN_REQUEST_TIMEOUT, "25"));
+        asyncResponseTimeoutMs = TimeUnit.SECONDS.toMillis((long) readTimeoutSec * Math.max(1, certsignRequestRetryCount.get()));
+
+        metric = loadMetric();
+    }
+
+    Metric loadMetric() {
+
+        final String metricFactoryClass = System.getProperty(ZTSConsts.ZTS_PROP_CERTSIGN_METRIC_FACTORY_CLASS,
+                ServerCommonConsts.METRIC_DEFAULT_FACTORY_CLASS);
+        MetricFactory metricFactory;
+        try {
+            metricFactory = (MetricFactory) Class.forName(metricFactoryClass).getDeclaredConstructor().newInstance();
+        } catch (Exception ex) {
+            LOGGER.error("Invalid MetricFactory class: {}", metricFactoryClass, ex);
+            throw new IllegalArgumentException("Invalid metric class");
+        }
+        return metricFactory.create();
+    }
+
     private boolean loadProviderSignerKeyConfig() {
 
         // read the file list of providers and allowed IP addresses
@@ -237,10 +320,67 @@ public class HttpCertSigner implements CertSigner {
                 .build();
     }
 
+    /**
+     * Create an async http client connection manager based on given ssl context.
+     * The connection manager negotiates http/2 with the signer so multiple
+     * requests can be multiplexed over the same connection.
+     * @param sslContext ssl context containing keystore with client key/cert
+     * @return async connection manager object
+     */
+    PoolingAsyncClientConnectionManager createAsyncConnectionPooling(SSLContext sslContext) {
+
+        int defaultMaxPerRoute = Integer.parseInt(System.getProperty(ZTSConsts.ZTS_PROP_CERTSIGN_CONN_MAX_PER_ROUTE, "20"));
+        int maxTotal = Integer.parseInt(System.getProperty(ZTSConsts.ZTS_PROP_CERTSIGN_CONN_MAX_TOTAL, "30"));
+        int timeToLive = Integer.parseInt(System.getProperty(ZTSConsts.ZTS_PROP_CERTSIGN_CONN_TIME_TO_LIVE, "10"));
+        int connectionTimeoutSec = Integer.parseInt(System.getProperty(ZTSConsts.ZTS_PROP_CERTSIGN_CONNECT_TIMEOUT, "10"));
+        int readTimeoutSec = Integer.parseInt(System.getProperty(ZTSConsts.ZTS_PROP_CERTSIGN_REQUEST_TIMEOUT, "25"));
+        int handshakeTimeout = Integer.parseInt(System.getProperty(ZTSConsts.ZTS_PROP_CERTSIGN_HANDSHAKE_TIMEOUT, "30000"));
+
+        return PoolingAsyncClientConnectionManagerBuilder.create()
+                .setTlsStrategy(new DefaultClientTlsStrategy(sslContext))
+                .setDefaultTlsConfig(TlsConfig.custom()
+                        .setHandshakeTimeout(Timeout.ofMilliseconds(handshakeTimeout))
+                        .setSupportedProtocols(TLS.V_1_2, TLS.V_1_3)
+                        .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+                        .build())
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setConnPoolPolicy(PoolReusePolicy.LIFO)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setSocketTimeout(Timeout.ofSeconds(readTimeoutSec))
+                        .setConnectTimeout(Timeout.ofSeconds(connectionTimeoutSec))
+                        .setTimeToLive(TimeValue.ofMinutes(timeToLive))
+                        .build())
+                .setMaxConnPerRoute(defaultMaxPerRoute)
+                .setMaxConnTotal(maxTotal)
+                .build();
+    }
+
+    /**
+     * Create an async http client based on given connection manager. The
+     * retries are handled by the signer itself based on its configuration
+     * @param connectionManager async http connection manager object
+     * @return async http client
+     */
+    CloseableHttpAsyncClient createHttpAsyncClient(PoolingAsyncClientConnectionManager connectionManager) {
+
+        RequestConfig config = RequestConfig.custom()
+                .setRedirectsEnabled(false)
+                .build();
+        return HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(config)
+                .disableAutomaticRetries()
+                .build();
+    }
+
     public void setHttpClient(CloseableHttpClient client) {
         this.httpClient = client;
     }
 
+    public void setHttpAsyncClient(CloseableHttpAsyncClient client) {
+        this.httpAsyncClient = client;
+    }
+
     @Override
     public void close() {
         try {
@@ -250,6 +390,12 @@ public class HttpCertSigner implements CertSigner {
                 LOGGER.debug("connManager stats close(): {}", this.connManager.getTotalStats().toString());
             }
             this.connManager.close();
+            if (this.httpAsyncClient != null) {
+                this.httpAsyncClient.close();
+            }
+            if (this.asyncConnManager != null) {
+                this.asyncConnManager.close();
+            }
         } catch (Exception ignored) {
         }
     }
@@ -277,17 +423,21 @@ public class HttpCertSigner implements CertSigner {
     public String generateX509Certificate(String provider, String certIssuer, String csr, String keyUsage,
             int expireMins, Priority priority, String signerKeyId) {
 
-        StringEntity entity;
+        String requestContent;
         try {
-            final String requestContent = JACKSON_MAPPER.writeValueAsString(getX509CertSigningRequest(provider,
+            requestContent = JACKSON_MAPPER.writeValueAsString(getX509CertSigningRequest(provider,
                     csr, keyUsage, expireMins, priority, signerKeyId));
-            entity = new StringEntity(requestContent);
         } catch (Exception ex) {
             LOGGER.error("unable to generate csr", ex);
             return null;
         }
 
         final String x509CertUri = getX509CertUri(serverBaseUri, provider, signerKeyId);
+        if (asyncMode) {
+            return generateX509CertificateAsync(x509CertUri, requestContent, getProviderKeyId(provider, signerKeyId));
+        }
+
+        StringEntity entity = new StringEntity(requestContent);
         HttpPost httpPost = new HttpPost(x509CertUri);
         httpPost.setHeader("Accept", CONTENT_JSON);
         httpPost.setHeader("Content-Type", CONTENT_JSON);
@@ -313,6 +463,201 @@ public class HttpCertSigner implements CertSigner {
         return null;
     }
 
+    /**
+     * Submit the x509 certificate request through the async http client
+     * and wait for its response. Identical requests (e.g. a client retrying
+     * its request while the original one is still being processed) share
+     * the same signer request.
+     * @param x509CertUri signer uri
+     * @param requestContent json x509 certificate signing request
+     * @param keyId signer key id
+     * @return x509 Certificate or null in case of failure
+     */
+    String generateX509CertificateAsync(final String x509CertUri, final String requestContent, final String keyId) {
+
+        final String requestKey = x509CertUri + '\n' + requestContent;
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> pendingRequest = pendingRequests.putIfAbsent(requestKey, future);
+        if (pendingRequest != null) {
+            metric.increment(METRIC_ASYNC_COALESCED);
+            return waitForAsyncResponse(pendingRequest, x509CertUri);
+        }
+
+        try {
+            acquireRequestPermits(keyId);
+        } catch (ResourceException ex) {
+            pendingRequests.remove(requestKey, future);
+            future.completeExceptionally(ex);
+            throw ex;
+        }
+
+        final Object timerMetric = metric.startTiming(METRIC_ASYNC_REQUEST_TIMING, null);
+        future.whenComplete((cert, ex) -> {
+            pendingRequests.remove(requestKey, future);
+            releaseRequestPermits(keyId);
+            metric.stopTiming(timerMetric);
+        });
+
+        executeAsync(x509CertUri, requestContent, future, 1);
+        return waitForAsyncResponse(future, x509CertUri);
+    }
+
+    void executeAsync(final String x509CertUri, final String requestContent,
+            CompletableFuture<String> future, int attempt) {
+
+        SimpleHttpRequest request = SimpleRequestBuilder.post(x509CertUri)
+                .setHeader("Accept", CONTENT_JSON)
+                .setBody(requestContent, ContentType.APPLICATION_JSON)
+                .build();
+
+        try {
+            httpAsyncClient.execute(request, new FutureCallback<>() {
+
+                @Override
+                public void completed(SimpleHttpResponse response) {
+                    future.complete(processAsyncHttpResponse(x509CertUri, response, 201));
+                }
+
+                @Override
+                public void failed(Exception ex) {
+
+                    // retry configured number of times before returning failure
+
+                    final int retryCount = certsignRequestRetryCount.get();
+                    LOGGER.error("Unable to process x509 certificate request to url {}, try: {}/{}",
+                            x509CertUri, attempt, retryCount, ex);
+                    if (attempt < retryCount && (ex instanceof ConnectException || !retryConnFailuresOnly.get())) {
+                        executeAsync(x509CertUri, requestContent, future, attempt + 1);
+                    } else {
+                        future.complete(null);
+                    }
+                }
+
+                @Override
+                public void cancelled() {
+                    LOGGER.error("x509 certificate request to url {} was cancelled", x509CertUri);
+                    future.complete(null);
+                }
+            });
+        } catch (Exception ex) {
+            LOGGER.error("Unable to submit x509 certificate request to url {}", x509CertUri, ex);
+            future.complete(null);
+        }
+    }
+
+    String waitForAsyncResponse(CompletableFuture<String> future, final String x509CertUri) {
+
+        try {
+            return future.get(asyncResponseTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            LOGGER.error("Timed out waiting for x509 certificate response from url {}", x509CertUri);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted waiting for x509 certificate response from url {}", x509CertUri);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof ResourceException) {
+                throw (ResourceException) ex.getCause();
+            }
+            LOGGER.error("Unable to process x509 certificate request to url {}", x509CertUri, ex);
+        }
+        return null;
+    }
+
+    /**
+     * Acquire the permits for a new signer request. The per key permit
+     * is acquired first so that requests waiting for a busy key do not
+     * hold any of the shared permits.
+     * @param keyId signer key id
+     * @throws ResourceException with 503 status if permits are not
+     *  available within the configured queue timeout
+     */
+    void acquireRequestPermits(final String keyId) {
+
+        Semaphore keySemaphore = getKeySemaphore(keyId);
+        if (keySemaphore != null && !tryAcquirePermit(keySemaphore)) {
+            rejectRequest(keyId);
+        }
+
+        if (!tryAcquirePermit(inflightRequests)) {
+            if (keySemaphore != null) {
+                keySemaphore.release();
+            }
+            rejectRequest(keyId);
+        }
+
+        reportQueueMetrics();
+    }
+
+    void releaseRequestPermits(final String keyId) {
+
+        inflightRequests.release();
+        Semaphore keySemaphore = getKeySemaphore(keyId);
+        if (keySemaphore != null) {
+            keySemaphore.release();
+        }
+
+        reportQueueMetrics();
+    }
+
+    Semaphore getKeySemaphore(final String keyId) {
+        if (maxInflightRequestsPerKey <= 0) {
+            return null;
+        }
+        return keyInflightRequests.computeIfAbsent(keyId, k -> new Semaphore(maxInflightRequestsPerKey, true));
+    }
+
+    boolean tryAcquirePermit(Semaphore semaphore) {
+        try {
+            return semaphore.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    void rejectRequest(final String keyId) {
+        metric.increment(METRIC_ASYNC_REJECTED);
+        reportQueueMetrics();
+        LOGGER.error("Certificate signer request queue is full for key id {}", keyId);
+        throw new ResourceException(ResourceException.SERVICE_UNAVAILABLE, "Certificate signer is busy");
+    }
+
+    void reportQueueMetrics() {
+        metric.setGauge(METRIC_ASYNC_INFLIGHT, null, null,
+                maxInflightRequests - inflightRequests.availablePermits());
+        long queueDepth = inflightRequests.getQueueLength();
+        for (Semaphore keySemaphore : keyInflightRequests.values()) {
+            queueDepth += keySemaphore.getQueueLength();
+        }
+        metric.setGauge(METRIC_ASYNC_QUEUE_DEPTH, null, null, queueDepth);
+    }
+
+    String processAsyncHttpResponse(final String uri, SimpleHttpResponse response, int expectedStatusCode) {
+
+        // check for status code first
+
+        final int statusCode = response.getCode();
+        if (statusCode != expectedStatusCode) {
+            LOGGER.error("unable to fetch requested uri '{}' status: {}", uri, statusCode);
+            return null;
+        }
+
+        // check for content
+
+        final byte[] data = response.getBodyBytes();
+        if (data == null || data.length == 0) {
+            LOGGER.error("received empty response from uri '{}', status: {}", uri, statusCode);
+            return null;
+        }
+
+        try {
+            return parseResponse(new ByteArrayInputStream(data));
+        } catch (IOException ex) {
+            LOGGER.error("unable to parse response from uri '{}'", uri, ex);
+            return null;
+        }
+    }
+
     /**
      * Process http response from crypki server
      * @param request http request object
@@ -16,7 +16,6 @@
 
 package com.yahoo.athenz.zts.store;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -64,7 +63,7 @@ public class CloudStore {
 
         // initialize our account and cred cache
 
-        awsAccountCache = new HashMap<>();
+        awsAccountCache = new ConcurrentHashMap<>();
         awsCredsCache = new ConcurrentHashMap<>();
         awsInvalidCredsCache = new ConcurrentHashMap<>();
 
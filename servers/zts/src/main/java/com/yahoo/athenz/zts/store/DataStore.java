@@ -21,7 +21,8 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.yahoo.athenz.auth.AuthorityConsts;
 import com.yahoo.athenz.auth.KeyStore;
-import com.yahoo.athenz.auth.util.StringUtils;
+import com.yahoo.athenz.common.messaging.ChangeSubscriber;
+import com.yahoo.athenz.common.messaging.DomainChangeMessage;
 import com.yahoo.athenz.common.metrics.Metric;
 import com.yahoo.athenz.common.server.db.RolesProvider;
 import com.yahoo.athenz.common.server.key.PubKeysProvider;
@@ -41,6 +42,7 @@ import com.yahoo.athenz.common.config.AthenzConfig;
 import com.yahoo.athenz.zts.cache.DataCache;
 import com.yahoo.athenz.zts.cache.DataCacheProvider;
 import com.yahoo.athenz.zts.cache.MemberRole;
+import com.yahoo.athenz.zts.transportrules.TransportRulesProcessor;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -51,10 +53,17 @@ import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPublicKey;
 import java.security.spec.ECPoint;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -84,6 +93,7 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
     final Cache<String, List<GroupMember>> groupMemberCache;
     final Cache<String, List<GroupMember>> principalGroupCache;
     final RequireRoleCertCache requireRoleCertCache;
+    final PrincipalRolesCache principalRolesCache;
     final Map<String, List<String>> hostCache;
     final Map<String, String> publicKeyCache;
     final JWKList zmsJWKList;
@@ -102,7 +112,17 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
     long lastCheckRunTime;
     long domainFetchRefreshTime;
     int domainFetchCount;
+    int domainBootstrapThreads;
+    boolean domainSnapshotEnabled;
+    long domainSnapshotInterval;
+    boolean domainIncrementalUpdate;
+    long subscriberDomainRefreshTime;
     boolean jwsDomainSupport;
+    List<ChangeSubscriber<DomainChangeMessage>> changeSubscribers;
+    ExecutorService subscriberThreadPool;
+    ScheduledExecutorService scheduledThreadPool;
+    ScheduledExecutorService snapshotThreadPool;
+    final Set<String> pendingDomainChanges = ConcurrentHashMap.newKeySet();
 
     private static final String ROLE_POSTFIX = ":role.";
 
@@ -114,12 +134,21 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
     private final Lock pkeyRLock = pkeyRWLock.readLock();
     private final Lock pkeyWLock = pkeyRWLock.writeLock();
 
+    private final Lock groupLock = new ReentrantLock();
+
     private static final String ZTS_PROP_DOMAIN_UPDATE_TIMEOUT = "athenz.zts.zms_domain_update_timeout";
     private static final String ZTS_PROP_DOMAIN_DELETE_TIMEOUT = "athenz.zts.zms_domain_delete_timeout";
     private static final String ZTS_PROP_DOMAIN_CHECK_TIMEOUT  = "athenz.zts.zms_domain_check_timeout";
     private static final String ZTS_PROP_DOMAIN_JWS_SUPPORT    = "athenz.zts.zms_domain_jws_support";
     private static final String ZTS_PROP_DOMAIN_FETCH_TIMEOUT  = "athenz.zts.zms_domain_fetch_timeout";
     private static final String ZTS_PROP_DOMAIN_FETCH_COUNT    = "athenz.zts.zms_domain_fetch_count";
+    private static final String ZTS_PROP_DOMAIN_BOOTSTRAP_THREADS = "athenz.zts.domain_bootstrap_threads";
+    private static final String ZTS_PROP_DOMAIN_SNAPSHOT_ENABLED  = "athenz.zts.domain_snapshot_enabled";
+    private static final String ZTS_PROP_DOMAIN_SNAPSHOT_INTERVAL = "athenz.zts.domain_snapshot_interval";
+    private static final String ZTS_PROP_DOMAIN_INCREMENTAL_UPDATE = "athenz.zts.domain_incremental_update";
+    private static final String ZTS_PROP_DOMAIN_SUBSCRIBER_UPDATE_TIMEOUT = "athenz.zts.zms_domain_subscriber_update_timeout";
+    private static final String ZTS_PROP_ROLES_CACHE_SIZE      = "athenz.zts.accessible_roles_cache_size";
+    private static final String ZTS_PROP_ROLES_CACHE_TIMEOUT   = "athenz.zts.accessible_roles_cache_timeout";
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DataStore.class);
 
@@ -141,6 +170,15 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
 
         requireRoleCertCache = new RequireRoleCertCache();
 
+        // if configured, we'll cache the accessible roles computed for
+        // principals. the cache size is the number of principals and
+        // the timeout is specified in seconds
+
+        final int rolesCacheSize = ConfigProperties.retrieveConfigSetting(ZTS_PROP_ROLES_CACHE_SIZE, 0);
+        final int rolesCacheTimeout = ConfigProperties.retrieveConfigSetting(ZTS_PROP_ROLES_CACHE_TIMEOUT, 60);
+        principalRolesCache = (rolesCacheSize > 0 && rolesCacheTimeout > 0) ?
+                new PrincipalRolesCache(rolesCacheSize, rolesCacheTimeout, metric) : null;
+
         zmsJWKList = new JWKList();
         zmsJWKListStrictRFC = new JWKList();
         ztsJWKList = new JWKList();
@@ -181,6 +219,32 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
         domainFetchRefreshTime = ConfigProperties.retrieveConfigSetting(ZTS_PROP_DOMAIN_FETCH_TIMEOUT, 2592000);
         domainFetchCount = ConfigProperties.retrieveConfigSetting(ZTS_PROP_DOMAIN_FETCH_COUNT, 10);
 
+        // number of threads to process the local domains during the
+        // server startup. the default value of 1 indicates that the
+        // domains are processed serially
+
+        domainBootstrapThreads = ConfigProperties.retrieveConfigSetting(ZTS_PROP_DOMAIN_BOOTSTRAP_THREADS, 1);
+
+        // if enabled, the local domains are loaded from the snapshot
+        // maintained by the change log store without validating their
+        // signatures again. the snapshot is regenerated after the
+        // server startup and then at the configured interval in seconds
+
+        domainSnapshotEnabled = Boolean.parseBoolean(System.getProperty(ZTS_PROP_DOMAIN_SNAPSHOT_ENABLED, "false"));
+        domainSnapshotInterval = ConfigProperties.retrieveConfigSetting(ZTS_PROP_DOMAIN_SNAPSHOT_INTERVAL, 3600);
+
+        // if enabled, updates to domains where only the roles and groups
+        // have been modified are applied to a copy of the current cache
+        // entry instead of rebuilding the full cache for the domain
+
+        domainIncrementalUpdate = Boolean.parseBoolean(System.getProperty(ZTS_PROP_DOMAIN_INCREMENTAL_UPDATE, "false"));
+
+        // when we receive domain change messages from ZMS, the domain
+        // update polling is only used as a safety net for any missed
+        // messages, so we run it with a longer interval
+
+        subscriberDomainRefreshTime = ConfigProperties.retrieveConfigSetting(ZTS_PROP_DOMAIN_SUBSCRIBER_UPDATE_TIMEOUT, 600);
+
         /* load the zms public key from configuration files */
 
         if (!loadAthenzPublicKeys()) {
@@ -822,7 +886,7 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
 
         Set<String> zmsDomainList = changeLogStore.getServerDomainList();
 
-        int badDomains = 0;
+        List<String> activeDomainList = new ArrayList<>();
         for (String domainName : localDomainList) {
 
             /* make sure this domain is still active in ZMS otherwise
@@ -840,13 +904,37 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
                 continue;
             }
 
-            /* if we get a failure when processing a local domain then it
-             * indicates that we had an invalid domain file (possibly
-             * corrupted or hacked). In this case we're going to drop
-             * everything and request a full refresh from ZMS only if the
-             * change log store supports that functionality. Otherwise,
-             * we're going to just skip the domain and continue. */
+            activeDomainList.add(domainName);
+        }
+
+        /* if we get a failure when processing a local domain then it
+         * indicates that we had an invalid domain file (possibly
+         * corrupted or hacked). In this case we're going to drop
+         * everything and request a full refresh from ZMS only if the
+         * change log store supports that functionality. Otherwise,
+         * we're going to just skip the domain and continue. */
+
+        int badDomains = (domainBootstrapThreads > 1 && activeDomainList.size() > 1) ?
+                processLocalDomainsParallel(activeDomainList) : processLocalDomainsSerial(activeDomainList);
+        if (badDomains == -1) {
+            return -1;
+        }
+
+        /* if more than 1/4 of our domains are bad then we have some
+         * issue that needs to be addressed so we're going to return failure */
+
+        if (badDomains > localDomainList.size() / 4) {
+            LOGGER.error("Too many invalid domains: {} out of {}", badDomains, localDomainList.size());
+            return -1;
+        }
+
+        return badDomains;
+    }
+
+    int processLocalDomainsSerial(List<String> domainList) {
 
+        int badDomains = 0;
+        for (String domainName : domainList) {
             if (!processLocalDomain(domainName)) {
                 if (changeLogStore.supportsFullRefresh()) {
                     return -1;
@@ -855,22 +943,99 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
                 }
             }
         }
+        return badDomains;
+    }
 
-        /* if more than 1/4 of our domains are bad then we have some
-         * issue that needs to be addressed so we're going to return failure */
+    int processLocalDomainsParallel(List<String> domainList) {
 
-        if (badDomains > localDomainList.size() / 4) {
-            LOGGER.error("Too many invalid domains: {} out of {}", badDomains, localDomainList.size());
-            return -1;
+        // the domains are independent of each other so we can validate
+        // and process them concurrently. the shared host, public key,
+        // group and role cert caches are protected by their own locks
+
+        final boolean fullRefresh = changeLogStore.supportsFullRefresh();
+        AtomicBoolean refreshRequired = new AtomicBoolean(false);
+
+        List<Callable<Boolean>> tasks = new ArrayList<>(domainList.size());
+        for (String domainName : domainList) {
+            tasks.add(() -> {
+
+                // if we already know that we need a full refresh
+                // there is no point processing any other domains
+
+                if (refreshRequired.get()) {
+                    return false;
+                }
+                boolean result = processLocalDomain(domainName);
+                if (!result && fullRefresh) {
+                    refreshRequired.set(true);
+                }
+                return result;
+            });
         }
 
-        return badDomains;
+        final int threads = Math.min(domainBootstrapThreads, domainList.size());
+        LOGGER.info("Processing {} local domains with {} threads", domainList.size(), threads);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            int badDomains = 0;
+            for (Future<Boolean> result : executorService.invokeAll(tasks)) {
+                if (!result.get()) {
+                    badDomains += 1;
+                }
+            }
+            return refreshRequired.get() ? -1 : badDomains;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while processing local domains", ex);
+            return -1;
+        } catch (ExecutionException ex) {
+            LOGGER.error("Unable to process local domains", ex);
+            return -1;
+        } finally {
+            executorService.shutdownNow();
+        }
     }
 
     boolean processLocalDomain(String domainName) {
+        if (domainSnapshotEnabled && processSnapshotDomain(domainName)) {
+            return true;
+        }
         return jwsDomainSupport ? processLocalJWSDomain(domainName) : processLocalSignedDomain(domainName);
     }
 
+    boolean processSnapshotDomain(String domainName) {
+
+        // the snapshot only includes domains that were validated
+        // before they were saved so there is no need to verify
+        // the signature again. if the domain is not available in
+        // the snapshot, the caller processes the local domain file
+
+        try {
+            DomainData domainData = changeLogStore.getLocalSnapshotDomain(domainName);
+            if (domainData == null) {
+                metric.increment("domain_snapshot_miss");
+                return false;
+            }
+
+            LOGGER.info("Processing snapshot domain: {}", domainName);
+
+            if (domainData.getEnabled() == Boolean.FALSE) {
+                LOGGER.info("Skipping disabled domain: {}", domainName);
+                deleteDomainFromCache(domainName);
+            } else {
+                processDomainData(domainData);
+            }
+
+            metric.increment("domain_snapshot_hit");
+            return true;
+
+        } catch (Exception ex) {
+            LOGGER.error("Unable to process snapshot domain {}", domainName, ex);
+            return false;
+        }
+    }
+
     public void init() {
 
         /* now let's retrieve the list of locally saved domains */
@@ -881,7 +1046,13 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
          * then we're going to ask our store to reset the changes
          * and give us the list of all domains from ZMS */
 
+        Object timerMetric = metric.startTiming("domain_bootstrap_local_timing", null);
+        long startTime = System.currentTimeMillis();
         int badDomains = processLocalDomains(localDomainList);
+        metric.stopTiming(timerMetric);
+        LOGGER.info("Processed {} local domains in {} ms", localDomainList.size(),
+                System.currentTimeMillis() - startTime);
+
         if (badDomains == -1) {
 
             changeLogStore.setLastModificationTimestamp(null);
@@ -898,24 +1069,175 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
          * retrieve the domains that were modified since the last
          * modification time */
 
+        timerMetric = metric.startTiming("domain_bootstrap_updates_timing", null);
+        startTime = System.currentTimeMillis();
         if (!processDomainUpdates()) {
             throw new ResourceException(ResourceException.INTERNAL_SERVER_ERROR,
                     "Unable to initialize storage subsystem");
         }
+        metric.stopTiming(timerMetric);
+        LOGGER.info("Processed domain updates in {} ms", System.currentTimeMillis() - startTime);
 
         /* if we had received any errors when processing local
          * domains then we're going to run a domain check and
          * verify all domains vs their modified timestamp in zms */
 
         if (badDomains > 0) {
+            timerMetric = metric.startTiming("domain_bootstrap_checks_timing", null);
+            startTime = System.currentTimeMillis();
             processDomainChecks();
+            metric.stopTiming(timerMetric);
+            LOGGER.info("Processed domain checks in {} ms", System.currentTimeMillis() - startTime);
+        }
+
+        /* Start our monitoring thread to get changes from ZMS. If we're
+         * configured with domain change subscribers then the messages are
+         * processed by the same thread to serialize all domain updates */
+
+        scheduledThreadPool = Executors.newScheduledThreadPool(1);
+
+        long refreshTime = updDomainRefreshTime;
+        if (changeSubscribers != null && !changeSubscribers.isEmpty()) {
+            startChangeSubscribers();
+            refreshTime = Math.max(updDomainRefreshTime, subscriberDomainRefreshTime);
+        }
+
+        scheduledThreadPool.scheduleAtFixedRate(new DataUpdater(), refreshTime, refreshTime, TimeUnit.SECONDS);
+
+        /* if the domain snapshot is enabled, we generate a new one now
+         * that all domains have been processed and then refresh it
+         * periodically so most domains are loaded from the snapshot
+         * during the next server startup. The snapshot is generated
+         * by its own thread so it does not delay any domain updates */
+
+        if (domainSnapshotEnabled) {
+            snapshotThreadPool = Executors.newSingleThreadScheduledExecutor();
+            if (domainSnapshotInterval > 0) {
+                snapshotThreadPool.scheduleAtFixedRate(this::saveLocalDomainSnapshot, 0,
+                        domainSnapshotInterval, TimeUnit.SECONDS);
+            } else {
+                snapshotThreadPool.execute(this::saveLocalDomainSnapshot);
+            }
+        }
+    }
+
+    void saveLocalDomainSnapshot() {
+        try {
+            changeLogStore.saveLocalDomainSnapshot();
+        } catch (Exception ex) {
+            LOGGER.error("Unable to save local domain snapshot", ex);
+        }
+    }
+
+    public void setChangeSubscribers(List<ChangeSubscriber<DomainChangeMessage>> changeSubscribers) {
+        this.changeSubscribers = changeSubscribers;
+    }
+
+    void startChangeSubscribers() {
+
+        subscriberThreadPool = Executors.newFixedThreadPool(changeSubscribers.size());
+        for (ChangeSubscriber<DomainChangeMessage> subscriber : changeSubscribers) {
+            subscriber.init(this::submitDomainChangeMessage, DomainChangeMessage.class);
+            subscriberThreadPool.execute(subscriber);
+        }
+        LOGGER.info("Started {} domain change subscriber(s)", changeSubscribers.size());
+
+        // make sure our subscribers are closed when the server is stopped
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "zts-datastore-shutdown"));
+    }
+
+    /**
+     * Close the domain change subscribers and stop all the threads
+     * started by the data store during initialization.
+     */
+    public void close() {
+
+        if (changeSubscribers != null) {
+            for (ChangeSubscriber<DomainChangeMessage> subscriber : changeSubscribers) {
+                try {
+                    subscriber.close();
+                } catch (Exception ex) {
+                    LOGGER.error("Unable to close domain change subscriber", ex);
+                }
+            }
+        }
+        if (subscriberThreadPool != null) {
+            subscriberThreadPool.shutdownNow();
         }
+        if (scheduledThreadPool != null) {
+            scheduledThreadPool.shutdownNow();
+        }
+        if (snapshotThreadPool != null) {
+            snapshotThreadPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Submit the domain change message received from ZMS for processing.
+     * If there is already a pending update for the same domain, then the
+     * message is skipped since the domain will be fetched from ZMS anyway.
+     * @param message domain change message
+     */
+    void submitDomainChangeMessage(DomainChangeMessage message) {
+
+        final String domainName = message.getDomainName();
+        if (StringUtil.isEmpty(domainName)) {
+            LOGGER.error("Ignoring domain change message without domain name: {}", message.getMessageId());
+            return;
+        }
+
+        if (!pendingDomainChanges.add(domainName)) {
+            return;
+        }
+
+        scheduledThreadPool.execute(() -> {
+            pendingDomainChanges.remove(domainName);
+            processDomainChangeMessage(message);
+        });
+    }
+
+    /**
+     * Fetch the domain referenced in the domain change message from ZMS
+     * and update our cache.
+     * @param message domain change message
+     * @return true if the domain was successfully processed, false otherwise
+     */
+    boolean processDomainChangeMessage(DomainChangeMessage message) {
+
+        final String domainName = message.getDomainName();
+        LOGGER.info("Processing domain change message for domain: {} api: {}", domainName, message.getApiName());
 
-        /* Start our monitoring thread to get changes from ZMS */
+        boolean result;
+        try {
+            if (jwsDomainSupport) {
+                JWSDomain jwsDomain = changeLogStore.getServerJWSDomain(domainName);
+                result = jwsDomain != null && processJWSDomain(jwsDomain, true);
+            } else {
+                SignedDomain signedDomain = changeLogStore.getServerSignedDomain(domainName);
+                result = signedDomain != null && processSignedDomain(signedDomain, true);
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Unable to process domain change message for domain: {}", domainName, ex);
+            result = false;
+        }
+
+        // deleted domains are not returned by ZMS and will be
+        // handled by our regular domain delete checks
+
+        if (!result) {
+            metric.increment("domain_change_failure", domainName);
+            return false;
+        }
+
+        // report the time it took for the change to be applied in
+        // our cache since the message was published by ZMS
 
-        ScheduledExecutorService scheduledThreadPool = Executors.newScheduledThreadPool(1);
-        scheduledThreadPool.scheduleAtFixedRate(new DataUpdater(), updDomainRefreshTime,
-                updDomainRefreshTime, TimeUnit.SECONDS);
+        if (message.getPublished() > 0) {
+            metric.setGauge("domain_change_propagation_latency", domainName, null,
+                    System.currentTimeMillis() - message.getPublished());
+        }
+        return true;
     }
 
     void processDomainChecks() {
@@ -981,13 +1303,28 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
 
     void processDomainGroups(DomainData domainData) {
 
+        // principal group lists are shared between domains so
+        // we need to serialize our updates during parallel processing
+
+        try {
+            groupLock.lock();
+            processDomainGroupsLocked(domainData);
+        } finally {
+            groupLock.unlock();
+        }
+    }
+
+    void processDomainGroupsLocked(DomainData domainData) {
+
         // get the current list of groups so we can determine
-        // which groups have been deleted
+        // which groups have been deleted or modified
 
-        List<Group> deletedGroups = null;
+        Map<String, Group> originalGroups = new HashMap<>();
         DataCache dataCache = getCacheStore().getIfPresent(domainData.getName());
-        if (dataCache != null) {
-            deletedGroups = dataCache.getDomainData().getGroups();
+        if (dataCache != null && dataCache.getDomainData().getGroups() != null) {
+            for (Group group : dataCache.getDomainData().getGroups()) {
+                originalGroups.put(group.getName().toLowerCase(), group);
+            }
         }
 
         List<Group> groups = domainData.getGroups();
@@ -997,8 +1334,16 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
                 // first remove the group from our original list
                 // since it's not deleted
 
-                if (deletedGroups != null) {
-                    deletedGroups.removeIf(item -> item.getName().equalsIgnoreCase(group.getName()));
+                Group originalGroup = originalGroups.remove(group.getName().toLowerCase());
+
+                // if the group has not been modified and we have already
+                // processed its members then there is nothing to update
+
+                if (group.getGroupMembers() == null) {
+                    group.setGroupMembers(new ArrayList<>());
+                }
+                if (group.equals(originalGroup) && groupMemberCache.getIfPresent(group.getName()) != null) {
+                    continue;
                 }
 
                 // now process our group
@@ -1009,10 +1354,8 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
 
         // before returning we need to process our deleted groups
 
-        if (deletedGroups != null) {
-            for (Group group : deletedGroups) {
-                processGroupDelete(group);
-            }
+        for (Group group : originalGroups.values()) {
+            processGroupDelete(group);
         }
     }
 
@@ -1055,6 +1398,13 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
 
         groupMemberCache.put(group.getName(), group.getGroupMembers());
 
+        // the accessible roles for all new, updated and deleted members
+        // might have changed so we'll invalidate their cached entries
+
+        invalidatePrincipalRoles(newMembers);
+        invalidatePrincipalRoles(updMembers);
+        invalidatePrincipalRoles(delMembers);
+
         // first process the updated entries
 
         long currentTime = System.currentTimeMillis();
@@ -1142,6 +1492,17 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
         processGroupDeletedMembers(group.getName(), delMembers);
     }
 
+    void invalidatePrincipalRoles(List<GroupMember> members) {
+
+        if (principalRolesCache == null) {
+            return;
+        }
+
+        for (GroupMember member : members) {
+            principalRolesCache.invalidatePrincipal(member.getMemberName());
+        }
+    }
+
     void processGroupDeletedMembers(final String groupName, List<GroupMember> deletedMembers) {
 
         // if the group has no members then we have nothing to do
@@ -1168,6 +1529,12 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
         // delete all the members from our cache objects
 
         processGroupDeletedMembers(group.getName(), group.getGroupMembers());
+
+        // invalidate any cached roles for the deleted members
+
+        if (group.getGroupMembers() != null) {
+            invalidatePrincipalRoles(group.getGroupMembers());
+        }
     }
 
     void processDomainPolicies(DomainData domainData, DataCache domainCache) {
@@ -1230,6 +1597,13 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
 
     public void processDomainData(DomainData domainData) {
 
+        // if the domain only has role and group changes then we'll
+        // update a copy of the current cache entry
+
+        if (domainIncrementalUpdate && processDomainDataUpdate(domainData)) {
+            return;
+        }
+
         // generate our cache object */
 
         DataCache domainCache = new DataCache();
@@ -1258,6 +1632,13 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
 
         processSystemBehaviorRoles(domainData, domainCache);
 
+        // now that all roles and policies have been processed we can
+        // build our role resolution index for principal lookups
+        // and the compiled policy index for access checks
+
+        domainCache.buildRoleIndex();
+        domainCache.buildAccessPolicyIndex(domainData);
+
         // save the full domain object with the cache entry itself
         // since we need to that information to handle
         //getServiceIdentity and getServiceIdentityList requests
@@ -1269,6 +1650,149 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
         addDomainToCache(domainData.getName(), domainCache);
     }
 
+    /**
+     * Apply the changes in the given domain data object to a copy of the
+     * current cache entry for the domain. This is only possible when the
+     * policies, services and entities in the domain have not been modified
+     * and none of the modified roles are referenced by assertions that
+     * generate cache entries from the role members (assume_role and
+     * transport rules). Otherwise, the caller must rebuild the cache.
+     * @param domainData updated domain data object
+     * @return true if the cache was updated, false otherwise
+     */
+    boolean processDomainDataUpdate(DomainData domainData) {
+
+        final String domainName = domainData.getName();
+        if (ATHENZ_SYS_DOMAIN.equals(domainName)) {
+            return false;
+        }
+
+        DataCache originalCache = getCacheStore().getIfPresent(domainName);
+        if (originalCache == null) {
+            return false;
+        }
+
+        DomainData originalData = originalCache.getDomainData();
+        if (!Objects.equals(getDomainPolicies(originalData), getDomainPolicies(domainData))
+                || !Objects.equals(originalData.getServices(), domainData.getServices())
+                || !Objects.equals(originalData.getEntities(), domainData.getEntities())) {
+            return false;
+        }
+
+        // determine the list of modified and deleted roles. the
+        // original roles already have their member types set so
+        // we need to do the same for the new roles before comparing
+
+        Map<String, Role> originalRoles = new HashMap<>();
+        if (originalData.getRoles() != null) {
+            for (Role role : originalData.getRoles()) {
+                originalRoles.put(role.getName(), role);
+            }
+        }
+
+        DataCache domainCache = new DataCache(originalCache);
+        Set<String> roleNames = new HashSet<>();
+        List<Role> modifiedRoles = new ArrayList<>();
+        if (domainData.getRoles() != null) {
+            for (Role role : domainData.getRoles()) {
+                domainCache.setRoleMemberGroupType(role.getRoleMembers());
+                roleNames.add(role.getName());
+                if (!role.equals(originalRoles.get(role.getName()))) {
+                    modifiedRoles.add(role);
+                }
+            }
+        }
+        List<Role> deletedRoles = originalRoles.values().stream()
+                .filter(role -> !roleNames.contains(role.getName())).collect(Collectors.toList());
+
+        Set<String> policyRoles = getPolicyMemberRoles(domainData);
+        if (modifiedRoles.stream().anyMatch(role -> policyRoles.contains(role.getName()))
+                || deletedRoles.stream().anyMatch(role -> policyRoles.contains(role.getName()))) {
+            return false;
+        }
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Updating domain {} cache: modified roles {} deleted roles {}", domainName,
+                    modifiedRoles.size(), deletedRoles.size());
+        }
+
+        // first remove the entries for our deleted roles
+
+        for (Role role : deletedRoles) {
+            domainCache.removeRole(role);
+            requireRoleCertCache.processRoleCacheDelete(role);
+        }
+
+        // for modified roles we need to remove the entries generated
+        // from the original role before processing the new role
+
+        for (Role role : modifiedRoles) {
+            Role originalRole = originalRoles.get(role.getName());
+            if (originalRole != null) {
+                domainCache.removeRole(originalRole);
+            }
+            domainCache.processRole(role);
+            if (isRoleCertRequired(role)) {
+                requireRoleCertCache.processRoleCache(role);
+            } else {
+                requireRoleCertCache.processRoleCacheDelete(role);
+            }
+        }
+
+        // process the groups for this domain
+
+        processDomainGroups(domainData);
+
+        // rebuild our role resolution index and the compiled policy
+        // index reusing the roles that have not been modified
+
+        domainCache.buildRoleIndex();
+        domainCache.buildAccessPolicyIndex(domainData, originalCache.getAccessPolicyIndex());
+        domainCache.setDomainData(domainData);
+
+        addDomainToCache(domainName, domainCache);
+        metric.increment("domain_cache_incremental_update");
+        return true;
+    }
+
+    com.yahoo.athenz.zms.DomainPolicies getDomainPolicies(DomainData domainData) {
+        com.yahoo.athenz.zms.SignedPolicies signedPolicies = domainData.getPolicies();
+        return signedPolicies == null ? null : signedPolicies.getContents();
+    }
+
+    /**
+     * Return the set of role names referenced by active assume_role and
+     * transport rule assertions in the domain. The cache entries for these
+     * assertions are generated from the role members so the cache must be
+     * fully rebuilt if any of these roles is modified.
+     * @param domainData domain data object
+     * @return set of role names
+     */
+    Set<String> getPolicyMemberRoles(DomainData domainData) {
+
+        Set<String> roleNames = new HashSet<>();
+        com.yahoo.athenz.zms.DomainPolicies domainPolicies = getDomainPolicies(domainData);
+        if (domainPolicies == null || domainPolicies.getPolicies() == null) {
+            return roleNames;
+        }
+
+        for (com.yahoo.athenz.zms.Policy policy : domainPolicies.getPolicies()) {
+            if (policy.getActive() == Boolean.FALSE || policy.getAssertions() == null) {
+                continue;
+            }
+            for (com.yahoo.athenz.zms.Assertion assertion : policy.getAssertions()) {
+                final String action = assertion.getAction();
+                if (DataCache.ACTION_ASSUME_ROLE.equals(action)) {
+                    roleNames.add(assertion.getRole());
+                    roleNames.add(assertion.getResource());
+                } else if (TransportRulesProcessor.isTransportRuleAction(action)) {
+                    roleNames.add(assertion.getRole());
+                }
+            }
+        }
+        return roleNames;
+    }
+
     private void processSystemBehaviorRoles(DomainData domainData, DataCache domainCache) {
         domainCache.processSystemBehaviorRoles(domainData);
     }
@@ -1401,8 +1925,13 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
             return;
         }
 
-        for (Group group : deletedGroups) {
-            processGroupDelete(group);
+        try {
+            groupLock.lock();
+            for (Group group : deletedGroups) {
+                processGroupDelete(group);
+            }
+        } finally {
+            groupLock.unlock();
         }
     }
 
@@ -1475,24 +2004,32 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
 
         DataCache oldDataCache = getCacheStore().getIfPresent(name);
 
-        try {
-            hostWLock.lock();
-            if (oldDataCache != null) {
-                removeHostEntries(oldDataCache.getHostMap());
+        // if the cache was updated incrementally then the host and
+        // public key maps are shared with the old cache, and there
+        // is no need to update our global caches
+
+        if (oldDataCache == null || oldDataCache.getHostMap() != dataCache.getHostMap()) {
+            try {
+                hostWLock.lock();
+                if (oldDataCache != null) {
+                    removeHostEntries(oldDataCache.getHostMap());
+                }
+                addHostEntries(dataCache.getHostMap());
+            } finally {
+                hostWLock.unlock();
             }
-            addHostEntries(dataCache.getHostMap());
-        } finally {
-            hostWLock.unlock();
         }
 
-        try {
-            pkeyWLock.lock();
-            if (oldDataCache != null) {
-                removePublicKeys(oldDataCache.getPublicKeyMap());
+        if (oldDataCache == null || oldDataCache.getPublicKeyMap() != dataCache.getPublicKeyMap()) {
+            try {
+                pkeyWLock.lock();
+                if (oldDataCache != null) {
+                    removePublicKeys(oldDataCache.getPublicKeyMap());
+                }
+                addPublicKeys(dataCache.getPublicKeyMap());
+            } finally {
+                pkeyWLock.unlock();
             }
-            addPublicKeys(dataCache.getPublicKeyMap());
-        } finally {
-            pkeyWLock.unlock();
         }
 
         /* now let's see if we have a cloud account defined
@@ -1507,6 +2044,12 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
         /* update the cache for the given domain */
 
         getCacheStore().put(name, dataCache);
+
+        /* notify our roles cache that domain has been updated */
+
+        if (principalRolesCache != null) {
+            principalRolesCache.domainUpdated();
+        }
     }
 
     // Internal
@@ -1535,6 +2078,10 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
         }
 
         getCacheStore().invalidate(name);
+
+        if (principalRolesCache != null) {
+            principalRolesCache.domainUpdated();
+        }
     }
 
     // Internal
@@ -1707,6 +2254,37 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
             return;
         }
 
+        /* if we don't have our roles cache enabled then process the request */
+
+        if (principalRolesCache == null) {
+            processAccessibleRoles(data, domainName, identity, requestedRoleList, fullNameMatch,
+                    accessibleRoles, keepFullName);
+            return;
+        }
+
+        /* check to see if we have already computed roles for this request */
+
+        final String requestKey = PrincipalRolesCache.generateRequestKey(domainName, requestedRoleList,
+                fullNameMatch, keepFullName);
+        Set<String> roles = principalRolesCache.getRoles(identity, requestKey, data);
+        if (roles == null) {
+
+            /* we need to get the generations before processing so if the
+             * domains or group memberships are updated while we're processing
+             * the request, we don't use our result beyond this request */
+
+            final long[] generations = principalRolesCache.getGenerations();
+            roles = new HashSet<>();
+            processAccessibleRoles(data, domainName, identity, requestedRoleList, fullNameMatch,
+                    roles, keepFullName);
+            principalRolesCache.putRoles(identity, requestKey, data, generations, roles);
+        }
+        accessibleRoles.addAll(roles);
+    }
+
+    void processAccessibleRoles(DataCache data, String domainName, String identity,
+            String[] requestedRoleList, boolean fullNameMatch, Set<String> accessibleRoles, boolean keepFullName) {
+
         final String rolePrefix = domainName + ROLE_POSTFIX;
 
         /* first look through the members to see if the given identity is
@@ -1721,17 +2299,11 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
         processStandardMembership(data.getAllMemberRoleSet(),
                 rolePrefix, requestedRoleList, fullNameMatch, accessibleRoles, keepFullName);
 
-        /* then look at the prefix wildcard roles. in this map
-         * we only process those where the key in the map is
-         * a prefix of our identity */
+        /* then look at the prefix wildcard roles. we only process
+         * those where the prefix matches our identity */
 
-        Map<String, Set<MemberRole>> roleSetMap = data.getPrefixMemberRoleSetMap();
-        for (String identityPrefix : roleSetMap.keySet()) {
-            if (identity.startsWith(identityPrefix)) {
-                processStandardMembership(roleSetMap.get(identityPrefix),
-                        rolePrefix, requestedRoleList, fullNameMatch, accessibleRoles, keepFullName);
-            }
-        }
+        data.processPrefixMemberRoleSets(identity, memberRoles -> processStandardMembership(memberRoles,
+                rolePrefix, requestedRoleList, fullNameMatch, accessibleRoles, keepFullName));
 
         // now process our group membership
 
@@ -1800,7 +2372,6 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
     // Internal
     boolean roleMatchInSet(String role, Set<MemberRole> memberRoles) {
 
-        String rolePattern;
         long currentTime = System.currentTimeMillis();
         for (MemberRole memberRole : memberRoles) {
 
@@ -1812,19 +2383,11 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
                 continue;
             }
 
-            // if the role does not contain any of our pattern
-            // characters then we can just a regular compare
+            // our member role already has its pattern compiled
+            // if the role name contains any glob characters
 
-            final String roleName = memberRole.getRole();
-            if (StringUtils.containsMatchCharacter(roleName)) {
-                rolePattern = StringUtils.patternFromGlob(roleName);
-                if (role.matches(rolePattern)) {
-                    return true;
-                }
-            } else {
-                if (role.equals(roleName)) {
-                    return true;
-                }
+            if (memberRole.matchesRole(role)) {
+                return true;
             }
         }
 
@@ -1889,23 +2452,17 @@ public class DataStore implements DataCacheProvider, RolesProvider, PubKeysProvi
         }
 
         /* finally we're going to process the wildcard roles
-         * but we need to first confirm that our identity
-         * matches to member before processing it */
+         * but only those whose prefix matches our identity */
 
-        Map<String, Set<MemberRole>> roleSetMap = trustData.getPrefixMemberRoleSetMap();
-        for (String identityPrefix : roleSetMap.keySet()) {
-            if (identity.startsWith(identityPrefix)) {
-
-                memberRoles = roleSetMap.get(identityPrefix);
-                for (String resource : trustedResources) {
+        trustData.processPrefixMemberRoleSets(identity, prefixMemberRoles -> {
+            for (String resource : trustedResources) {
 
-                    /* in this case our resource is the role name */
+                /* in this case our resource is the role name */
 
-                    processSingleTrustedDomainRole(resource, rolePrefix, requestedRoleList,
-                            memberRoles, accessibleRoles, keepFullName);
-                }
+                processSingleTrustedDomainRole(resource, rolePrefix, requestedRoleList,
+                        prefixMemberRoles, accessibleRoles, keepFullName);
             }
-        }
+        });
 
         // process group membership for our delegated roles
 
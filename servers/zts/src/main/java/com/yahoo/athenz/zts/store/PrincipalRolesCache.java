@@ -0,0 +1,202 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.store;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.yahoo.athenz.common.metrics.Metric;
+import com.yahoo.athenz.zts.cache.DataCache;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the accessible roles computed for a principal in a given domain.
+ * The cache is keyed by the principal name so that when the principal's
+ * group membership changes we can invalidate all of its entries. Each entry
+ * keeps a reference to the domain data cache object it was computed from
+ * so any domain update automatically invalidates it. Entries for domains
+ * with trusted (delegated) roles also depend on other domains so those
+ * are invalidated whenever any domain in the store is updated or deleted.
+ */
+public class PrincipalRolesCache {
+
+    static final String METRIC_CACHE_HIT  = "accessible_roles_cache_hit";
+    static final String METRIC_CACHE_MISS = "accessible_roles_cache_miss";
+
+    // maximum number of distinct requests we keep for a single principal
+
+    static final int MAX_PRINCIPAL_REQUESTS = 256;
+
+    private final Cache<String, Map<String, PrincipalRoles>> principalCache;
+    private final AtomicLong domainGeneration = new AtomicLong();
+    private final AtomicLong membershipGeneration = new AtomicLong();
+    private final long timeoutMillis;
+    private final Metric metric;
+
+    static class PrincipalRoles {
+
+        final DataCache dataCache;
+        final long domainGeneration;
+        final long expiryTime;
+        final Set<String> roles;
+
+        PrincipalRoles(DataCache dataCache, long domainGeneration, long expiryTime, Set<String> roles) {
+            this.dataCache = dataCache;
+            this.domainGeneration = domainGeneration;
+            this.expiryTime = expiryTime;
+            this.roles = roles;
+        }
+    }
+
+    public PrincipalRolesCache(long maxPrincipals, long timeoutSeconds, Metric metric) {
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        this.metric = metric;
+        principalCache = CacheBuilder.newBuilder().concurrencyLevel(25)
+                .maximumSize(maxPrincipals)
+                .expireAfterAccess(Duration.ofSeconds(timeoutSeconds))
+                .build();
+    }
+
+    /**
+     * Generate the cache key for the role request within a principal entry
+     * @param domainName name of the domain
+     * @param requestedRoleList optional list of requested roles
+     * @param fullNameMatch full name match flag
+     * @param keepFullName keep full name flag
+     * @return cache key
+     */
+    static String generateRequestKey(final String domainName, String[] requestedRoleList,
+            boolean fullNameMatch, boolean keepFullName) {
+
+        StringBuilder key = new StringBuilder(domainName.length() + 16);
+        key.append(domainName).append(':').append(fullNameMatch ? '1' : '0').append(keepFullName ? '1' : '0');
+        if (requestedRoleList != null) {
+            key.append(':').append(String.join(",", requestedRoleList));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Return the cached accessible roles for the given principal and request
+     * @param principal name of the principal
+     * @param requestKey request key generated with generateRequestKey
+     * @param dataCache current data cache object for the domain
+     * @return set of roles or null if not present in the cache or the entry is stale
+     */
+    public Set<String> getRoles(final String principal, final String requestKey, DataCache dataCache) {
+
+        Map<String, PrincipalRoles> principalRoles = principalCache.getIfPresent(principal);
+        PrincipalRoles entry = (principalRoles == null) ? null : principalRoles.get(requestKey);
+        if (entry == null || !isValidEntry(entry, dataCache)) {
+            metric.increment(METRIC_CACHE_MISS);
+            return null;
+        }
+
+        metric.increment(METRIC_CACHE_HIT);
+        return entry.roles;
+    }
+
+    boolean isValidEntry(PrincipalRoles entry, DataCache dataCache) {
+
+        // the domain must not have been updated since the entry was created
+
+        if (entry.dataCache != dataCache) {
+            return false;
+        }
+
+        // if the domain has trusted roles then we also depend
+        // on other domains not being updated
+
+        if (entry.domainGeneration != -1 && entry.domainGeneration != domainGeneration.get()) {
+            return false;
+        }
+
+        return entry.expiryTime > System.currentTimeMillis();
+    }
+
+    /**
+     * Add the computed accessible roles for the given principal and request to the cache.
+     * If any principal's group membership was updated while the roles were being
+     * computed, then the result is not cached since it might be stale.
+     * @param principal name of the principal
+     * @param requestKey request key generated with generateRequestKey
+     * @param dataCache data cache object for the domain used to compute the roles
+     * @param generations domain and membership generation values obtained before computing the roles
+     * @param roles set of accessible roles
+     */
+    public void putRoles(final String principal, final String requestKey, DataCache dataCache,
+            long[] generations, Set<String> roles) {
+
+        if (generations[1] != membershipGeneration.get()) {
+            return;
+        }
+
+        final long entryGeneration = dataCache.getTrustMap().isEmpty() ? -1 : generations[0];
+        PrincipalRoles entry = new PrincipalRoles(dataCache, entryGeneration,
+                System.currentTimeMillis() + timeoutMillis, Collections.unmodifiableSet(roles));
+        Map<String, PrincipalRoles> principalRoles = principalCache.asMap()
+                .computeIfAbsent(principal, k -> new ConcurrentHashMap<>());
+
+        // since the requested role list is provided by the client, we don't
+        // want a single principal to grow its entry without any limits
+
+        if (principalRoles.size() >= MAX_PRINCIPAL_REQUESTS) {
+            principalRoles.clear();
+        }
+        principalRoles.put(requestKey, entry);
+    }
+
+    /**
+     * Return the current domain and membership generation values. The values
+     * must be obtained before computing the roles and passed to putRoles to make
+     * sure we don't cache results computed from domains or group memberships
+     * that were updated during processing.
+     * @return current domain and membership generation values
+     */
+    public long[] getGenerations() {
+        return new long[] { domainGeneration.get(), membershipGeneration.get() };
+    }
+
+    /**
+     * Invalidate all entries for the given principal
+     * @param principal name of the principal
+     */
+    public void invalidatePrincipal(final String principal) {
+        membershipGeneration.incrementAndGet();
+        principalCache.invalidate(principal);
+    }
+
+    /**
+     * Notify the cache that a domain was updated or deleted
+     */
+    public void domainUpdated() {
+        domainGeneration.incrementAndGet();
+    }
+
+    /**
+     * Return the number of principals in the cache
+     * @return number of principals
+     */
+    public long size() {
+        return principalCache.size();
+    }
+}
@@ -43,7 +43,7 @@ public class RequireRoleCertCache {
         requireRoleCertWildcard = ConcurrentHashMap.newKeySet();
     }
 
-    void processRoleCache(Role role) {
+    synchronized void processRoleCache(Role role) {
         final List<RoleMemberCache> collectionMembers = getRoleMembersForCache(role);
         // obtain the previous list of members for the collection
         // and determine the list of changes between old and new members
@@ -147,7 +147,7 @@ public class RequireRoleCertCache {
         processCollectionDeletedMembers(role.getName(), delMembers);
     }
 
-    void processRoleCacheDelete(Role role) {
+    synchronized void processRoleCacheDelete(Role role) {
         // first remove the group from our cache
 
         roleMemberRequireCertCache.invalidate(role.getName());
@@ -17,14 +17,18 @@ package com.yahoo.athenz.zts;
 
 import com.yahoo.athenz.auth.Authority;
 import com.yahoo.athenz.auth.Principal;
+import com.yahoo.athenz.common.metrics.Metric;
 import com.yahoo.athenz.zms.Assertion;
+import com.yahoo.athenz.zms.AssertionEffect;
 import com.yahoo.athenz.zms.DomainData;
 import com.yahoo.athenz.zms.DomainPolicies;
 import com.yahoo.athenz.zms.Policy;
 import com.yahoo.athenz.zms.Role;
+import com.yahoo.athenz.zms.RoleMember;
 import com.yahoo.athenz.zms.SignedPolicies;
 import com.yahoo.athenz.zts.cache.DataCache;
 import com.yahoo.athenz.zts.store.DataStore;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.testng.annotations.Test;
 
@@ -236,4 +240,107 @@ public class ZTSAuthorizerTest {
 
         ZTSAuthorizer.setRoleBasedAuthzSupport(false);
     }
+
+    @Test
+    public void testAccessIndexedDomain() {
+
+        Role readers = new Role().setName("athenz:role.readers")
+                .setRoleMembers(List.of(new RoleMember().setMemberName("user.joe")));
+        Role blocked = new Role().setName("athenz:role.blocked")
+                .setRoleMembers(List.of(new RoleMember().setMemberName("user.joe")));
+        Policy policy = new Policy().setName("athenz:policy.policy1").setActive(true)
+                .setAssertions(List.of(
+                        new Assertion().setRole("athenz:role.readers").setResource("athenz:*").setAction("read"),
+                        new Assertion().setRole("athenz:role.blocked").setResource("athenz:secret")
+                                .setAction("*").setEffect(AssertionEffect.DENY)));
+        DomainData domainData = new DomainData().setName("athenz").setRoles(List.of(readers, blocked))
+                .setPolicies(new SignedPolicies().setContents(new DomainPolicies().setDomain("athenz")
+                        .setPolicies(List.of(policy))));
+
+        DataCache domain = new DataCache();
+        domain.buildAccessPolicyIndex(domainData);
+        domain.setDomainData(domainData);
+        assertNotNull(domain.getAccessPolicyIndex());
+
+        DataStore dataStore = Mockito.mock(DataStore.class);
+        Mockito.when(dataStore.getDataCache("athenz")).thenReturn(domain);
+        Metric metric = Mockito.mock(Metric.class);
+        ZTSAuthorizer authz = new ZTSAuthorizer(dataStore, metric);
+
+        Principal principal = Mockito.mock(Principal.class);
+        Mockito.when(principal.getFullName()).thenReturn("user.joe");
+        assertTrue(authz.access("read", "athenz:data", principal, null));
+        assertFalse(authz.access("read", "athenz:secret", principal, null));
+        assertFalse(authz.access("update", "athenz:data", principal, null));
+
+        Mockito.when(principal.getFullName()).thenReturn("user.jane");
+        assertFalse(authz.access("read", "athenz:data", principal, null));
+
+        // the deny assertion is inspected for every request while
+        // the allow assertion is only inspected for the read action
+
+        Mockito.verify(metric, Mockito.times(4)).increment(ZTSAuthorizer.METRIC_ACCESS_EVALUATION, "athenz");
+        assertEquals(sumInspectedAssertions(metric, 4), 6);
+    }
+
+    @Test
+    public void testAccessLegacyInspectedAssertions() {
+
+        Role readers = new Role().setName("athenz:role.readers")
+                .setRoleMembers(List.of(new RoleMember().setMemberName("user.joe")));
+        Policy policy = new Policy().setName("athenz:policy.policy1").setActive(true)
+                .setAssertions(List.of(
+                        new Assertion().setRole("athenz:role.readers").setResource("athenz:*").setAction("read"),
+                        new Assertion().setRole("athenz:role.readers").setResource("athenz:data").setAction("read")));
+        DomainData domainData = new DomainData().setName("athenz").setRoles(List.of(readers))
+                .setPolicies(new SignedPolicies().setContents(new DomainPolicies().setDomain("athenz")
+                        .setPolicies(List.of(policy))));
+
+        // without the index all the assertions are processed until
+        // we have an allow match
+
+        DataCache domain = new DataCache();
+        domain.setDomainData(domainData);
+        assertNull(domain.getAccessPolicyIndex());
+
+        Metric metric = Mockito.mock(Metric.class);
+        ZTSAuthorizer authz = new ZTSAuthorizer(null, metric);
+        assertEquals(authz.evaluateAccess(domain, "user.joe", "read", "athenz:data", null, null),
+                ZTSAuthorizer.AccessStatus.ALLOWED);
+        assertEquals(authz.evaluateAccess(domain, "user.jane", "read", "athenz:data", null, null),
+                ZTSAuthorizer.AccessStatus.DENIED);
+        Mockito.verify(metric, Mockito.times(2)).increment(ZTSAuthorizer.METRIC_ACCESS_EVALUATION, "athenz");
+        assertEquals(sumInspectedAssertions(metric, 2), 3);
+    }
+
+    @Test
+    public void testAccessLegacyDenyAssertion() {
+
+        Role blocked = new Role().setName("athenz:role.blocked")
+                .setRoleMembers(List.of(new RoleMember().setMemberName("user.joe")));
+        Policy policy = new Policy().setName("athenz:policy.policy1").setActive(true)
+                .setAssertions(List.of(
+                        new Assertion().setRole("athenz:role.blocked").setResource("athenz:*")
+                                .setAction("*").setEffect(AssertionEffect.DENY)));
+        DomainData domainData = new DomainData().setName("athenz").setRoles(List.of(blocked))
+                .setPolicies(new SignedPolicies().setContents(new DomainPolicies().setDomain("athenz")
+                        .setPolicies(List.of(policy))));
+
+        DataCache domain = new DataCache();
+        domain.setDomainData(domainData);
+
+        Metric metric = Mockito.mock(Metric.class);
+        ZTSAuthorizer authz = new ZTSAuthorizer(null, metric);
+        assertEquals(authz.evaluateAccess(domain, "user.joe", "read", "athenz:data", null, null),
+                ZTSAuthorizer.AccessStatus.DENIED);
+        Mockito.verify(metric, Mockito.times(1)).increment(ZTSAuthorizer.METRIC_ACCESS_EVALUATION, "athenz");
+        Mockito.verify(metric, Mockito.times(1)).increment(ZTSAuthorizer.METRIC_ASSERTIONS_INSPECTED, "athenz", 1);
+    }
+
+    private int sumInspectedAssertions(Metric metric, int evaluations) {
+        ArgumentCaptor<Integer> captor = ArgumentCaptor.forClass(Integer.class);
+        Mockito.verify(metric, Mockito.times(evaluations)).increment(Mockito.eq(ZTSAuthorizer.METRIC_ASSERTIONS_INSPECTED),
+                Mockito.eq("athenz"), captor.capture());
+        return captor.getAllValues().stream().mapToInt(Integer::intValue).sum();
+    }
 }
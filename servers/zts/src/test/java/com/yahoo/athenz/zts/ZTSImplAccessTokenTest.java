@@ -39,6 +39,7 @@ import com.yahoo.athenz.zms.*;
 import com.yahoo.athenz.zms.Assertion;
 import com.yahoo.athenz.zms.Policy;
 import com.yahoo.athenz.zms.ServiceIdentity;
+import com.yahoo.athenz.zts.cache.AccessTokenCache;
 import com.yahoo.athenz.zts.cache.DataCache;
 import com.yahoo.athenz.zts.store.CloudStore;
 import com.yahoo.athenz.zts.store.DataStore;
@@ -982,6 +983,125 @@ public class ZTSImplAccessTokenTest {
         assertNull(resp.getId_token());
     }
 
+    @Test
+    public void testPostAccessTokenRequestCached() throws IOException, InterruptedException {
+
+        System.setProperty(FilePrivateKeyStore.ATHENZ_PROP_PRIVATE_KEY, "src/test/resources/unit_test_zts_at_private.pem");
+
+        CloudStore cloudStore = new CloudStore();
+        ZTSImpl ztsImpl = new ZTSImpl(cloudStore, store);
+        // set back to our zts rsa private key
+        System.setProperty(FilePrivateKeyStore.ATHENZ_PROP_PRIVATE_KEY, "src/test/resources/unit_test_zts_private.pem");
+        ztsImpl.accessTokenCache = new AccessTokenCache(10, 3600, 75, 60, ztsMetric);
+
+        SignedDomain signedDomain = createSignedDomain("coretech", "weather", "storage", true);
+        store.processSignedDomain(signedDomain, false);
+
+        Principal principal = SimplePrincipal.create("user_domain", "user",
+                "v=U1;d=user_domain;n=user;s=signature", 0, null);
+        ResourceContext context = createResourceContext(principal);
+
+        // the same request returns the cached token
+
+        AccessTokenResponse resp = ztsImpl.postAccessTokenRequest(context,
+                "grant_type=client_credentials&scope=coretech:domain");
+        assertEquals(resp.getScope(), "coretech:role.writers");
+        AccessTokenResponse cachedResp = ztsImpl.postAccessTokenRequest(context,
+                "grant_type=client_credentials&scope=coretech:domain");
+        assertEquals(cachedResp.getAccess_token(), resp.getAccess_token());
+        assertEquals(cachedResp.getScope(), "coretech:role.writers");
+        assertTrue(cachedResp.getExpires_in() <= resp.getExpires_in());
+        assertEquals(ztsImpl.accessTokenCache.size(), 1);
+
+        // different expiry, principal or certificate are separate entries
+
+        resp = ztsImpl.postAccessTokenRequest(context,
+                "grant_type=client_credentials&scope=coretech:domain&expires_in=100");
+        assertNotEquals(resp.getAccess_token(), cachedResp.getAccess_token());
+        assertEquals(resp.getExpires_in(), Integer.valueOf(100));
+
+        Principal principal1 = SimplePrincipal.create("user_domain", "user1",
+                "v=U1;d=user_domain;n=user1;s=signature", 0, null);
+        resp = ztsImpl.postAccessTokenRequest(createResourceContext(principal1),
+                "grant_type=client_credentials&scope=coretech:domain");
+        assertEquals(resp.getScope(), "coretech:role.readers coretech:role.writers");
+
+        Principal certPrincipal = SimplePrincipal.create("user_domain", "user",
+                "x509-certificate-details", 0, new CertificateAuthority());
+        X509Certificate cert = Crypto.loadX509Certificate(new String(Files.readAllBytes(
+                Paths.get("src/test/resources/mtls_token_spec.cert"))));
+        ((SimplePrincipal) certPrincipal).setX509Certificate(cert);
+        ResourceContext certContext = createResourceContext(certPrincipal);
+        resp = ztsImpl.postAccessTokenRequest(certContext, "grant_type=client_credentials&scope=coretech:domain");
+        assertNotEquals(resp.getAccess_token(), cachedResp.getAccess_token());
+        assertEquals(ztsImpl.postAccessTokenRequest(certContext,
+                "grant_type=client_credentials&scope=coretech:domain").getAccess_token(), resp.getAccess_token());
+        assertEquals(ztsImpl.accessTokenCache.size(), 4);
+
+        // id token requests are not cached
+
+        resp = ztsImpl.postAccessTokenRequest(context,
+                "grant_type=client_credentials&scope=coretech:domain openid coretech:service.api");
+        assertNotNull(resp.getId_token());
+        assertEquals(ztsImpl.accessTokenCache.size(), 4);
+
+        // failures are returned to the caller
+
+        try {
+            ztsImpl.postAccessTokenRequest(context, "grant_type=client_credentials&scope=coretech:role.testrole");
+            fail();
+        } catch (ResourceException ex) {
+            assertEquals(ex.getCode(), 403);
+        }
+        assertEquals(ztsImpl.accessTokenCache.size(), 4);
+
+        // domain update generates a new token
+
+        Thread.sleep(5);
+        signedDomain = createSignedDomain("coretech", "weather", "storage", true);
+        store.processSignedDomain(signedDomain, false);
+
+        resp = ztsImpl.postAccessTokenRequest(context, "grant_type=client_credentials&scope=coretech:domain");
+        assertNotEquals(resp.getAccess_token(), cachedResp.getAccess_token());
+    }
+
+    @Test
+    public void testIsAccessTokenCacheable() {
+
+        ZTSImpl ztsImpl = new ZTSImpl(new CloudStore(), store);
+        TokenConfigOptions tokenConfigOptions = new TokenConfigOptions();
+
+        DataCache data = new DataCache();
+        data.setDomainData(new DomainData().setName("coretech").setModified(Timestamp.fromCurrentTime()));
+
+        AccessTokenRequest request = new AccessTokenRequest("grant_type=client_credentials&scope=coretech:domain",
+                tokenConfigOptions);
+        AccessTokenScope tokenScope = new AccessTokenScope(request.getScope(), "user_domain");
+        assertFalse(ztsImpl.isAccessTokenCacheable(request, tokenScope, data));
+
+        ztsImpl.accessTokenCache = new AccessTokenCache(10, 3600, 75, 60, ztsMetric);
+        assertTrue(ztsImpl.isAccessTokenCacheable(request, tokenScope, data));
+
+        // actor, authorization details and spiffe uris are not cached
+
+        request = new AccessTokenRequest("grant_type=client_credentials&scope=coretech:domain&actor=sports.api",
+                tokenConfigOptions);
+        assertFalse(ztsImpl.isAccessTokenCacheable(request, tokenScope, data));
+
+        request = Mockito.mock(AccessTokenRequest.class);
+        Mockito.when(request.getAuthzDetails()).thenReturn("[]");
+        assertFalse(ztsImpl.isAccessTokenCacheable(request, tokenScope, data));
+
+        request = Mockito.mock(AccessTokenRequest.class);
+        Mockito.when(request.getProxyPrincipalsSpiffeUris()).thenReturn(Collections.emptyList());
+        assertFalse(ztsImpl.isAccessTokenCacheable(request, tokenScope, data));
+
+        // domains without modified timestamp are not cached
+
+        data.setDomainData(new DomainData().setName("coretech"));
+        assertFalse(ztsImpl.isAccessTokenCacheable(Mockito.mock(AccessTokenRequest.class), tokenScope, data));
+    }
+
     @Test
     public void testPostAccessTokenRequestInvalidDomain() {
 
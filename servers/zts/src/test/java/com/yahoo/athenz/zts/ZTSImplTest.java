@@ -22,6 +22,7 @@ import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import com.yahoo.athenz.auth.*;
 import com.yahoo.athenz.auth.impl.*;
+import com.yahoo.athenz.auth.token.AccessToken;
 import com.yahoo.athenz.auth.token.IdToken;
 import com.yahoo.athenz.auth.token.OAuth2Token;
 import com.yahoo.athenz.auth.token.PrincipalToken;
@@ -29,6 +30,8 @@ import com.yahoo.athenz.auth.token.jwts.JwtsHelper;
 import com.yahoo.athenz.auth.util.Crypto;
 import com.yahoo.athenz.auth.util.CryptoException;
 import com.yahoo.athenz.common.config.AuthzDetailsEntity;
+import com.yahoo.athenz.common.messaging.ChangeSubscriber;
+import com.yahoo.athenz.common.messaging.DomainChangeMessage;
 import com.yahoo.athenz.common.metrics.Metric;
 import com.yahoo.athenz.common.server.cert.Priority;
 import com.yahoo.athenz.common.server.cert.X509CertRecord;
@@ -8449,6 +8452,50 @@ public class ZTSImplTest {
         assertEquals(response.getStatus(), ResourceException.NOT_MODIFIED);
     }
 
+    @Test
+    public void testGetSignedDomainPolicyDataCached() throws InterruptedException {
+
+        ChangeLogStore structStore = new ZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                privateKey, "0");
+
+        DataStore store = new DataStore(structStore, null, ztsMetric);
+
+        ZTSImpl ztsImpl = new ZTSImpl(mockCloudStore, store);
+        ZTSImpl.serverHostName = "localhost";
+        assertNotNull(ztsImpl.signedPolicyCache);
+
+        SignedDomain signedDomain = createSignedDomain("coretech", "weather", "storage", true);
+        store.processSignedDomain(signedDomain, false);
+
+        Principal principal = SimplePrincipal.create("user_domain", "user",
+                "v=U1;d=user_domain;n=user;s=signature", 0, null);
+        ResourceContext context = createResourceContext(principal);
+
+        // the same signed object is returned until the domain is updated
+
+        Response response = ztsImpl.getDomainSignedPolicyData(context, "coretech", null);
+        DomainSignedPolicyData policyData = (DomainSignedPolicyData) response.getEntity();
+        response = ztsImpl.getDomainSignedPolicyData(context, "CoreTech", null);
+        assertSame(response.getEntity(), policyData);
+
+        Thread.sleep(5);
+        signedDomain = createSignedDomain("coretech", "weather", "storage", true);
+        store.processSignedDomain(signedDomain, false);
+
+        response = ztsImpl.getDomainSignedPolicyData(context, "coretech", null);
+        DomainSignedPolicyData updatedPolicyData = (DomainSignedPolicyData) response.getEntity();
+        assertNotSame(updatedPolicyData, policyData);
+        assertEquals(updatedPolicyData.getSignedPolicyData().getModified(), signedDomain.getDomain().getModified());
+        assertEquals(response.getHeaderString("ETag"),
+                new EntityTag(signedDomain.getDomain().getModified().toString()).toString());
+
+        // with the cache disabled we get a new object every time
+
+        ztsImpl.signedPolicyCache = null;
+        response = ztsImpl.getDomainSignedPolicyData(context, "coretech", null);
+        assertNotSame(response.getEntity(), updatedPolicyData);
+    }
+
     @Test
     public void testCreatePrincipalForName() {
 
@@ -8547,6 +8594,35 @@ public class ZTSImplTest {
         assertNotNull(store);
     }
 
+    @Test
+    public void testLoadDomainChangeSubscribers() {
+
+        // no topics configured
+
+        System.clearProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_TOPIC_NAMES);
+        assertTrue(zts.loadDomainChangeSubscribers().isEmpty());
+
+        // invalid factory class
+
+        System.setProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_TOPIC_NAMES, "topic1, ,topic2");
+        System.setProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_SUBSCRIBER_FACTORY_CLASS, "invalid.class");
+        try {
+            zts.loadDomainChangeSubscribers();
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage().contains("Invalid domain change subscriber factory class"));
+        }
+
+        System.setProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_SUBSCRIBER_FACTORY_CLASS,
+                "com.yahoo.athenz.common.messaging.impl.InMemoryDomainChangeSubscriberFactory");
+        List<ChangeSubscriber<DomainChangeMessage>> subscribers = zts.loadDomainChangeSubscribers();
+        assertEquals(subscribers.size(), 2);
+        subscribers.forEach(ChangeSubscriber::close);
+
+        System.clearProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_TOPIC_NAMES);
+        System.clearProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_SUBSCRIBER_FACTORY_CLASS);
+    }
+
     @Test
     public void testNormalizeDomainAliasUser() {
 
@@ -12400,6 +12476,146 @@ public class ZTSImplTest {
         assertEquals(response.getStatus(), 304);
     }
 
+    @Test
+    public void testPostSignedPolicyRequestCached() throws InterruptedException {
+
+        ChangeLogStore structStore = new ZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                privateKey, "0");
+
+        DataStore store = new DataStore(structStore, null, ztsMetric);
+
+        ZTSImpl ztsImpl = new ZTSImpl(mockCloudStore, store);
+        ZTSImpl.serverHostName = "localhost";
+
+        SignedDomain signedDomain = createSignedDomain("coretech", "weather", "storage", true);
+        store.processSignedDomain(signedDomain, false);
+
+        Principal principal = SimplePrincipal.create("user_domain", "user",
+                "v=U1;d=user_domain;n=user;s=signature", 0, null);
+        ResourceContext context = createResourceContext(principal);
+
+        SignedPolicyRequest signedPolicyRequest = new SignedPolicyRequest();
+        signedPolicyRequest.setPolicyVersions(Collections.emptyMap());
+        Response response = ztsImpl.postSignedPolicyRequest(context, "coretech", signedPolicyRequest, null);
+        JWSPolicyData jwsPolicyData = (JWSPolicyData) response.getEntity();
+        response = ztsImpl.postSignedPolicyRequest(context, "coretech", signedPolicyRequest, null);
+        assertSame(response.getEntity(), jwsPolicyData);
+
+        // p1363 signature format and policy versions are separate entries
+
+        signedPolicyRequest.setSignatureP1363Format(true);
+        response = ztsImpl.postSignedPolicyRequest(context, "coretech", signedPolicyRequest, null);
+        JWSPolicyData p1363PolicyData = (JWSPolicyData) response.getEntity();
+        assertNotSame(p1363PolicyData, jwsPolicyData);
+
+        signedPolicyRequest.setPolicyVersions(Collections.singletonMap("policy1", "0"));
+        response = ztsImpl.postSignedPolicyRequest(context, "coretech", signedPolicyRequest, null);
+        assertNotSame(response.getEntity(), p1363PolicyData);
+        assertEquals(ztsImpl.signedPolicyCache.size(), 3);
+
+        // domain update generates a new signed object
+
+        Thread.sleep(5);
+        signedDomain = createSignedDomain("coretech", "weather", "storage", true);
+        store.processSignedDomain(signedDomain, false);
+
+        signedPolicyRequest.setSignatureP1363Format(false);
+        signedPolicyRequest.setPolicyVersions(Collections.emptyMap());
+        response = ztsImpl.postSignedPolicyRequest(context, "coretech", signedPolicyRequest, null);
+        assertEquals(response.getStatus(), 200);
+        assertNotSame(response.getEntity(), jwsPolicyData);
+    }
+
+    @Test
+    public void testLoadSignedPolicyCache() {
+
+        System.setProperty(ZTSConsts.ZTS_PROP_SIGNED_POLICY_CACHE_SIZE, "0");
+        zts.loadSignedPolicyCache();
+        assertNull(zts.signedPolicyCache);
+
+        System.clearProperty(ZTSConsts.ZTS_PROP_SIGNED_POLICY_CACHE_SIZE);
+        zts.loadSignedPolicyCache();
+        assertNotNull(zts.signedPolicyCache);
+    }
+
+    @Test
+    public void testLoadAccessTokenCache() {
+
+        zts.loadAccessTokenCache();
+        assertNull(zts.accessTokenCache);
+
+        System.setProperty(ZTSConsts.ZTS_PROP_ACCESS_TOKEN_CACHE_SIZE, "100");
+        System.setProperty(ZTSConsts.ZTS_PROP_ACCESS_TOKEN_CACHE_MIN_LIFETIME, "150");
+        System.setProperty(ZTSConsts.ZTS_PROP_ACCESS_TOKEN_CACHE_MAX_REUSE_TIME, "30");
+        zts.loadAccessTokenCache();
+        assertNotNull(zts.accessTokenCache);
+
+        System.clearProperty(ZTSConsts.ZTS_PROP_ACCESS_TOKEN_CACHE_SIZE);
+        System.clearProperty(ZTSConsts.ZTS_PROP_ACCESS_TOKEN_CACHE_MIN_LIFETIME);
+        System.clearProperty(ZTSConsts.ZTS_PROP_ACCESS_TOKEN_CACHE_MAX_REUSE_TIME);
+        zts.loadAccessTokenCache();
+        assertNull(zts.accessTokenCache);
+    }
+
+    @Test
+    public void testLoadCacheMetricsPublisher() {
+
+        // without any certificate caches there are no counters to publish
+
+        zts.loadCacheMetricsPublisher();
+        assertEquals(zts.cacheMetricsPublisher.size(), 0);
+
+        Metric savedMetric = zts.metric;
+        Http.AuthorityList savedAuthorities = zts.authorities;
+
+        Metric metric = Mockito.mock(Metric.class);
+        zts.metric = metric;
+
+        CertificateIdentityCache identityCache = Mockito.mock(CertificateIdentityCache.class);
+        Mockito.when(identityCache.getHitCount()).thenReturn(5L);
+        Mockito.when(identityCache.getMissCount()).thenReturn(2L);
+        CertificateAuthority certAuthority = Mockito.mock(CertificateAuthority.class);
+        Mockito.when(certAuthority.getCertificateIdentityCache()).thenReturn(identityCache);
+
+        Http.AuthorityList authorities = new Http.AuthorityList();
+        authorities.add(new PrincipalAuthority());
+        authorities.add(Mockito.mock(CertificateAuthority.class));
+        authorities.add(certAuthority);
+        zts.authorities = authorities;
+
+        System.setProperty(ZTSConsts.ZTS_PROP_CERT_HASH_CACHE_SIZE, "10");
+        System.setProperty(ZTSConsts.ZTS_PROP_CACHE_METRICS_INTERVAL, "0");
+        AccessToken.setX509CertHashCacheSize(10);
+
+        zts.loadCacheMetricsPublisher();
+        assertEquals(zts.cacheMetricsPublisher.size(), 3);
+
+        zts.cacheMetricsPublisher.publish();
+        Mockito.verify(metric).increment(ZTSImpl.METRIC_CERT_IDENTITY_CACHE_HIT, null, 5);
+        Mockito.verify(metric).increment(ZTSImpl.METRIC_CERT_IDENTITY_CACHE_MISS, null, 2);
+        Mockito.verify(metric, Mockito.never()).increment(Mockito.eq(ZTSImpl.METRIC_CERT_HASH_CACHE_HIT),
+                Mockito.any(), Mockito.anyInt());
+
+        System.clearProperty(ZTSConsts.ZTS_PROP_CERT_HASH_CACHE_SIZE);
+        System.clearProperty(ZTSConsts.ZTS_PROP_CACHE_METRICS_INTERVAL);
+        AccessToken.setX509CertHashCacheSize(0);
+
+        zts.metric = savedMetric;
+        zts.authorities = savedAuthorities;
+    }
+
+    @Test
+    public void testGetServerPrivateKeyId() {
+
+        ZTSImpl ztsImpl = new ZTSImpl(mockCloudStore, store);
+        assertNotNull(ztsImpl.getServerPrivateKeyId(ZTSConsts.RSA));
+
+        ztsImpl.privateECKey = null;
+        ztsImpl.privateRSAKey = null;
+        ztsImpl.privateOrigKey = null;
+        assertNull(ztsImpl.getServerPrivateKeyId(ZTSConsts.RSA));
+    }
+
     @Test
     public void testSignJWSPolicyDataError() {
 
@@ -0,0 +1,216 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.cache;
+
+import com.yahoo.athenz.common.metrics.Metric;
+import com.yahoo.athenz.zts.AccessTokenResponse;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.security.cert.X509Certificate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.testng.Assert.*;
+
+public class AccessTokenCacheTest {
+
+    private Supplier<AccessTokenResponse> tokenGenerator(AtomicInteger count, int expiresIn) {
+        return () -> new AccessTokenResponse().setAccess_token("token-" + count.incrementAndGet())
+                .setToken_type("Bearer").setExpires_in(expiresIn).setScope("coretech:role.readers");
+    }
+
+    @Test
+    public void testGenerateKey() {
+
+        assertEquals(AccessTokenCache.generateKey("user_domain.user", "coretech:domain", 0, null, null,
+                "https://athenz.io", false), "user_domain.user|coretech:domain|0|0|https://athenz.io");
+        assertEquals(AccessTokenCache.generateKey("user_domain.user", "coretech:domain", 3600, null,
+                "user_domain.proxy", "https://athenz.io", true),
+                "user_domain.user|coretech:domain|3600|1|https://athenz.io|p:user_domain.proxy");
+
+        // certificates with different signatures generate different keys
+
+        X509Certificate cert1 = Mockito.mock(X509Certificate.class);
+        Mockito.when(cert1.getSignature()).thenReturn(new byte[] { 1, 2, 3 });
+        X509Certificate cert2 = Mockito.mock(X509Certificate.class);
+        Mockito.when(cert2.getSignature()).thenReturn(new byte[] { 1, 2, 4 });
+
+        final String key1 = AccessTokenCache.generateKey("user_domain.user", "coretech:domain", 0, cert1,
+                null, "https://athenz.io", false);
+        final String key2 = AccessTokenCache.generateKey("user_domain.user", "coretech:domain", 0, cert2,
+                null, "https://athenz.io", false);
+        assertTrue(key1.startsWith("user_domain.user|coretech:domain|0|0|https://athenz.io|c:"));
+        assertNotEquals(key1, key2);
+    }
+
+    @Test
+    public void testGetAccessToken() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        AccessTokenCache cache = new AccessTokenCache(10, 3600, 75, 600, metric);
+
+        AtomicInteger count = new AtomicInteger();
+        Supplier<AccessTokenResponse> generator = tokenGenerator(count, 3600);
+
+        final String key = AccessTokenCache.generateKey("user_domain.user", "coretech:domain", 0, null, null,
+                "https://athenz.io", false);
+        AccessTokenResponse response = cache.getAccessToken(key, 1000, "0", generator);
+        assertEquals(response.getAccess_token(), "token-1");
+        assertEquals(response.getToken_type(), "Bearer");
+        assertEquals(response.getScope(), "coretech:role.readers");
+        assertTrue(response.getExpires_in() > 3500);
+        Mockito.verify(metric, Mockito.times(1)).increment(AccessTokenCache.METRIC_CACHE_MISS);
+
+        // the same domain version and key returns a copy of the cached token
+
+        AccessTokenResponse cachedResponse = cache.getAccessToken(key, 1000, "0", generator);
+        assertEquals(cachedResponse.getAccess_token(), "token-1");
+        assertNotSame(cachedResponse, response);
+        assertEquals(cache.getAccessToken(key, 1000, "0", generator).getAccess_token(), "token-1");
+        Mockito.verify(metric, Mockito.times(2)).increment(AccessTokenCache.METRIC_CACHE_HIT);
+        assertEquals(cache.size(), 1);
+
+        // domain update generates a new token
+
+        assertEquals(cache.getAccessToken(key, 2000, "0", generator).getAccess_token(), "token-2");
+        assertEquals(cache.getAccessToken(key, 2000, "0", generator).getAccess_token(), "token-2");
+
+        // key rotation generates a new token
+
+        assertEquals(cache.getAccessToken(key, 2000, "1", generator).getAccess_token(), "token-3");
+        assertEquals(cache.getAccessToken(key, 2000, "1", generator).getAccess_token(), "token-3");
+        Mockito.verify(metric, Mockito.times(3)).increment(AccessTokenCache.METRIC_CACHE_MISS);
+
+        // different key is a separate entry
+
+        final String proxyKey = AccessTokenCache.generateKey("user_domain.user", "coretech:domain", 0, null,
+                "user_domain.proxy", "https://athenz.io", false);
+        assertEquals(cache.getAccessToken(proxyKey, 2000, "1", generator).getAccess_token(), "token-4");
+        assertEquals(cache.size(), 2);
+    }
+
+    @Test
+    public void testGetAccessTokenLifetime() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        AccessTokenCache cache = new AccessTokenCache(10, 3600, 75, 600, metric);
+
+        final String key = AccessTokenCache.generateKey("user_domain.user", "coretech:domain", 0, null, null,
+                "https://athenz.io", false);
+
+        // tokens that no longer have the required lifetime remaining
+        // are not returned from the cache
+
+        long now = System.currentTimeMillis() / 1000;
+        AccessTokenResponse response = new AccessTokenResponse().setAccess_token("token").setExpires_in(100);
+        assertTrue(cache.isValidEntry(new AccessTokenCache.AccessTokenEntry(1000, "0", now, now + 100, response),
+                1000, "0", now));
+        assertTrue(cache.isValidEntry(new AccessTokenCache.AccessTokenEntry(1000, "0", now, now + 75, response),
+                1000, "0", now));
+        assertFalse(cache.isValidEntry(new AccessTokenCache.AccessTokenEntry(1000, "0", now, now + 74, response),
+                1000, "0", now));
+        assertFalse(cache.isValidEntry(new AccessTokenCache.AccessTokenEntry(1000, "0", now, now, response),
+                1000, "0", now));
+
+        // tokens with no lifetime are never returned from the cache
+
+        AtomicInteger count = new AtomicInteger();
+        Supplier<AccessTokenResponse> generator = tokenGenerator(count, 0);
+        assertEquals(cache.getAccessToken(key, 1000, "0", generator).getAccess_token(), "token-3");
+        assertEquals(cache.getAccessToken(key, 1000, "0", generator).getAccess_token(), "token-5");
+    }
+
+    @Test
+    public void testGetAccessTokenMaxReuseTime() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        AccessTokenCache cache = new AccessTokenCache(10, 3600, 75, 60, metric);
+
+        // tokens are only returned for the max reuse time even if
+        // the domain has not changed since group and trust domain
+        // changes are not tracked
+
+        long now = System.currentTimeMillis() / 1000;
+        AccessTokenResponse response = new AccessTokenResponse().setAccess_token("token").setExpires_in(3600);
+        assertTrue(cache.isValidEntry(new AccessTokenCache.AccessTokenEntry(1000, "0", now - 59, now + 3500,
+                response), 1000, "0", now));
+        assertFalse(cache.isValidEntry(new AccessTokenCache.AccessTokenEntry(1000, "0", now - 60, now + 3500,
+                response), 1000, "0", now));
+
+        // expired entries are replaced with a newly generated token
+
+        final String key = AccessTokenCache.generateKey("user_domain.user", "coretech:domain", 0, null, null,
+                "https://athenz.io", false);
+        AccessTokenCache.AccessTokenEntry staleEntry = new AccessTokenCache.AccessTokenEntry(1000, "0",
+                now - 120, now + 3400, response);
+        cache.tokenCache.put(key, staleEntry);
+
+        AtomicInteger count = new AtomicInteger();
+        Supplier<AccessTokenResponse> generator = tokenGenerator(count, 3600);
+        assertEquals(cache.getAccessToken(key, 1000, "0", generator).getAccess_token(), "token-1");
+        assertEquals(cache.getAccessToken(key, 1000, "0", generator).getAccess_token(), "token-1");
+        Mockito.verify(metric, Mockito.times(1)).increment(AccessTokenCache.METRIC_CACHE_MISS);
+        Mockito.verify(metric, Mockito.times(1)).increment(AccessTokenCache.METRIC_CACHE_HIT);
+    }
+
+    @Test
+    public void testLoadAccessToken() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        AccessTokenCache cache = new AccessTokenCache(10, 3600, 75, 600, metric);
+
+        AtomicInteger count = new AtomicInteger();
+        Supplier<AccessTokenResponse> generator = tokenGenerator(count, 3600);
+
+        AccessTokenCache.LoadResult result = cache.loadAccessToken("key", 1000, "0", generator);
+        assertTrue(result.generated);
+        assertEquals(result.entry.response.getAccess_token(), "token-1");
+        assertEquals(result.entry.expiryTime - result.entry.createTime, 3600);
+
+        result = cache.loadAccessToken("key", 2000, "1", generator);
+        assertFalse(result.generated);
+        assertEquals(result.entry.response.getAccess_token(), "token-1");
+        assertEquals(result.entry.modified, 1000);
+        assertEquals(result.entry.keyId, "0");
+    }
+
+    @Test
+    public void testGetAccessTokenFailure() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        AccessTokenCache cache = new AccessTokenCache(10, 3600, 75, 600, metric);
+
+        final String key = AccessTokenCache.generateKey("user_domain.user", "coretech:domain", 0, null, null,
+                "https://athenz.io", false);
+
+        // runtime exceptions are passed to the caller and not cached
+
+        try {
+            cache.getAccessToken(key, 1000, "0", () -> {
+                throw new IllegalArgumentException("forbidden");
+            });
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertEquals(ex.getMessage(), "forbidden");
+        }
+        assertEquals(cache.size(), 0);
+
+        AtomicInteger count = new AtomicInteger();
+        assertEquals(cache.getAccessToken(key, 1000, "0", tokenGenerator(count, 3600)).getAccess_token(), "token-1");
+        assertEquals(cache.size(), 1);
+    }
+}
@@ -1382,5 +1382,120 @@ public class DataCacheTest {
         assertNull(cache.getServiceIdentityClientId(domainName + ".service2"));
         assertEquals("client3", cache.getServiceIdentityClientId(domainName + ".service3"));
     }
-}
 
+    @Test
+    public void testProcessPrefixMemberRoleSets() {
+
+        List<RoleMember> members1 = new ArrayList<>();
+        members1.add(new RoleMember().setMemberName("user_domain.user1"));
+        members1.add(new RoleMember().setMemberName("user_domain.*"));
+        members1.add(new RoleMember().setMemberName("user_domain.api*"));
+
+        List<RoleMember> members2 = new ArrayList<>();
+        members2.add(new RoleMember().setMemberName("coretech.*"));
+
+        DataCache cache = new DataCache();
+
+        // with no prefix members we should get no callbacks
+
+        List<Set<MemberRole>> roleSets = new ArrayList<>();
+        cache.processPrefixMemberRoleSets("user_domain.api", roleSets::add);
+        assertTrue(roleSets.isEmpty());
+
+        cache.processRoleMembers("dom:role.role1", members1);
+        cache.processRoleMembers("dom:role.role2", members2);
+
+        // first without the index so we process the prefix map
+
+        cache.processPrefixMemberRoleSets("user_domain.api", roleSets::add);
+        assertEquals(roleSets.size(), 2);
+        roleSets.clear();
+
+        cache.processPrefixMemberRoleSets("user_domain.user1", roleSets::add);
+        assertEquals(roleSets.size(), 1);
+        roleSets.clear();
+
+        // now build our index and verify the same results
+
+        cache.buildRoleIndex();
+
+        cache.processPrefixMemberRoleSets("user_domain.api", roleSets::add);
+        assertEquals(roleSets.size(), 2);
+        roleSets.clear();
+
+        cache.processPrefixMemberRoleSets("user_domain.user1", roleSets::add);
+        assertEquals(roleSets.size(), 1);
+        assertTrue(roleSets.get(0).contains(new MemberRole("dom:role.role1", 0)));
+        roleSets.clear();
+
+        cache.processPrefixMemberRoleSets("coretech.backend", roleSets::add);
+        assertEquals(roleSets.size(), 1);
+        assertTrue(roleSets.get(0).contains(new MemberRole("dom:role.role2", 0)));
+        roleSets.clear();
+
+        cache.processPrefixMemberRoleSets("weather.api", roleSets::add);
+        assertTrue(roleSets.isEmpty());
+    }
+
+    @Test
+    public void testCopyDataCache() {
+
+        Role role1 = new Role().setName("dom:role.role1").setTrust("sports").setRoleMembers(new ArrayList<>(List.of(
+                new RoleMember().setMemberName("user_domain.user1"),
+                new RoleMember().setMemberName("user_domain.api*"),
+                new RoleMember().setMemberName("*"))));
+        Role role2 = new Role().setName("dom:role.role2").setTrust("sports").setRoleMembers(new ArrayList<>(List.of(
+                new RoleMember().setMemberName("user_domain.user1"),
+                new RoleMember().setMemberName("user_domain.user2"))));
+
+        DataCache cache = new DataCache();
+        cache.processRole(role1);
+        cache.processRole(role2);
+        cache.buildRoleIndex();
+
+        // remove the first role from a copy of the cache
+
+        DataCache copy = new DataCache(cache);
+        assertSame(copy.getHostMap(), cache.getHostMap());
+        assertSame(copy.getPublicKeyMap(), cache.getPublicKeyMap());
+
+        copy.removeRole(role1);
+        copy.processRole(new Role().setName("dom:role.role3").setRoleMembers(new ArrayList<>(List.of(
+                new RoleMember().setMemberName("user_domain.user2")))));
+        copy.buildRoleIndex();
+
+        assertEquals(copy.getMemberRoleSet("user_domain.user1"),
+                Collections.singleton(new MemberRole("dom:role.role2", 0)));
+        assertEquals(copy.getMemberRoleSet("user_domain.user2").size(), 2);
+        assertTrue(copy.getAllMemberRoleSet().isEmpty());
+        assertTrue(copy.getPrefixMemberRoleSetMap().isEmpty());
+        assertEquals(copy.getTrustMap().get("sports"), Collections.singleton("dom:role.role2"));
+        assertNull(copy.getRoleMeta("role1"));
+        assertNotNull(copy.getRoleMeta("role3"));
+
+        // the original cache must not be modified
+
+        assertEquals(cache.getMemberRoleSet("user_domain.user1").size(), 2);
+        assertEquals(cache.getMemberRoleSet("user_domain.user2"),
+                Collections.singleton(new MemberRole("dom:role.role2", 0)));
+        assertEquals(cache.getAllMemberRoleSet().size(), 1);
+        assertEquals(cache.getPrefixMemberRoleSetMap().size(), 1);
+        assertEquals(cache.getTrustMap().get("sports").size(), 2);
+        assertNotNull(cache.getRoleMeta("role1"));
+
+        // removing the last role removes the trust domain
+
+        copy.removeRole(role2);
+        assertNull(copy.getMemberRoleSet("user_domain.user1"));
+        assertFalse(copy.getTrustMap().containsKey("sports"));
+        assertEquals(cache.getTrustMap().get("sports").size(), 2);
+
+        // removing roles without members or unknown entries
+
+        copy.removeRole(new Role().setName("dom:role.role4").setTrust("weather"));
+        copy.removeRole(new Role().setName("invalid-role").setRoleMembers(new ArrayList<>(List.of(
+                new RoleMember().setMemberName("user_domain.user5")))));
+        assertEquals(copy.getMemberRoleSet("user_domain.user2"),
+                Collections.singleton(new MemberRole("dom:role.role3", 0)));
+    }
+}
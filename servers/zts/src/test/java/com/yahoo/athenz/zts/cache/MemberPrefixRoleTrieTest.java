@@ -0,0 +1,100 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.cache;
+
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+public class MemberPrefixRoleTrieTest {
+
+    private Set<String> findRoles(MemberPrefixRoleTrie trie, final String principal) {
+        Set<String> roles = new HashSet<>();
+        trie.findMatchingRoleSets(principal, memberRoles -> {
+            for (MemberRole memberRole : memberRoles) {
+                roles.add(memberRole.getRole());
+            }
+        });
+        return roles;
+    }
+
+    @Test
+    public void testFindMatchingRoleSets() {
+
+        Map<String, Set<MemberRole>> prefixMap = new HashMap<>();
+        prefixMap.put("user_domain.", new HashSet<>(Collections.singletonList(new MemberRole("dom:role.role1", 0))));
+        prefixMap.put("user_domain.user", new HashSet<>(Collections.singletonList(new MemberRole("dom:role.role2", 0))));
+        prefixMap.put("user_domain.api", new HashSet<>(Collections.singletonList(new MemberRole("dom:role.role3", 0))));
+        prefixMap.put("coretech.", new HashSet<>(Collections.singletonList(new MemberRole("dom:role.role4", 0))));
+        prefixMap.put("coretech.backend", new HashSet<>());
+
+        MemberPrefixRoleTrie trie = new MemberPrefixRoleTrie(prefixMap);
+        assertEquals(trie.size(), 4);
+
+        assertEquals(findRoles(trie, "user_domain.user1"), new HashSet<>(Arrays.asList("dom:role.role1", "dom:role.role2")));
+        assertEquals(findRoles(trie, "user_domain.api"), new HashSet<>(Arrays.asList("dom:role.role1", "dom:role.role3")));
+        assertEquals(findRoles(trie, "user_domain.joe"), new HashSet<>(Collections.singletonList("dom:role.role1")));
+        assertEquals(findRoles(trie, "coretech.backend"), new HashSet<>(Collections.singletonList("dom:role.role4")));
+        assertTrue(findRoles(trie, "user_domain").isEmpty());
+        assertTrue(findRoles(trie, "athenz.api").isEmpty());
+        assertTrue(findRoles(trie, "").isEmpty());
+    }
+
+    @Test
+    public void testFindMatchingRoleSetsEmptyPrefix() {
+
+        Map<String, Set<MemberRole>> prefixMap = new HashMap<>();
+        prefixMap.put("", new HashSet<>(Collections.singletonList(new MemberRole("dom:role.role1", 0))));
+        prefixMap.put("a", new HashSet<>(Collections.singletonList(new MemberRole("dom:role.role2", 0))));
+
+        MemberPrefixRoleTrie trie = new MemberPrefixRoleTrie(prefixMap);
+        assertEquals(trie.size(), 2);
+
+        assertEquals(findRoles(trie, "abc"), new HashSet<>(Arrays.asList("dom:role.role1", "dom:role.role2")));
+        assertEquals(findRoles(trie, "bcd"), new HashSet<>(Collections.singletonList("dom:role.role1")));
+    }
+
+    @Test
+    public void testFindMatchingRoleSetsNullMap() {
+
+        MemberPrefixRoleTrie trie = new MemberPrefixRoleTrie(null);
+        assertEquals(trie.size(), 0);
+        assertTrue(findRoles(trie, "user_domain.user1").isEmpty());
+    }
+
+    @Test
+    public void testFindMatchingRoleSetsKeyOrder() {
+
+        // insert keys in reverse order to verify our sorted child arrays
+
+        Map<String, Set<MemberRole>> prefixMap = new LinkedHashMap<>();
+        final String[] prefixes = { "dz", "dy", "da", "dm", "b", "c", "a" };
+        for (String prefix : prefixes) {
+            prefixMap.put(prefix, new HashSet<>(Collections.singletonList(new MemberRole("role-" + prefix, 0))));
+        }
+
+        MemberPrefixRoleTrie trie = new MemberPrefixRoleTrie(prefixMap);
+        assertEquals(trie.size(), prefixes.length);
+
+        for (String prefix : prefixes) {
+            assertEquals(findRoles(trie, prefix + ".service"), new HashSet<>(Collections.singletonList("role-" + prefix)));
+        }
+        assertTrue(findRoles(trie, "d.service").isEmpty());
+        assertTrue(findRoles(trie, "e.service").isEmpty());
+    }
+}
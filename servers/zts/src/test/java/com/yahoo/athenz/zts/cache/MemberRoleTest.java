@@ -55,4 +55,24 @@ public class MemberRoleTest {
         assertTrue(mr4.equals(mr5));
         assertFalse(mr1.equals(mr6));
     }
+
+    @Test
+    public void testMemberRoleMatchesRole() {
+
+        MemberRole mr1 = new MemberRole("coretech:role.readers", 0);
+        assertTrue(mr1.matchesRole("coretech:role.readers"));
+        assertFalse(mr1.matchesRole("coretech:role.writers"));
+
+        MemberRole mr2 = new MemberRole("*:role.readers", 0);
+        assertTrue(mr2.matchesRole("coretech:role.readers"));
+        assertTrue(mr2.matchesRole("weather:role.readers"));
+        assertFalse(mr2.matchesRole("coretech:role.writers"));
+
+        MemberRole mr3 = new MemberRole("coretech:role.read?rs", 0);
+        assertTrue(mr3.matchesRole("coretech:role.readers"));
+        assertFalse(mr3.matchesRole("coretech:role.reads"));
+
+        MemberRole mr4 = new MemberRole(null, 0);
+        assertFalse(mr4.matchesRole("coretech:role.readers"));
+    }
 }
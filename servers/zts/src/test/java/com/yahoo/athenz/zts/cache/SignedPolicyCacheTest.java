@@ -0,0 +1,150 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.cache;
+
+import com.yahoo.athenz.common.metrics.Metric;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.testng.Assert.*;
+
+public class SignedPolicyCacheTest {
+
+    @Test
+    public void testGenerateKey() {
+
+        assertEquals(SignedPolicyCache.generateKey(SignedPolicyCache.FORMAT_ZTS, "coretech", false, null),
+                "zts:coretech:0");
+        assertEquals(SignedPolicyCache.generateKey(SignedPolicyCache.FORMAT_JWS, "coretech", true,
+                Collections.emptyMap()), "jws:coretech:1");
+
+        // versions are sorted so the order in the request is not relevant
+
+        Map<String, String> versions = new LinkedHashMap<>();
+        versions.put("coretech:policy.writers", "v2");
+        versions.put("coretech:policy.readers", "v1");
+        assertEquals(SignedPolicyCache.generateKey(SignedPolicyCache.FORMAT_JWS, "coretech", false, versions),
+                "jws:coretech:0:coretech:policy.readers=v1:coretech:policy.writers=v2");
+    }
+
+    @Test
+    public void testGetSignedPolicy() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        SignedPolicyCache cache = new SignedPolicyCache(10, 60000, metric);
+
+        AtomicInteger count = new AtomicInteger();
+        Supplier<String> signer = () -> "signed-" + count.incrementAndGet();
+
+        final String key = SignedPolicyCache.generateKey(SignedPolicyCache.FORMAT_JWS, "coretech", false, null);
+        assertEquals(cache.getSignedPolicy(key, 1000, "0", signer), "signed-1");
+        Mockito.verify(metric, Mockito.times(1)).increment(SignedPolicyCache.METRIC_CACHE_MISS);
+
+        // the same domain version and key returns the cached object
+
+        assertEquals(cache.getSignedPolicy(key, 1000, "0", signer), "signed-1");
+        assertEquals(cache.getSignedPolicy(key, 1000, "0", signer), "signed-1");
+        Mockito.verify(metric, Mockito.times(2)).increment(SignedPolicyCache.METRIC_CACHE_HIT);
+        assertEquals(cache.size(), 1);
+
+        // domain update generates a new object
+
+        assertEquals(cache.getSignedPolicy(key, 2000, "0", signer), "signed-2");
+        assertEquals(cache.getSignedPolicy(key, 2000, "0", signer), "signed-2");
+
+        // key rotation generates a new object
+
+        assertEquals(cache.getSignedPolicy(key, 2000, "1", signer), "signed-3");
+        assertEquals(cache.getSignedPolicy(key, 2000, "1", signer), "signed-3");
+        Mockito.verify(metric, Mockito.times(3)).increment(SignedPolicyCache.METRIC_CACHE_MISS);
+
+        // different key is a separate entry
+
+        final String p1363Key = SignedPolicyCache.generateKey(SignedPolicyCache.FORMAT_JWS, "coretech", true, null);
+        assertEquals(cache.getSignedPolicy(p1363Key, 2000, "1", signer), "signed-4");
+        assertEquals(cache.size(), 2);
+    }
+
+    @Test
+    public void testGetSignedPolicyExpired() throws InterruptedException {
+
+        Metric metric = Mockito.mock(Metric.class);
+
+        // entries are only valid for half of the signed policy timeout
+
+        SignedPolicyCache cache = new SignedPolicyCache(10, 2, metric);
+
+        AtomicInteger count = new AtomicInteger();
+        Supplier<String> signer = () -> "signed-" + count.incrementAndGet();
+
+        final String key = SignedPolicyCache.generateKey(SignedPolicyCache.FORMAT_ZTS, "coretech", false, null);
+        assertEquals(cache.getSignedPolicy(key, 1000, "0", signer), "signed-1");
+        Thread.sleep(10);
+        assertEquals(cache.getSignedPolicy(key, 1000, "0", signer), "signed-2");
+    }
+
+    @Test
+    public void testGetSignedPolicyFailure() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        SignedPolicyCache cache = new SignedPolicyCache(10, 60000, metric);
+
+        final String key = SignedPolicyCache.generateKey(SignedPolicyCache.FORMAT_JWS, "coretech", false, null);
+
+        // failed signature is not cached
+
+        assertNull(cache.getSignedPolicy(key, 1000, "0", () -> null));
+        assertEquals(cache.size(), 0);
+
+        // runtime exceptions are passed to the caller
+
+        try {
+            cache.getSignedPolicy(key, 1000, "0", () -> {
+                throw new IllegalArgumentException("invalid key");
+            });
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertEquals(ex.getMessage(), "invalid key");
+        }
+        assertEquals(cache.size(), 0);
+
+        assertEquals(cache.getSignedPolicy(key, 1000, "0", () -> "signed"), "signed");
+        assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void testGetSignedPolicyStaleEntry() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        SignedPolicyCache cache = Mockito.spy(new SignedPolicyCache(10, 60000, metric));
+
+        // another thread keeps storing an object for an older
+        // domain version so we generate the object ourselves
+
+        SignedPolicyCache.SignedPolicy stale = new SignedPolicyCache.SignedPolicy(1000, "0", "signed-old");
+        Mockito.doReturn(stale).when(cache).loadSignedPolicy(Mockito.anyString(), Mockito.anyLong(),
+                Mockito.any(), Mockito.any(), Mockito.any());
+
+        final String key = SignedPolicyCache.generateKey(SignedPolicyCache.FORMAT_JWS, "coretech", false, null);
+        assertEquals(cache.getSignedPolicy(key, 2000, "0", () -> "signed-new"), "signed-new");
+        Mockito.verify(cache, Mockito.times(2)).loadSignedPolicy(Mockito.anyString(), Mockito.anyLong(),
+                Mockito.any(), Mockito.any(), Mockito.any());
+    }
+}
@@ -21,13 +21,13 @@ import com.yahoo.athenz.common.server.ssh.SSHCertRecord;
 import com.yahoo.athenz.common.server.ssh.SSHRecordStore;
 import com.yahoo.athenz.common.server.ssh.SSHRecordStoreConnection;
 import com.yahoo.athenz.common.server.ssh.SSHSigner;
-import com.yahoo.athenz.common.server.util.IPBlock;
 import com.yahoo.athenz.common.server.util.config.dynamic.DynamicConfigBoolean;
 import com.yahoo.athenz.common.server.workload.WorkloadRecord;
 import com.yahoo.athenz.common.server.workload.WorkloadRecordStore;
 import com.yahoo.athenz.common.server.workload.WorkloadRecordStoreConnection;
 import com.yahoo.athenz.zts.*;
 import com.yahoo.athenz.zts.cert.impl.FileSSHRecordStoreFactory;
+import com.yahoo.athenz.common.server.util.IPPrefixTrie;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.testng.annotations.BeforeMethod;
@@ -1258,7 +1258,7 @@ public class InstanceCertManagerTest {
     @Test
     public void testLoadAllowedIPAddresses() {
         
-        List<IPBlock> ipBlocks = new ArrayList<>();
+        IPPrefixTrie ipBlocks = new IPPrefixTrie();
 
         // empty or null filename returns success
 
@@ -1276,6 +1276,14 @@ public class InstanceCertManagerTest {
         // valid json with empty set returns failure
         
         assertFalse(InstanceCertManager.loadAllowedIPAddresses(ipBlocks, "src/test/resources/empty_ipblocks.txt"));
+
+        // both ipv4 and ipv6 blocks are loaded and invalid entries are skipped
+
+        assertTrue(InstanceCertManager.loadAllowedIPAddresses(ipBlocks, "src/test/resources/cert_refresh_ipblocks.txt"));
+        assertTrue(ipBlocks.contains("20.1.10.1"));
+        assertTrue(ipBlocks.contains("2a05:d07f:8012::1"));
+        assertFalse(ipBlocks.contains("2a05:d07f:9000::1"));
+        assertFalse(ipBlocks.contains("172.30.10.2"));
     }
 
     @Test
@@ -2133,10 +2141,10 @@ public class InstanceCertManagerTest {
     @Test
     public void testHasProviderChangeThresholdNotExceeded() {
 
-        ConcurrentHashMap<String, List<IPBlock>> providerCertIPBlocks = new ConcurrentHashMap<>();
-        List<IPBlock> ipBlocks = new ArrayList<>();
+        ConcurrentHashMap<String, IPPrefixTrie> providerCertIPBlocks = new ConcurrentHashMap<>();
+        IPPrefixTrie ipBlocks = new IPPrefixTrie();
         for (int i = 0; i < 10; i++) {
-            ipBlocks.add(new IPBlock("192.1.0." + i + "/32"));
+            ipBlocks.addPrefix("192.1.0." + i + "/32");
         }
         providerCertIPBlocks.put("provider1", ipBlocks);
 
@@ -2172,7 +2180,7 @@ public class InstanceCertManagerTest {
 
         // make a copy of our current provider ip blocks
 
-        ConcurrentHashMap<String, List<IPBlock>> instanceProviderCertIPBlocks =
+        ConcurrentHashMap<String, IPPrefixTrie> instanceProviderCertIPBlocks =
                 new ConcurrentHashMap<>(instanceManager.getInstanceCertIPBlocks());
 
         InstanceCertManager.RefreshAllowedIPAddresses refresher =
@@ -2188,7 +2196,7 @@ public class InstanceCertManagerTest {
         assertEquals(instanceProviderCertIPBlocks.get("zts-svc-token-provider").size(),
                 instanceManager.getInstanceCertIPBlocks().get("zts-svc-token-provider").size());
 
-        List<IPBlock> certIPBlocks = instanceProviderCertIPBlocks.get("zts-svc-token-provider");
+        IPPrefixTrie certIPBlocks = instanceProviderCertIPBlocks.get("zts-svc-token-provider");
         assertTrue(instanceManager.verifyIPAddressAccess("10.1.3.25", certIPBlocks));
         assertTrue(instanceManager.verifyIPAddressAccess("10.0.0.1", certIPBlocks));
 
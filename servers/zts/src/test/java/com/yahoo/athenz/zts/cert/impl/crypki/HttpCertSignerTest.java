@@ -2,6 +2,7 @@ package com.yahoo.athenz.zts.cert.impl.crypki;
 
 import static org.mockito.Mockito.times;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
@@ -12,14 +13,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.ConnectException;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 
+import com.yahoo.athenz.common.metrics.Metric;
 import com.yahoo.athenz.common.server.cert.Priority;
 import com.yahoo.athenz.instance.provider.InstanceProvider;
 import com.yahoo.athenz.zts.ResourceException;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
 import org.mockito.Mockito;
 import org.testng.Assert;
@@ -538,5 +548,312 @@ public class HttpCertSignerTest {
 
         System.clearProperty(ZTSConsts.ZTS_PROP_CERTSIGN_PROVIDER_KEYS_FNAME);
     }
-}
 
+    private HttpCertSigner createAsyncCertSigner(CloseableHttpAsyncClient httpAsyncClient) {
+
+        System.setProperty(ZTSConsts.ZTS_PROP_CERTSIGN_ASYNC_MODE, "true");
+        HttpCertSignerFactory certFactory = new HttpCertSignerFactory();
+        HttpCertSigner certSigner = (HttpCertSigner) certFactory.create();
+        System.clearProperty(ZTSConsts.ZTS_PROP_CERTSIGN_ASYNC_MODE);
+
+        certSigner.setHttpAsyncClient(httpAsyncClient);
+        certSigner.metric = Mockito.mock(Metric.class);
+        return certSigner;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockAsyncResponse(CloseableHttpAsyncClient httpAsyncClient, int statusCode, String content) {
+        Mockito.when(httpAsyncClient.execute(Mockito.any(SimpleHttpRequest.class), Mockito.any(FutureCallback.class)))
+                .thenAnswer(invocation -> {
+                    FutureCallback<SimpleHttpResponse> callback = invocation.getArgument(1);
+                    callback.completed(content == null ? SimpleHttpResponse.create(statusCode) :
+                            SimpleHttpResponse.create(statusCode, content, ContentType.APPLICATION_JSON));
+                    return null;
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockAsyncFailure(CloseableHttpAsyncClient httpAsyncClient, Exception ex) {
+        Mockito.when(httpAsyncClient.execute(Mockito.any(SimpleHttpRequest.class), Mockito.any(FutureCallback.class)))
+                .thenAnswer(invocation -> {
+                    FutureCallback<SimpleHttpResponse> callback = invocation.getArgument(1);
+                    callback.failed(ex);
+                    return null;
+                });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGenerateX509CertificateAsync() {
+
+        CloseableHttpAsyncClient httpAsyncClient = Mockito.mock(CloseableHttpAsyncClient.class);
+        HttpCertSigner certSigner = createAsyncCertSigner(httpAsyncClient);
+        assertTrue(certSigner.asyncMode);
+
+        mockAsyncResponse(httpAsyncClient, 201, "{\"cert\": \"pem-value\"}");
+        assertEquals(certSigner.generateX509Certificate("aws", null, "csr", null, 0,
+                Priority.Unspecified_priority, null), "pem-value");
+        assertEquals(certSigner.generateX509Certificate("aws", null, "csr", InstanceProvider.ZTS_CERT_USAGE_CLIENT,
+                30, Priority.High, "keyid"), "pem-value");
+        Mockito.verify(httpAsyncClient, times(2)).execute(Mockito.any(SimpleHttpRequest.class),
+                Mockito.any(FutureCallback.class));
+
+        // all permits are released and no requests are pending
+
+        assertEquals(certSigner.inflightRequests.availablePermits(), certSigner.maxInflightRequests);
+        assertTrue(certSigner.pendingRequests.isEmpty());
+        Mockito.verify(certSigner.metric, times(2)).stopTiming(Mockito.any());
+        Mockito.verify(certSigner.metric, Mockito.atLeastOnce()).setGauge(HttpCertSigner.METRIC_ASYNC_INFLIGHT,
+                null, null, 1);
+
+        certSigner.close();
+    }
+
+    @Test
+    public void testGenerateX509CertificateAsyncInvalidResponse() {
+
+        CloseableHttpAsyncClient httpAsyncClient = Mockito.mock(CloseableHttpAsyncClient.class);
+        HttpCertSigner certSigner = createAsyncCertSigner(httpAsyncClient);
+
+        mockAsyncResponse(httpAsyncClient, 400, "{\"cert\": \"pem-value\"}");
+        assertNull(certSigner.generateX509Certificate("aws", null, "csr", null, 0, Priority.Unspecified_priority, null));
+
+        mockAsyncResponse(httpAsyncClient, 201, null);
+        assertNull(certSigner.generateX509Certificate("aws", null, "csr", null, 0, Priority.Unspecified_priority, null));
+
+        mockAsyncResponse(httpAsyncClient, 201, "");
+        assertNull(certSigner.generateX509Certificate("aws", null, "csr", null, 0, Priority.Unspecified_priority, null));
+
+        mockAsyncResponse(httpAsyncClient, 201, "invalid-json");
+        assertNull(certSigner.generateX509Certificate("aws", null, "csr", null, 0, Priority.Unspecified_priority, null));
+
+        assertEquals(certSigner.inflightRequests.availablePermits(), certSigner.maxInflightRequests);
+        certSigner.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGenerateX509CertificateAsyncRetry() {
+
+        CloseableHttpAsyncClient httpAsyncClient = Mockito.mock(CloseableHttpAsyncClient.class);
+        HttpCertSigner certSigner = createAsyncCertSigner(httpAsyncClient);
+
+        // connection failures are retried
+
+        mockAsyncFailure(httpAsyncClient, new ConnectException());
+        assertNull(certSigner.generateX509Certificate("aws", null, "csr", null, 0, Priority.Unspecified_priority, null));
+        Mockito.verify(httpAsyncClient, times(2)).execute(Mockito.any(SimpleHttpRequest.class),
+                Mockito.any(FutureCallback.class));
+
+        // other failures are not retried by default
+
+        Mockito.reset(httpAsyncClient);
+        mockAsyncFailure(httpAsyncClient, new IOException());
+        assertNull(certSigner.generateX509Certificate("aws", null, "csr", null, 0, Priority.Unspecified_priority, null));
+        Mockito.verify(httpAsyncClient, times(1)).execute(Mockito.any(SimpleHttpRequest.class),
+                Mockito.any(FutureCallback.class));
+
+        // cancelled and rejected requests are not retried
+
+        Mockito.reset(httpAsyncClient);
+        Mockito.when(httpAsyncClient.execute(Mockito.any(SimpleHttpRequest.class), Mockito.any(FutureCallback.class)))
+                .thenAnswer(invocation -> {
+                    FutureCallback<SimpleHttpResponse> callback = invocation.getArgument(1);
+                    callback.cancelled();
+                    return null;
+                });
+        assertNull(certSigner.generateX509Certificate("aws", null, "csr", null, 0, Priority.Unspecified_priority, null));
+
+        Mockito.reset(httpAsyncClient);
+        Mockito.when(httpAsyncClient.execute(Mockito.any(SimpleHttpRequest.class), Mockito.any(FutureCallback.class)))
+                .thenThrow(new IllegalStateException("client closed"));
+        assertNull(certSigner.generateX509Certificate("aws", null, "csr", null, 0, Priority.Unspecified_priority, null));
+
+        assertEquals(certSigner.inflightRequests.availablePermits(), certSigner.maxInflightRequests);
+        assertTrue(certSigner.pendingRequests.isEmpty());
+        certSigner.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGenerateX509CertificateAsyncCoalesced() throws Exception {
+
+        CloseableHttpAsyncClient httpAsyncClient = Mockito.mock(CloseableHttpAsyncClient.class);
+        HttpCertSigner certSigner = createAsyncCertSigner(httpAsyncClient);
+
+        AtomicReference<FutureCallback<SimpleHttpResponse>> callbackRef = new AtomicReference<>();
+        Mockito.when(httpAsyncClient.execute(Mockito.any(SimpleHttpRequest.class), Mockito.any(FutureCallback.class)))
+                .thenAnswer(invocation -> {
+                    callbackRef.set(invocation.getArgument(1));
+                    return null;
+                });
+
+        // identical requests submitted while the first one is still
+        // being processed share the same signer request
+
+        AtomicReference<String> result1 = new AtomicReference<>();
+        AtomicReference<String> result2 = new AtomicReference<>();
+        Thread thread1 = new Thread(() -> result1.set(certSigner.generateX509Certificate("aws", null, "csr",
+                null, 0, Priority.Unspecified_priority, null)));
+        thread1.start();
+        Mockito.verify(httpAsyncClient, Mockito.timeout(5000)).execute(Mockito.any(SimpleHttpRequest.class),
+                Mockito.any(FutureCallback.class));
+
+        Thread thread2 = new Thread(() -> result2.set(certSigner.generateX509Certificate("aws", null, "csr",
+                null, 0, Priority.Unspecified_priority, null)));
+        thread2.start();
+        Mockito.verify(certSigner.metric, Mockito.timeout(5000)).increment(HttpCertSigner.METRIC_ASYNC_COALESCED);
+
+        callbackRef.get().completed(SimpleHttpResponse.create(201, "{\"cert\": \"pem-value\"}",
+                ContentType.APPLICATION_JSON));
+        thread1.join();
+        thread2.join();
+
+        assertEquals(result1.get(), "pem-value");
+        assertEquals(result2.get(), "pem-value");
+        Mockito.verify(httpAsyncClient, times(1)).execute(Mockito.any(SimpleHttpRequest.class),
+                Mockito.any(FutureCallback.class));
+        assertTrue(certSigner.pendingRequests.isEmpty());
+
+        certSigner.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGenerateX509CertificateAsyncRejected() {
+
+        CloseableHttpAsyncClient httpAsyncClient = Mockito.mock(CloseableHttpAsyncClient.class);
+        HttpCertSigner certSigner = createAsyncCertSigner(httpAsyncClient);
+        certSigner.queueTimeoutMs = 10;
+
+        // with all permits in use the request is rejected without
+        // being sent to the signer
+
+        certSigner.inflightRequests.acquireUninterruptibly(certSigner.maxInflightRequests);
+        try {
+            certSigner.generateX509Certificate("aws", null, "csr", null, 0, Priority.Unspecified_priority, null);
+            fail();
+        } catch (ResourceException ex) {
+            assertEquals(ex.getCode(), ResourceException.SERVICE_UNAVAILABLE);
+        }
+        Mockito.verify(httpAsyncClient, times(0)).execute(Mockito.any(SimpleHttpRequest.class),
+                Mockito.any(FutureCallback.class));
+        Mockito.verify(certSigner.metric, times(1)).increment(HttpCertSigner.METRIC_ASYNC_REJECTED);
+        assertTrue(certSigner.pendingRequests.isEmpty());
+
+        certSigner.inflightRequests.release(certSigner.maxInflightRequests);
+        mockAsyncResponse(httpAsyncClient, 201, "{\"cert\": \"pem-value\"}");
+        assertEquals(certSigner.generateX509Certificate("aws", null, "csr", null, 0,
+                Priority.Unspecified_priority, null), "pem-value");
+
+        certSigner.close();
+    }
+
+    @Test
+    public void testAcquireRequestPermitsPerKey() {
+
+        HttpCertSigner certSigner = createAsyncCertSigner(Mockito.mock(CloseableHttpAsyncClient.class));
+        certSigner.queueTimeoutMs = 10;
+        certSigner.maxInflightRequestsPerKey = 1;
+
+        certSigner.acquireRequestPermits("key1");
+        certSigner.acquireRequestPermits("key2");
+        assertEquals(certSigner.inflightRequests.availablePermits(), certSigner.maxInflightRequests - 2);
+
+        // the per key limit is reached without holding a shared permit
+
+        try {
+            certSigner.acquireRequestPermits("key1");
+            fail();
+        } catch (ResourceException ex) {
+            assertEquals(ex.getCode(), ResourceException.SERVICE_UNAVAILABLE);
+        }
+        assertEquals(certSigner.inflightRequests.availablePermits(), certSigner.maxInflightRequests - 2);
+
+        // when the shared limit is reached the per key permit is returned
+
+        certSigner.inflightRequests.acquireUninterruptibly(certSigner.inflightRequests.availablePermits());
+        try {
+            certSigner.acquireRequestPermits("key3");
+            fail();
+        } catch (ResourceException ex) {
+            assertEquals(ex.getCode(), ResourceException.SERVICE_UNAVAILABLE);
+        }
+        assertEquals(certSigner.keyInflightRequests.get("key3").availablePermits(), 1);
+
+        certSigner.releaseRequestPermits("key1");
+        assertEquals(certSigner.keyInflightRequests.get("key1").availablePermits(), 1);
+        assertEquals(certSigner.inflightRequests.availablePermits(), 1);
+
+        // interrupted callers are rejected
+
+        Thread.currentThread().interrupt();
+        assertFalse(certSigner.tryAcquirePermit(new Semaphore(0)));
+        assertTrue(Thread.interrupted());
+
+        certSigner.close();
+    }
+
+    @Test
+    public void testWaitForAsyncResponse() {
+
+        HttpCertSigner certSigner = createAsyncCertSigner(Mockito.mock(CloseableHttpAsyncClient.class));
+        certSigner.asyncResponseTimeoutMs = 10;
+
+        // timeout waiting for the response
+
+        assertNull(certSigner.waitForAsyncResponse(new CompletableFuture<>(), "uri"));
+
+        // interrupted while waiting for the response
+
+        Thread.currentThread().interrupt();
+        assertNull(certSigner.waitForAsyncResponse(new CompletableFuture<>(), "uri"));
+        assertTrue(Thread.interrupted());
+
+        // failed requests
+
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(new IllegalStateException());
+        assertNull(certSigner.waitForAsyncResponse(future, "uri"));
+
+        future = new CompletableFuture<>();
+        future.completeExceptionally(new ResourceException(ResourceException.SERVICE_UNAVAILABLE));
+        try {
+            certSigner.waitForAsyncResponse(future, "uri");
+            fail();
+        } catch (ResourceException ex) {
+            assertEquals(ex.getCode(), ResourceException.SERVICE_UNAVAILABLE);
+        }
+
+        certSigner.close();
+    }
+
+    @Test
+    public void testLoadAsyncConfig() {
+
+        System.setProperty(ZTSConsts.ZTS_PROP_CERTSIGN_MAX_INFLIGHT, "0");
+        System.setProperty(ZTSConsts.ZTS_PROP_CERTSIGN_MAX_INFLIGHT_PER_KEY, "4");
+        System.setProperty(ZTSConsts.ZTS_PROP_CERTSIGN_QUEUE_TIMEOUT, "200");
+
+        HttpCertSigner certSigner = createAsyncCertSigner(Mockito.mock(CloseableHttpAsyncClient.class));
+        assertEquals(certSigner.maxInflightRequests, 64);
+        assertEquals(certSigner.maxInflightRequestsPerKey, 4);
+        assertEquals(certSigner.queueTimeoutMs, 200);
+        assertEquals(certSigner.asyncResponseTimeoutMs, 50000);
+        certSigner.close();
+
+        System.clearProperty(ZTSConsts.ZTS_PROP_CERTSIGN_MAX_INFLIGHT);
+        System.clearProperty(ZTSConsts.ZTS_PROP_CERTSIGN_MAX_INFLIGHT_PER_KEY);
+        System.clearProperty(ZTSConsts.ZTS_PROP_CERTSIGN_QUEUE_TIMEOUT);
+
+        System.setProperty(ZTSConsts.ZTS_PROP_CERTSIGN_METRIC_FACTORY_CLASS, "invalid.class");
+        try {
+            createAsyncCertSigner(Mockito.mock(CloseableHttpAsyncClient.class));
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertEquals(ex.getMessage(), "Invalid metric class");
+        }
+        System.clearProperty(ZTSConsts.ZTS_PROP_CERTSIGN_METRIC_FACTORY_CLASS);
+        System.clearProperty(ZTSConsts.ZTS_PROP_CERTSIGN_ASYNC_MODE);
+    }
+}
@@ -35,10 +35,17 @@ import java.nio.file.Paths;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.primitives.Bytes;
 import com.yahoo.athenz.auth.Principal;
+import com.yahoo.athenz.common.messaging.ChangePublisher;
+import com.yahoo.athenz.common.messaging.ChangeSubscriber;
+import com.yahoo.athenz.common.messaging.DomainChangeMessage;
+import com.yahoo.athenz.common.messaging.impl.InMemoryDomainChangePublisherFactory;
+import com.yahoo.athenz.common.messaging.impl.InMemoryDomainChangeSubscriberFactory;
 import com.yahoo.athenz.common.metrics.Metric;
 import com.yahoo.athenz.common.server.store.ChangeLogStore;
 import com.yahoo.athenz.common.server.util.ResourceUtils;
@@ -47,6 +54,7 @@ import com.yahoo.athenz.zts.ResourceException;
 import com.yahoo.athenz.zts.ZTSTestUtils;
 import com.yahoo.rdl.Timestamp;
 import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.testng.annotations.AfterMethod;
@@ -3321,6 +3329,387 @@ public class DataStoreTest {
         assertEquals(badDomains, -1);
     }
 
+    @Test
+    public void testProcessLocalDomainsParallel() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore setupStore = new DataStore(clogStore, null, ztsMetric);
+        setupStore.loadAthenzPublicKeys();
+
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final String domainName = "bootstrap" + i;
+            setupStore.processSignedDomain(createSignedDomain(domainName, "weather"), true);
+            list.add(domainName);
+        }
+
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+        store.domainBootstrapThreads = 4;
+        ((MockZMSFileChangeLogStore) store.changeLogStore).setDomainList(list);
+
+        int badDomains = store.processLocalDomains(list);
+        assertEquals(badDomains, 0);
+
+        // all domains are processed and merged into our shared caches
+
+        for (String domainName : list) {
+            assertNotNull(store.getDomainData(domainName));
+            assertNotNull(store.publicKeyCache.get(domainName + ".storage_0"));
+        }
+        assertEquals(store.hostCache.get("host1").size(), 20);
+    }
+
+    @Test
+    public void testProcessLocalDomainsSnapshot() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore setupStore = new DataStore(clogStore, null, ztsMetric);
+        setupStore.loadAthenzPublicKeys();
+
+        setupStore.processSignedDomain(createSignedDomain("coretech", "weather"), true);
+        SignedDomain signedDomain = createSignedDomain("sports", "weather");
+        setupStore.processSignedDomain(signedDomain, true);
+        clogStore.setLastModificationTimestamp("2014-01-01T12:00:00");
+        clogStore.saveLocalDomainSnapshot();
+
+        // update one of the domains after the snapshot was generated
+
+        signedDomain.getDomain().setYpmId(200);
+        signedDomain.setSignature(Crypto.sign(SignUtils.asCanonicalString(signedDomain.getDomain()), pkey));
+        setupStore.processSignedDomain(signedDomain, true);
+
+        // the snapshot is loaded by a new store instance
+
+        clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root", pkey, "0");
+        Metric metric = Mockito.mock(Metric.class);
+        DataStore store = Mockito.spy(new DataStore(clogStore, null, metric));
+        store.domainSnapshotEnabled = true;
+
+        List<String> list = Arrays.asList("coretech", "sports");
+        ((MockZMSFileChangeLogStore) store.changeLogStore).setDomainList(list);
+        assertEquals(store.processLocalDomains(list), 0);
+
+        // only the updated domain is validated
+
+        Mockito.verify(store, Mockito.times(1)).validateSignedDomain(ArgumentMatchers.any());
+        Mockito.verify(metric, Mockito.times(1)).increment("domain_snapshot_hit");
+        Mockito.verify(metric, Mockito.times(1)).increment("domain_snapshot_miss");
+
+        assertNotNull(store.getDomainData("coretech"));
+        assertEquals(store.getDomainData("sports").getYpmId().intValue(), 200);
+    }
+
+    @Test
+    public void testProcessSnapshotDomain() {
+
+        ChangeLogStore clogStore = Mockito.mock(ChangeLogStore.class);
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+
+        // disabled domains are removed from the cache
+
+        store.processDomainData(createSignedDomain("coretech", "weather").getDomain());
+        assertNotNull(store.getDomainData("coretech"));
+
+        Mockito.when(clogStore.getLocalSnapshotDomain("coretech"))
+                .thenReturn(new DomainData().setName("coretech").setEnabled(false));
+        assertTrue(store.processSnapshotDomain("coretech"));
+        assertNull(store.getDomainData("coretech"));
+
+        // any failures are reported so the local domain file is processed
+
+        Mockito.when(clogStore.getLocalSnapshotDomain("sports")).thenThrow(new IllegalArgumentException());
+        assertFalse(store.processSnapshotDomain("sports"));
+    }
+
+    @Test
+    public void testInitWithDomainSnapshot() {
+
+        MockZMSFileChangeLogStore clogStore = Mockito.spy(new MockZMSFileChangeLogStore(
+                "/tmp/zts_server_unit_tests/zts_root", pkey, "0"));
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+        store.domainSnapshotEnabled = true;
+        store.init();
+
+        Mockito.verify(clogStore, Mockito.timeout(5000)).saveLocalDomainSnapshot();
+        assertNotNull(store.snapshotThreadPool);
+        assertNotSame(store.snapshotThreadPool, store.scheduledThreadPool);
+        store.close();
+        assertTrue(store.snapshotThreadPool.isShutdown());
+
+        // snapshot is only generated once if the interval is not set
+
+        clogStore = Mockito.spy(new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root", pkey, "0"));
+        Mockito.doThrow(new IllegalStateException()).when(clogStore).saveLocalDomainSnapshot();
+        store = new DataStore(clogStore, null, ztsMetric);
+        store.domainSnapshotEnabled = true;
+        store.domainSnapshotInterval = 0;
+        store.init();
+
+        Mockito.verify(clogStore, Mockito.timeout(5000)).saveLocalDomainSnapshot();
+        store.close();
+    }
+
+    @Test
+    public void testProcessDomainDataIncrementalUpdate() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+        store.domainIncrementalUpdate = true;
+
+        store.processDomainData(createSignedDomain("coretech", "weather").getDomain());
+        DataCache originalCache = store.getCacheStore().getIfPresent("coretech");
+        assertNotNull(originalCache);
+
+        // update the writers role, delete the readers role and
+        // add a new role with wildcard members
+
+        DomainData domainData = createSignedDomain("coretech", "weather").getDomain();
+        List<Role> roles = domainData.getRoles();
+        roles.get(1).getRoleMembers().remove(1);
+        roles.get(1).getRoleMembers().add(new RoleMember().setMemberName("user_domain.user5"));
+        roles.remove(2);
+        roles.add(new Role().setName("coretech:role.all").setRoleMembers(new ArrayList<>(List.of(
+                new RoleMember().setMemberName("*"), new RoleMember().setMemberName("user_domain.test*")))));
+        store.processDomainData(domainData);
+
+        DataCache dataCache = store.getCacheStore().getIfPresent("coretech");
+        assertNotNull(dataCache);
+        assertNotSame(dataCache, originalCache);
+        assertSame(dataCache.getDomainData(), domainData);
+
+        // host and public key maps are shared with the original cache
+
+        assertSame(dataCache.getHostMap(), originalCache.getHostMap());
+        assertSame(dataCache.getPublicKeyMap(), originalCache.getPublicKeyMap());
+        assertEquals(store.getHostServices("host1").getNames(), Collections.singletonList("coretech.storage"));
+        assertNotNull(store.getPublicKey("coretech", "storage", "0"));
+
+        // the results must match a full rebuild of the cache
+
+        DataStore fullStore = new DataStore(clogStore, null, ztsMetric);
+        fullStore.processDomainData(createSignedDomain("coretech", "weather").getDomain());
+        fullStore.processDomainData(domainData);
+
+        for (String principal : Arrays.asList("user_domain.user", "user_domain.user1", "user_domain.user3",
+                "user_domain.user5", "user_domain.test1", "weather.api")) {
+            assertEquals(store.getRolesForPrincipal("coretech", principal),
+                    fullStore.getRolesForPrincipal("coretech", principal), principal);
+        }
+        assertEquals(store.getRolesForPrincipal("coretech", "user_domain.user1"),
+                new HashSet<>(Collections.singletonList("all")));
+        assertEquals(store.getRolesForPrincipal("coretech", "user_domain.user5"),
+                new HashSet<>(Arrays.asList("all", "writers")));
+        assertNull(dataCache.getRoleMeta("readers"));
+        assertNotNull(dataCache.getRoleMeta("all"));
+        assertNotNull(dataCache.getAccessPolicyIndex());
+
+        // the original cache is not modified
+
+        assertEquals(originalCache.getMemberRoleSet("user_domain.user1").size(), 1);
+        assertEquals(originalCache.getMemberRoleSet("user_domain.user3").size(), 1);
+        assertTrue(originalCache.getAllMemberRoleSet().isEmpty());
+        assertNotNull(originalCache.getRoleMeta("readers"));
+
+        // removing the trust role removes the trust domain entry
+
+        DomainData trustData = createSignedDomain("coretech", "weather").getDomain();
+        trustData.getRoles().remove(3);
+        store.processDomainData(trustData);
+        assertFalse(store.getCacheStore().getIfPresent("coretech").getTrustMap().containsKey("weather"));
+        assertTrue(dataCache.getTrustMap().containsKey("weather"));
+    }
+
+    @Test
+    public void testProcessDomainDataUpdateFullRebuild() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+
+        // domains not in the cache are not updated incrementally
+
+        assertFalse(store.processDomainDataUpdate(createSignedDomain("coretech", "weather").getDomain()));
+        store.processDomainData(createSignedDomain("coretech", "weather").getDomain());
+
+        // no changes in the domain
+
+        assertTrue(store.processDomainDataUpdate(createSignedDomain("coretech", "weather").getDomain()));
+
+        // modified policies, services or entities
+
+        DomainData domainData = createSignedDomain("coretech", "weather").getDomain();
+        domainData.getPolicies().getContents().getPolicies().get(0).getAssertions().get(0).setAction("write");
+        assertFalse(store.processDomainDataUpdate(domainData));
+
+        domainData = createSignedDomain("coretech", "weather").getDomain();
+        domainData.getServices().get(0).setHosts(Collections.singletonList("host2"));
+        assertFalse(store.processDomainDataUpdate(domainData));
+
+        domainData = createSignedDomain("coretech", "weather").getDomain();
+        domainData.setEntities(Collections.singletonList(new com.yahoo.athenz.zms.Entity()
+                .setName("coretech:entity.entity1")));
+        assertFalse(store.processDomainDataUpdate(domainData));
+
+        // roles referenced by assume_role and transport rule assertions
+
+        domainData = createSignedDomain("coretech", "weather").getDomain();
+        domainData.getPolicies().getContents().getPolicies().get(0).getAssertions().add(
+                new com.yahoo.athenz.zms.Assertion().setAction("assume_role").setRole("coretech:role.writers")
+                        .setResource("sports:role.readers"));
+        domainData.getPolicies().getContents().getPolicies().get(0).getAssertions().add(
+                new com.yahoo.athenz.zms.Assertion().setAction("TCP-IN:1024-65535:4443")
+                        .setRole("coretech:role.readers").setResource("coretech:api"));
+        store.processDomainData(domainData);
+
+        domainData = store.getDomainData("coretech");
+        DomainData updatedData = new DomainData().setName("coretech").setPolicies(domainData.getPolicies())
+                .setServices(domainData.getServices()).setRoles(new ArrayList<>(domainData.getRoles()));
+        updatedData.getRoles().set(0, new Role().setName("coretech:role.admin"));
+        assertTrue(store.processDomainDataUpdate(updatedData));
+
+        updatedData = new DomainData().setName("coretech").setPolicies(domainData.getPolicies())
+                .setServices(domainData.getServices()).setRoles(new ArrayList<>(domainData.getRoles()));
+        updatedData.getRoles().set(1, new Role().setName("coretech:role.writers"));
+        assertFalse(store.processDomainDataUpdate(updatedData));
+
+        updatedData = new DomainData().setName("coretech").setPolicies(domainData.getPolicies())
+                .setServices(domainData.getServices()).setRoles(new ArrayList<>(domainData.getRoles()));
+        updatedData.getRoles().remove(2);
+        assertFalse(store.processDomainDataUpdate(updatedData));
+
+        // system domain is always rebuilt
+
+        store.processDomainData(createSignedDomain("sys.auth", "weather").getDomain());
+        assertFalse(store.processDomainDataUpdate(createSignedDomain("sys.auth", "weather").getDomain()));
+    }
+
+    @Test
+    public void testGetPolicyMemberRoles() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+
+        assertTrue(store.getPolicyMemberRoles(new DomainData().setName("coretech")).isEmpty());
+        assertTrue(store.getPolicyMemberRoles(new DomainData().setName("coretech")
+                .setPolicies(new com.yahoo.athenz.zms.SignedPolicies())).isEmpty());
+
+        DomainData domainData = createSignedDomain("coretech", "weather").getDomain();
+        List<com.yahoo.athenz.zms.Policy> policies = domainData.getPolicies().getContents().getPolicies();
+        policies.get(0).getAssertions().add(new com.yahoo.athenz.zms.Assertion().setAction("assume_role")
+                .setRole("coretech:role.admin").setResource("sports:role.readers"));
+        policies.add(new com.yahoo.athenz.zms.Policy().setName("coretech:policy.inactive").setActive(false)
+                .setAssertions(Collections.singletonList(new com.yahoo.athenz.zms.Assertion()
+                        .setAction("assume_role").setRole("coretech:role.writers").setResource("sports:role.writers"))));
+        policies.add(new com.yahoo.athenz.zms.Policy().setName("coretech:policy.empty"));
+
+        assertEquals(store.getPolicyMemberRoles(domainData),
+                new HashSet<>(Arrays.asList("coretech:role.admin", "sports:role.readers")));
+    }
+
+    @Test
+    public void testProcessDomainGroupsUnmodified() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore store = Mockito.spy(new DataStore(clogStore, null, ztsMetric));
+
+        DomainData domainData = createSignedDomain("coretech", "weather").getDomain();
+        domainData.setGroups(new ArrayList<>(List.of(
+                new Group().setName("coretech:group.dev-team").setGroupMembers(new ArrayList<>(List.of(
+                        new GroupMember().setMemberName("user_domain.user1").setGroupName("coretech:group.dev-team")))),
+                new Group().setName("coretech:group.empty"))));
+        store.processDomainData(domainData);
+        Mockito.verify(store, Mockito.times(2)).processGroup(Mockito.any());
+
+        // processing the same groups again does not update the group members
+
+        DomainData updatedData = createSignedDomain("coretech", "weather").getDomain();
+        updatedData.setGroups(new ArrayList<>(List.of(
+                new Group().setName("coretech:group.dev-team").setGroupMembers(new ArrayList<>(List.of(
+                        new GroupMember().setMemberName("user_domain.user1").setGroupName("coretech:group.dev-team")))),
+                new Group().setName("coretech:group.empty"))));
+        store.processDomainData(updatedData);
+        Mockito.verify(store, Mockito.times(2)).processGroup(Mockito.any());
+        assertNotNull(store.principalGroupCache.getIfPresent("user_domain.user1"));
+
+        // modified and deleted groups are still processed
+
+        updatedData = createSignedDomain("coretech", "weather").getDomain();
+        updatedData.setGroups(new ArrayList<>(List.of(
+                new Group().setName("coretech:group.dev-team").setGroupMembers(new ArrayList<>(List.of(
+                        new GroupMember().setMemberName("user_domain.user2").setGroupName("coretech:group.dev-team")))))));
+        store.processDomainData(updatedData);
+        Mockito.verify(store, Mockito.times(3)).processGroup(Mockito.any());
+        Mockito.verify(store, Mockito.times(1)).processGroupDelete(Mockito.any());
+        assertTrue(store.principalGroupCache.getIfPresent("user_domain.user1").isEmpty());
+        assertEquals(store.principalGroupCache.getIfPresent("user_domain.user2").size(), 1);
+    }
+
+    @Test
+    public void testProcessLocalDomainsParallelBadDomains() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore setupStore = new DataStore(clogStore, null, ztsMetric);
+        setupStore.loadAthenzPublicKeys();
+
+        setupStore.processSignedDomain(createSignedDomain("coretech", "weather"), true);
+        setupStore.processSignedDomain(createSignedDomain("sports", "weather"), true);
+        setupStore.processSignedDomain(createSignedDomain("mail", "weather"), true);
+        setupStore.processSignedDomain(createSignedDomain("fantasy", "weather"), true);
+        setupStore.processSignedDomain(createSignedDomain("profile", "weather"), true);
+        setupStore.processSignedDomain(createSignedDomain("news", "weather"), true);
+        setupStore.processSignedDomain(createSignedDomain("politics", "weather"), true);
+        setupStore.processSignedDomain(createSignedDomain("finance", "weather"), true);
+
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+        store.domainBootstrapThreads = 4;
+        List<String> zmsList = new ArrayList<>(Arrays.asList("coretech", "sports", "mail", "fantasy", "profile",
+                "news", "politics", "finance", "invalid"));
+        ((MockZMSFileChangeLogStore) store.changeLogStore).setDomainList(zmsList);
+
+        // below the 1/4 threshold so we get back the number of bad domains
+
+        assertEquals(store.processLocalDomains(zmsList), 1);
+        assertNotNull(store.getDomainData("coretech"));
+
+        // with full refresh support any bad domain requires a full refresh
+
+        ((MockZMSFileChangeLogStore) store.changeLogStore).setRefreshSupport(true);
+        assertEquals(store.processLocalDomains(zmsList), -1);
+    }
+
+    @Test
+    public void testProcessLocalDomainsParallelFailures() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore store = Mockito.spy(new DataStore(clogStore, null, ztsMetric));
+        store.domainBootstrapThreads = 2;
+
+        List<String> list = Arrays.asList("coretech", "sports");
+
+        // unexpected exceptions from the worker threads require a full refresh
+
+        Mockito.doThrow(new IllegalStateException("unit-test")).when(store)
+                .processLocalDomain(ArgumentMatchers.anyString());
+        assertEquals(store.processLocalDomainsParallel(list), -1);
+
+        // same for the caller thread being interrupted
+
+        Mockito.doAnswer(invocation -> {
+            Thread.sleep(500);
+            return true;
+        }).when(store).processLocalDomain(ArgumentMatchers.anyString());
+        Thread.currentThread().interrupt();
+        assertEquals(store.processLocalDomainsParallel(list), -1);
+        assertTrue(Thread.interrupted());
+    }
+
     @Test
     public void testProcessSignedDomains() {
         ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
@@ -4840,6 +5229,63 @@ public class DataStoreTest {
         assertTrue(accessibleRoles.contains("role3"));
     }
 
+    @Test
+    public void testGetAccessibleRolesWithGroupsRolesCache() {
+
+        System.setProperty("athenz.zts.accessible_roles_cache_size", "100");
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root", pkey, "0");
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+        store.loadAthenzPublicKeys();
+        assertNotNull(store.principalRolesCache);
+
+        final String domainName = "access-domain";
+        ZTSTestUtils.setupDomainsWithGroups(store, pkey, domainName, Collections.emptyList());
+
+        // process the same requests twice so the second result
+        // is returned from our cache
+
+        DataCache data = store.getDataCache("access-domain1");
+        for (int i = 0; i < 2; i++) {
+            Set<String> accessibleRoles = new HashSet<>();
+            store.getAccessibleRoles(data, "access-domain1", "user.user1", null, false, accessibleRoles, false);
+            assertEquals(accessibleRoles, new HashSet<>(Arrays.asList("role1", "role2")));
+
+            accessibleRoles.clear();
+            store.getAccessibleRoles(data, "access-domain1", "user.user3", null, false, accessibleRoles, false);
+            assertEquals(accessibleRoles, new HashSet<>(Arrays.asList("role1", "role2", "role3", "role4")));
+
+            accessibleRoles.clear();
+            String[] requestedRoleList = { "role3" };
+            store.getAccessibleRoles(data, "access-domain1", "user.user3", requestedRoleList, true, accessibleRoles, false);
+            assertEquals(accessibleRoles, new HashSet<>(Collections.singletonList("role3")));
+        }
+        assertEquals(store.principalRolesCache.size(), 2);
+
+        // now we're going to delete group1, group4 and group6 so user1 will no longer have access to role1
+        // and role2 and user3 will no longer be in role4. the cached entries must be invalidated
+
+        ZTSTestUtils.setupDomainsWithGroups(store, pkey, domainName,
+                Arrays.asList("access-domain1:group.group1", "access-domain3:group.group6", "access-domain2:group.group4"));
+
+        data = store.getDataCache("access-domain1");
+
+        Set<String> accessibleRoles = new HashSet<>();
+        store.getAccessibleRoles(data, "access-domain1", "user.user1", null, false, accessibleRoles, false);
+        assertTrue(accessibleRoles.isEmpty());
+
+        accessibleRoles.clear();
+        store.getAccessibleRoles(data, "access-domain1", "user.user3", null, false, accessibleRoles, false);
+        assertEquals(accessibleRoles, new HashSet<>(Arrays.asList("role1", "role2", "role3")));
+
+        // deleting the domain must not return any roles
+
+        store.deleteDomain("access-domain1");
+        assertNull(store.getDataCache("access-domain1"));
+
+        System.clearProperty("athenz.zts.accessible_roles_cache_size");
+    }
+
     @Test
     public void testDomainDeleteWithGroups() {
 
@@ -5976,4 +6422,152 @@ public class DataStoreTest {
         assertNotNull(fetchedRole);
         assertEquals(fetchedRole.getName(), "coretech:role.admin");
     }
+
+    @Test
+    public void testInitWithChangeSubscribers() {
+
+        MockZMSFileChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        Metric metric = Mockito.mock(Metric.class);
+        DataStore store = new DataStore(clogStore, null, metric);
+
+        SignedDomains signedDomains = new SignedDomains();
+        signedDomains.setDomains(Collections.singletonList(createSignedDomain("coretech", "weather")));
+        clogStore.setSignedDomains(signedDomains);
+        clogStore.setDomainList(Collections.singletonList("coretech"));
+
+        ChangeSubscriber<DomainChangeMessage> subscriber = new InMemoryDomainChangeSubscriberFactory()
+                .create(null, "zts-datastore-test", "zts", "Exclusive");
+        store.setChangeSubscribers(Collections.singletonList(subscriber));
+        store.init();
+
+        // domain change messages are processed by the updater thread
+
+        ChangePublisher<DomainChangeMessage> publisher = new InMemoryDomainChangePublisherFactory()
+                .create(null, "zts-datastore-test");
+        publisher.publish(new DomainChangeMessage().setDomainName("coretech")
+                .setPublished(System.currentTimeMillis()));
+
+        Mockito.verify(metric, Mockito.timeout(5000)).setGauge(ArgumentMatchers.eq("domain_change_propagation_latency"),
+                ArgumentMatchers.eq("coretech"), ArgumentMatchers.isNull(), ArgumentMatchers.anyLong());
+        assertNotNull(store.getDomainData("coretech"));
+
+        store.close();
+        assertTrue(store.subscriberThreadPool.isShutdown());
+        assertTrue(store.scheduledThreadPool.isShutdown());
+    }
+
+    @Test
+    public void testClose() {
+
+        MockZMSFileChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+
+        // nothing started yet
+
+        store.close();
+
+        // subscriber failures must not prevent the other
+        // subscribers and threads from being stopped
+
+        ChangeSubscriber<DomainChangeMessage> subscriber1 = Mockito.mock(ChangeSubscriber.class);
+        Mockito.doThrow(new IllegalStateException("close failure")).when(subscriber1).close();
+        ChangeSubscriber<DomainChangeMessage> subscriber2 = Mockito.mock(ChangeSubscriber.class);
+        store.setChangeSubscribers(Arrays.asList(subscriber1, subscriber2));
+        store.subscriberThreadPool = Mockito.mock(ExecutorService.class);
+        store.scheduledThreadPool = Mockito.mock(ScheduledExecutorService.class);
+
+        store.close();
+
+        Mockito.verify(subscriber1, Mockito.times(1)).close();
+        Mockito.verify(subscriber2, Mockito.times(1)).close();
+        Mockito.verify(store.subscriberThreadPool, Mockito.times(1)).shutdownNow();
+        Mockito.verify(store.scheduledThreadPool, Mockito.times(1)).shutdownNow();
+    }
+
+    @Test
+    public void testSubmitDomainChangeMessage() {
+
+        MockZMSFileChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore store = Mockito.spy(new DataStore(clogStore, null, ztsMetric));
+        Mockito.doReturn(true).when(store).processDomainChangeMessage(ArgumentMatchers.any());
+        store.scheduledThreadPool = Mockito.mock(ScheduledExecutorService.class);
+
+        // messages without domain names are ignored
+
+        store.submitDomainChangeMessage(new DomainChangeMessage());
+        Mockito.verify(store.scheduledThreadPool, Mockito.never()).execute(ArgumentMatchers.any());
+
+        // multiple messages for the same domain are only processed once
+
+        DomainChangeMessage message = new DomainChangeMessage().setDomainName("coretech");
+        store.submitDomainChangeMessage(message);
+        store.submitDomainChangeMessage(new DomainChangeMessage().setDomainName("coretech"));
+        store.submitDomainChangeMessage(new DomainChangeMessage().setDomainName("sports"));
+
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(store.scheduledThreadPool, Mockito.times(2)).execute(captor.capture());
+        assertEquals(store.pendingDomainChanges, new HashSet<>(Arrays.asList("coretech", "sports")));
+
+        // once processed we can submit the domain again
+
+        captor.getAllValues().get(0).run();
+        Mockito.verify(store, Mockito.times(1)).processDomainChangeMessage(message);
+        assertEquals(store.pendingDomainChanges, Collections.singleton("sports"));
+
+        store.submitDomainChangeMessage(message);
+        Mockito.verify(store.scheduledThreadPool, Mockito.times(3)).execute(ArgumentMatchers.any());
+    }
+
+    @Test
+    public void testProcessDomainChangeMessage() {
+
+        MockZMSFileChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        Metric metric = Mockito.mock(Metric.class);
+        DataStore store = new DataStore(clogStore, null, metric);
+
+        // domain not available in zms
+
+        clogStore.setSignedDomains(null);
+        assertFalse(store.processDomainChangeMessage(new DomainChangeMessage().setDomainName("coretech")));
+        Mockito.verify(metric, Mockito.times(1)).increment("domain_change_failure", "coretech");
+        assertNull(store.getDomainData("coretech"));
+
+        SignedDomains signedDomains = new SignedDomains();
+        signedDomains.setDomains(Collections.singletonList(createSignedDomain("coretech", "weather")));
+        clogStore.setSignedDomains(signedDomains);
+
+        assertTrue(store.processDomainChangeMessage(new DomainChangeMessage().setDomainName("coretech")
+                .setPublished(System.currentTimeMillis() - 1000)));
+        assertNotNull(store.getDomainData("coretech"));
+        Mockito.verify(metric, Mockito.times(1)).setGauge(ArgumentMatchers.eq("domain_change_propagation_latency"),
+                ArgumentMatchers.eq("coretech"), ArgumentMatchers.isNull(), ArgumentMatchers.longThat(v -> v >= 1000));
+
+        // now the same with jws domains without published timestamp
+
+        store.jwsDomainSupport = true;
+        assertFalse(store.processDomainChangeMessage(new DomainChangeMessage().setDomainName("sports")));
+
+        JWSDomain jwsDomain = signJwsDomain(createSignedDomain("sports", "weather").getDomain(), "0");
+        clogStore.setJWSDomain("sports", jwsDomain);
+        assertTrue(store.processDomainChangeMessage(new DomainChangeMessage().setDomainName("sports")));
+        assertNotNull(store.getDomainData("sports"));
+        Mockito.verify(metric, Mockito.times(1)).setGauge(ArgumentMatchers.anyString(),
+                ArgumentMatchers.anyString(), ArgumentMatchers.any(), ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    public void testProcessDomainChangeMessageException() {
+
+        ChangeLogStore clogStore = Mockito.mock(ChangeLogStore.class);
+        Mockito.when(clogStore.getServerSignedDomain("coretech")).thenThrow(new IllegalStateException("failure"));
+        Metric metric = Mockito.mock(Metric.class);
+        DataStore store = new DataStore(clogStore, null, metric);
+
+        assertFalse(store.processDomainChangeMessage(new DomainChangeMessage().setDomainName("coretech")));
+        Mockito.verify(metric, Mockito.times(1)).increment("domain_change_failure", "coretech");
+    }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.store;
+
+import com.yahoo.athenz.common.metrics.Metric;
+import com.yahoo.athenz.zts.cache.DataCache;
+import com.yahoo.athenz.zms.Role;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+public class PrincipalRolesCacheTest {
+
+    @Test
+    public void testGenerateRequestKey() {
+        assertEquals(PrincipalRolesCache.generateRequestKey("coretech", null, false, false), "coretech:00");
+        assertEquals(PrincipalRolesCache.generateRequestKey("coretech", null, true, false), "coretech:10");
+        assertEquals(PrincipalRolesCache.generateRequestKey("coretech", new String[] { "readers", "writers" },
+                false, true), "coretech:01:readers,writers");
+    }
+
+    @Test
+    public void testGetPutRoles() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        PrincipalRolesCache cache = new PrincipalRolesCache(10, 60, metric);
+
+        DataCache dataCache = new DataCache();
+        final String key = PrincipalRolesCache.generateRequestKey("coretech", null, false, false);
+        assertNull(cache.getRoles("user.joe", key, dataCache));
+        Mockito.verify(metric, Mockito.times(1)).increment(PrincipalRolesCache.METRIC_CACHE_MISS);
+
+        cache.putRoles("user.joe", key, dataCache, cache.getGenerations(),
+                new HashSet<>(Collections.singletonList("readers")));
+        assertEquals(cache.getRoles("user.joe", key, dataCache), Collections.singleton("readers"));
+        Mockito.verify(metric, Mockito.times(1)).increment(PrincipalRolesCache.METRIC_CACHE_HIT);
+        assertEquals(cache.size(), 1);
+
+        // domain updates have no impact on domains without trust
+
+        cache.domainUpdated();
+        assertNotNull(cache.getRoles("user.joe", key, dataCache));
+
+        // new data cache object for the domain invalidates the entry
+
+        assertNull(cache.getRoles("user.joe", key, new DataCache()));
+
+        // invalidating the principal removes the entry
+
+        cache.invalidatePrincipal("user.joe");
+        assertNull(cache.getRoles("user.joe", key, dataCache));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testPutRolesMembershipUpdated() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        PrincipalRolesCache cache = new PrincipalRolesCache(10, 60, metric);
+
+        DataCache dataCache = new DataCache();
+        final String key = PrincipalRolesCache.generateRequestKey("coretech", null, false, false);
+
+        // membership updated while computing roles so the entry is not added
+
+        long[] generations = cache.getGenerations();
+        cache.invalidatePrincipal("user.jane");
+        cache.putRoles("user.joe", key, dataCache, generations, new HashSet<>());
+        assertNull(cache.getRoles("user.joe", key, dataCache));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testGetRolesTrustDomain() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        PrincipalRolesCache cache = new PrincipalRolesCache(10, 60, metric);
+
+        DataCache dataCache = new DataCache();
+        Role role = new Role().setName("coretech:role.readers").setTrust("weather");
+        dataCache.processRole(role);
+        final String key = PrincipalRolesCache.generateRequestKey("coretech", null, false, false);
+
+        cache.putRoles("user.joe", key, dataCache, cache.getGenerations(),
+                new HashSet<>(Collections.singletonList("readers")));
+        assertNotNull(cache.getRoles("user.joe", key, dataCache));
+
+        // any domain update invalidates entries for domains with trust
+
+        cache.domainUpdated();
+        assertNull(cache.getRoles("user.joe", key, dataCache));
+    }
+
+    @Test
+    public void testGetRolesExpired() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        PrincipalRolesCache cache = new PrincipalRolesCache(10, 60, metric);
+
+        DataCache dataCache = new DataCache();
+        PrincipalRolesCache.PrincipalRoles entry = new PrincipalRolesCache.PrincipalRoles(dataCache, -1,
+                System.currentTimeMillis() - 1000, Collections.emptySet());
+        assertFalse(cache.isValidEntry(entry, dataCache));
+
+        entry = new PrincipalRolesCache.PrincipalRoles(dataCache, -1,
+                System.currentTimeMillis() + 1000, Collections.emptySet());
+        assertTrue(cache.isValidEntry(entry, dataCache));
+    }
+
+    @Test
+    public void testPutRolesMaxRequests() {
+
+        Metric metric = Mockito.mock(Metric.class);
+        PrincipalRolesCache cache = new PrincipalRolesCache(10, 60, metric);
+
+        DataCache dataCache = new DataCache();
+        for (int i = 0; i < PrincipalRolesCache.MAX_PRINCIPAL_REQUESTS; i++) {
+            final String key = PrincipalRolesCache.generateRequestKey("coretech", new String[] { "role" + i },
+                    false, false);
+            cache.putRoles("user.joe", key, dataCache, cache.getGenerations(), new HashSet<>());
+        }
+
+        final String key0 = PrincipalRolesCache.generateRequestKey("coretech", new String[] { "role0" },
+                false, false);
+        assertNotNull(cache.getRoles("user.joe", key0, dataCache));
+
+        // adding one more entry resets our principal entry
+
+        final String key = PrincipalRolesCache.generateRequestKey("coretech", null, false, false);
+        cache.putRoles("user.joe", key, dataCache, cache.getGenerations(), new HashSet<>());
+        assertNotNull(cache.getRoles("user.joe", key, dataCache));
+        assertNull(cache.getRoles("user.joe", key0, dataCache));
+    }
+}